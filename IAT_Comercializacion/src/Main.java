@@ -1,51 +1,195 @@
 // Importación de clases necesarias
 import OrganizadordeClases.*; // Importa todas las clases del paquete OrganizadordeClases
+import java.io.BufferedWriter; // Para escribir los archivos de facturas con buffer
+import java.io.FileOutputStream; // Para el archivo binario de facturas
+import java.io.FileWriter; // Para los archivos de texto de facturas
+import java.io.IOException; // Para errores al leer o guardar los datos de clientes
+import java.io.OutputStream; // Destino del archivo binario de facturas
+import java.io.UncheckedIOException; // Errores de disco informados por ClienteService
+import java.io.Writer; // Destino de los archivos de texto de facturas
 import java.math.BigDecimal; // Para manejar valores monetarios con precisión
-import java.util.ArrayList; // Para usar listas dinámicas
+import java.net.InetSocketAddress; // Dirección donde escucha la API HTTP
+import java.nio.file.Files; // Para crear la carpeta de datos antes del volcado de métricas
+import java.nio.file.Path; // Para indicar la carpeta de datos
 import java.util.List; // Para usar interfaces de listas
+import java.util.NoSuchElementException; // Cuando no hay consola en modo servidor
 import java.util.Scanner; // Para leer entrada del usuario
 
 public class Main {
+    // Carpeta donde se guardan los clientes entre ejecuciones
+    private static final String CARPETA_DATOS = "Datos";
+
+    // Archivo con las reglas de IVA y descuentos (se recarga solo cuando cambia)
+    private static final String ARCHIVO_REGLAS = "reglas_precio.properties";
+
+    // Archivo con las métricas de latencia en formato Prometheus (se reescribe cada 15 segundos)
+    private static final String ARCHIVO_METRICAS = "metricas.prom";
+
     // Instancia del servicio de clientes (para operaciones CRUD)
-    private static ClienteService clienteService = new ClienteService();
+    private static ClienteService clienteService;
     // Instancia del servicio de facturas
     private static FacturaService facturaService = new FacturaService();
     // Scanner para leer entrada del usuario
     private static Scanner scanner = new Scanner(System.in);
+    // Reportes de archivo en segundo plano: 2 a la vez y hasta 16 en espera
+    private static PlanificadorReportes planificador = new PlanificadorReportes(2, 16);
 
     // Método principal - Punto de entrada de la aplicación
     public static void main(String[] args) {
         // Mensaje de bienvenida
         System.out.println("🍶 BIENVENIDO A IAT PRODUCTOS LÁCTEOS ARTESANALES 🐄");
 
+        // Guardar periódicamente las métricas de latencia junto a los datos
+        iniciarVolcadoMetricas();
+
+        // Recuperar los clientes guardados en ejecuciones anteriores
+        clienteService = abrirClienteService();
+
+        // Cargar las reglas de precio; todas las facturas usan las reglas vigentes
+        ReglasPrecio reglas = abrirReglasPrecio();
+        ReglasPrecio.usar(reglas);
+
+        // Con --servidor se atienden las terminales por HTTP en lugar de mostrar el menú
+        boolean modoServidor = args.length > 0 && args[0].equals("--servidor");
+        if (modoServidor) {
+            ejecutarServidor(args);
+        }
+
         // Variable para controlar el bucle principal
-        boolean salir = false;
+        boolean salir = modoServidor;
         while (!salir) {
             // Mostrar menú principal
             mostrarMenuPrincipal();
             // Leer opción del usuario (número entre 1 y 6)
             int opcion = leerEntero(scanner, 1, 6);
 
-            // Switch para manejar las opciones del menú
-            switch (opcion) {
-                case 1 -> gestionarClientes(); // Gestión CRUD de clientes
-                case 2 -> generarFactura();    // Generar facturas
-                case 3 -> generarReportes();   // Generar reportes
-                case 4 -> listarClientes();    // Listar todos los clientes
-                case 5 -> buscarCliente();     // Buscar cliente específico
-                case 6 -> salir = confirmarSalida(); // Salir del programa
-                default -> System.out.println("Opción no válida.");
+            try {
+                // Switch para manejar las opciones del menú
+                switch (opcion) {
+                    case 1 -> gestionarClientes(); // Gestión CRUD de clientes
+                    case 2 -> generarFactura();    // Generar facturas
+                    case 3 -> generarReportes();   // Generar reportes
+                    case 4 -> listarClientes();    // Listar todos los clientes
+                    case 5 -> buscarCliente();     // Buscar cliente específico
+                    case 6 -> salir = confirmarSalida(); // Salir del programa
+                    default -> System.out.println("Opción no válida.");
+                }
+            } catch (UncheckedIOException e) {
+                // El cambio no se aplicó porque no se pudo guardar en disco
+                System.out.println("⚠ Error al guardar los datos: " + e.getMessage());
             }
         }
 
+        // Esperar a que terminen los reportes que se están escribiendo
+        if (!planificador.cerrar(60)) {
+            System.out.println("⚠ Algunos reportes no terminaron a tiempo y pueden quedar incompletos.");
+        }
+
+        // Guardar una instantánea de los clientes y cerrar los archivos de datos
+        try {
+            clienteService.cerrar();
+        } catch (IOException e) {
+            System.out.println("⚠ Error al cerrar los datos de clientes: " + e.getMessage());
+        }
+
+        // La revisión de las reglas no escribe en la consola; su último error se avisa al salir
+        if (reglas.getErrorRecarga() != null) {
+            System.out.println("⚠ Error en las reglas de precio: " + reglas.getErrorRecarga().getMessage()
+                    + ". Se usaron las reglas anteriores.");
+        }
+        reglas.cerrar();
+
+        // Último volcado de métricas con los valores finales de la sesión
+        Metricas.detenerVolcado();
+
         // Mensaje de despedida
         System.out.println("¡Gracias por usar el Sistema de Gestión Comercial IAT PRODUCTOS LÁCTEOS SAS 👋");
         // Cerrar scanner para liberar recursos
         scanner.close();
     }
 
+    /**
+     * Empieza a guardar las métricas en la carpeta de datos. Si la carpeta no se puede crear,
+     * las métricas siguen disponibles por JMX y en /metricas del modo servidor.
+     */
+    private static void iniciarVolcadoMetricas() {
+        try {
+            Files.createDirectories(Path.of(CARPETA_DATOS));
+            Metricas.iniciarVolcado(Path.of(CARPETA_DATOS, ARCHIVO_METRICAS), 15);
+        } catch (IOException e) {
+            System.out.println("⚠ No se guardarán las métricas: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Abre el servicio de clientes persistente. Si la carpeta de datos no se puede leer,
+     * continúa solo en memoria para no impedir el uso del sistema.
+     * @return Servicio de clientes listo para usar
+     */
+    private static ClienteService abrirClienteService() {
+        try {
+            ClienteService servicio = new ClienteService(Path.of(CARPETA_DATOS));
+            System.out.println("✔ Clientes cargados (" + servicio.contarClientes() + " clientes)");
+            return servicio;
+        } catch (IOException e) {
+            System.out.println("⚠ Error al cargar los clientes: " + e.getMessage()
+                    + ". Se trabajará solo en memoria.");
+            return new ClienteService();
+        }
+    }
+
+    /**
+     * Inicia la API HTTP sobre los mismos clientes y facturas del menú y la mantiene activa
+     * hasta que se presione Enter. Si no hay consola (por ejemplo, como servicio del sistema),
+     * el servidor sigue atendiendo hasta que se detenga el proceso.
+     * Uso: Main --servidor [puerto] [dirección], por omisión 8080 en 127.0.0.1
+     * @param args Argumentos de la línea de comandos
+     */
+    private static void ejecutarServidor(String[] args) {
+        int puerto = args.length > 1 ? Integer.parseInt(args[1]) : ServidorHttp.PUERTO_PREDETERMINADO;
+        String direccion = args.length > 2 ? args[2] : "127.0.0.1";
+        ServidorHttp servidor = new ServidorHttp(clienteService, facturaService);
+        try {
+            servidor.iniciar(new InetSocketAddress(direccion, puerto));
+        } catch (IOException e) {
+            System.out.println("⚠ No se pudo iniciar el servidor: " + e.getMessage());
+            return;
+        }
+        // Si el proceso termina con Ctrl+C, dejar de aceptar solicitudes antes de salir
+        Thread detenerAlSalir = new Thread(() -> servidor.detener(1));
+        Runtime.getRuntime().addShutdownHook(detenerAlSalir);
+
+        System.out.println("✔ API disponible en http://" + direccion + ":" + servidor.getPuerto()
+                + " (/clientes, /facturas, /metricas)");
+        System.out.println("Presione Enter para detener el servidor.");
+        try {
+            scanner.nextLine();
+        } catch (NoSuchElementException e) {
+            // Sin consola: atender solicitudes hasta que el proceso reciba la señal de terminar
+            try {
+                Thread.currentThread().join();
+            } catch (InterruptedException interrumpido) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        servidor.detener(2);
+        Runtime.getRuntime().removeShutdownHook(detenerAlSalir);
+        System.out.println("✔ Servidor detenido");
+    }
+
+    /**
+     * Carga las reglas de precio de la carpeta de datos. Si el archivo tiene errores,
+     * continúa con las reglas predeterminadas (IVA 19%, mayoristas 15%, minoristas 5%)
+     * y las reemplaza en cuanto se corrija el archivo.
+     * @return Reglas de precio listas para usar
+     */
+    private static ReglasPrecio abrirReglasPrecio() {
+        return ReglasPrecio.desdeArchivo(Path.of(CARPETA_DATOS, ARCHIVO_REGLAS));
+    }
+
     /**
      * Método para validar que un NIT sea numérico, positivo y de máximo 12 dígitos
+     * (acepta también el formato número-dígito de verificación, p. ej. 900123456-8)
      * @param mensaje Mensaje a mostrar al usuario
      * @return NIT válido como String
      */
@@ -55,29 +199,16 @@ public class Main {
             // Leer entrada y eliminar espacios en blanco
             String input = scanner.nextLine().trim();
 
-            // Validar que solo contenga dígitos
-            if (!input.matches("\\d+")) {
-                System.out.println("Error: Solo se permiten caracteres numéricos (0-9)");
+            // Validar dígitos, longitud máxima, valor positivo y dígito de verificación si lo hay
+            String error = ValidadorNit.error(input);
+            if (error != null) {
+                System.out.println("Error: " + error);
                 continue;
             }
 
-            // Validar longitud máxima de 12 dígitos
-            if (input.length() > 12) {
-                System.out.println("Error: El NIT no puede exceder los 12 dígitos");
-                continue;
-            }
-
-            try {
-                // Convertir a número y validar que sea positivo
-                long nit = Long.parseLong(input);
-                if (nit <= 0) {
-                    System.out.println("Error: El NIT debe ser mayor que cero");
-                    continue;
-                }
-                return input;
-            } catch (NumberFormatException e) {
-                System.out.println("Error: Valor numérico inválido");
-            }
+            // Devolver el NIT sin el dígito de verificación
+            int guion = input.indexOf('-');
+            return guion >= 0 ? input.substring(0, guion) : input;
         }
     }
 
@@ -147,16 +278,40 @@ public class Main {
         System.out.println("1. Añadir nuevo cliente");
         System.out.println("2. Actualizar cliente");
         System.out.println("3. Eliminar cliente");
-        System.out.println("4. Volver al menú principal");
+        System.out.println("4. Importar clientes desde CSV");
+        System.out.println("5. Volver al menú principal");
         System.out.print("Elige una opción: ");
 
-        int opcion = leerEntero(scanner, 1, 4);
+        int opcion = leerEntero(scanner, 1, 5);
 
         switch (opcion) {
             case 1 -> agregarCliente(); // Agregar nuevo cliente
             case 2 -> actualizarCliente(); // Actualizar cliente existente
             case 3 -> eliminarCliente(); // Eliminar cliente
-            case 4 -> { return; } // Volver al menú principal
+            case 4 -> importarClientes(); // Carga masiva desde un archivo CSV
+            case 5 -> { return; } // Volver al menú principal
+        }
+    }
+
+    /**
+     * Método para importar clientes desde un archivo CSV con las columnas del reporte CSV
+     */
+    private static void importarClientes() {
+        System.out.print("Ruta del archivo CSV: ");
+        String ruta = scanner.nextLine().trim();
+        try {
+            ImportadorClientes.Resultado resultado = new ImportadorClientes(clienteService).importar(Path.of(ruta));
+            System.out.println("✅ " + resultado);
+            // Mostrar algunas filas rechazadas para que el usuario pueda corregirlas
+            List<ImportadorClientes.Rechazo> rechazos = resultado.getRechazos();
+            for (int i = 0; i < Math.min(rechazos.size(), 20); i++) {
+                System.out.println("  ✖ " + rechazos.get(i));
+            }
+            if (resultado.getRechazados() > 20) {
+                System.out.println("  ... y " + (resultado.getRechazados() - 20) + " filas rechazadas más");
+            }
+        } catch (IOException e) {
+            System.out.println("Error al leer el archivo: " + e.getMessage());
         }
     }
 
@@ -190,9 +345,12 @@ public class Main {
                 new ClienteMayorista(id, nombre, monto, direccion, telefono) :
                 new ClienteMinorista(id, nombre, monto, direccion, telefono);
 
-        // Agregar cliente al servicio
-        clienteService.agregarCliente(cliente);
-        System.out.println("✅ Cliente añadido correctamente!");
+        // Agregar cliente al servicio, sin reemplazar uno que ya tenga ese NIT
+        if (clienteService.agregarClienteNuevo(cliente)) {
+            System.out.println("✅ Cliente añadido correctamente!");
+        } else {
+            System.out.println("⚠ Ya existe un cliente con el NIT " + id + ". Use la opción de actualizar.");
+        }
     }
 
     /**
@@ -343,9 +501,26 @@ public class Main {
     }
 
     /**
-     * Método para generar una factura
+     * Método para generar facturas: de un cliente o de todos los clientes en lote
      */
     private static void generarFactura() {
+        System.out.println("\n--- GENERAR FACTURA ---");
+        System.out.println("1. Factura de un cliente");
+        System.out.println("2. Facturar todos los clientes (archivo CSV)");
+        System.out.println("3. Volver al menú principal");
+        System.out.print("Opción: ");
+
+        switch (leerEntero(scanner, 1, 3)) {
+            case 1 -> generarFacturaCliente();
+            case 2 -> facturarTodos();
+            case 3 -> { return; } // Volver al menú principal
+        }
+    }
+
+    /**
+     * Método para generar la factura de un cliente
+     */
+    private static void generarFacturaCliente() {
         // Solicitar NIT del cliente
         String id = leerNitValido("\nIngresa el número de identificación del cliente: ");
 
@@ -358,48 +533,166 @@ public class Main {
         }
     }
 
+    /**
+     * Método para facturar todos los clientes y guardar las facturas en un archivo
+     */
+    private static void facturarTodos() {
+        if (clienteService.contarClientes() == 0) {
+            System.out.println("No hay clientes para facturar.");
+            return;
+        }
+        System.out.println("\nSeleccione el formato del archivo:");
+        System.out.println("1. CSV (.csv)");
+        System.out.println("2. Texto (.txt)");
+        System.out.println("3. Binario (.bin)");
+        System.out.print("Opción: ");
+        int formato = leerEntero(scanner, 1, 3);
+
+        System.out.print("Ingrese el nombre del archivo (sin extensión): ");
+        String nombreArchivo = scanner.nextLine();
+        FacturacionLote lote = new FacturacionLote(facturaService);
+        try {
+            FacturacionLote.Resumen resumen;
+            switch (formato) {
+                case 2 -> {
+                    try (Writer writer = new BufferedWriter(new FileWriter(nombreArchivo + ".txt"), 1 << 20)) {
+                        resumen = lote.facturar(clienteService.iterarClientes(), new RenderizadorFacturaTexto(writer));
+                    }
+                }
+                case 3 -> {
+                    try (OutputStream salida = new FileOutputStream(nombreArchivo + ".bin")) {
+                        resumen = lote.facturar(clienteService.iterarClientes(), new RenderizadorFacturaBinario(salida));
+                    }
+                }
+                default -> resumen = lote.facturar(clienteService.iterarClientes(), nombreArchivo);
+            }
+            System.out.println("✅ Facturas generadas correctamente!");
+            System.out.println(resumen);
+        } catch (IOException e) {
+            System.out.println("Error al generar las facturas: " + e.getMessage());
+        }
+    }
+
     /**
      * Método para generar reportes de clientes
      */
     private static void generarReportes() {
         System.out.println("\n--- GENERAR REPORTES ---");
-        // Obtener lista de clientes con el tipo específico
-        List<OrganizadordeClases.Cliente> clientes = new ArrayList<>(clienteService.listarClientes());
 
-        if (clientes.isEmpty()) {
-            System.out.println("No hay clientes para generar reportes.");
-            return;
-        }
-
-        // Mostrar opciones de reporte
-        System.out.println("\nSeleccione el formato del reporte:");
+        // Mostrar opciones de reporte; los archivos se generan en segundo plano
+        System.out.println("\nSeleccione una opción:");
         System.out.println("1. Mostrar en consola");
         System.out.println("2. Generar archivo de texto (.txt)");
         System.out.println("3. Generar archivo CSV (.csv)");
-        System.out.println("4. Volver al menú principal");
+        System.out.println("4. Ver reportes en curso");
+        System.out.println("5. Cancelar un reporte");
+        System.out.println("6. Análisis de clientes (totales, percentiles, top 10)");
+        System.out.println("7. Volver al menú principal");
         System.out.print("Opción: ");
 
-        int opcionReporte = leerEntero(scanner, 1, 4);
+        int opcionReporte = leerEntero(scanner, 1, 7);
 
         switch (opcionReporte) {
             case 1 -> { // Mostrar reporte en consola
+                // Los reportes recorren los clientes directamente del servicio, sin copiarlos a una lista
+                if (clienteService.contarClientes() == 0) {
+                    System.out.println("No hay clientes para generar reportes.");
+                    return;
+                }
                 System.out.println("\n--- REPORTE DE CLIENTES ---");
-                clientes.forEach(Main::mostrarDetallesCliente);
-                System.out.println("\nTotal clientes: " + clientes.size());
+                clienteService.iterarClientes().forEachRemaining(Main::mostrarDetallesCliente);
+                System.out.println("\nTotal clientes: " + clienteService.contarClientes());
             }
-            case 2 -> { // Generar reporte en archivo de texto
-                System.out.print("Ingrese el nombre del archivo (sin extensión): ");
-                String nombreArchivo = scanner.nextLine();
-                boolean resultado = ReporteService.generarReporteTexto(clientes, nombreArchivo);
-                System.out.println(resultado ? "✅ Reporte generado correctamente!" : "Error al generar reporte");
+            case 2 -> programarReporte(PlanificadorReportes.Formato.TEXTO);
+            case 3 -> programarReporte(PlanificadorReportes.Formato.CSV);
+            case 4 -> { // Avance de los reportes de esta sesión
+                List<PlanificadorReportes.Trabajo> trabajos = planificador.listarTrabajos();
+                if (trabajos.isEmpty()) {
+                    System.out.println("No se han programado reportes.");
+                }
+                trabajos.forEach(trabajo -> System.out.println("  " + trabajo));
             }
-            case 3 -> { // Generar reporte en archivo CSV
-                System.out.print("Ingrese el nombre del archivo (sin extensión): ");
-                String nombreArchivo = scanner.nextLine();
-                boolean resultado = ReporteService.generarReporteCSV(clientes, nombreArchivo);
-                System.out.println(resultado ? "✅ Reporte CSV generado correctamente!" : "Error al generar reporte CSV");
+            case 5 -> { // Cancelar un reporte en cola o en curso
+                System.out.print("Número del reporte a cancelar: ");
+                int id = leerEntero(scanner, 1, Integer.MAX_VALUE);
+                System.out.println(planificador.cancelar(id)
+                        ? "✅ Reporte #" + id + " cancelado."
+                        : "No hay un reporte pendiente con ese número.");
             }
-            case 4 -> { return; } // Volver al menú principal
+            case 6 -> analizarClientes();
+            case 7 -> { return; } // Volver al menú principal
+        }
+    }
+
+    /**
+     * Analiza todos los clientes en paralelo, muestra el resumen y permite exportarlo a TXT y CSV
+     */
+    private static void analizarClientes() {
+        if (clienteService.contarClientes() == 0) {
+            System.out.println("No hay clientes para analizar.");
+            return;
+        }
+        MotorAnalitica.Resultado resultado = MotorAnalitica.analizar(clienteService, 10);
+
+        System.out.println("\n--- ANÁLISIS DE CLIENTES ---");
+        for (MotorAnalitica.EstadisticasTipo tipo : resultado.getPorTipo()) {
+            mostrarEstadisticas(tipo);
+        }
+        mostrarEstadisticas(resultado.getTodos());
+        System.out.println("\nClientes con mayor monto de compra:");
+        int posicion = 1;
+        for (Cliente cliente : resultado.getTop()) {
+            System.out.println("  " + posicion++ + ". " + cliente.getNombre() + " (" + cliente.getIdentificacion()
+                    + "): $" + cliente.getMontoCompra());
+        }
+        System.out.println("Análisis hecho en " + resultado.getMilisegundos() + " ms");
+
+        System.out.print("\n¿Desea exportar el análisis a TXT y CSV? (s/n): ");
+        if (!scanner.nextLine().equalsIgnoreCase("s")) {
+            return;
+        }
+        System.out.print("Ingrese el nombre del archivo (sin extensión): ");
+        String nombreArchivo = scanner.nextLine();
+        if (ReporteService.generarReporteAnaliticaTexto(resultado, nombreArchivo)
+                && ReporteService.generarReporteAnaliticaCSV(resultado, nombreArchivo)) {
+            System.out.println("✅ Análisis guardado en " + nombreArchivo + ".txt y " + nombreArchivo + ".csv");
+        } else {
+            System.out.println("⚠ No se pudo guardar el análisis.");
+        }
+    }
+
+    /**
+     * Muestra las estadísticas de un tipo de cliente (o del total)
+     * @param tipo Estadísticas a mostrar
+     */
+    private static void mostrarEstadisticas(MotorAnalitica.EstadisticasTipo tipo) {
+        System.out.println("\n" + tipo.getTipo() + ": " + tipo.getClientes() + " clientes");
+        System.out.println("  Monto total: $" + tipo.getMontoTotal() + "  Promedio: $" + tipo.getPromedio());
+        System.out.println("  Mínimo: $" + tipo.getMinimo() + "  Máximo: $" + tipo.getMaximo());
+        System.out.println("  P50: $" + tipo.getP50() + "  P90: $" + tipo.getP90() + "  P99: $" + tipo.getP99());
+        System.out.println("  IVA: $" + tipo.getIvaTotal() + "  Descuentos: $" + tipo.getDescuentoTotal()
+                + "  Total a pagar: $" + tipo.getTotalPagar());
+    }
+
+    /**
+     * Programa un reporte de archivo con los clientes de este momento y vuelve de inmediato al menú
+     * @param formato Formato del archivo
+     */
+    private static void programarReporte(PlanificadorReportes.Formato formato) {
+        // La instantánea se toma ahora: los cambios posteriores no entran en este reporte
+        List<Cliente> clientes = clienteService.instantaneaClientes();
+        if (clientes.isEmpty()) {
+            System.out.println("No hay clientes para generar reportes.");
+            return;
+        }
+        System.out.print("Ingrese el nombre del archivo (sin extensión): ");
+        String nombreArchivo = scanner.nextLine();
+        try {
+            PlanificadorReportes.Trabajo trabajo = planificador.programar(formato, clientes, nombreArchivo);
+            System.out.println("✅ Reporte #" + trabajo.getId() + " en preparación (" + clientes.size()
+                    + " clientes). Puede seguir trabajando; consulte su avance en la opción 4.");
+        } catch (IllegalStateException e) {
+            System.out.println("⚠ " + e.getMessage());
         }
     }
 
@@ -0,0 +1,576 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para leer y escribir datos binarios con buffer
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+// Importaciones para montos con precisión
+import java.math.BigDecimal;
+import java.math.BigInteger;
+// Importaciones de NIO para canales de archivo, sincronización a disco y renombrado atómico
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+// Suma de verificación para detectar registros incompletos o corruptos
+import java.util.zip.CRC32C;
+
+/**
+ * Motor de almacenamiento persistente para los clientes.
+ *
+ * Usa dos archivos dentro del directorio de datos:
+ * - clientes.snap: instantánea compacta con todos los clientes vivos, en orden.
+ * - clientes.wal: registro de escritura anticipada (write-ahead log) donde se agrega,
+ *   al final, una entrada por cada alta, actualización o baja desde la última instantánea.
+ *
+ * Cada entrada del registro lleva su longitud y un CRC32C. Si el programa se interrumpe a mitad
+ * de una escritura, la entrada incompleta se descarta al abrir y el archivo se recorta.
+ * Ambos archivos guardan un número de generación: la instantánea se escribe en un archivo temporal
+ * y se renombra de forma atómica, y solo después se reinicia el registro con la nueva generación.
+ * Un registro de una generación anterior a la instantánea ya está incluido en ella y se ignora.
+ * Entre el renombrado y el reinicio se sincroniza la carpeta: el renombrado vive en la carpeta,
+ * no en el archivo, y sin esa sincronización una caída podría dejar en disco el registro vacío
+ * junto a la instantánea anterior, perdiendo todo lo confirmado desde ella.
+ *
+ * Si una escritura falla a medias, el registro se recorta hasta la última entrada completa:
+ * la reproducción se detiene en la primera entrada dañada, así que una entrada a medias en el
+ * medio haría perder todas las que se escribieran después. Si ni siquiera se puede recortar,
+ * el almacén rechaza las escrituras siguientes.
+ */
+public class AlmacenClientes {
+
+    /**
+     * Número mínimo de entradas en el registro para compactar. Con muchos clientes se espera
+     * además a que el registro tenga tantas entradas como la instantánea, para que una carga
+     * masiva no reescriba la instantánea completa varias veces.
+     */
+    public static final int ENTRADAS_PARA_COMPACTAR = 100_000;
+
+    private static final String ARCHIVO_INSTANTANEA = "clientes.snap";
+    private static final String ARCHIVO_REGISTRO = "clientes.wal";
+
+    private static final int MAGICO_INSTANTANEA = 0x49415443; // "IATC"
+    private static final int MAGICO_REGISTRO = 0x49415457;    // "IATW"
+    private static final int VERSION = 1;
+    private static final int TAMANO_CABECERA_REGISTRO = 16;   // mágico + versión + generación
+
+    private static final byte OP_ALTA = 1;
+    private static final byte OP_ACTUALIZACION = 2;
+    private static final byte OP_BAJA = 3;
+
+    private static final byte TIPO_MINORISTA = 0;
+    private static final byte TIPO_MAYORISTA = 1;
+
+    private static final int TAMANO_BUFFER = 1 << 20;
+
+    private final Path directorio;
+    private final Path rutaInstantanea;
+    private final Path rutaRegistro;
+
+    /** Canal abierto sobre el registro, posicionado al final */
+    private FileChannel registro;
+
+    /** Generación actual de la instantánea y del registro */
+    private long generacion;
+
+    /** Entradas escritas en el registro desde la última instantánea */
+    private int entradasEnRegistro;
+
+    /** Clientes guardados en la última instantánea */
+    private int clientesEnInstantanea;
+
+    /** Bytes escritos en el registro y en las instantáneas desde que se abrió el almacén */
+    private long bytesEscritos;
+
+    /** Bytes leídos de la instantánea y del registro en la última recuperación */
+    private long bytesLeidos;
+
+    /**
+     * Error que dejó el registro inutilizable (una entrada a medias que no se pudo recortar, o una
+     * instantánea renombrada que no se pudo sincronizar); null si el registro está bien
+     */
+    private IOException fallo;
+
+    // Bloque reutilizable donde se juntan las entradas de un lote para escribirlas juntas
+    private ByteBuffer bloqueLote;
+
+    // Buffer reutilizable para codificar cada entrada antes de escribirla
+    private final BufferReutilizable bufferEntrada = new BufferReutilizable();
+    private final DataOutputStream salidaEntrada = new DataOutputStream(bufferEntrada);
+    private final CRC32C crc = new CRC32C();
+
+    /**
+     * Abre (o crea) el almacén en el directorio indicado.
+     * Para cargar los clientes guardados hay que llamar a {@link #recuperar(Receptor)}.
+     * @param directorio Carpeta donde viven la instantánea y el registro
+     * @throws IOException si no se puede crear la carpeta
+     */
+    public AlmacenClientes(Path directorio) throws IOException {
+        this.directorio = directorio;
+        this.rutaInstantanea = directorio.resolve(ARCHIVO_INSTANTANEA);
+        this.rutaRegistro = directorio.resolve(ARCHIVO_REGISTRO);
+        Files.createDirectories(directorio);
+    }
+
+    /**
+     * Carga la instantánea y vuelve a aplicar el registro, en orden.
+     * Al terminar, el registro queda abierto para agregar nuevas entradas.
+     *
+     * @param receptor Destino de cada cliente guardado y de cada baja registrada
+     * @throws IOException si la instantánea está dañada o no se puede leer
+     */
+    public void recuperar(Receptor receptor) throws IOException {
+        generacion = 0;
+        clientesEnInstantanea = 0;
+        bytesLeidos = 0;
+        fallo = null;
+        if (Files.exists(rutaInstantanea)) {
+            try (FileChannel canal = FileChannel.open(rutaInstantanea, StandardOpenOption.READ)) {
+                bytesLeidos += canal.size();
+                LectorBinario in = new LectorBinario(canal);
+                if (in.leerInt() != MAGICO_INSTANTANEA || in.leerInt() != VERSION) {
+                    throw new IOException("La instantánea de clientes no tiene un formato reconocido");
+                }
+                generacion = in.leerLong();
+                int total = in.leerInt();
+                clientesEnInstantanea = total;
+                for (int i = 0; i < total; i++) {
+                    long nit = in.leerLong();
+                    receptor.guardar(nit, leerCliente(in));
+                }
+            }
+        }
+
+        long posicionValida = TAMANO_CABECERA_REGISTRO;
+        boolean registroVigente = false;
+        if (Files.exists(rutaRegistro) && Files.size(rutaRegistro) >= TAMANO_CABECERA_REGISTRO) {
+            try (FileChannel canal = FileChannel.open(rutaRegistro, StandardOpenOption.READ)) {
+                LectorBinario in = new LectorBinario(canal);
+                registroVigente = in.leerInt() == MAGICO_REGISTRO
+                        && in.leerInt() == VERSION
+                        && in.leerLong() == generacion;
+                if (registroVigente) {
+                    posicionValida += reproducirRegistro(in, receptor);
+                    bytesLeidos += posicionValida;
+                }
+            }
+        }
+
+        if (registroVigente) {
+            registro = FileChannel.open(rutaRegistro, StandardOpenOption.WRITE);
+            // Descarta una posible entrada incompleta al final
+            registro.truncate(posicionValida);
+            registro.position(posicionValida);
+        } else {
+            // No hay registro, o pertenece a una generación ya incluida en la instantánea
+            reiniciarRegistro();
+        }
+    }
+
+    /**
+     * Agrega al registro el alta de un cliente.
+     * @param nit NIT del cliente
+     * @param cliente Cliente nuevo
+     * @throws IOException si no se puede escribir
+     */
+    public void registrarAlta(long nit, Cliente cliente) throws IOException {
+        escribirEntrada(OP_ALTA, nit, cliente);
+    }
+
+    /**
+     * Agrega al registro el alta de varios clientes, escribiéndolos por bloques grandes
+     * en lugar de una escritura por cliente. Como las demás operaciones, no sincroniza.
+     * @param nits NIT de cada cliente, en paralelo a "clientes"
+     * @param clientes Clientes nuevos
+     * @param total Número de clientes a registrar
+     * @throws IOException si no se puede escribir
+     */
+    public void registrarAltas(long[] nits, Cliente[] clientes, int total) throws IOException {
+        if (bloqueLote == null) {
+            bloqueLote = ByteBuffer.allocate(TAMANO_BUFFER);
+        }
+        bloqueLote.clear();
+        // Si falla cualquier bloque se quita el lote completo: quien llama no aplica ninguna alta
+        long inicio = inicioDeEscritura();
+        try {
+            for (int i = 0; i < total; i++) {
+                ByteBuffer entrada = codificarEntrada(OP_ALTA, nits[i], clientes[i]);
+                if (entrada.remaining() > bloqueLote.remaining()) {
+                    escribirTodo(bloqueLote.flip());
+                    bloqueLote.clear();
+                }
+                if (entrada.remaining() > bloqueLote.capacity()) {
+                    escribirTodo(entrada);
+                } else {
+                    bloqueLote.put(entrada);
+                }
+            }
+            escribirTodo(bloqueLote.flip());
+        } catch (IOException e) {
+            descartarDesde(inicio, e);
+            throw e;
+        }
+        entradasEnRegistro += total;
+    }
+
+    /**
+     * Agrega al registro la actualización de un cliente.
+     * @param nit NIT del cliente
+     * @param cliente Nuevos datos del cliente
+     * @throws IOException si no se puede escribir
+     */
+    public void registrarActualizacion(long nit, Cliente cliente) throws IOException {
+        escribirEntrada(OP_ACTUALIZACION, nit, cliente);
+    }
+
+    /**
+     * Agrega al registro la baja de un cliente.
+     * @param nit NIT del cliente eliminado
+     * @throws IOException si no se puede escribir
+     */
+    public void registrarBaja(long nit) throws IOException {
+        escribirEntrada(OP_BAJA, nit, null);
+    }
+
+    /**
+     * Fuerza a disco las entradas escritas. Se llama una vez por operación o por lote.
+     * @throws IOException si el sistema operativo no puede sincronizar el archivo
+     */
+    public void sincronizar() throws IOException {
+        registro.force(false);
+    }
+
+    /**
+     * @return true si el registro ya es lo bastante largo como para compactarlo
+     */
+    public boolean necesitaCompactar() {
+        return entradasEnRegistro >= Math.max(ENTRADAS_PARA_COMPACTAR, clientesEnInstantanea);
+    }
+
+    /**
+     * Escribe una nueva instantánea con los clientes vivos y reinicia el registro.
+     * @param nits NIT de cada cliente, en paralelo a "clientes"
+     * @param clientes Clientes vivos, en el orden en que deben recuperarse
+     * @param total Número de clientes a escribir
+     * @throws IOException si no se puede escribir la instantánea
+     */
+    public void compactar(long[] nits, Cliente[] clientes, int total) throws IOException {
+        long nuevaGeneracion = generacion + 1;
+        Path temporal = directorio.resolve(ARCHIVO_INSTANTANEA + ".tmp");
+
+        try (FileChannel canal = FileChannel.open(temporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(canal), TAMANO_BUFFER));
+            out.writeInt(MAGICO_INSTANTANEA);
+            out.writeInt(VERSION);
+            out.writeLong(nuevaGeneracion);
+            out.writeInt(total);
+            for (int i = 0; i < total; i++) {
+                out.writeLong(nits[i]);
+                escribirCliente(out, clientes[i]);
+            }
+            out.flush();
+            canal.force(true);
+            bytesEscritos += canal.size();
+        }
+        Files.move(temporal, rutaInstantanea, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        try {
+            sincronizarDirectorio();
+        } catch (IOException e) {
+            // La instantánea nueva ya tiene la generación siguiente: al abrir se ignoraría todo lo que
+            // se agregue al registro actual, así que se rechazan las escrituras hasta volver a compactar.
+            fallo = e;
+            throw e;
+        }
+
+        generacion = nuevaGeneracion;
+        clientesEnInstantanea = total;
+        reiniciarRegistro();
+    }
+
+    /**
+     * Fuerza a disco la carpeta de datos, para que los renombrados y archivos nuevos sobrevivan
+     * a una caída. Windows no permite abrir una carpeta como canal; ahí no hace nada.
+     * @throws IOException si el sistema operativo no puede sincronizar la carpeta
+     */
+    void sincronizarDirectorio() throws IOException {
+        FileChannel canal;
+        try {
+            canal = FileChannel.open(directorio, StandardOpenOption.READ);
+        } catch (IOException e) {
+            if (System.getProperty("os.name", "").startsWith("Windows")) {
+                return;
+            }
+            throw e;
+        }
+        try (canal) {
+            canal.force(true);
+        }
+    }
+
+    /**
+     * @return Bytes escritos en el registro y en las instantáneas desde que se abrió el almacén
+     */
+    public long getBytesEscritos() {
+        return bytesEscritos;
+    }
+
+    /**
+     * @return Bytes leídos de la instantánea y del registro en la última recuperación
+     */
+    public long getBytesLeidos() {
+        return bytesLeidos;
+    }
+
+    /**
+     * Cierra el registro. Las entradas ya sincronizadas quedan en disco.
+     * @throws IOException si ocurre un error al cerrar
+     */
+    public void cerrar() throws IOException {
+        if (registro != null) {
+            registro.close();
+            registro = null;
+        }
+    }
+
+    // ============ REGISTRO ============ //
+
+    private void escribirEntrada(byte operacion, long nit, Cliente cliente) throws IOException {
+        long inicio = inicioDeEscritura();
+        try {
+            escribirTodo(codificarEntrada(operacion, nit, cliente));
+        } catch (IOException e) {
+            descartarDesde(inicio, e);
+            throw e;
+        }
+        entradasEnRegistro++;
+    }
+
+    /**
+     * @return Posición del final de la última entrada completa, donde empieza la siguiente
+     * @throws IOException si una escritura anterior dejó el registro inutilizable
+     */
+    private long inicioDeEscritura() throws IOException {
+        if (fallo != null) {
+            throw new IOException("El registro de clientes quedó inutilizable por un error anterior", fallo);
+        }
+        return registro.position();
+    }
+
+    /**
+     * Quita lo escrito desde "inicio" tras un error, para que las entradas siguientes no queden
+     * detrás de una entrada a medias. Si no se puede recortar, marca el almacén como fallido.
+     */
+    private void descartarDesde(long inicio, IOException error) {
+        try {
+            registro.truncate(inicio);
+            registro.position(inicio);
+        } catch (IOException e) {
+            error.addSuppressed(e);
+            fallo = error;
+        }
+    }
+
+    /**
+     * Codifica una entrada completa (longitud, CRC y datos) en el buffer reutilizable.
+     * @return Vista del buffer con la entrada; es válida hasta la próxima llamada
+     */
+    private ByteBuffer codificarEntrada(byte operacion, long nit, Cliente cliente) throws IOException {
+        bufferEntrada.reset();
+        // Se reserva espacio para la longitud y el CRC, que se completan al final
+        salidaEntrada.writeLong(0);
+        salidaEntrada.writeByte(operacion);
+        salidaEntrada.writeLong(nit);
+        if (cliente != null) {
+            escribirCliente(salidaEntrada, cliente);
+        }
+
+        byte[] datos = bufferEntrada.datos();
+        int longitudCarga = bufferEntrada.size() - 8;
+        crc.reset();
+        crc.update(datos, 8, longitudCarga);
+        ByteBuffer entrada = ByteBuffer.wrap(datos, 0, bufferEntrada.size());
+        entrada.putInt(0, longitudCarga);
+        entrada.putInt(4, (int) crc.getValue());
+        return entrada;
+    }
+
+    private void escribirTodo(ByteBuffer datos) throws IOException {
+        while (datos.hasRemaining()) {
+            bytesEscritos += registro.write(datos);
+        }
+    }
+
+    /**
+     * Aplica las entradas del registro hasta el final o hasta la primera entrada dañada.
+     * @return Número de bytes válidos leídos después de la cabecera
+     */
+    private long reproducirRegistro(LectorBinario in, Receptor receptor) throws IOException {
+        long leidos = 0;
+        byte[] carga = new byte[256];
+        entradasEnRegistro = 0;
+        while (true) {
+            int longitud;
+            int crcEsperado;
+            try {
+                longitud = in.leerInt();
+                crcEsperado = in.leerInt();
+                if (longitud <= 0 || longitud > (1 << 24)) {
+                    return leidos;
+                }
+                if (carga.length < longitud) {
+                    carga = new byte[Math.max(longitud, carga.length * 2)];
+                }
+                in.leerBytes(carga, 0, longitud);
+            } catch (EOFException e) {
+                // Entrada incompleta al final: se escribió solo una parte antes de la caída
+                return leidos;
+            }
+            crc.reset();
+            crc.update(carga, 0, longitud);
+            if ((int) crc.getValue() != crcEsperado) {
+                return leidos;
+            }
+
+            LectorBinario entrada = new LectorBinario(carga, longitud);
+            byte operacion = entrada.leerByte();
+            long nit = entrada.leerLong();
+            if (operacion == OP_BAJA) {
+                receptor.eliminar(nit);
+            } else {
+                receptor.guardar(nit, leerCliente(entrada));
+            }
+            leidos += 8 + longitud;
+            entradasEnRegistro++;
+        }
+    }
+
+    private void reiniciarRegistro() throws IOException {
+        cerrar();
+        registro = FileChannel.open(rutaRegistro, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        ByteBuffer cabecera = ByteBuffer.allocate(TAMANO_CABECERA_REGISTRO);
+        cabecera.putInt(MAGICO_REGISTRO).putInt(VERSION).putLong(generacion).flip();
+        while (cabecera.hasRemaining()) {
+            bytesEscritos += registro.write(cabecera);
+        }
+        registro.force(true);
+        // Si el registro no existía, su entrada en la carpeta también debe llegar al disco
+        sincronizarDirectorio();
+        entradasEnRegistro = 0;
+        // El registro nuevo no arrastra la entrada a medias del anterior
+        fallo = null;
+    }
+
+    // ============ CODIFICACIÓN DE CLIENTES ============ //
+
+    private static void escribirCliente(DataOutputStream out, Cliente cliente) throws IOException {
+        out.writeByte(cliente instanceof ClienteMayorista ? TIPO_MAYORISTA : TIPO_MINORISTA);
+        escribirTexto(out, cliente.getIdentificacion());
+        escribirTexto(out, cliente.getNombre());
+        escribirMonto(out, cliente.getMontoCompra());
+        escribirTexto(out, cliente.getDireccion());
+        escribirTexto(out, cliente.getTelefono());
+    }
+
+    private static Cliente leerCliente(LectorBinario in) throws IOException {
+        byte tipo = in.leerByte();
+        String identificacion = in.leerTexto();
+        String nombre = in.leerTexto();
+        BigDecimal monto = leerMonto(in);
+        String direccion = in.leerTexto();
+        String telefono = in.leerTexto();
+        return tipo == TIPO_MAYORISTA
+                ? new ClienteMayorista(identificacion, nombre, monto, direccion, telefono)
+                : new ClienteMinorista(identificacion, nombre, monto, direccion, telefono);
+    }
+
+    /**
+     * Escribe un texto como longitud (int) seguida de sus bytes en UTF-8; null se guarda como -1.
+     */
+    static void escribirTexto(DataOutputStream out, String texto) throws IOException {
+        if (texto == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Los montos casi siempre caben en un long con escala 2; en ese caso se guardan en 9 bytes
+     * más la escala. Los que no caben se guardan con su valor sin escala completo.
+     */
+    static void escribirMonto(DataOutputStream out, BigDecimal monto) throws IOException {
+        BigInteger sinEscala = monto.unscaledValue();
+        out.writeInt(monto.scale());
+        if (sinEscala.bitLength() < 64) {
+            out.writeBoolean(true);
+            out.writeLong(sinEscala.longValue());
+        } else {
+            out.writeBoolean(false);
+            byte[] bytes = sinEscala.toByteArray();
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Escribe un monto en centavos con el mismo formato que escribirMonto usa para escala 2.
+     */
+    static void escribirCentavos(DataOutputStream out, long centavos) throws IOException {
+        out.writeInt(2);
+        out.writeBoolean(true);
+        out.writeLong(centavos);
+    }
+
+    private static BigDecimal leerMonto(LectorBinario in) throws IOException {
+        int escala = in.leerInt();
+        if (in.leerBoolean()) {
+            return BigDecimal.valueOf(in.leerLong(), escala);
+        }
+        byte[] bytes = new byte[in.leerInt()];
+        in.leerBytes(bytes, 0, bytes.length);
+        return new BigDecimal(new BigInteger(bytes), escala);
+    }
+
+    /**
+     * Recibe las operaciones recuperadas de disco, en el orden en que ocurrieron.
+     */
+    public interface Receptor {
+        /**
+         * Alta o actualización: el cliente reemplaza al que tenga el mismo NIT.
+         * @param nit NIT del cliente
+         * @param cliente Datos del cliente
+         */
+        void guardar(long nit, Cliente cliente);
+
+        /**
+         * Baja del cliente con el NIT indicado.
+         * @param nit NIT del cliente eliminado
+         */
+        void eliminar(long nit);
+    }
+
+    /**
+     * ByteArrayOutputStream que expone su arreglo interno para no copiarlo en cada entrada.
+     */
+    private static final class BufferReutilizable extends ByteArrayOutputStream {
+        BufferReutilizable() {
+            super(256);
+        }
+
+        byte[] datos() {
+            return buf;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para los archivos temporales de los reportes
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+
+// Importaciones de colecciones y utilidades
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Banco de pruebas de rendimiento de las rutas más usadas, sin dependencias externas.
+ *
+ * Mide, para cada número de clientes indicado:
+ * - búsqueda por NIT en ClienteService y en {@link ClienteServiceFueraDeHeap} (con un 10% de NIT inexistentes)
+ * - cálculo de facturas en FacturaService (en centavos) y con el cálculo anterior en BigDecimal
+ * - análisis completo de {@link MotorAnalitica} (tiempo por cliente)
+ * - escritura de los reportes TXT y CSV de ReporteService (y el CSV paralelo desde 100.000 clientes)
+ * - memoria por cliente de una lista de objetos Cliente frente a {@link TablaClientesColumnar}
+ *
+ * Cada caso se ejecuta primero unas iteraciones de calentamiento (para que el JIT compile el
+ * código) y luego las iteraciones medidas; se muestra el tiempo por operación como media ±
+ * desviación estándar y las operaciones por segundo. El resultado de cada operación se acumula
+ * en un campo volatile para que el JIT no pueda eliminar el trabajo medido.
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java -Xmx8g OrganizadordeClases.BancoRendimiento [--escalas 1000,100000,10000000]
+ *      [--iteraciones 5] [--calentamiento 3] [--caso texto]
+ * </pre>
+ * --caso ejecuta solo los casos cuyo nombre contiene el texto. Los reportes se escriben en la
+ * carpeta de reportes con el prefijo "banco_" y se borran al terminar.
+ *
+ * Es para comprobaciones rápidas; la línea base con JMH a 1.000, 100.000 y 10.000.000 clientes
+ * está en el módulo IAT_Rendimiento.
+ */
+public final class BancoRendimiento {
+
+    // Búsquedas por iteración; se repiten NIT de una tabla para no medir la creación de textos
+    private static final int BUSQUEDAS_POR_ITERACION = 1_000_000;
+    private static final int NIT_DISTINTOS = 1 << 16;
+
+    // Primer NIT de los clientes de prueba
+    static final long PRIMER_NIT = 800_000_000L;
+
+    // Acumula los resultados de las operaciones medidas
+    private static volatile long sumidero;
+
+    private final int iteraciones;
+    private final int calentamiento;
+    private final String filtro;
+
+    private BancoRendimiento(int iteraciones, int calentamiento, String filtro) {
+        this.iteraciones = iteraciones;
+        this.calentamiento = calentamiento;
+        this.filtro = filtro;
+    }
+
+    /**
+     * Un caso de prueba: ejecuta una iteración y devuelve un valor que depende del trabajo hecho.
+     */
+    private interface Caso {
+        long ejecutar() throws Exception;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] escalas = {1_000, 100_000};
+        int iteraciones = 5;
+        int calentamiento = 3;
+        String filtro = "";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--escalas" -> escalas = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                case "--iteraciones" -> iteraciones = Integer.parseInt(args[i + 1]);
+                case "--calentamiento" -> calentamiento = Integer.parseInt(args[i + 1]);
+                case "--caso" -> filtro = args[i + 1];
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        System.out.printf("Java %s, %d núcleos, memoria máxima %d MB%n", System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-28s %12s %22s %16s%n", "Caso", "Clientes", "ns/op (media ± desv)", "ops/s");
+
+        BancoRendimiento banco = new BancoRendimiento(iteraciones, calentamiento, filtro);
+        for (int escala : escalas) {
+            banco.ejecutarEscala(escala);
+        }
+    }
+
+    private void ejecutarEscala(int escala) throws Exception {
+        List<Cliente> clientes = crearClientes(escala);
+        ClienteService clienteService = new ClienteService();
+        clienteService.agregarClientes(clientes);
+        FacturaService facturaService = new FacturaService();
+
+        // NIT a buscar: el 90% existe y el 10% no
+        SplittableRandom azar = new SplittableRandom(42);
+        String[] nits = new String[NIT_DISTINTOS];
+        for (int i = 0; i < nits.length; i++) {
+            long desplazamiento = azar.nextInt(10) == 0 ? escala + azar.nextInt(escala) : azar.nextInt(escala);
+            nits[i] = Long.toString(PRIMER_NIT + desplazamiento);
+        }
+
+        medir("ClienteService.buscarPorId", escala, BUSQUEDAS_POR_ITERACION, () -> {
+            long encontrados = 0;
+            for (int i = 0; i < BUSQUEDAS_POR_ITERACION; i++) {
+                if (clienteService.buscarPorId(nits[i & (NIT_DISTINTOS - 1)]) != null) {
+                    encontrados++;
+                }
+            }
+            return encontrados;
+        });
+
+        if ("ClienteServiceFueraDeHeap.buscarPorId".contains(filtro)) {
+            ClienteServiceFueraDeHeap fueraDeHeap = new ClienteServiceFueraDeHeap(escala);
+            fueraDeHeap.agregarClientes(clientes);
+            medir("ClienteServiceFueraDeHeap.buscarPorId", escala, BUSQUEDAS_POR_ITERACION, () -> {
+                long encontrados = 0;
+                for (int i = 0; i < BUSQUEDAS_POR_ITERACION; i++) {
+                    if (fueraDeHeap.buscarPorId(nits[i & (NIT_DISTINTOS - 1)]) != null) {
+                        encontrados++;
+                    }
+                }
+                return encontrados;
+            });
+            fueraDeHeap.cerrar();
+        }
+
+        medir("FacturaService.calcularFactura", escala, escala, () -> {
+            long acumulado = 0;
+            for (Cliente cliente : clientes) {
+                acumulado += System.identityHashCode(facturaService.calcularFactura(cliente));
+            }
+            return acumulado;
+        });
+        medir("Factura BigDecimal (antes)", escala, escala, () -> {
+            long acumulado = 0;
+            for (Cliente cliente : clientes) {
+                BigDecimal[] factura = PruebaEquivalenciaDinero.facturaConBigDecimal(
+                        cliente.getMontoCompra(), cliente instanceof ClienteMayorista);
+                acumulado += factura[3].hashCode();
+            }
+            return acumulado;
+        });
+
+        medir("MotorAnalitica.analizar", escala, escala,
+                () -> MotorAnalitica.analizar(clienteService, 10).getTodos().getClientes());
+
+        List<Cliente> instantanea = clienteService.instantaneaClientes();
+        String nombreTexto = "banco_txt_" + escala;
+        String nombreCSV = "banco_csv_" + escala;
+        medir("ReporteService TXT", escala, escala,
+                () -> ReporteService.generarReporteTexto(clienteService.iterarClientes(), nombreTexto) ? 1 : 0);
+        medir("ReporteService CSV", escala, escala,
+                () -> ReporteService.generarReporteCSV(clienteService.iterarClientes(), nombreCSV) ? 1 : 0);
+        if (escala >= 100_000) {
+            medir("ReporteService CSV paralelo", escala, escala,
+                    () -> ReporteService.generarReporteCSVParalelo(instantanea, nombreCSV) ? 1 : 0);
+        }
+        new File(ReporteService.CARPETA_REPORTES, nombreTexto + ".txt").delete();
+        new File(ReporteService.CARPETA_REPORTES, nombreCSV + ".csv").delete();
+
+        if ("Memoria TablaClientesColumnar".contains(filtro)) {
+            medirMemoria(escala);
+        }
+    }
+
+    /**
+     * Compara la memoria ocupada por los mismos clientes como objetos y como tabla por columnas.
+     * Se mide el heap usado después de forzar recolecciones, así que es una aproximación.
+     */
+    private static void medirMemoria(int escala) {
+        long inicio = memoriaUsada();
+        List<Cliente> objetos = crearClientes(escala);
+        long bytesObjetos = memoriaUsada() - inicio;
+
+        inicio = memoriaUsada();
+        TablaClientesColumnar tabla = TablaClientesColumnar.de(objetos);
+        long bytesTabla = memoriaUsada() - inicio;
+
+        sumidero += objetos.size() + tabla.tamano();
+        System.out.printf(Locale.US, "%-28s %12d  objetos %.1f B/cliente, columnas %.1f B/cliente (%.1fx menos)%n",
+                "Memoria TablaClientesColumnar", escala, (double) bytesObjetos / escala,
+                (double) bytesTabla / escala, (double) bytesObjetos / Math.max(1, bytesTabla));
+    }
+
+    private static long memoriaUsada() {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * Ejecuta un caso con calentamiento y muestra el tiempo por operación.
+     * @param operaciones Operaciones que hace el caso en cada iteración
+     */
+    private void medir(String nombre, int escala, int operaciones, Caso caso) throws Exception {
+        if (!nombre.contains(filtro)) {
+            return;
+        }
+        for (int i = 0; i < calentamiento; i++) {
+            sumidero += caso.ejecutar();
+        }
+        double[] nanosPorOperacion = new double[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            long inicio = System.nanoTime();
+            sumidero += caso.ejecutar();
+            nanosPorOperacion[i] = (double) (System.nanoTime() - inicio) / operaciones;
+        }
+        double media = Arrays.stream(nanosPorOperacion).average().orElse(0);
+        double varianza = Arrays.stream(nanosPorOperacion).map(v -> (v - media) * (v - media)).sum()
+                / Math.max(1, iteraciones - 1);
+        System.out.printf(Locale.US, "%-28s %12d %13.1f ± %6.1f %16.0f%n",
+                nombre, escala, media, Math.sqrt(varianza), 1e9 / media);
+    }
+
+    /**
+     * Clientes de prueba con NIT consecutivos; también los usa el módulo IAT_Rendimiento (JMH).
+     */
+    static List<Cliente> crearClientes(int cantidad) {
+        List<Cliente> clientes = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            String nit = Long.toString(PRIMER_NIT + i);
+            BigDecimal monto = BigDecimal.valueOf(100_000 + (i % 5_000_000), 2);
+            clientes.add(i % 4 == 0
+                    ? new ClienteMayorista(nit, "Distribuidora " + i, monto, "Carrera " + (i % 100) + " # 10-20", "6041234567")
+                    : new ClienteMinorista(nit, "Cliente " + i, monto, "Calle " + (i % 200) + " # 5-12", "3001234567"));
+        }
+        return clientes;
+    }
+}
@@ -27,6 +27,9 @@ public abstract class Cliente {
     /** Número de teléfono del cliente (opcional) */
     protected String telefono;
 
+    /** Monto de compras en centavos, calculado una vez para facturar sin BigDecimal (ver {@link Dinero}) */
+    private final long montoCentavos;
+
     /**
      * Constructor para inicializar un cliente con sus datos básicos.
      * @param identificacion Número único de identificación del cliente
@@ -43,6 +46,7 @@ public abstract class Cliente {
         this.montoCompra = montoCompra;
         this.direccion = direccion;
         this.telefono = telefono;
+        this.montoCentavos = Dinero.aCentavos(montoCompra);
     }
 
     /**
@@ -53,6 +57,20 @@ public abstract class Cliente {
      */
     public abstract BigDecimal calcularDescuento(BigDecimal subtotalConIva);
 
+    /**
+     * Calcula el descuento en centavos, sin crear objetos BigDecimal.
+     * Por defecto convierte a BigDecimal y usa calcularDescuento; las clases hijas con una tasa
+     * fija lo sobrescriben con aritmética de centavos.
+     * @param subtotalConIvaCentavos Subtotal de la compra incluyendo IVA, en centavos
+     * @return Descuento en centavos, o Dinero.FUERA_DE_RANGO si no se puede representar
+     */
+    public long calcularDescuentoCentavos(long subtotalConIvaCentavos) {
+        if (subtotalConIvaCentavos == Dinero.FUERA_DE_RANGO) {
+            return Dinero.FUERA_DE_RANGO;
+        }
+        return Dinero.aCentavos(calcularDescuento(Dinero.deCentavos(subtotalConIvaCentavos)));
+    }
+
     /**
      * Método abstracto para obtener el tipo de cliente.
      * Debe ser implementado por las clases concretas (hijas).
@@ -80,6 +98,12 @@ public abstract class Cliente {
      */
     public BigDecimal getMontoCompra() { return montoCompra; }
 
+    /**
+     * Obtiene el monto histórico de compras en centavos
+     * @return Monto en centavos, o Dinero.FUERA_DE_RANGO si tiene más de 2 decimales o es muy grande
+     */
+    public long getMontoCentavos() { return montoCentavos; }
+
     /**
      * Obtiene la dirección del cliente
      * @return Dirección física (puede ser null o vacío)
@@ -11,9 +11,6 @@ import java.math.BigDecimal;
  */
 public class ClienteMayorista extends Cliente {
 
-    // Constante que define el porcentaje de descuento para mayoristas (15%)
-    private static final BigDecimal PORCENTAJE_DESCUENTO = new BigDecimal("0.15");
-
     /**
      * Constructor para crear un nuevo cliente mayorista.
      * @param identificacion Número único de identificación (NIT, cédula, etc.)
@@ -38,8 +35,20 @@ public class ClienteMayorista extends Cliente {
     public BigDecimal calcularDescuento(BigDecimal subtotalConIva) {
         // Calcula el descuento multiplicando el subtotal por el porcentaje
         // y redondea el resultado a 2 decimales usando el método HALF_UP
-        return subtotalConIva.multiply(PORCENTAJE_DESCUENTO)
-                .setScale(2, BigDecimal.ROUND_HALF_UP);
+        // La tasa sale de las reglas de precio vigentes, según el tramo de compras del cliente
+        return Dinero.aplicarTasa(subtotalConIva,
+                ReglasPrecio.vigentes().tabla().tasaDescuento(TablaPrecios.TIPO_MAYORISTA, this));
+    }
+
+    /**
+     * Calcula el descuento directamente en centavos (15% con las reglas predeterminadas).
+     * @param subtotalConIvaCentavos Subtotal de la compra incluyendo el IVA, en centavos
+     * @return Descuento en centavos redondeado con HALF_UP
+     */
+    @Override
+    public long calcularDescuentoCentavos(long subtotalConIvaCentavos) {
+        return Dinero.aplicarTasa(subtotalConIvaCentavos,
+                ReglasPrecio.vigentes().tabla().tasaDescuento(TablaPrecios.TIPO_MAYORISTA, this));
     }
 
     /**
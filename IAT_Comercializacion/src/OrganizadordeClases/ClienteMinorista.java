@@ -14,10 +14,6 @@ import java.math.BigDecimal;
  */
 public class ClienteMinorista extends Cliente {
 
-    // Constante que define el porcentaje de descuento para minoristas (5%)
-    // Se declara como static final porque es un valor fijo e inmutable
-    private static final BigDecimal PORCENTAJE_DESCUENTO = new BigDecimal("0.05");
-
     /**
      * Constructor para crear un nuevo cliente minorista.
      *
@@ -46,8 +42,21 @@ public class ClienteMinorista extends Cliente {
         // Multiplica el subtotal por el porcentaje de descuento (5%)
         // y redondea el resultado a 2 decimales usando el método HALF_UP
         // que redondea hacia arriba si el decimal es >= 0.5
-        return subtotalConIva.multiply(PORCENTAJE_DESCUENTO)
-                .setScale(2, BigDecimal.ROUND_HALF_UP);
+        // La tasa sale de las reglas de precio vigentes, según el tramo de compras del cliente
+        return Dinero.aplicarTasa(subtotalConIva,
+                ReglasPrecio.vigentes().tabla().tasaDescuento(TablaPrecios.TIPO_MINORISTA, this));
+    }
+
+    /**
+     * Calcula el descuento directamente en centavos (5% con las reglas predeterminadas).
+     *
+     * @param subtotalConIvaCentavos Subtotal de la compra incluyendo el IVA, en centavos
+     * @return Descuento en centavos redondeado con HALF_UP
+     */
+    @Override
+    public long calcularDescuentoCentavos(long subtotalConIvaCentavos) {
+        return Dinero.aplicarTasa(subtotalConIvaCentavos,
+                ReglasPrecio.vigentes().tabla().tasaDescuento(TablaPrecios.TIPO_MINORISTA, this));
     }
 
     /**
@@ -1,12 +1,60 @@
 package OrganizadordeClases;
 // Define el paquete al que pertenece esta clase para organizar el código en módulos.
 
+import java.io.IOException;
+// Importa IOException, la excepción que lanzan las operaciones de lectura y escritura en disco.
+
+import java.io.UncheckedIOException;
+// Importa UncheckedIOException para informar fallos de disco desde los métodos del CRUD.
+
+import java.nio.file.Path;
+// Importa Path, que representa la carpeta donde se guardan los datos de clientes.
+
 import java.util.ArrayList;
 // Importa la clase ArrayList, que es una implementación dinámica de la interfaz List.
 
+import java.util.Arrays;
+// Importa utilidades para copiar y redimensionar el arreglo de clientes.
+
+import java.util.Collection;
+// Importa la interfaz Collection para recibir lotes de clientes.
+
+import java.util.Collections;
+// Importa utilidades para devolver colecciones vacías sin crear objetos nuevos.
+
+import java.util.concurrent.locks.StampedLock;
+// Importa StampedLock, que permite lecturas optimistas sin bloquear mientras nadie escribe.
+
+import java.util.HashMap;
+// Importa HashMap, usado para el índice secundario por tipo de cliente.
+
+import java.util.Iterator;
+// Importa Iterator para recorrer los clientes sin copiarlos a una lista.
+
+import java.util.LinkedHashSet;
+// Importa LinkedHashSet para guardar conjuntos de identificaciones manteniendo el orden de inserción.
+
 import java.util.List;
 // Importa la interfaz List, que representa una colección ordenada de elementos.
 
+import java.util.Locale;
+// Importa Locale para normalizar los nombres a minúsculas de forma independiente de la región.
+
+import java.util.Map;
+// Importa la interfaz Map, que representa una colección de pares clave-valor.
+
+import java.util.Set;
+// Importa la interfaz Set, que representa una colección sin elementos repetidos.
+
+import java.util.stream.Stream;
+// Importa Stream para ofrecer los clientes como un flujo de datos.
+
+import java.util.function.UnaryOperator;
+// Importa UnaryOperator para recibir el cambio a aplicar sobre un cliente.
+
+import java.util.TreeMap;
+// Importa TreeMap, que mantiene las claves ordenadas y permite consultas por rango (prefijos).
+
 /**
  * Construimos El CRUD de clientes
  * El ayudante que hace todo el trabajo con los clientes:
@@ -14,77 +62,696 @@ import java.util.List;
  * - (R)Busca Registros o Clientes
  * - (U)Actualiza Registros o Clientes
  * - (D)Elimina Registros o Clientes
+ *
+ * Los clientes se guardan en un arreglo de posiciones (en orden de inserción) y un índice
+ * primario {@link IndiceNit} asocia cada NIT, como long, con su posición. Así buscar, actualizar
+ * y eliminar cuestan O(1) sin crear objetos ni calcular el hash de un String por consulta.
+ * Los NIT se comparan por su valor numérico: "00123" y "123" identifican al mismo cliente.
+ * Además se mantienen dos índices secundarios:
+ * - Por tipo de cliente ({@link Cliente#getTipoCliente()}).
+ * - Por nombre, para buscar clientes cuyo nombre empieza por un prefijo.
+ *
+ * Si se crea con una carpeta de datos, cada cambio se escribe primero en el registro del
+ * {@link AlmacenClientes} y luego se aplica en memoria, de modo que los clientes sobreviven
+ * a un reinicio o a una caída del programa. Con el constructor sin parámetros todo vive en memoria.
+ *
+ * Es seguro usarlo desde varios hilos (por ejemplo, varias terminales de venta):
+ * - Las escrituras se ejecutan de una en una (métodos synchronized), incluida la escritura en disco,
+ *   y el cambio en memoria se aplica completo bajo el bloqueo de escritura de un {@link StampedLock}.
+ *   Así actualizarCliente comprueba, registra y reemplaza de forma atómica.
+ * - Las búsquedas por NIT usan una lectura optimista: no bloquean ni se bloquean mientras no haya
+ *   un cambio en memoria en curso; si lo hubo, se repiten con el bloqueo de lectura.
+ * - Listar, iterar y recorrer como Stream trabajan sobre una instantánea inmutable de los clientes,
+ *   que se reutiliza hasta el siguiente cambio; recorrerla no bloquea a los hilos que escriben.
  */
 // Comentario de documentación que explica que esta clase implementa un CRUD (Crear, Leer, Actualizar, Eliminar) para clientes.
 
 public class ClienteService {
     // Define la clase pública ClienteService, encargada de gestionar operaciones sobre clientes.
 
-    private List<Cliente> clientes = new ArrayList<>();
-    // Declara una lista privada llamada clientes que almacenará objetos de tipo Cliente.
-    // Se inicializa como un ArrayList vacío para poder agregar clientes dinámicamente.
+    // Clientes en orden de inserción; las posiciones eliminadas quedan en null hasta compactar.
+    private Cliente[] registros = new Cliente[16];
+
+    // NIT de cada posición, en paralelo a registros; permite compactar sin volver a leer los Strings.
+    private long[] nits = new long[16];
+
+    // Número de posiciones usadas del arreglo (incluye las eliminadas).
+    private int posicionesUsadas;
 
-    public void agregarCliente(Cliente cliente) {
+    // Número de clientes vivos.
+    private int totalClientes;
+
+    // Índice primario: NIT (long) -> posición en el arreglo de registros.
+    private final IndiceNit indicePrimario = new IndiceNit();
+
+    // Índice secundario: tipo de cliente ("Mayorista", "Minorista") -> NITs de ese tipo.
+    private final Map<String, Set<String>> indicePorTipo = new HashMap<>();
+
+    // Índice secundario: nombre normalizado (minúsculas) -> NITs con ese nombre.
+    // Al estar ordenado, los nombres con un mismo prefijo quedan contiguos.
+    private final TreeMap<String, Set<String>> indicePorNombre = new TreeMap<>();
+
+    // Los índices secundarios se construyen la primera vez que se consultan; así abrir un
+    // almacén con muchos clientes no paga el costo de indexar nombres que quizá nunca se busquen.
+    private volatile boolean indicesSecundariosListos;
+
+    // Almacenamiento persistente; null cuando el servicio trabaja solo en memoria.
+    private final AlmacenClientes almacen;
+
+    // Protege el estado en memoria: escritura para aplicar cambios, lectura (u optimista) para consultar.
+    // Las escrituras además se serializan entre sí con synchronized, que cubre también el disco.
+    private final StampedLock candado = new StampedLock();
+
+    // Clientes vivos en orden de inserción tal como estaban en el último cambio; null si hubo cambios
+    // desde entonces. Nunca se modifica: se comparte entre listados e iteradores.
+    private volatile Cliente[] instantanea;
+
+    // Métricas de las operaciones (ver Metricas). Las búsquedas duran decenas de nanosegundos,
+    // así que solo se toma el tiempo de una de cada 16; las escrituras esperan al disco y se miden todas.
+    private static final Metricas.Operacion METRICA_BUSCAR = Metricas.operacion("cliente_buscar", 16);
+    private static final Metricas.Operacion METRICA_GUARDAR = Metricas.operacion("cliente_guardar");
+    private static final Metricas.Operacion METRICA_GUARDAR_LOTE = Metricas.operacion("clientes_guardar_lote");
+    private static final Metricas.Operacion METRICA_ELIMINAR = Metricas.operacion("cliente_eliminar");
+    private static final Metricas.Operacion METRICA_CARGAR = Metricas.operacion("clientes_cargar");
+    private static final Metricas.Operacion METRICA_CERRAR = Metricas.operacion("clientes_cerrar");
+
+    /**
+     * Crea un servicio de clientes que trabaja solo en memoria.
+     */
+    public ClienteService() {
+        this.almacen = null;
+    }
+
+    /**
+     * Crea un servicio de clientes persistente y recupera los clientes guardados en la carpeta.
+     * @param directorioDatos Carpeta donde se guardan la instantánea y el registro de cambios
+     * @throws IOException si no se pueden leer o crear los archivos de datos
+     */
+    public ClienteService(Path directorioDatos) throws IOException {
+        long inicio = METRICA_CARGAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        try {
+            this.almacen = new AlmacenClientes(directorioDatos);
+            almacen.recuperar(new AlmacenClientes.Receptor() {
+                @Override
+                public void guardar(long nit, Cliente cliente) {
+                    aplicarGuardar(nit, cliente);
+                }
+
+                @Override
+                public void eliminar(long nit) {
+                    aplicarEliminar(nit);
+                }
+            });
+            registrarEvento(evento, "cargar", "", totalClientes, almacen.getBytesLeidos());
+        } catch (IOException | RuntimeException e) {
+            METRICA_CARGAR.error();
+            throw e;
+        } finally {
+            METRICA_CARGAR.terminar(inicio);
+        }
+    }
+
+    public synchronized void agregarCliente(Cliente cliente) {
         // Método público que recibe un objeto Cliente y no retorna nada (void).
-        // Se encarga de añadir un nuevo cliente a la lista.
+        // Se encarga de añadir un nuevo cliente al índice.
+        // Si ya existía un cliente con el mismo NIT, se reemplaza conservando su posición.
+
+        long nit = nitValido(cliente.getIdentificacion());
+        long inicio = METRICA_GUARDAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long bytesAntes = bytesEscritos();
+        if (almacen != null) {
+            try {
+                almacen.registrarAlta(nit, cliente);
+                almacen.sincronizar();
+            } catch (IOException e) {
+                METRICA_GUARDAR.error();
+                throw new UncheckedIOException("No se pudo guardar el cliente " + cliente.getIdentificacion(), e);
+            }
+        }
+        long sello = candado.writeLock();
+        try {
+            aplicarGuardar(nit, cliente);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_GUARDAR.terminar(inicio);
+        registrarEvento(evento, "guardar", cliente.getIdentificacion(), 1, bytesEscritos() - bytesAntes);
+        compactarSiEsNecesario();
+    }
+
+    public synchronized boolean agregarClienteNuevo(Cliente cliente) {
+        // Método público que agrega el cliente solo si su NIT no está registrado.
+        // Retorna false si ya existía; ningún otro hilo puede agregar el mismo NIT entre la comprobación y el alta.
 
-        clientes.add(cliente);
-        // Añade el objeto cliente recibido a la lista clientes.
+        long nit = nitValido(cliente.getIdentificacion());
+        if (indicePrimario.obtener(nit) != IndiceNit.NO_ENCONTRADO) {
+            return false;
+        }
+        agregarCliente(cliente);
+        return true;
+    }
+
+    public synchronized void agregarClientes(Collection<? extends Cliente> clientes) {
+        // Método público que agrega varios clientes de una sola vez (por ejemplo, una importación).
+        // Todos quedan en el registro con una única sincronización a disco, en lugar de una por cliente.
+        // Primero se validan todos los NIT: si alguno no es válido no se agrega ninguno.
+        // Los demás hilos ven el lote completo o nada de él.
+
+        Cliente[] lote = clientes.toArray(new Cliente[0]);
+        long[] nitsLote = new long[lote.length];
+        for (int i = 0; i < lote.length; i++) {
+            nitsLote[i] = nitValido(lote[i].getIdentificacion());
+        }
+        long inicio = METRICA_GUARDAR_LOTE.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long bytesAntes = bytesEscritos();
+        if (almacen != null) {
+            try {
+                almacen.registrarAltas(nitsLote, lote, lote.length);
+                almacen.sincronizar();
+            } catch (IOException e) {
+                METRICA_GUARDAR_LOTE.error();
+                throw new UncheckedIOException("No se pudo guardar el lote de " + lote.length + " clientes", e);
+            }
+        }
+        long sello = candado.writeLock();
+        try {
+            for (int i = 0; i < lote.length; i++) {
+                aplicarGuardar(nitsLote[i], lote[i]);
+            }
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_GUARDAR_LOTE.terminar(inicio);
+        registrarEvento(evento, "guardar_lote", "", lote.length, bytesEscritos() - bytesAntes);
+        compactarSiEsNecesario();
     }
 
     public Cliente buscarPorId(String id) {
         // Método público que recibe un String id y retorna un objeto Cliente.
-        // Busca un cliente en la lista cuyo identificador coincida con el id dado.
+        // Consulta directamente el índice primario; retorna null si no existe.
 
-        for (Cliente cliente : clientes) {
-            // Itera sobre cada cliente en la lista clientes.
-
-            if (cliente.getIdentificacion().equals(id)) {
-                // Compara la identificación del cliente actual con el id buscado.
-                // Si coinciden, retorna el cliente encontrado.
+        long inicio = METRICA_BUSCAR.iniciar();
+        long nit = nitComoLong(id);
+        Cliente cliente = nit > 0 ? buscarPorNit(nit) : null;
+        METRICA_BUSCAR.terminar(inicio);
+        return cliente;
+    }
 
-                return cliente;
+    /**
+     * Busca un cliente por su NIT numérico, sin convertirlo a String.
+     * @param nit NIT del cliente
+     * @return Cliente encontrado o null si no existe
+     */
+    public Cliente buscarPorNit(long nit) {
+        long sello = candado.tryOptimisticRead();
+        if (sello != 0) {
+            try {
+                Cliente cliente = buscarSinBloqueo(nit);
+                if (candado.validate(sello)) {
+                    return cliente;
+                }
+            } catch (ArrayIndexOutOfBoundsException e) {
+                // Se leyó a mitad de un cambio (por ejemplo, al crecer los arreglos): se repite con bloqueo.
             }
         }
-        return null;
-        // Si no se encuentra ningún cliente con el id dado, retorna null.
+        sello = candado.readLock();
+        try {
+            return buscarSinBloqueo(nit);
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Busca en el índice primario sin tomar el bloqueo; quien llama debe tenerlo o validar la lectura.
+     */
+    private Cliente buscarSinBloqueo(long nit) {
+        int posicion = indicePrimario.obtener(nit);
+        return posicion == IndiceNit.NO_ENCONTRADO ? null : registros[posicion];
     }
 
     public List<Cliente> listarClientes() {
         // Método público que retorna una lista de clientes.
-        // Devuelve una copia nueva de la lista clientes para evitar modificaciones externas.
+        // Devuelve una copia nueva, en orden de inserción, para evitar modificaciones externas.
+
+        return new ArrayList<>(Arrays.asList(obtenerInstantanea()));
+    }
+
+    /**
+     * Devuelve la instantánea vigente como lista de solo lectura, sin copiarla.
+     * Es un corte consistente: incluye todos los cambios terminados antes de llamarlo y ninguno
+     * a medias, así que sirve para generar reportes en segundo plano mientras se sigue trabajando.
+     * @return Lista inmodificable de los clientes en orden de inserción
+     */
+    public List<Cliente> instantaneaClientes() {
+        return Collections.unmodifiableList(Arrays.asList(obtenerInstantanea()));
+    }
+
+    /**
+     * Recorre los clientes en orden de inserción sin copiarlos a una lista nueva.
+     * Recorre una instantánea: no ve los cambios hechos después de llamarlo ni bloquea a quien los hace.
+     * @return Iterador sobre los clientes registrados
+     */
+    public Iterator<Cliente> iterarClientes() {
+        return Arrays.asList(obtenerInstantanea()).iterator();
+    }
+
+    /**
+     * Ofrece los clientes como un Stream secuencial en orden de inserción, sin copiarlos.
+     * Igual que {@link #iterarClientes()}, trabaja sobre una instantánea.
+     * @return Stream de los clientes registrados
+     */
+    public Stream<Cliente> streamClientes() {
+        return Arrays.stream(obtenerInstantanea());
+    }
+
+    /**
+     * Devuelve la instantánea vigente o la crea si hubo cambios desde la última.
+     * Se crea bajo el bloqueo de lectura, así ningún cambio puede quedar a medias dentro de ella.
+     */
+    private Cliente[] obtenerInstantanea() {
+        Cliente[] actual = instantanea;
+        if (actual != null) {
+            return actual;
+        }
+        long sello = candado.readLock();
+        try {
+            actual = new Cliente[totalClientes];
+            int destino = 0;
+            for (int i = 0; i < posicionesUsadas; i++) {
+                if (registros[i] != null) {
+                    actual[destino++] = registros[i];
+                }
+            }
+            // Un escritor no puede invalidarla antes de publicarla porque aún se tiene el bloqueo de lectura.
+            instantanea = actual;
+            return actual;
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
 
-        return new ArrayList<>(clientes);
-        // Crea y retorna un nuevo ArrayList con los mismos elementos de clientes.
+    /**
+     * @return Número de clientes registrados
+     */
+    public int contarClientes() {
+        long sello = candado.tryOptimisticRead();
+        int total = totalClientes;
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                total = totalClientes;
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return total;
     }
 
-    public boolean actualizarCliente(String id, Cliente nuevosDatos) {
+    public synchronized boolean actualizarCliente(String id, Cliente nuevosDatos) {
         // Método público que recibe un id y un objeto Cliente con nuevos datos.
         // Retorna true si actualiza correctamente un cliente, false si no lo encuentra.
+        // Es atómico: ningún otro cambio puede ocurrir entre comprobar que existe y reemplazarlo.
+        // Lanza IllegalArgumentException si los nuevos datos traen la identificación de otro cliente.
+
+        long nit = nitComoLong(id);
+        if (nit <= 0) {
+            return false;
+        }
+        comprobarMismoNit(nit, id, nuevosDatos);
+        if (indicePrimario.obtener(nit) == IndiceNit.NO_ENCONTRADO) {
+            return false;
+        }
+        long inicio = METRICA_GUARDAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long bytesAntes = bytesEscritos();
+        if (almacen != null) {
+            try {
+                almacen.registrarActualizacion(nit, nuevosDatos);
+                almacen.sincronizar();
+            } catch (IOException e) {
+                METRICA_GUARDAR.error();
+                throw new UncheckedIOException("No se pudo actualizar el cliente " + id, e);
+            }
+        }
 
-        for (int i = 0; i < clientes.size(); i++) {
-            // Itera con índice sobre la lista clientes.
+        // El cliente actualizado ocupa la misma posición, así se mantiene el orden de inserción.
+        long sello = candado.writeLock();
+        try {
+            aplicarGuardar(nit, nuevosDatos);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_GUARDAR.terminar(inicio);
+        registrarEvento(evento, "actualizar", id, 1, bytesEscritos() - bytesAntes);
+        compactarSiEsNecesario();
+        return true;
+    }
 
-            if (clientes.get(i).getIdentificacion().equals(id)) {
-                // Compara la identificación del cliente en la posición i con el id dado.
+    public synchronized Cliente actualizarCliente(String id, UnaryOperator<Cliente> cambio) {
+        // Método público que lee el cliente, le aplica el cambio y guarda el resultado de forma atómica:
+        // ninguna otra escritura puede ocurrir entre la lectura y el reemplazo.
+        // Retorna el cliente actualizado, o null si no existe.
 
-                clientes.set(i, nuevosDatos);
-                // Reemplaza el cliente en la posición i con el objeto nuevosDatos.
+        Cliente actual = buscarPorId(id);
+        if (actual == null) {
+            return null;
+        }
+        Cliente actualizado = cambio.apply(actual);
+        actualizarCliente(id, actualizado);
+        return actualizado;
+    }
+
+    public synchronized boolean eliminarCliente(String id) {
+        // Método público que recibe un id y retorna un booleano.
+        // Elimina el cliente cuyo id coincida y retorna true si se eliminó.
+
+        long nit = nitComoLong(id);
+        if (nit <= 0 || indicePrimario.obtener(nit) == IndiceNit.NO_ENCONTRADO) {
+            return false;
+        }
+        long inicio = METRICA_ELIMINAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long bytesAntes = bytesEscritos();
+        if (almacen != null) {
+            try {
+                almacen.registrarBaja(nit);
+                almacen.sincronizar();
+            } catch (IOException e) {
+                METRICA_ELIMINAR.error();
+                throw new UncheckedIOException("No se pudo eliminar el cliente " + id, e);
+            }
+        }
+        long sello = candado.writeLock();
+        try {
+            aplicarEliminar(nit);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_ELIMINAR.terminar(inicio);
+        registrarEvento(evento, "eliminar", id, 1, bytesEscritos() - bytesAntes);
+        compactarSiEsNecesario();
+        return true;
+    }
 
-                return true;
-                // Retorna true indicando que la actualización fue exitosa.
+    /**
+     * Escribe una instantánea con todos los clientes y cierra los archivos de datos.
+     * No hace nada si el servicio trabaja solo en memoria.
+     * @throws IOException si no se puede escribir la instantánea
+     */
+    public synchronized void cerrar() throws IOException {
+        if (almacen != null) {
+            long inicio = METRICA_CERRAR.iniciar();
+            EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+            evento.begin();
+            long bytesAntes = almacen.getBytesEscritos();
+            try {
+                compactarPosicionesBloqueando();
+                almacen.compactar(nits, registros, posicionesUsadas);
+                almacen.cerrar();
+                registrarEvento(evento, "cerrar", "", totalClientes, almacen.getBytesEscritos() - bytesAntes);
+            } catch (IOException | RuntimeException e) {
+                METRICA_CERRAR.error();
+                throw e;
+            } finally {
+                METRICA_CERRAR.terminar(inicio);
             }
         }
-        return false;
-        // Retorna false si no se encontró ningún cliente con el id dado.
     }
 
-    public boolean eliminarCliente(String id) {
-        // Método público que recibe un id y retorna un booleano.
-        // Elimina el cliente cuyo id coincida y retorna true si se eliminó alguno.
+    /**
+     * Busca todos los clientes de un tipo usando el índice secundario por tipo.
+     * @param tipoCliente Tipo de cliente (ej: "Mayorista", "Minorista")
+     * @return Lista de clientes de ese tipo, en orden de inserción
+     */
+    public List<Cliente> buscarPorTipo(String tipoCliente) {
+        asegurarIndicesSecundarios();
+        long sello = candado.readLock();
+        try {
+            Set<String> ids = indicePorTipo.get(tipoCliente);
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            List<Cliente> resultado = new ArrayList<>(ids.size());
+            for (String id : ids) {
+                resultado.add(buscarSinBloqueo(nitComoLong(id)));
+            }
+            return resultado;
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Busca los clientes cuyo nombre empieza por el prefijo indicado (sin distinguir mayúsculas).
+     * @param prefijo Inicio del nombre o razón social
+     * @return Lista de clientes ordenada alfabéticamente por nombre
+     */
+    public List<Cliente> buscarPorPrefijoNombre(String prefijo) {
+        asegurarIndicesSecundarios();
+        String desde = normalizarNombre(prefijo);
+        long sello = candado.readLock();
+        try {
+            // Todas las claves que empiezan por "desde" están entre "desde" y "desde" + el mayor carácter.
+            Map<String, Set<String>> rango = indicePorNombre.subMap(desde, true, desde + Character.MAX_VALUE, false);
+
+            List<Cliente> resultado = new ArrayList<>();
+            for (Set<String> ids : rango.values()) {
+                for (String id : ids) {
+                    resultado.add(buscarSinBloqueo(nitComoLong(id)));
+                }
+            }
+            return resultado;
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Guarda el cliente en su posición (o al final si es nuevo) y actualiza los índices.
+     * No escribe en disco: lo usan las operaciones públicas y la recuperación al abrir.
+     * Quien llama debe tener el bloqueo de escritura (o no haber publicado aún el servicio).
+     */
+    private void aplicarGuardar(long nit, Cliente cliente) {
+        int posicion = indicePrimario.obtener(nit);
+        if (posicion != IndiceNit.NO_ENCONTRADO) {
+            desindexar(registros[posicion]);
+            registros[posicion] = cliente;
+        } else {
+            if (posicionesUsadas == registros.length) {
+                hacerEspacio();
+            }
+            posicion = posicionesUsadas++;
+            registros[posicion] = cliente;
+            nits[posicion] = nit;
+            indicePrimario.guardar(nit, posicion);
+            totalClientes++;
+        }
+        indexar(cliente);
+        instantanea = null;
+    }
+
+    /**
+     * Quita el cliente del arreglo y de los índices. No escribe en disco.
+     * Quien llama debe tener el bloqueo de escritura (o no haber publicado aún el servicio).
+     */
+    private void aplicarEliminar(long nit) {
+        int posicion = indicePrimario.eliminar(nit);
+        if (posicion != IndiceNit.NO_ENCONTRADO) {
+            desindexar(registros[posicion]);
+            registros[posicion] = null;
+            totalClientes--;
+            instantanea = null;
+        }
+    }
+
+    /**
+     * Cuando el registro de cambios ha crecido lo suficiente, lo reemplaza por una instantánea
+     * compacta para que la próxima apertura sea rápida.
+     */
+    private void compactarSiEsNecesario() {
+        if (almacen == null || !almacen.necesitaCompactar()) {
+            return;
+        }
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long bytesAntes = almacen.getBytesEscritos();
+        try {
+            // Solo los escritores modifican los arreglos y este método se ejecuta dentro de uno de ellos,
+            // así que la instantánea en disco se escribe sin bloquear a los lectores.
+            compactarPosicionesBloqueando();
+            almacen.compactar(nits, registros, posicionesUsadas);
+            registrarEvento(evento, "compactar", "", totalClientes, almacen.getBytesEscritos() - bytesAntes);
+        } catch (IOException e) {
+            // El registro sigue siendo válido; se volverá a intentar más adelante.
+            System.err.println("No se pudo compactar el almacén de clientes: " + e.getMessage());
+        }
+    }
+
+    /**
+     * @return Bytes escritos en la carpeta de datos hasta ahora (0 si el servicio es solo en memoria)
+     */
+    private long bytesEscritos() {
+        return almacen == null ? 0 : almacen.getBytesEscritos();
+    }
+
+    /**
+     * Completa y guarda el evento de JFR de una operación, si hay una grabación que lo pide.
+     * También lo usa ClienteServiceFueraDeHeap.
+     */
+    static void registrarEvento(EventosJfr.EventoCliente evento, String operacion, String nit,
+                                        long registros, long bytes) {
+        if (EventosJfr.debeRegistrar(evento)) {
+            evento.operacion = operacion;
+            evento.nit = nit;
+            evento.registros = registros;
+            evento.bytes = bytes;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Libera espacio al final del arreglo de registros: si más de la mitad de las posiciones
+     * son huecos dejados por eliminaciones, compacta conservando el orden; si no, lo duplica.
+     */
+    private void hacerEspacio() {
+        if (totalClientes > posicionesUsadas / 2) {
+            registros = Arrays.copyOf(registros, registros.length << 1);
+            nits = Arrays.copyOf(nits, nits.length << 1);
+        } else {
+            compactarPosiciones();
+        }
+    }
+
+    /**
+     * Compacta las posiciones bajo el bloqueo de escritura, porque mueve clientes que los lectores consultan.
+     */
+    private void compactarPosicionesBloqueando() {
+        long sello = candado.writeLock();
+        try {
+            compactarPosiciones();
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Mueve los clientes vivos al inicio del arreglo, conservando su orden.
+     */
+    private void compactarPosiciones() {
+        if (totalClientes == posicionesUsadas) {
+            return;
+        }
+        int destino = 0;
+        for (int i = 0; i < posicionesUsadas; i++) {
+            Cliente cliente = registros[i];
+            if (cliente != null) {
+                registros[destino] = cliente;
+                nits[destino] = nits[i];
+                indicePrimario.guardar(nits[i], destino);
+                destino++;
+            }
+        }
+        Arrays.fill(registros, destino, posicionesUsadas, null);
+        posicionesUsadas = destino;
+    }
+
+    /**
+     * Convierte una identificación en su NIT numérico sin crear objetos.
+     * @param id Identificación del cliente
+     * @return NIT como long, o -1 si no es un número positivo de máximo 18 dígitos
+     */
+    static long nitComoLong(String id) {
+        return ValidadorNit.parsearClave(id);
+    }
+
+    private static long nitValido(String id) {
+        long nit = nitComoLong(id);
+        if (nit <= 0) {
+            throw new IllegalArgumentException("Identificación no válida como NIT: " + id);
+        }
+        return nit;
+    }
+
+    /**
+     * Comprueba que los nuevos datos de un cliente sean del mismo NIT que se actualiza.
+     * Si no, se guardarían bajo el NIT buscado con la identificación de otro cliente.
+     * @param nit NIT que se actualiza
+     * @param id Identificación con la que se buscó el cliente
+     * @param nuevosDatos Datos que lo reemplazan
+     */
+    static void comprobarMismoNit(long nit, String id, Cliente nuevosDatos) {
+        if (nitComoLong(nuevosDatos.getIdentificacion()) != nit) {
+            throw new IllegalArgumentException("La identificación del cliente (" + nuevosDatos.getIdentificacion()
+                    + ") no coincide con la que se actualiza (" + id + ")");
+        }
+    }
+
+    /**
+     * Construye los índices secundarios si todavía no existen.
+     */
+    private void asegurarIndicesSecundarios() {
+        if (indicesSecundariosListos) {
+            return;
+        }
+        synchronized (this) {
+            long sello = candado.writeLock();
+            try {
+                if (indicesSecundariosListos) {
+                    return;
+                }
+                indicesSecundariosListos = true;
+                for (int i = 0; i < posicionesUsadas; i++) {
+                    if (registros[i] != null) {
+                        indexar(registros[i]);
+                    }
+                }
+            } finally {
+                candado.unlockWrite(sello);
+            }
+        }
+    }
+
+    /**
+     * Registra el cliente en los índices secundarios.
+     */
+    private void indexar(Cliente cliente) {
+        if (!indicesSecundariosListos) {
+            return;
+        }
+        String id = cliente.getIdentificacion();
+        indicePorTipo.computeIfAbsent(cliente.getTipoCliente(), k -> new LinkedHashSet<>()).add(id);
+        indicePorNombre.computeIfAbsent(normalizarNombre(cliente.getNombre()), k -> new LinkedHashSet<>()).add(id);
+    }
+
+    /**
+     * Quita el cliente de los índices secundarios, borrando las entradas que queden vacías.
+     */
+    private void desindexar(Cliente cliente) {
+        if (!indicesSecundariosListos) {
+            return;
+        }
+        String id = cliente.getIdentificacion();
+        quitarDeIndice(indicePorTipo, cliente.getTipoCliente(), id);
+        quitarDeIndice(indicePorNombre, normalizarNombre(cliente.getNombre()), id);
+    }
+
+    private static void quitarDeIndice(Map<String, Set<String>> indice, String clave, String id) {
+        Set<String> ids = indice.get(clave);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            indice.remove(clave);
+        }
+    }
 
-        return clientes.removeIf(cliente -> cliente.getIdentificacion().equals(id));
-        // Utiliza removeIf con una expresión lambda para eliminar clientes cuyo id coincida.
-        // Retorna true si se eliminó al menos un cliente, false si no se encontró ninguno.
+    private static String normalizarNombre(String nombre) {
+        return nombre == null ? "" : nombre.toLowerCase(Locale.ROOT);
     }
 }
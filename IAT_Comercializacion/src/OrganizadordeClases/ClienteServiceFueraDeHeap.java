@@ -0,0 +1,953 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones de la API de memoria externa (Foreign Function & Memory) para guardar los
+// clientes fuera del heap
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+
+// Importaciones para reconstruir montos y textos
+import java.math.BigDecimal;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+
+// Importaciones de colecciones, flujos y concurrencia
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * ClienteService que guarda los clientes fuera del heap de Java, pensado para decenas de millones
+ * de clientes.
+ *
+ * Con ClienteService cada cliente son varios objetos (el Cliente, su BigDecimal y sus Strings) que
+ * el recolector de basura tiene que recorrer en cada ciclo completo: con muchos millones de
+ * clientes las pausas crecen con la base de datos. Aquí los datos viven en memoria nativa reservada
+ * con {@link Arena}, que el recolector no recorre, en tres zonas:
+ * - Registros de tamaño fijo ({@link #TAMANO_REGISTRO} bytes): NIT, número de secuencia, monto en
+ *   centavos, tipo de cliente y la posición de sus textos. Están en orden de inserción.
+ * - Zona de textos de tamaño variable: nombre, dirección y teléfono en UTF-8, cada uno precedido
+ *   por su longitud (-1 si es null). Al actualizar un cliente sus textos nuevos se agregan al final
+ *   y los viejos quedan como basura hasta que la zona se compacta.
+ * - Índice hash por NIT con direccionamiento abierto: cada casilla es un int con la posición + 1
+ *   del registro (0 = vacía); el NIT se compara en el propio registro.
+ * En el heap solo queda este objeto, sin importar cuántos clientes haya. La memoria nativa cuenta
+ * para el límite de -XX:MaxDirectMemorySize (por defecto igual a -Xmx): con bases grandes hay que
+ * subirlo, por ejemplo -Xmx512m -XX:MaxDirectMemorySize=8g.
+ *
+ * La API de Cliente sigue funcionando igual: cada consulta arma un ClienteMinorista o
+ * ClienteMayorista con los datos del registro. Ese objeto es una copia de corta vida; cambiarlo no
+ * cambia el servicio, para eso se usa actualizarCliente como siempre. Solo se pueden guardar
+ * clientes minoristas y mayoristas.
+ *
+ * Diferencias con ClienteService:
+ * - Trabaja solo en memoria: no tiene carpeta de datos. {@link #cerrar()} libera la memoria nativa
+ *   y después el servicio ya no se puede usar.
+ * - buscarPorTipo y buscarPorPrefijoNombre recorren todos los registros en lugar de usar índices
+ *   secundarios en el heap, que con decenas de millones de nombres anularían la ventaja.
+ * - iterarClientes y streamClientes recorren los registros sin copiarlos: ven los cambios hechos
+ *   durante el recorrido (como los iteradores de ConcurrentHashMap) pero nunca repiten ni saltan
+ *   un cliente que siga registrado. listarClientes e instantaneaClientes sí son cortes
+ *   consistentes, pero arman todos los clientes en el heap; con bases muy grandes conviene iterar.
+ *
+ * Concurrencia: igual que ClienteService, las escrituras son synchronized y aplican el cambio bajo
+ * el bloqueo de escritura de un {@link StampedLock}; las búsquedas por NIT copian el registro con
+ * una lectura optimista y solo lo convierten en Cliente después de validarla.
+ */
+public class ClienteServiceFueraDeHeap extends ClienteService {
+
+    // ============ DISEÑO DEL REGISTRO ============ //
+
+    /** Bytes que ocupa cada registro de tamaño fijo */
+    static final int TAMANO_REGISTRO = 40;
+
+    // Desplazamiento de cada campo dentro del registro
+    private static final long CAMPO_NIT = 0;
+    private static final long CAMPO_SECUENCIA = 8;
+    private static final long CAMPO_CENTAVOS = 16;
+    private static final long CAMPO_TEXTOS = 24;
+    private static final long CAMPO_LONGITUD_TEXTOS = 32;
+    private static final long CAMPO_BANDERAS = 36;
+    private static final long CAMPO_ESCALA = 37;
+
+    // Banderas del registro
+    private static final byte VIVO = 1;
+    private static final byte MAYORISTA = 2;
+    // El monto no cabe en centavos (más de 2 decimales, demasiado grande o null): va como texto
+    private static final byte MONTO_TEXTO = 4;
+    // La identificación no se escribe igual que su NIT (por ejemplo, con ceros a la izquierda): va como texto
+    private static final byte IDENTIFICACION_TEXTO = 8;
+
+    // Divisores para pasar de centavos a la escala original del monto
+    private static final long[] DIVISOR_ESCALA = {100, 10, 1};
+
+    // Factor de carga máximo del índice antes de duplicarlo
+    private static final float FACTOR_CARGA = 0.7f;
+
+    // La zona de textos se compacta cuando la mitad es basura y la basura pasa de este tamaño
+    private static final long BASURA_MINIMA_TEXTOS = 1 << 20;
+
+    // Longitudes de la zona de textos: little endian fijo, así se leen igual desde la copia en el heap
+    private static final ValueLayout.OfInt ENTERO = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    // Mismas métricas que ClienteService: son las mismas operaciones con otro almacenamiento
+    private static final Metricas.Operacion METRICA_BUSCAR = Metricas.operacion("cliente_buscar", 16);
+    private static final Metricas.Operacion METRICA_GUARDAR = Metricas.operacion("cliente_guardar");
+    private static final Metricas.Operacion METRICA_ELIMINAR = Metricas.operacion("cliente_eliminar");
+    private static final Metricas.Operacion METRICA_GUARDAR_LOTE = Metricas.operacion("clientes_guardar_lote");
+
+    // ============ ESTADO ============ //
+
+    private final ZonaNativa registros;
+    private final ZonaNativa textos;
+    private final ZonaNativa indice;
+
+    // Número de posiciones usadas (incluye las de clientes eliminados) y de clientes vivos
+    private int posicionesUsadas;
+    private int totalClientes;
+
+    // Número de secuencia del próximo cliente nuevo; crece con la posición, así los iteradores
+    // pueden reencontrar su lugar después de una compactación
+    private long siguienteSecuencia;
+
+    // Veces que se compactaron las posiciones (los registros se movieron)
+    private int compactaciones;
+
+    // Bytes usados de la zona de textos y cuántos de ellos pertenecen a clientes vivos
+    private long bytesTextosUsados;
+    private long bytesTextosVivos;
+
+    // Número de casillas del índice (potencia de 2)
+    private int casillas;
+
+    private final StampedLock candado = new StampedLock();
+
+    /**
+     * Crea un servicio vacío.
+     */
+    public ClienteServiceFueraDeHeap() {
+        this(1024);
+    }
+
+    /**
+     * Crea un servicio con memoria reservada para el número de clientes esperado.
+     * @param capacidadEsperada Número de clientes que se espera guardar
+     */
+    public ClienteServiceFueraDeHeap(int capacidadEsperada) {
+        int capacidad = Math.max(16, capacidadEsperada);
+        registros = new ZonaNativa((long) capacidad * TAMANO_REGISTRO);
+        // Unos 64 bytes de textos por cliente; la zona crece si hace falta
+        textos = new ZonaNativa((long) capacidad * 64);
+        casillas = capacidadIndice(capacidad);
+        indice = new ZonaNativa(4L * casillas);
+    }
+
+    // ============ ESCRITURA ============ //
+
+    @Override
+    public synchronized void agregarCliente(Cliente cliente) {
+        long nit = validar(cliente);
+        long inicio = METRICA_GUARDAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long sello = candado.writeLock();
+        try {
+            aplicarGuardar(nit, cliente);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_GUARDAR.terminar(inicio);
+        // Sin carpeta de datos no se escribe nada en disco: los bytes del evento son 0
+        registrarEvento(evento, "guardar", cliente.getIdentificacion(), 1, 0);
+    }
+
+    @Override
+    public synchronized boolean agregarClienteNuevo(Cliente cliente) {
+        long nit = validar(cliente);
+        if (buscarPosicion(nit) >= 0) {
+            return false;
+        }
+        agregarCliente(cliente);
+        return true;
+    }
+
+    @Override
+    public synchronized void agregarClientes(Collection<? extends Cliente> clientes) {
+        // Igual que en ClienteService: si algún cliente no es válido no se agrega ninguno,
+        // y los demás hilos ven el lote completo o nada de él
+        Cliente[] lote = clientes.toArray(new Cliente[0]);
+        long[] nitsLote = new long[lote.length];
+        for (int i = 0; i < lote.length; i++) {
+            nitsLote[i] = validar(lote[i]);
+        }
+        long inicio = METRICA_GUARDAR_LOTE.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long sello = candado.writeLock();
+        try {
+            for (int i = 0; i < lote.length; i++) {
+                aplicarGuardar(nitsLote[i], lote[i]);
+            }
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_GUARDAR_LOTE.terminar(inicio);
+        registrarEvento(evento, "guardar_lote", "", lote.length, 0);
+    }
+
+    @Override
+    public synchronized boolean actualizarCliente(String id, Cliente nuevosDatos) {
+        long nit = nitComoLong(id);
+        if (nit <= 0) {
+            return false;
+        }
+        comprobarMismoNit(nit, id, nuevosDatos);
+        if (buscarPosicion(nit) < 0) {
+            return false;
+        }
+        validar(nuevosDatos);
+        long inicio = METRICA_GUARDAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long sello = candado.writeLock();
+        try {
+            // Se guarda con el NIT buscado, que conserva su posición como en ClienteService
+            aplicarGuardar(nit, nuevosDatos);
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_GUARDAR.terminar(inicio);
+        registrarEvento(evento, "actualizar", id, 1, 0);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean eliminarCliente(String id) {
+        long nit = nitComoLong(id);
+        if (nit <= 0 || buscarPosicion(nit) < 0) {
+            return false;
+        }
+        long inicio = METRICA_ELIMINAR.iniciar();
+        EventosJfr.EventoCliente evento = new EventosJfr.EventoCliente();
+        evento.begin();
+        long sello = candado.writeLock();
+        try {
+            int posicion = quitarDelIndice(nit);
+            long registro = (long) posicion * TAMANO_REGISTRO;
+            MemorySegment segmento = registros.segmento;
+            segmento.set(ValueLayout.JAVA_BYTE, registro + CAMPO_BANDERAS, (byte) 0);
+            bytesTextosVivos -= segmento.get(ValueLayout.JAVA_INT, registro + CAMPO_LONGITUD_TEXTOS);
+            totalClientes--;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+        METRICA_ELIMINAR.terminar(inicio);
+        registrarEvento(evento, "eliminar", id, 1, 0);
+        return true;
+    }
+
+    /**
+     * Libera la memoria nativa. Después de cerrarlo el servicio ya no se puede usar.
+     */
+    @Override
+    public synchronized void cerrar() {
+        long sello = candado.writeLock();
+        try {
+            registros.liberar();
+            textos.liberar();
+            indice.liberar();
+            posicionesUsadas = 0;
+            totalClientes = 0;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    // ============ CONSULTAS ============ //
+
+    @Override
+    public Cliente buscarPorId(String id) {
+        long inicio = METRICA_BUSCAR.iniciar();
+        long nit = nitComoLong(id);
+        Cliente cliente = nit > 0 ? buscarPorNit(nit) : null;
+        METRICA_BUSCAR.terminar(inicio);
+        return cliente;
+    }
+
+    @Override
+    public Cliente buscarPorNit(long nit) {
+        long sello = candado.tryOptimisticRead();
+        if (sello != 0) {
+            try {
+                Copia copia = copiarPorNit(nit);
+                if (candado.validate(sello)) {
+                    return copia == null ? null : copia.armar();
+                }
+            } catch (IndexOutOfBoundsException | IllegalStateException e) {
+                // Se leyó a mitad de un cambio (una zona creció o se liberó): se repite con bloqueo
+            }
+        }
+        Copia copia;
+        sello = candado.readLock();
+        try {
+            copia = copiarPorNit(nit);
+        } finally {
+            candado.unlockRead(sello);
+        }
+        return copia == null ? null : copia.armar();
+    }
+
+    @Override
+    public int contarClientes() {
+        long sello = candado.tryOptimisticRead();
+        int total = totalClientes;
+        if (!candado.validate(sello)) {
+            sello = candado.readLock();
+            try {
+                total = totalClientes;
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Arma todos los clientes en una lista nueva. Es un corte consistente, pero ocupa en el heap
+     * lo mismo que ClienteService; con bases muy grandes conviene {@link #iterarClientes()}.
+     */
+    @Override
+    public List<Cliente> listarClientes() {
+        List<Copia> copias = new ArrayList<>();
+        long sello = candado.readLock();
+        try {
+            for (int i = 0; i < posicionesUsadas; i++) {
+                if (estaVivo(i)) {
+                    copias.add(copiar(i));
+                }
+            }
+        } finally {
+            candado.unlockRead(sello);
+        }
+        // Los clientes se arman fuera del bloqueo, así las escrituras esperan lo mínimo
+        List<Cliente> clientes = new ArrayList<>(copias.size());
+        for (Copia copia : copias) {
+            clientes.add(copia.armar());
+        }
+        return clientes;
+    }
+
+    @Override
+    public List<Cliente> instantaneaClientes() {
+        return Collections.unmodifiableList(listarClientes());
+    }
+
+    /**
+     * Recorre los clientes en orden de inserción directamente sobre la memoria nativa, sin copiarlos.
+     * Ve los cambios hechos durante el recorrido, pero nunca repite ni salta un cliente que siga registrado.
+     * @return Iterador sobre los clientes registrados
+     */
+    @Override
+    public Iterator<Cliente> iterarClientes() {
+        return new Recorrido();
+    }
+
+    @Override
+    public Stream<Cliente> streamClientes() {
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new Recorrido(),
+                Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Busca los clientes de un tipo recorriendo todos los registros (solo lee las banderas).
+     * @param tipoCliente Tipo de cliente (ej: "Mayorista", "Minorista")
+     * @return Lista de clientes de ese tipo, en orden de inserción
+     */
+    @Override
+    public List<Cliente> buscarPorTipo(String tipoCliente) {
+        byte buscado;
+        if ("Mayorista".equals(tipoCliente)) {
+            buscado = MAYORISTA;
+        } else if ("Minorista".equals(tipoCliente)) {
+            buscado = 0;
+        } else {
+            return Collections.emptyList();
+        }
+        List<Copia> copias = new ArrayList<>();
+        long sello = candado.readLock();
+        try {
+            for (int i = 0; i < posicionesUsadas; i++) {
+                byte banderas = banderas(i);
+                if ((banderas & VIVO) != 0 && (banderas & MAYORISTA) == buscado) {
+                    copias.add(copiar(i));
+                }
+            }
+        } finally {
+            candado.unlockRead(sello);
+        }
+        List<Cliente> resultado = new ArrayList<>(copias.size());
+        for (Copia copia : copias) {
+            resultado.add(copia.armar());
+        }
+        return resultado;
+    }
+
+    /**
+     * Busca los clientes cuyo nombre empieza por el prefijo (sin distinguir mayúsculas) recorriendo
+     * todos los registros.
+     * @param prefijo Inicio del nombre o razón social
+     * @return Lista de clientes ordenada alfabéticamente por nombre (y por inserción si se repite)
+     */
+    @Override
+    public List<Cliente> buscarPorPrefijoNombre(String prefijo) {
+        String buscado = normalizar(prefijo);
+        List<Copia> copias = new ArrayList<>();
+        long sello = candado.readLock();
+        try {
+            for (int i = 0; i < posicionesUsadas; i++) {
+                if (estaVivo(i)) {
+                    Copia copia = copiar(i);
+                    if (normalizar(copia.nombre()).startsWith(buscado)) {
+                        copias.add(copia);
+                    }
+                }
+            }
+        } finally {
+            candado.unlockRead(sello);
+        }
+        List<Cliente> resultado = new ArrayList<>(copias.size());
+        for (Copia copia : copias) {
+            resultado.add(copia.armar());
+        }
+        // El orden es estable: los nombres iguales quedan en orden de inserción, como en ClienteService
+        resultado.sort(Comparator.comparing(cliente -> normalizar(cliente.getNombre())));
+        return resultado;
+    }
+
+    /**
+     * @return Bytes de memoria nativa reservados por el servicio (registros, textos e índice)
+     */
+    public long bytesNativos() {
+        long sello = candado.readLock();
+        try {
+            return registros.segmento.byteSize() + textos.segmento.byteSize() + indice.segmento.byteSize();
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    // ============ APLICAR CAMBIOS (CON EL BLOQUEO DE ESCRITURA) ============ //
+
+    /**
+     * Guarda el cliente en su registro (o en uno nuevo al final) y escribe sus textos al final de
+     * la zona de textos.
+     */
+    private void aplicarGuardar(long nit, Cliente cliente) {
+        String identificacion = cliente.getIdentificacion();
+        long centavos = cliente.getMontoCentavos();
+        byte banderas = VIVO;
+        byte escala = 0;
+        if (cliente instanceof ClienteMayorista) {
+            banderas |= MAYORISTA;
+        }
+        if (centavos == Dinero.FUERA_DE_RANGO) {
+            banderas |= MONTO_TEXTO;
+            centavos = 0;
+        } else {
+            escala = (byte) cliente.getMontoCompra().scale();
+        }
+        if (!Long.toString(nit).equals(identificacion)) {
+            banderas |= IDENTIFICACION_TEXTO;
+        }
+
+        // Textos: nombre, dirección, teléfono y, si hacen falta, identificación y monto
+        byte[][] campos = {
+                utf8(cliente.getNombre()),
+                utf8(cliente.getDireccion()),
+                utf8(cliente.getTelefono()),
+                (banderas & IDENTIFICACION_TEXTO) != 0 ? utf8(identificacion) : null,
+                (banderas & MONTO_TEXTO) != 0 && cliente.getMontoCompra() != null
+                        ? utf8(cliente.getMontoCompra().toString()) : null
+        };
+        int camposUsados = (banderas & MONTO_TEXTO) != 0 ? 5 : (banderas & IDENTIFICACION_TEXTO) != 0 ? 4 : 3;
+        int longitud = 0;
+        for (int i = 0; i < camposUsados; i++) {
+            longitud += 4 + (campos[i] == null ? 0 : campos[i].length);
+        }
+
+        // Primero se reserva todo lo que puede fallar por falta de memoria; si algo falla el
+        // servicio queda como estaba
+        int posicion = buscarPosicion(nit);
+        if (posicion < 0) {
+            if (posicionesUsadas == capacidadRegistros()) {
+                hacerEspacio();
+            }
+            if (totalClientes + 1 > casillas * FACTOR_CARGA) {
+                reconstruirIndice(casillas << 1);
+            }
+        }
+        long desplazamiento = reservarTextos(longitud);
+
+        MemorySegment zona = textos.segmento;
+        long cursor = desplazamiento;
+        for (int i = 0; i < camposUsados; i++) {
+            byte[] campo = campos[i];
+            if (campo == null) {
+                zona.set(ENTERO, cursor, -1);
+                cursor += 4;
+            } else {
+                zona.set(ENTERO, cursor, campo.length);
+                MemorySegment.copy(campo, 0, zona, ValueLayout.JAVA_BYTE, cursor + 4, campo.length);
+                cursor += 4 + campo.length;
+            }
+        }
+        bytesTextosVivos += longitud;
+
+        MemorySegment segmento = registros.segmento;
+        if (posicion >= 0) {
+            // Los textos anteriores quedan como basura
+            bytesTextosVivos -= segmento.get(ValueLayout.JAVA_INT,
+                    (long) posicion * TAMANO_REGISTRO + CAMPO_LONGITUD_TEXTOS);
+        } else {
+            posicion = posicionesUsadas++;
+            long registro = (long) posicion * TAMANO_REGISTRO;
+            segmento.set(ValueLayout.JAVA_LONG, registro + CAMPO_NIT, nit);
+            segmento.set(ValueLayout.JAVA_LONG, registro + CAMPO_SECUENCIA, siguienteSecuencia++);
+            agregarAlIndice(posicion);
+            totalClientes++;
+        }
+        long registro = (long) posicion * TAMANO_REGISTRO;
+        segmento.set(ValueLayout.JAVA_LONG, registro + CAMPO_CENTAVOS, centavos);
+        segmento.set(ValueLayout.JAVA_LONG, registro + CAMPO_TEXTOS, desplazamiento);
+        segmento.set(ValueLayout.JAVA_INT, registro + CAMPO_LONGITUD_TEXTOS, longitud);
+        segmento.set(ValueLayout.JAVA_BYTE, registro + CAMPO_ESCALA, escala);
+        segmento.set(ValueLayout.JAVA_BYTE, registro + CAMPO_BANDERAS, banderas);
+    }
+
+    /**
+     * Reserva espacio al final de la zona de textos, compactándola antes si la mitad es basura.
+     * @return Desplazamiento donde escribir los textos
+     */
+    private long reservarTextos(int longitud) {
+        if (bytesTextosUsados + longitud > textos.segmento.byteSize()) {
+            long basura = bytesTextosUsados - bytesTextosVivos;
+            if (basura > BASURA_MINIMA_TEXTOS && basura > bytesTextosVivos) {
+                compactarTextos();
+            }
+            if (bytesTextosUsados + longitud > textos.segmento.byteSize()) {
+                textos.crecer(bytesTextosUsados + longitud, bytesTextosUsados);
+            }
+        }
+        long desplazamiento = bytesTextosUsados;
+        bytesTextosUsados += longitud;
+        return desplazamiento;
+    }
+
+    /**
+     * Copia los textos de los clientes vivos, en orden, a una zona nueva sin basura.
+     */
+    private void compactarTextos() {
+        MemorySegment viejo = textos.segmento;
+        Arena arenaNueva = Arena.ofShared();
+        MemorySegment nuevo = arenaNueva.allocate(Math.max(1024, bytesTextosVivos * 2), 8);
+        long destino = 0;
+        MemorySegment segmento = registros.segmento;
+        for (int i = 0; i < posicionesUsadas; i++) {
+            if (estaVivo(i)) {
+                long registro = (long) i * TAMANO_REGISTRO;
+                long origen = segmento.get(ValueLayout.JAVA_LONG, registro + CAMPO_TEXTOS);
+                int longitud = segmento.get(ValueLayout.JAVA_INT, registro + CAMPO_LONGITUD_TEXTOS);
+                MemorySegment.copy(viejo, origen, nuevo, destino, longitud);
+                segmento.set(ValueLayout.JAVA_LONG, registro + CAMPO_TEXTOS, destino);
+                destino += longitud;
+            }
+        }
+        textos.reemplazar(arenaNueva, nuevo);
+        bytesTextosUsados = destino;
+        bytesTextosVivos = destino;
+    }
+
+    /**
+     * Libera espacio al final de los registros: si más de la mitad de las posiciones son huecos
+     * dejados por eliminaciones, los compacta conservando el orden; si no, duplica la zona.
+     */
+    private void hacerEspacio() {
+        if (totalClientes > posicionesUsadas / 2) {
+            registros.crecer(registros.segmento.byteSize() * 2, (long) posicionesUsadas * TAMANO_REGISTRO);
+            return;
+        }
+        // El índice nuevo se reserva antes de mover nada, por si no hay memoria
+        Arena arenaIndice = Arena.ofShared();
+        MemorySegment tabla = arenaIndice.allocate(4L * casillas, 8);
+        MemorySegment segmento = registros.segmento;
+        int destino = 0;
+        for (int i = 0; i < posicionesUsadas; i++) {
+            if (estaVivo(i)) {
+                if (destino != i) {
+                    MemorySegment.copy(segmento, (long) i * TAMANO_REGISTRO,
+                            segmento, (long) destino * TAMANO_REGISTRO, TAMANO_REGISTRO);
+                }
+                destino++;
+            }
+        }
+        posicionesUsadas = destino;
+        compactaciones++;
+        llenarIndice(arenaIndice, tabla, casillas);
+    }
+
+    private int capacidadRegistros() {
+        return (int) Math.min(Integer.MAX_VALUE, registros.segmento.byteSize() / TAMANO_REGISTRO);
+    }
+
+    // ============ ÍNDICE POR NIT ============ //
+
+    /**
+     * @return Posición del cliente con ese NIT, o -1 si no está
+     */
+    private int buscarPosicion(long nit) {
+        MemorySegment tabla = indice.segmento;
+        MemorySegment segmento = registros.segmento;
+        int mascara = casillas - 1;
+        int i = casillaInicial(nit, mascara);
+        // El índice nunca está lleno; el límite solo protege a una lectura optimista que vea a la vez
+        // el número de casillas viejo y la tabla nueva
+        for (int intentos = 0; intentos <= mascara; intentos++) {
+            int valor = tabla.get(ValueLayout.JAVA_INT, 4L * i);
+            if (valor == 0) {
+                return -1;
+            }
+            if (segmento.get(ValueLayout.JAVA_LONG, (long) (valor - 1) * TAMANO_REGISTRO + CAMPO_NIT) == nit) {
+                return valor - 1;
+            }
+            i = (i + 1) & mascara;
+        }
+        return -1;
+    }
+
+    /**
+     * Agrega al índice la posición, cuyo NIT ya está escrito en el registro.
+     * Quien llama ya comprobó que el índice tiene espacio.
+     */
+    private void agregarAlIndice(int posicion) {
+        MemorySegment tabla = indice.segmento;
+        int mascara = casillas - 1;
+        int i = casillaInicial(nitDe(posicion), mascara);
+        while (tabla.get(ValueLayout.JAVA_INT, 4L * i) != 0) {
+            i = (i + 1) & mascara;
+        }
+        tabla.set(ValueLayout.JAVA_INT, 4L * i, posicion + 1);
+    }
+
+    /**
+     * Quita un NIT del índice moviendo hacia atrás las casillas siguientes de su cadena de sondeo
+     * (como IndiceNit, sin lápidas).
+     * @return Posición que tenía, o -1 si no estaba
+     */
+    private int quitarDelIndice(long nit) {
+        MemorySegment tabla = indice.segmento;
+        int mascara = casillas - 1;
+        int hueco = casillaInicial(nit, mascara);
+        while (true) {
+            int valor = tabla.get(ValueLayout.JAVA_INT, 4L * hueco);
+            if (valor == 0) {
+                return -1;
+            }
+            if (nitDe(valor - 1) == nit) {
+                break;
+            }
+            hueco = (hueco + 1) & mascara;
+        }
+        int posicion = tabla.get(ValueLayout.JAVA_INT, 4L * hueco) - 1;
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            int valor = tabla.get(ValueLayout.JAVA_INT, 4L * i);
+            if (valor == 0) {
+                break;
+            }
+            int ideal = casillaInicial(nitDe(valor - 1), mascara);
+            // La entrada puede ocupar el hueco si su posición ideal no está entre el hueco y ella
+            if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+                tabla.set(ValueLayout.JAVA_INT, 4L * hueco, valor);
+                hueco = i;
+            }
+        }
+        tabla.set(ValueLayout.JAVA_INT, 4L * hueco, 0);
+        return posicion;
+    }
+
+    /**
+     * Vuelve a crear el índice con más casillas.
+     */
+    private void reconstruirIndice(int nuevasCasillas) {
+        Arena arenaNueva = Arena.ofShared();
+        llenarIndice(arenaNueva, arenaNueva.allocate(4L * nuevasCasillas, 8), nuevasCasillas);
+    }
+
+    /**
+     * Llena una tabla vacía con las posiciones vivas y la pone en lugar del índice actual.
+     */
+    private void llenarIndice(Arena arenaNueva, MemorySegment tabla, int nuevasCasillas) {
+        int mascara = nuevasCasillas - 1;
+        for (int posicion = 0; posicion < posicionesUsadas; posicion++) {
+            if (estaVivo(posicion)) {
+                int i = casillaInicial(nitDe(posicion), mascara);
+                while (tabla.get(ValueLayout.JAVA_INT, 4L * i) != 0) {
+                    i = (i + 1) & mascara;
+                }
+                tabla.set(ValueLayout.JAVA_INT, 4L * i, posicion + 1);
+            }
+        }
+        indice.reemplazar(arenaNueva, tabla);
+        casillas = nuevasCasillas;
+    }
+
+    private static int capacidadIndice(int clientesEsperados) {
+        return Integer.highestOneBit((int) Math.min(1 << 30, (long) (clientesEsperados / FACTOR_CARGA))) << 1;
+    }
+
+    private static int casillaInicial(long nit, int mascara) {
+        long h = nit * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    // ============ LECTURA DE REGISTROS ============ //
+
+    private long nitDe(int posicion) {
+        return registros.segmento.get(ValueLayout.JAVA_LONG, (long) posicion * TAMANO_REGISTRO + CAMPO_NIT);
+    }
+
+    private byte banderas(int posicion) {
+        return registros.segmento.get(ValueLayout.JAVA_BYTE, (long) posicion * TAMANO_REGISTRO + CAMPO_BANDERAS);
+    }
+
+    private boolean estaVivo(int posicion) {
+        return (banderas(posicion) & VIVO) != 0;
+    }
+
+    /**
+     * Copia al heap el registro del NIT, o null si no existe. Puede llamarse con lectura optimista.
+     */
+    private Copia copiarPorNit(long nit) {
+        int posicion = buscarPosicion(nit);
+        return posicion < 0 ? null : copiar(posicion);
+    }
+
+    /**
+     * Copia al heap los campos y los textos de un registro, todavía sin convertirlos en Cliente:
+     * con una lectura optimista los bytes pueden ser inconsistentes hasta validarla.
+     */
+    private Copia copiar(int posicion) {
+        MemorySegment segmento = registros.segmento;
+        long registro = (long) posicion * TAMANO_REGISTRO;
+        Copia copia = new Copia();
+        copia.nit = segmento.get(ValueLayout.JAVA_LONG, registro + CAMPO_NIT);
+        copia.secuencia = segmento.get(ValueLayout.JAVA_LONG, registro + CAMPO_SECUENCIA);
+        copia.centavos = segmento.get(ValueLayout.JAVA_LONG, registro + CAMPO_CENTAVOS);
+        copia.banderas = segmento.get(ValueLayout.JAVA_BYTE, registro + CAMPO_BANDERAS);
+        copia.escala = segmento.get(ValueLayout.JAVA_BYTE, registro + CAMPO_ESCALA);
+        long desplazamiento = segmento.get(ValueLayout.JAVA_LONG, registro + CAMPO_TEXTOS);
+        int longitud = segmento.get(ValueLayout.JAVA_INT, registro + CAMPO_LONGITUD_TEXTOS);
+        // Una longitud fuera de la zona solo puede venir de una lectura optimista a medias
+        if (longitud < 0 || longitud > textos.segmento.byteSize()) {
+            throw new IndexOutOfBoundsException("Registro leído a mitad de un cambio");
+        }
+        copia.textos = new byte[longitud];
+        MemorySegment.copy(textos.segmento, ValueLayout.JAVA_BYTE, desplazamiento, copia.textos, 0, longitud);
+        return copia;
+    }
+
+    private static byte[] utf8(String texto) {
+        return texto == null ? null : texto.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String normalizar(String nombre) {
+        return nombre == null ? "" : nombre.toLowerCase(Locale.ROOT);
+    }
+
+    private static long validar(Cliente cliente) {
+        long nit = nitComoLong(cliente.getIdentificacion());
+        if (nit <= 0) {
+            throw new IllegalArgumentException("Identificación no válida como NIT: " + cliente.getIdentificacion());
+        }
+        if (!(cliente instanceof ClienteMinorista) && !(cliente instanceof ClienteMayorista)) {
+            throw new IllegalArgumentException("El servicio fuera del heap solo guarda clientes minoristas y mayoristas: "
+                    + cliente.getClass().getSimpleName());
+        }
+        return nit;
+    }
+
+    /**
+     * Registro copiado al heap; {@link #armar()} lo convierte en un Cliente.
+     */
+    private static final class Copia {
+        long nit;
+        long secuencia;
+        long centavos;
+        byte banderas;
+        byte escala;
+        byte[] textos;
+
+        // Posición de lectura dentro de textos mientras se arma
+        private int cursor;
+
+        Cliente armar() {
+            cursor = 0;
+            String nombre = siguienteTexto();
+            String direccion = siguienteTexto();
+            String telefono = siguienteTexto();
+            // El cuarto texto existe si va la identificación o el monto (vacío si solo va el monto)
+            String identificacion = (banderas & (IDENTIFICACION_TEXTO | MONTO_TEXTO)) != 0 ? siguienteTexto() : null;
+            if ((banderas & IDENTIFICACION_TEXTO) == 0) {
+                identificacion = Long.toString(nit);
+            }
+            BigDecimal monto;
+            if ((banderas & MONTO_TEXTO) != 0) {
+                String texto = siguienteTexto();
+                monto = texto == null ? null : new BigDecimal(texto);
+            } else {
+                monto = BigDecimal.valueOf(centavos / DIVISOR_ESCALA[escala], escala);
+            }
+            return (banderas & MAYORISTA) != 0
+                    ? new ClienteMayorista(identificacion, nombre, monto, direccion, telefono)
+                    : new ClienteMinorista(identificacion, nombre, monto, direccion, telefono);
+        }
+
+        /**
+         * @return Nombre sin armar el resto del cliente (para filtrar por prefijo)
+         */
+        String nombre() {
+            cursor = 0;
+            return siguienteTexto();
+        }
+
+        private String siguienteTexto() {
+            int longitud = (textos[cursor] & 0xFF) | (textos[cursor + 1] & 0xFF) << 8
+                    | (textos[cursor + 2] & 0xFF) << 16 | textos[cursor + 3] << 24;
+            cursor += 4;
+            if (longitud < 0) {
+                return null;
+            }
+            String texto = new String(textos, cursor, longitud, StandardCharsets.UTF_8);
+            cursor += longitud;
+            return texto;
+        }
+    }
+
+    /**
+     * Recorrido en orden de inserción que toma el bloqueo de lectura en cada paso.
+     * Si entre dos pasos se compactaron los registros, busca por número de secuencia (que crece con
+     * la posición) el primer cliente posterior al último entregado.
+     */
+    private final class Recorrido implements Iterator<Cliente> {
+        private int posicion;
+        private long ultimaSecuencia = -1;
+        private int compactacionesVistas = compactaciones;
+        private Copia siguiente;
+
+        @Override
+        public boolean hasNext() {
+            if (siguiente == null) {
+                avanzar();
+            }
+            return siguiente != null;
+        }
+
+        @Override
+        public Cliente next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Copia copia = siguiente;
+            siguiente = null;
+            return copia.armar();
+        }
+
+        private void avanzar() {
+            long sello = candado.readLock();
+            try {
+                if (compactacionesVistas != compactaciones) {
+                    posicion = primeraPosicionDespuesDe(ultimaSecuencia);
+                    compactacionesVistas = compactaciones;
+                }
+                while (posicion < posicionesUsadas) {
+                    int actual = posicion++;
+                    if (estaVivo(actual)) {
+                        siguiente = copiar(actual);
+                        ultimaSecuencia = siguiente.secuencia;
+                        return;
+                    }
+                }
+            } finally {
+                candado.unlockRead(sello);
+            }
+        }
+
+        private int primeraPosicionDespuesDe(long secuencia) {
+            int desde = 0;
+            int hasta = posicionesUsadas;
+            while (desde < hasta) {
+                int medio = (desde + hasta) >>> 1;
+                long valor = registros.segmento.get(ValueLayout.JAVA_LONG,
+                        (long) medio * TAMANO_REGISTRO + CAMPO_SECUENCIA);
+                if (valor <= secuencia) {
+                    desde = medio + 1;
+                } else {
+                    hasta = medio;
+                }
+            }
+            return desde;
+        }
+    }
+
+    /**
+     * Bloque de memoria nativa con su propia Arena, para poder liberarlo al crecer o al cerrar.
+     * Se usa una Arena compartida porque los lectores pueden estar en cualquier hilo.
+     */
+    private static final class ZonaNativa {
+        private Arena arena;
+        // volatile: una lectura optimista debe ver la zona nueva o la vieja, nunca una a medias
+        volatile MemorySegment segmento;
+
+        ZonaNativa(long bytes) {
+            arena = Arena.ofShared();
+            segmento = arena.allocate(Math.max(64, bytes), 8);
+        }
+
+        /**
+         * Cambia la zona por una de al menos el tamaño pedido, copiando los bytes usados.
+         */
+        void crecer(long minimo, long usados) {
+            long tamano = Math.max(minimo, segmento.byteSize() * 2);
+            Arena arenaNueva = Arena.ofShared();
+            MemorySegment nuevo = arenaNueva.allocate(tamano, 8);
+            MemorySegment.copy(segmento, 0, nuevo, 0, usados);
+            reemplazar(arenaNueva, nuevo);
+        }
+
+        void reemplazar(Arena arenaNueva, MemorySegment nuevo) {
+            Arena vieja = arena;
+            arena = arenaNueva;
+            segmento = nuevo;
+            // Un lector optimista que todavía la use recibe IllegalStateException y repite con bloqueo
+            vieja.close();
+        }
+
+        void liberar() {
+            if (arena.scope().isAlive()) {
+                arena.close();
+            }
+        }
+    }
+}
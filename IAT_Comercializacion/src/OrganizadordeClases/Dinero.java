@@ -0,0 +1,164 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importación de BigDecimal para convertir desde y hacia los montos exactos
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Aritmética de dinero en punto fijo: los montos se manejan como centavos en un long.
+ *
+ * Sirve para calcular facturas sin crear objetos BigDecimal en cada operación. Los resultados
+ * son exactamente los mismos que con BigDecimal y setScale(2, HALF_UP):
+ * 1. Una tasa se expresa en puntos básicos (1900 = 19%), así monto × tasa es una división exacta entre 10.000
+ * 2. El redondeo HALF_UP se aplica sobre el valor absoluto, igual que BigDecimal (los empates se alejan de cero)
+ * 3. Si un monto tiene más de 2 decimales o una operación se desborda, el resultado es
+ *    {@link #FUERA_DE_RANGO} y quien llama debe repetir el cálculo con BigDecimal
+ */
+public final class Dinero {
+
+    /** Valor que indica que el monto no se puede representar en centavos (usar BigDecimal) */
+    public static final long FUERA_DE_RANGO = Long.MIN_VALUE;
+
+    /** Denominador de las tasas en puntos básicos */
+    private static final long PUNTOS_BASICOS = 10_000;
+
+    /** Máximo de dígitos enteros de un monto recibido desde fuera (red, archivos) */
+    public static final int MAXIMO_DIGITOS_ENTEROS = 18;
+
+    /** Máximo de decimales de un monto recibido desde fuera, antes de redondearlo */
+    public static final int MAXIMO_DECIMALES = 18;
+
+    private Dinero() {
+    }
+
+    /**
+     * Convierte un monto a centavos.
+     * @param monto Monto a convertir
+     * @return Centavos, o FUERA_DE_RANGO si el monto es null, tiene más de 2 decimales o no cabe en un long
+     */
+    public static long aCentavos(BigDecimal monto) {
+        if (monto == null || monto.scale() < 0 || monto.scale() > 2
+                || monto.precision() + 2 - monto.scale() > 18) {
+            return FUERA_DE_RANGO;
+        }
+        // Con 18 dígitos en centavos como máximo, el valor y la multiplicación caben en un long
+        long sinEscala = monto.unscaledValue().longValue();
+        return monto.scale() == 2 ? sinEscala : monto.scale() == 1 ? sinEscala * 10 : sinEscala * 100;
+    }
+
+    /**
+     * Redondea a 2 decimales con HALF_UP un monto recibido desde fuera, solo si su tamaño es
+     * razonable. Un texto como "1e99999999" se convierte en BigDecimal al instante, pero
+     * setScale tendría que construir una potencia de diez de millones de dígitos y ocuparía
+     * un núcleo durante minutos.
+     * @param monto Monto leído, por ejemplo con new BigDecimal(texto)
+     * @return Monto con escala 2, o null si tiene más de {@link #MAXIMO_DIGITOS_ENTEROS} dígitos
+     *         enteros o más de {@link #MAXIMO_DECIMALES} decimales
+     */
+    public static BigDecimal redondearExterno(BigDecimal monto) {
+        if (monto.precision() - monto.scale() > MAXIMO_DIGITOS_ENTEROS || monto.scale() > MAXIMO_DECIMALES) {
+            return null;
+        }
+        return monto.setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Convierte centavos a un monto con 2 decimales.
+     * @param centavos Monto en centavos
+     * @return Monto equivalente con escala 2
+     */
+    public static BigDecimal deCentavos(long centavos) {
+        return BigDecimal.valueOf(centavos, 2);
+    }
+
+    /**
+     * Aplica una tasa a un monto y redondea a centavos con HALF_UP.
+     * Equivale a monto.multiply(tasa).setScale(2, RoundingMode.HALF_UP).
+     * @param centavos Monto en centavos
+     * @param puntosBasicos Tasa en puntos básicos (1900 = 19%)
+     * @return Resultado en centavos, o FUERA_DE_RANGO si la operación se desborda
+     */
+    public static long aplicarTasa(long centavos, int puntosBasicos) {
+        if (centavos == FUERA_DE_RANGO) {
+            return FUERA_DE_RANGO;
+        }
+        try {
+            long producto = Math.multiplyExact(Math.abs(centavos), (long) Math.abs(puntosBasicos));
+            long redondeado = Math.addExact(producto, PUNTOS_BASICOS / 2) / PUNTOS_BASICOS;
+            return (centavos < 0) != (puntosBasicos < 0) ? -redondeado : redondeado;
+        } catch (ArithmeticException e) {
+            return FUERA_DE_RANGO;
+        }
+    }
+
+    /**
+     * Aplica una tasa a un monto exacto, usando centavos cuando es posible.
+     * @param monto Monto a multiplicar
+     * @param puntosBasicos Tasa en puntos básicos (1900 = 19%)
+     * @return monto × tasa redondeado a 2 decimales con HALF_UP
+     */
+    public static BigDecimal aplicarTasa(BigDecimal monto, int puntosBasicos) {
+        long resultado = aplicarTasa(aCentavos(monto), puntosBasicos);
+        if (resultado != FUERA_DE_RANGO) {
+            return deCentavos(resultado);
+        }
+        return monto.multiply(BigDecimal.valueOf(puntosBasicos, 4)).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * @return a + b en centavos, o FUERA_DE_RANGO si alguno no es representable o la suma se desborda
+     */
+    public static long sumar(long a, long b) {
+        if (a == FUERA_DE_RANGO || b == FUERA_DE_RANGO) {
+            return FUERA_DE_RANGO;
+        }
+        try {
+            return Math.addExact(a, b);
+        } catch (ArithmeticException e) {
+            return FUERA_DE_RANGO;
+        }
+    }
+
+    /**
+     * @return a - b en centavos, o FUERA_DE_RANGO si alguno no es representable o la resta se desborda
+     */
+    public static long restar(long a, long b) {
+        if (a == FUERA_DE_RANGO || b == FUERA_DE_RANGO) {
+            return FUERA_DE_RANGO;
+        }
+        try {
+            return Math.subtractExact(a, b);
+        } catch (ArithmeticException e) {
+            return FUERA_DE_RANGO;
+        }
+    }
+
+    /**
+     * Escribe un monto en centavos con el mismo texto que BigDecimal.toPlainString()
+     * de un valor con escala 2 (por ejemplo "1234.50" o "-0.05"), sin crear objetos.
+     * @param destino Texto donde se agrega el monto
+     * @param centavos Monto en centavos (distinto de FUERA_DE_RANGO)
+     * @return El mismo destino
+     */
+    public static StringBuilder anexar(StringBuilder destino, long centavos) {
+        if (centavos < 0) {
+            destino.append('-');
+            centavos = -centavos;
+        }
+        long decimales = centavos % 100;
+        return destino.append(centavos / 100).append('.')
+                .append((char) ('0' + decimales / 10)).append((char) ('0' + decimales % 10));
+    }
+
+    /**
+     * Escribe un monto que puede venir en centavos o como BigDecimal exacto.
+     * @param destino Texto donde se agrega el monto
+     * @param exacto Monto exacto, o null si el valor está en centavos
+     * @param centavos Monto en centavos (se usa cuando exacto es null)
+     * @return El mismo destino
+     */
+    static StringBuilder anexar(StringBuilder destino, BigDecimal exacto, long centavos) {
+        return exacto != null ? destino.append(exacto.toPlainString()) : anexar(destino, centavos);
+    }
+}
@@ -0,0 +1,178 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones de Java Flight Recorder para definir los eventos propios
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+// Importaciones de JMX para encender o apagar los eventos sin reiniciar
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Eventos de Java Flight Recorder para las operaciones de negocio de comercialización.
+ *
+ * Con ellos una grabación de JFR muestra, junto a las asignaciones de memoria y las pausas del
+ * recolector, qué estaba haciendo la aplicación en ese momento: guardar un cliente, facturar
+ * un lote o escribir un reporte. Cada evento lleva su duración, el número de registros y los
+ * bytes escritos o leídos.
+ *
+ * Los eventos solo cuestan algo cuando hay una grabación activa que los incluye. Además se
+ * pueden apagar en la aplicación con -Diat.jfr=false, con {@link #activar(boolean)} o, sin
+ * reiniciar, cambiando el atributo Activos de "IAT.Comercializacion:type=EventosJfr" en JConsole.
+ *
+ * Uso:
+ * <pre>
+ * EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+ * evento.begin();
+ * ...
+ * if (EventosJfr.debeRegistrar(evento)) { evento.registros = n; ...; evento.commit(); }
+ * </pre>
+ * Grabación de ejemplo: java -XX:StartFlightRecording=filename=iat.jfr Main
+ * (los eventos aparecen en JDK Mission Control bajo la categoría IAT / Comercialización).
+ */
+public final class EventosJfr {
+
+    private static volatile boolean activos = !"false".equals(System.getProperty("iat.jfr"));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Control(),
+                    new ObjectName("IAT.Comercializacion:type=EventosJfr"));
+        } catch (JMException e) {
+            // Sin JMX los eventos se siguen controlando con activar()
+            System.err.println("No se pudo publicar el control de eventos JFR por JMX: " + e.getMessage());
+        }
+    }
+
+    private EventosJfr() {
+    }
+
+    /**
+     * Enciende o apaga el envío de los eventos de la aplicación a JFR.
+     * @param valor true para enviarlos
+     */
+    public static void activar(boolean valor) {
+        activos = valor;
+    }
+
+    /**
+     * @return true si los eventos de la aplicación se envían a JFR
+     */
+    public static boolean estanActivos() {
+        return activos;
+    }
+
+    /**
+     * Indica si hay que completar y guardar el evento: los eventos están activos, hay una grabación
+     * que lo incluye y su duración supera el umbral configurado en ella.
+     * @param evento Evento ya iniciado con begin()
+     * @return true si se debe llamar a commit()
+     */
+    public static boolean debeRegistrar(Event evento) {
+        return activos && evento.shouldCommit();
+    }
+
+    /**
+     * Alta, actualización, baja, carga o cierre de los clientes.
+     * Son operaciones muy frecuentes, por eso no guardan la pila de llamadas.
+     */
+    @Name("IAT.Comercializacion.Cliente")
+    @Label("Operación de clientes")
+    @Category({"IAT", "Comercialización"})
+    @Description("Cambio o carga de clientes en ClienteService")
+    @StackTrace(false)
+    public static final class EventoCliente extends Event {
+        @Label("Operación")
+        public String operacion;
+
+        @Label("NIT")
+        @Description("NIT del cliente; vacío en las operaciones sobre varios clientes")
+        public String nit;
+
+        @Label("Registros")
+        public long registros;
+
+        @Label("Bytes")
+        @Description("Bytes escritos o leídos en la carpeta de datos (0 si el servicio es solo en memoria)")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * Generación de una factura o de un lote de facturas.
+     */
+    @Name("IAT.Comercializacion.Factura")
+    @Label("Facturación")
+    @Category({"IAT", "Comercialización"})
+    @Description("Cálculo y entrega de facturas a un renderizador")
+    public static final class EventoFactura extends Event {
+        @Label("Destino")
+        @Description("Renderizador o archivo donde se entregan las facturas")
+        public String destino;
+
+        @Label("NIT")
+        @Description("NIT del cliente; vacío en los lotes")
+        public String nit;
+
+        @Label("Registros")
+        public long registros;
+
+        @Label("Bytes")
+        @Description("Tamaño del archivo escrito (0 si el destino no es un archivo)")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * Escritura de un reporte de clientes.
+     */
+    @Name("IAT.Comercializacion.Reporte")
+    @Label("Reporte de clientes")
+    @Category({"IAT", "Comercialización"})
+    @Description("Escritura de un reporte de clientes en texto o CSV")
+    public static final class EventoReporte extends Event {
+        @Label("Formato")
+        public String formato;
+
+        @Label("Archivo")
+        public String archivo;
+
+        @Label("Registros")
+        public long registros;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Correcto")
+        public boolean correcto;
+    }
+
+    /**
+     * Vista JMX para encender o apagar los eventos mientras la aplicación corre.
+     */
+    public interface ControlMXBean {
+        boolean isActivos();
+
+        void setActivos(boolean valor);
+    }
+
+    private static final class Control implements ControlMXBean {
+        @Override
+        public boolean isActivos() {
+            return activos;
+        }
+
+        @Override
+        public void setActivos(boolean valor) {
+            activos = valor;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importación de la clase BigDecimal para manejar valores monetarios con precisión
+import java.math.BigDecimal;
+
+/**
+ * Resultado inmutable del cálculo de una factura.
+ * Contiene los datos del cliente que aparecen en la factura y todos los valores calculados,
+ * sin ningún formato: mostrarla o guardarla es tarea de quien la usa.
+ *
+ * Cuando el cálculo se hizo en centavos (ver {@link Dinero}), los valores se guardan como long
+ * y los BigDecimal solo se crean si alguien los pide.
+ */
+public final class Factura {
+
+    /** Identificación (NIT) del cliente facturado */
+    private final String identificacion;
+
+    /** Nombre o razón social del cliente */
+    private final String nombre;
+
+    /** Tipo de cliente (ej: "Mayorista", "Minorista") */
+    private final String tipoCliente;
+
+    /** Monto de la compra antes de impuestos */
+    private final BigDecimal montoCompra;
+
+    /** Tasa de IVA con la que se calculó, en puntos básicos (1900 = 19%) */
+    private final int ivaPuntosBasicos;
+
+    // Valores exactos; null cuando la factura se calculó en centavos
+    private final BigDecimal valorIva;
+    private final BigDecimal subtotalConIva;
+    private final BigDecimal descuento;
+    private final BigDecimal totalPagar;
+
+    // Valores en centavos; Dinero.FUERA_DE_RANGO cuando la factura se calculó con BigDecimal
+    private final long montoCompraCentavos;
+    private final long valorIvaCentavos;
+    private final long subtotalConIvaCentavos;
+    private final long descuentoCentavos;
+    private final long totalPagarCentavos;
+
+    /**
+     * Crea una factura con los valores ya calculados.
+     * @param identificacion Identificación del cliente
+     * @param nombre Nombre o razón social del cliente
+     * @param tipoCliente Tipo de cliente
+     * @param montoCompra Monto de la compra
+     * @param ivaPuntosBasicos Tasa de IVA aplicada, en puntos básicos (1900 = 19%)
+     * @param valorIva Valor del IVA
+     * @param subtotalConIva Subtotal con IVA
+     * @param descuento Descuento aplicado
+     * @param totalPagar Total a pagar
+     */
+    public Factura(String identificacion, String nombre, String tipoCliente, BigDecimal montoCompra,
+                   int ivaPuntosBasicos, BigDecimal valorIva, BigDecimal subtotalConIva, BigDecimal descuento, BigDecimal totalPagar) {
+        this.identificacion = identificacion;
+        this.nombre = nombre;
+        this.tipoCliente = tipoCliente;
+        this.montoCompra = montoCompra;
+        this.ivaPuntosBasicos = ivaPuntosBasicos;
+        this.valorIva = valorIva;
+        this.subtotalConIva = subtotalConIva;
+        this.descuento = descuento;
+        this.totalPagar = totalPagar;
+        this.montoCompraCentavos = Dinero.FUERA_DE_RANGO;
+        this.valorIvaCentavos = Dinero.FUERA_DE_RANGO;
+        this.subtotalConIvaCentavos = Dinero.FUERA_DE_RANGO;
+        this.descuentoCentavos = Dinero.FUERA_DE_RANGO;
+        this.totalPagarCentavos = Dinero.FUERA_DE_RANGO;
+    }
+
+    /**
+     * Crea una factura calculada en centavos.
+     * @param montoCompra Monto de la compra tal como lo tiene el cliente
+     * @param montoCompraCentavos El mismo monto en centavos
+     * @param ivaPuntosBasicos Tasa de IVA aplicada, en puntos básicos
+     */
+    Factura(String identificacion, String nombre, String tipoCliente, BigDecimal montoCompra,
+            long montoCompraCentavos, int ivaPuntosBasicos, long valorIvaCentavos, long subtotalConIvaCentavos,
+            long descuentoCentavos, long totalPagarCentavos) {
+        this.identificacion = identificacion;
+        this.nombre = nombre;
+        this.tipoCliente = tipoCliente;
+        this.montoCompra = montoCompra;
+        this.ivaPuntosBasicos = ivaPuntosBasicos;
+        this.valorIva = null;
+        this.subtotalConIva = null;
+        this.descuento = null;
+        this.totalPagar = null;
+        this.montoCompraCentavos = montoCompraCentavos;
+        this.valorIvaCentavos = valorIvaCentavos;
+        this.subtotalConIvaCentavos = subtotalConIvaCentavos;
+        this.descuentoCentavos = descuentoCentavos;
+        this.totalPagarCentavos = totalPagarCentavos;
+    }
+
+    // ============ MÉTODOS GETTERS ============ //
+
+    public String getIdentificacion() { return identificacion; }
+
+    public String getNombre() { return nombre; }
+
+    public String getTipoCliente() { return tipoCliente; }
+
+    public BigDecimal getMontoCompra() { return montoCompra; }
+
+    public int getIvaPuntosBasicos() { return ivaPuntosBasicos; }
+
+    /** @return Tasa de IVA como porcentaje para mostrar, sin ceros de sobra (ej: "19", "19.5") */
+    public String getPorcentajeIva() {
+        StringBuilder texto = new StringBuilder(6);
+        anexarPorcentajeIva(texto);
+        return texto.toString();
+    }
+
+    public BigDecimal getValorIva() { return valorIva != null ? valorIva : Dinero.deCentavos(valorIvaCentavos); }
+
+    public BigDecimal getSubtotalConIva() {
+        return subtotalConIva != null ? subtotalConIva : Dinero.deCentavos(subtotalConIvaCentavos);
+    }
+
+    public BigDecimal getDescuento() { return descuento != null ? descuento : Dinero.deCentavos(descuentoCentavos); }
+
+    public BigDecimal getTotalPagar() { return totalPagar != null ? totalPagar : Dinero.deCentavos(totalPagarCentavos); }
+
+    // ============ ACCESO EN CENTAVOS (uso interno) ============ //
+
+    /** @return true si los valores calculados están en centavos */
+    boolean enCentavos() { return valorIva == null; }
+
+    long getMontoCompraCentavos() { return montoCompraCentavos; }
+
+    long getValorIvaCentavos() { return valorIvaCentavos; }
+
+    long getSubtotalConIvaCentavos() { return subtotalConIvaCentavos; }
+
+    long getDescuentoCentavos() { return descuentoCentavos; }
+
+    long getTotalPagarCentavos() { return totalPagarCentavos; }
+
+    // Escriben cada valor como texto sin crear un BigDecimal cuando está en centavos
+
+    void anexarPorcentajeIva(StringBuilder destino) {
+        destino.append(ivaPuntosBasicos / 100);
+        int decimales = ivaPuntosBasicos % 100;
+        if (decimales != 0) {
+            destino.append('.').append(decimales / 10);
+            if (decimales % 10 != 0) {
+                destino.append(decimales % 10);
+            }
+        }
+    }
+
+    void anexarValorIva(StringBuilder destino) { Dinero.anexar(destino, valorIva, valorIvaCentavos); }
+
+    void anexarSubtotalConIva(StringBuilder destino) { Dinero.anexar(destino, subtotalConIva, subtotalConIvaCentavos); }
+
+    void anexarDescuento(StringBuilder destino) { Dinero.anexar(destino, descuento, descuentoCentavos); }
+
+    void anexarTotalPagar(StringBuilder destino) { Dinero.anexar(destino, totalPagar, totalPagarCentavos); }
+}
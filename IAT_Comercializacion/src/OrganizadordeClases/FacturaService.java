@@ -4,66 +4,133 @@ package OrganizadordeClases;
 import java.math.BigDecimal;
 // Importa la clase BigDecimal para manejar números decimales con precisión (útil para dinero).
 
-import java.math.RoundingMode;
-// Importa la enumeración RoundingMode para definir cómo redondear valores decimales.
-
-import java.text.NumberFormat;
-// Importa NumberFormat para formatear números, especialmente monedas.
-
-import java.util.Locale;
-// Importa Locale para especificar configuraciones regionales (idioma, moneda).
+import java.io.IOException;
+// Importa IOException, que pueden lanzar los renderizadores que escriben en archivos.
 
 public class FacturaService {
     // Define la clase pública FacturaService, que contiene la lógica para generar facturas.
 
-    private static final BigDecimal IVA = new BigDecimal("0.19");
-    // Constante estática y final que representa el porcentaje del IVA (19%), usando BigDecimal para precisión.
+    private final ReglasPrecio reglas;
+    // Reglas de IVA y descuentos; null para usar siempre las reglas vigentes de la aplicación.
 
-    private static final NumberFormat CURRENCY_FORMAT = NumberFormat.getCurrencyInstance(Locale.US);
-    // Constante estática para formatear valores monetarios según la configuración regional de Estados Unidos.
+    private static final Metricas.Operacion METRICA_CALCULAR = Metricas.operacion("factura_calcular", 16);
+    // Duración del cálculo de una factura; se mide una de cada 16 porque es una operación muy rápida.
 
-    public void generarFactura(Cliente cliente) {
-        // Método público que no devuelve valor (void), recibe un objeto Cliente para generar una factura.
+    private static final Metricas.Operacion METRICA_GENERAR = Metricas.operacion("factura_generar");
+    // Duración de calcular y entregar una factura a su renderizador (consola, archivo...).
+
+    public FacturaService() {
+        // Constructor que usa las reglas de precio vigentes (ReglasPrecio.vigentes()) en cada factura.
+        this(null);
+    }
+
+    public FacturaService(ReglasPrecio reglas) {
+        // Constructor que usa unas reglas de precio concretas.
+        this.reglas = reglas;
+    }
+
+    public Factura calcularFactura(Cliente cliente) {
+        // Método público que calcula la factura de un cliente sin imprimir nada.
+        // No modifica ningún estado, por lo que puede llamarse desde varios hilos a la vez.
+
+        long inicio = METRICA_CALCULAR.iniciar();
+        try {
+            return calcular(cliente);
+        } finally {
+            METRICA_CALCULAR.terminar(inicio);
+        }
+    }
+
+    Factura calcular(Cliente cliente) {
+        // Hace el cálculo de calcularFactura; separado para medir su duración en un solo punto.
+        // MotorAnalitica lo llama directamente para no contar como facturas los millones de cálculos de un análisis.
+
+        TablaPrecios tabla = (reglas != null ? reglas : ReglasPrecio.vigentes()).tabla();
+        // Toma la tabla de precios vigente una sola vez: toda la factura usa las mismas reglas aunque se recarguen.
+
+        int tipo = TablaPrecios.tipoDe(cliente);
+        // Código del tipo de cliente para buscar su descuento en la tabla.
+
+        long montoCentavos = cliente.getMontoCentavos();
+        if (montoCentavos != Dinero.FUERA_DE_RANGO) {
+            // Camino rápido: todo el cálculo se hace en centavos, sin crear objetos BigDecimal.
+            // Redondea igual que setScale(2, HALF_UP); si algo se desborda, se usa el cálculo con BigDecimal.
+            long ivaCentavos = Dinero.aplicarTasa(montoCentavos, tabla.getIvaPuntosBasicos());
+            long subtotalCentavos = Dinero.sumar(montoCentavos, ivaCentavos);
+            long descuentoCentavos = tipo == TablaPrecios.TIPO_OTRO
+                    ? cliente.calcularDescuentoCentavos(subtotalCentavos)
+                    : Dinero.aplicarTasa(subtotalCentavos, tabla.tasaDescuento(tipo, montoCentavos));
+            long totalCentavos = Dinero.restar(subtotalCentavos, descuentoCentavos);
+            if (totalCentavos != Dinero.FUERA_DE_RANGO) {
+                return new Factura(cliente.getIdentificacion(), cliente.getNombre(), cliente.getTipoCliente(),
+                        cliente.getMontoCompra(), montoCentavos, tabla.getIvaPuntosBasicos(), ivaCentavos,
+                        subtotalCentavos, descuentoCentavos, totalCentavos);
+            }
+        }
 
         BigDecimal montoCompra = cliente.getMontoCompra();
-        // Obtiene el monto de la compra desde el objeto cliente (se asume que Cliente tiene este método).
+        // Obtiene el monto de la compra desde el objeto cliente.
 
-        BigDecimal valorIva = montoCompra.multiply(IVA).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal valorIva = Dinero.aplicarTasa(montoCompra, tabla.getIvaPuntosBasicos());
         // Calcula el IVA multiplicando el monto por el porcentaje IVA, redondeando a 2 decimales con HALF_UP.
 
         BigDecimal subtotalConIva = montoCompra.add(valorIva);
         // Suma el monto de la compra más el IVA para obtener el subtotal con IVA incluido.
 
-        BigDecimal descuento = cliente.calcularDescuento(subtotalConIva);
-        // Calcula el descuento aplicable llamando a un método del cliente que recibe el subtotal con IVA.
+        BigDecimal descuento = tipo == TablaPrecios.TIPO_OTRO
+                ? cliente.calcularDescuento(subtotalConIva)
+                : Dinero.aplicarTasa(subtotalConIva, tabla.tasaDescuento(tipo, montoCompra));
+        // Calcula el descuento con la tasa del tramo del cliente (o con su propio método si es otro tipo de cliente).
 
         BigDecimal totalPagar = subtotalConIva.subtract(descuento);
         // Calcula el total a pagar restando el descuento al subtotal con IVA.
 
-        // Imprime en consola la factura con formato legible:
-        System.out.println("\n--- FACTURA ---");
-        System.out.println("Cliente: " + cliente.getNombre());
-        // Muestra el nombre del cliente.
-
-        System.out.println("Identificación: " + cliente.getIdentificacion());
-        // Muestra la identificación del cliente.
-
-        System.out.println("Monto compra: " + CURRENCY_FORMAT.format(montoCompra));
-        // Muestra el monto de la compra formateado como moneda.
+        return new Factura(cliente.getIdentificacion(), cliente.getNombre(), cliente.getTipoCliente(),
+                montoCompra, tabla.getIvaPuntosBasicos(), valorIva, subtotalConIva, descuento, totalPagar);
+        // Retorna el resultado inmutable con todos los valores calculados y la tasa de IVA aplicada.
+    }
 
-        System.out.println("IVA (19%): " + CURRENCY_FORMAT.format(valorIva));
-        // Muestra el valor del IVA formateado.
+    public void generarFactura(Cliente cliente) {
+        // Método público que no devuelve valor (void), recibe un objeto Cliente para generar una factura.
 
-        System.out.println("Subtotal con IVA: " + CURRENCY_FORMAT.format(subtotalConIva));
-        // Muestra el subtotal con IVA.
+        long inicio = METRICA_GENERAR.iniciar();
+        EventosJfr.EventoFactura evento = new EventosJfr.EventoFactura();
+        evento.begin();
+        try {
+            new RenderizadorFacturaConsola(System.out).renderizar(calcularFactura(cliente));
+            // Calcula la factura y la imprime en consola con formato de moneda.
+        } finally {
+            METRICA_GENERAR.terminar(inicio);
+        }
+        registrarEvento(evento, "Consola", cliente.getIdentificacion());
+    }
 
-        System.out.println("Descuento (" + cliente.getTipoCliente() + "): " + CURRENCY_FORMAT.format(descuento));
-        // Muestra el descuento aplicado, indicando el tipo de cliente.
+    public void generarFactura(Cliente cliente, RenderizadorFactura renderizador) throws IOException {
+        // Calcula la factura del cliente y la entrega al renderizador indicado (texto, CSV, binario...).
+
+        long inicio = METRICA_GENERAR.iniciar();
+        EventosJfr.EventoFactura evento = new EventosJfr.EventoFactura();
+        evento.begin();
+        try {
+            renderizador.renderizar(calcularFactura(cliente));
+        } catch (IOException e) {
+            METRICA_GENERAR.error();
+            throw e;
+        } finally {
+            METRICA_GENERAR.terminar(inicio);
+        }
+        registrarEvento(evento, renderizador.getClass().getSimpleName(), cliente.getIdentificacion());
+    }
 
-        System.out.println("Total a pagar: " + CURRENCY_FORMAT.format(totalPagar));
-        // Muestra el total final a pagar después del descuento.
+    private static void registrarEvento(EventosJfr.EventoFactura evento, String destino, String nit) {
+        // Completa y guarda el evento de JFR de la factura, si hay una grabación que lo pide.
+        // El tamaño no se conoce porque el renderizador escribe en su propio destino.
 
-        System.out.println("-----------------\n");
-        // Imprime una línea separadora para finalizar la factura.
+        if (EventosJfr.debeRegistrar(evento)) {
+            evento.destino = destino;
+            evento.nit = nit;
+            evento.registros = 1;
+            evento.commit();
+        }
     }
 }
@@ -0,0 +1,363 @@
+package OrganizadordeClases;
+// Define el paquete al que pertenece esta clase.
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+// Importa las clases de entrada/salida para escribir las facturas en un archivo.
+
+import java.math.BigDecimal;
+// Importa BigDecimal para acumular los totales sin perder precisión.
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.stream.Stream;
+// Importa las interfaces con las que se reciben los clientes a facturar.
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+// Importa el pool fork-join para calcular las facturas de cada bloque en paralelo.
+
+/**
+ * Facturación por lotes: genera la factura de muchos clientes de una sola vez (por ejemplo,
+ * el cierre de mes sobre todos los clientes) en lugar de imprimirlas una por una.
+ *
+ * Los clientes se toman por bloques. Mientras el hilo que llama escribe las facturas de un
+ * bloque, el pool fork-join ya está calculando las del bloque siguiente. Como la escritura y
+ * la suma de los totales se hacen siempre en el hilo que llama y en el orden de entrada, el
+ * resultado es el mismo sin importar cuántos hilos se usen, y todos los valores se calculan
+ * con BigDecimal, sin redondeos adicionales. El formato de salida lo decide un
+ * {@link RenderizadorFactura}; por defecto se escribe un archivo CSV.
+ */
+public class FacturacionLote {
+
+    // Número de clientes que se calculan juntos antes de escribirlos.
+    private static final int FACTURAS_POR_BLOQUE = 8_192;
+
+    // Tamaño mínimo de un rango para dividirlo entre varios hilos.
+    private static final int FACTURAS_POR_TAREA = 512;
+
+    // Tamaño del buffer del archivo de facturas (1 MB).
+    private static final int TAMANO_BUFFER_SALIDA = 1 << 20;
+
+    private final FacturaService facturaService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea el facturador usando el pool común fork-join.
+     * @param facturaService servicio con el que se calcula cada factura.
+     */
+    public FacturacionLote(FacturaService facturaService) {
+        this(facturaService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Crea el facturador usando un pool propio.
+     * @param facturaService servicio con el que se calcula cada factura.
+     * @param pool pool fork-join donde se calculan los bloques.
+     */
+    public FacturacionLote(FacturaService facturaService, ForkJoinPool pool) {
+        this.facturaService = facturaService;
+        this.pool = pool;
+    }
+
+    // ============ FACTURACIÓN A ARCHIVO ============ //
+
+    /**
+     * Factura una colección de clientes y guarda las facturas en un archivo CSV.
+     * @param clientes clientes a facturar, en el orden en que deben aparecer.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return resumen con los totales del lote.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    public Resumen facturar(Collection<? extends Cliente> clientes, String nombreArchivo) throws IOException {
+        return facturar(clientes.iterator(), nombreArchivo);
+    }
+
+    /**
+     * Factura los clientes de un Stream y guarda las facturas en un archivo CSV.
+     * El Stream se consume en su orden de encuentro.
+     * @param clientes clientes a facturar.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return resumen con los totales del lote.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    public Resumen facturar(Stream<? extends Cliente> clientes, String nombreArchivo) throws IOException {
+        return facturar(clientes.iterator(), nombreArchivo);
+    }
+
+    /**
+     * Factura los clientes de un iterador y guarda las facturas en un archivo CSV.
+     * @param clientes clientes a facturar.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return resumen con los totales del lote.
+     * @throws IOException si no se puede escribir el archivo.
+     */
+    public Resumen facturar(Iterator<? extends Cliente> clientes, String nombreArchivo) throws IOException {
+        EventosJfr.EventoFactura evento = new EventosJfr.EventoFactura();
+        evento.begin();
+        File archivo = new File(nombreArchivo + ".csv");
+        Resumen resumen;
+        try (Writer writer = new BufferedWriter(new FileWriter(archivo), TAMANO_BUFFER_SALIDA)) {
+            resumen = facturarBloques(clientes, new RenderizadorFacturaCSV(writer));
+        }
+        registrarEvento(evento, archivo.getPath(), resumen.getCantidadFacturas(), archivo.length());
+        return resumen;
+    }
+
+    // ============ FACTURACIÓN CON CUALQUIER RENDERIZADOR ============ //
+
+    /**
+     * Factura los clientes de un iterador y entrega cada factura al renderizador indicado.
+     * El renderizador recibe las facturas en el orden de los clientes y siempre desde el hilo
+     * que llama, por lo que no necesita ser seguro entre hilos.
+     * @param clientes clientes a facturar.
+     * @param renderizador destino de las facturas (consola, texto, CSV, binario...).
+     * @return resumen con los totales del lote.
+     * @throws IOException si el renderizador falla al escribir.
+     */
+    public Resumen facturar(Iterator<? extends Cliente> clientes, RenderizadorFactura renderizador)
+            throws IOException {
+        EventosJfr.EventoFactura evento = new EventosJfr.EventoFactura();
+        evento.begin();
+        Resumen resumen = facturarBloques(clientes, renderizador);
+        registrarEvento(evento, renderizador.getClass().getSimpleName(), resumen.getCantidadFacturas(), 0);
+        return resumen;
+    }
+
+    /**
+     * Completa y guarda el evento de JFR del lote, si hay una grabación que lo pide.
+     */
+    private static void registrarEvento(EventosJfr.EventoFactura evento, String destino, long facturas, long bytes) {
+        if (EventosJfr.debeRegistrar(evento)) {
+            evento.destino = destino;
+            evento.nit = "";
+            evento.registros = facturas;
+            evento.bytes = bytes;
+            evento.commit();
+        }
+    }
+
+    private Resumen facturarBloques(Iterator<? extends Cliente> clientes, RenderizadorFactura renderizador)
+            throws IOException {
+        long inicio = System.nanoTime();
+        renderizador.iniciar();
+        Acumulador totales = new Acumulador();
+
+        // Dos juegos de arreglos: uno se calcula mientras el otro se escribe.
+        Cliente[] clientesActual = new Cliente[FACTURAS_POR_BLOQUE];
+        Factura[] facturasActual = new Factura[FACTURAS_POR_BLOQUE];
+        Cliente[] clientesSiguiente = new Cliente[FACTURAS_POR_BLOQUE];
+        Factura[] facturasSiguiente = new Factura[FACTURAS_POR_BLOQUE];
+
+        int cantidadActual = llenarBloque(clientes, clientesActual);
+        ForkJoinTask<Void> calculoActual = calcular(clientesActual, facturasActual, cantidadActual);
+
+        while (cantidadActual > 0) {
+            // Se lee el bloque siguiente y se lanza su cálculo antes de escribir el actual.
+            int cantidadSiguiente = llenarBloque(clientes, clientesSiguiente);
+            calculoActual.join();
+            ForkJoinTask<Void> calculoSiguiente = calcular(clientesSiguiente, facturasSiguiente, cantidadSiguiente);
+
+            for (int i = 0; i < cantidadActual; i++) {
+                Factura factura = facturasActual[i];
+                renderizador.renderizar(factura);
+                totales.sumar(factura);
+                facturasActual[i] = null;
+                clientesActual[i] = null;
+            }
+
+            // Intercambia los juegos de arreglos.
+            Cliente[] clientesAux = clientesActual;
+            clientesActual = clientesSiguiente;
+            clientesSiguiente = clientesAux;
+            Factura[] facturasAux = facturasActual;
+            facturasActual = facturasSiguiente;
+            facturasSiguiente = facturasAux;
+            cantidadActual = cantidadSiguiente;
+            calculoActual = calculoSiguiente;
+        }
+        calculoActual.join();
+        renderizador.terminar();
+
+        return totales.resumen(System.nanoTime() - inicio);
+    }
+
+    /**
+     * Copia en el bloque los siguientes clientes del iterador.
+     * @return número de clientes copiados (0 si ya no quedan).
+     */
+    private static int llenarBloque(Iterator<? extends Cliente> clientes, Cliente[] bloque) {
+        int cantidad = 0;
+        while (cantidad < bloque.length && clientes.hasNext()) {
+            Cliente cliente = clientes.next();
+            if (cliente == null) {
+                throw new IllegalArgumentException("El lote contiene un cliente nulo");
+            }
+            bloque[cantidad++] = cliente;
+        }
+        return cantidad;
+    }
+
+    /**
+     * Lanza en el pool el cálculo de las facturas de un bloque.
+     */
+    private ForkJoinTask<Void> calcular(Cliente[] clientes, Factura[] facturas, int cantidad) {
+        return pool.submit(new CalcularRango(facturaService, clientes, facturas, 0, cantidad));
+    }
+
+    /**
+     * Calcula las facturas de un rango del bloque, dividiéndolo mientras sea grande.
+     * Cada factura se guarda en la misma posición de su cliente, así el orden no cambia.
+     */
+    private static final class CalcularRango extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // Solo se usa dentro del pool y nunca se serializa
+        private final transient FacturaService facturaService;
+        private final transient Cliente[] clientes;
+        private final transient Factura[] facturas;
+        private final int desde;
+        private final int hasta;
+
+        CalcularRango(FacturaService facturaService, Cliente[] clientes, Factura[] facturas, int desde, int hasta) {
+            this.facturaService = facturaService;
+            this.clientes = clientes;
+            this.facturas = facturas;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > FACTURAS_POR_TAREA) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new CalcularRango(facturaService, clientes, facturas, desde, medio),
+                        new CalcularRango(facturaService, clientes, facturas, medio, hasta));
+                return;
+            }
+            for (int i = desde; i < hasta; i++) {
+                facturas[i] = facturaService.calcularFactura(clientes[i]);
+            }
+        }
+    }
+
+    // ============ TOTALES ============ //
+
+    /**
+     * Suma los valores de las facturas a medida que se escriben.
+     */
+    private static final class Acumulador {
+        private long cantidad;
+        private final Suma montoCompra = new Suma();
+        private final Suma iva = new Suma();
+        private final Suma subtotalConIva = new Suma();
+        private final Suma descuento = new Suma();
+        private final Suma totalPagar = new Suma();
+
+        void sumar(Factura f) {
+            cantidad++;
+            if (f.enCentavos()) {
+                montoCompra.sumar(f.getMontoCompraCentavos());
+                iva.sumar(f.getValorIvaCentavos());
+                subtotalConIva.sumar(f.getSubtotalConIvaCentavos());
+                descuento.sumar(f.getDescuentoCentavos());
+                totalPagar.sumar(f.getTotalPagarCentavos());
+            } else {
+                montoCompra.sumar(f.getMontoCompra());
+                iva.sumar(f.getValorIva());
+                subtotalConIva.sumar(f.getSubtotalConIva());
+                descuento.sumar(f.getDescuento());
+                totalPagar.sumar(f.getTotalPagar());
+            }
+        }
+
+        Resumen resumen(long nanosegundos) {
+            return new Resumen(cantidad, montoCompra.total(), iva.total(), subtotalConIva.total(),
+                    descuento.total(), totalPagar.total(), nanosegundos);
+        }
+    }
+
+    /**
+     * Suma exacta que acumula en centavos mientras no se desborde y pasa lo acumulado
+     * a BigDecimal cuando haría falta.
+     */
+    private static final class Suma {
+        private long centavos;
+        private BigDecimal exacto = BigDecimal.ZERO;
+
+        void sumar(long valorCentavos) {
+            long nuevo = Dinero.sumar(centavos, valorCentavos);
+            if (nuevo == Dinero.FUERA_DE_RANGO) {
+                exacto = exacto.add(Dinero.deCentavos(centavos));
+                nuevo = valorCentavos;
+            }
+            centavos = nuevo;
+        }
+
+        void sumar(BigDecimal valor) {
+            exacto = exacto.add(valor);
+        }
+
+        BigDecimal total() {
+            return exacto.add(Dinero.deCentavos(centavos));
+        }
+    }
+
+    /**
+     * Resumen de un lote: totales exactos y rendimiento de la facturación.
+     */
+    public static final class Resumen {
+        private final long cantidadFacturas;
+        private final BigDecimal totalMontoCompra;
+        private final BigDecimal totalIva;
+        private final BigDecimal totalSubtotalConIva;
+        private final BigDecimal totalDescuento;
+        private final BigDecimal totalPagar;
+        private final long nanosegundos;
+
+        Resumen(long cantidadFacturas, BigDecimal totalMontoCompra, BigDecimal totalIva,
+                BigDecimal totalSubtotalConIva, BigDecimal totalDescuento, BigDecimal totalPagar,
+                long nanosegundos) {
+            this.cantidadFacturas = cantidadFacturas;
+            this.totalMontoCompra = totalMontoCompra;
+            this.totalIva = totalIva;
+            this.totalSubtotalConIva = totalSubtotalConIva;
+            this.totalDescuento = totalDescuento;
+            this.totalPagar = totalPagar;
+            this.nanosegundos = nanosegundos;
+        }
+
+        public long getCantidadFacturas() { return cantidadFacturas; }
+
+        public BigDecimal getTotalMontoCompra() { return totalMontoCompra; }
+
+        public BigDecimal getTotalIva() { return totalIva; }
+
+        public BigDecimal getTotalSubtotalConIva() { return totalSubtotalConIva; }
+
+        public BigDecimal getTotalDescuento() { return totalDescuento; }
+
+        public BigDecimal getTotalPagar() { return totalPagar; }
+
+        /** @return duración total del lote en nanosegundos, incluida la escritura. */
+        public long getNanosegundos() { return nanosegundos; }
+
+        /** @return facturas generadas por segundo. */
+        public double facturasPorSegundo() {
+            return nanosegundos == 0 ? 0 : cantidadFacturas * 1_000_000_000.0 / nanosegundos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d facturas en %.1f ms (%.0f facturas/s) | Monto: %s | IVA: %s | "
+                            + "Descuentos: %s | Total a pagar: %s",
+                    cantidadFacturas, nanosegundos / 1_000_000.0, facturasPorSegundo(),
+                    totalMontoCompra.toPlainString(), totalIva.toPlainString(),
+                    totalDescuento.toPlainString(), totalPagar.toPlainString());
+        }
+    }
+}
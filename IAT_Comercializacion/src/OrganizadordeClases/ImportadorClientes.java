@@ -0,0 +1,458 @@
+package OrganizadordeClases;
+// Define el paquete al que pertenece esta clase.
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+// Importa las clases de NIO para leer el archivo mapeado en memoria.
+
+import java.math.BigDecimal;
+// Importa BigDecimal para los montos de compra.
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+// Importa las colecciones para los lotes de clientes y las filas rechazadas.
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+// Importa el pool fork-join para leer las partes del archivo en paralelo.
+
+/**
+ * Importación masiva de clientes desde un archivo CSV con las mismas columnas que escribe
+ * {@link ReporteService#generarReporteCSV}:
+ * Identificacion,Nombre,TipoCliente,MontoCompra,Direccion,Telefono
+ *
+ * El archivo se mapea en memoria y se divide en partes que terminan en un salto de línea;
+ * cada parte se copia a un arreglo y se lee y valida en un hilo del pool, directamente sobre
+ * los bytes (sin expresiones
+ * regulares ni split). Las partes se cargan en {@link ClienteService} en el orden del archivo,
+ * un lote por parte, a medida que terminan. Un NIT repetido reemplaza al anterior, como en
+ * {@link ClienteService#agregarCliente}.
+ *
+ * Las filas con errores no se cargan; se informan con su número de línea y el motivo.
+ * Los campos no pueden contener saltos de línea (el reporte CSV nunca los escribe).
+ */
+public class ImportadorClientes {
+
+    /** Máximo de filas rechazadas que se guardan con detalle (las demás solo se cuentan) */
+    public static final int MAX_RECHAZOS_DETALLADOS = 1_000;
+
+    // Tamaño mínimo de cada parte del archivo.
+    private static final int TAMANO_MINIMO_PARTE = 1 << 20;
+
+    // Partes por hilo, para repartir mejor el trabajo si unas partes tardan más que otras.
+    private static final int PARTES_POR_HILO = 4;
+
+    // Columnas del archivo.
+    private static final int COLUMNAS = 6;
+
+    private static final byte[] MAYORISTA = "mayorista".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] MINORISTA = "minorista".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CABECERA = "Identificacion,".getBytes(StandardCharsets.US_ASCII);
+
+    private final ClienteService clienteService;
+    private final ForkJoinPool pool;
+
+    /**
+     * Crea un importador que usa el pool común fork-join.
+     * @param clienteService servicio donde se cargan los clientes.
+     */
+    public ImportadorClientes(ClienteService clienteService) {
+        this(clienteService, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Crea un importador que usa un pool propio.
+     * @param clienteService servicio donde se cargan los clientes.
+     * @param pool pool fork-join donde se leen las partes del archivo.
+     */
+    public ImportadorClientes(ClienteService clienteService, ForkJoinPool pool) {
+        this.clienteService = clienteService;
+        this.pool = pool;
+    }
+
+    /**
+     * Importa todos los clientes válidos de un archivo CSV.
+     * @param archivo archivo CSV (con o sin la línea de cabecera).
+     * @return resumen de la importación con las filas rechazadas.
+     * @throws IOException si el archivo no se puede leer o supera 2 GB.
+     */
+    public Resultado importar(Path archivo) throws IOException {
+        long inicio = System.nanoTime();
+        MappedByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(archivo, StandardOpenOption.READ)) {
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("El archivo de clientes supera el tamaño máximo de 2 GB");
+            }
+            // El mapa sigue siendo válido después de cerrar el canal
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        int tamano = mapa.capacity();
+        int partes = Math.max(1, Math.min(pool.getParallelism() * PARTES_POR_HILO, tamano / TAMANO_MINIMO_PARTE));
+        List<ForkJoinTask<Parte>> tareas = new ArrayList<>(partes);
+        for (int i = 0; i < partes; i++) {
+            int desde = (int) ((long) tamano * i / partes);
+            int hasta = (int) ((long) tamano * (i + 1) / partes);
+            tareas.add(pool.submit(() -> leerParte(mapa, desde, hasta)));
+        }
+
+        // Se cargan en orden: mientras se carga una parte, las siguientes se siguen leyendo
+        int importados = 0;
+        int rechazados = 0;
+        int lineasAnteriores = 0;
+        List<Rechazo> rechazos = new ArrayList<>();
+        for (ForkJoinTask<Parte> tarea : tareas) {
+            Parte parte = tarea.join();
+            clienteService.agregarClientes(Arrays.asList(parte.clientes).subList(0, parte.cantidad));
+            importados += parte.cantidad;
+            rechazados += parte.rechazados;
+            for (Rechazo r : parte.rechazos) {
+                if (rechazos.size() < MAX_RECHAZOS_DETALLADOS) {
+                    rechazos.add(new Rechazo(lineasAnteriores + r.linea, r.motivo));
+                }
+            }
+            lineasAnteriores += parte.lineas;
+        }
+        return new Resultado(importados, rechazados, rechazos, System.nanoTime() - inicio);
+    }
+
+    // ============ LECTURA DE UNA PARTE ============ //
+
+    /**
+     * Lee las líneas que empiezan entre "desde" (incluido) y "hasta" (excluido).
+     * La última línea puede terminar después de "hasta".
+     */
+    private static Parte leerParte(MappedByteBuffer mapa, int desde, int hasta) {
+        int inicio = inicioDeLinea(mapa, desde);
+        int fin = inicioDeLinea(mapa, hasta);
+
+        // Se copian los bytes de la parte a un arreglo: leer de un arreglo es mucho más rápido
+        // que leer byte por byte del mapa
+        byte[] datos = new byte[fin - inicio];
+        mapa.get(inicio, datos);
+
+        LectorParte lector = new LectorParte(datos);
+        int posicion = 0;
+        while (posicion < datos.length) {
+            int finLinea = posicion;
+            while (finLinea < datos.length && datos[finLinea] != '\n') {
+                finLinea++;
+            }
+            lector.procesarLinea(posicion, finLinea, inicio + posicion == 0);
+            posicion = finLinea + 1;
+        }
+        return lector.parte;
+    }
+
+    /**
+     * @return Posición de la primera línea que empieza en "posicion" o después
+     *         (la línea que empieza antes pertenece a la parte anterior)
+     */
+    private static int inicioDeLinea(MappedByteBuffer mapa, int posicion) {
+        if (posicion == 0) {
+            return 0;
+        }
+        while (posicion < mapa.capacity() && mapa.get(posicion - 1) != '\n') {
+            posicion++;
+        }
+        return posicion;
+    }
+
+    /**
+     * Convierte las líneas de una parte en clientes. Cada hilo usa su propio lector,
+     * con arreglos reutilizables para los campos de la línea.
+     */
+    private static final class LectorParte {
+        private final byte[] datos;
+        private final Parte parte = new Parte();
+
+        // Bytes de los campos de la línea actual, ya sin comillas, uno tras otro
+        private byte[] texto = new byte[512];
+        private final int[] inicioCampo = new int[COLUMNAS + 1];
+        private final int[] finCampo = new int[COLUMNAS + 1];
+        private int campos;
+
+        LectorParte(byte[] datos) {
+            this.datos = datos;
+        }
+
+        void procesarLinea(int desde, int hasta, boolean primeraDelArchivo) {
+            int linea = ++parte.lineas;
+            if (hasta > desde && datos[hasta - 1] == '\r') {
+                hasta--;
+            }
+            if (hasta == desde) {
+                return; // Línea vacía
+            }
+            if (primeraDelArchivo && empiezaCon(desde, hasta, CABECERA)) {
+                return; // Cabecera del reporte
+            }
+
+            separarCampos(desde, hasta);
+            if (campos != COLUMNAS) {
+                rechazar(linea, "Se esperaban " + COLUMNAS + " columnas y hay " + (campos > COLUMNAS ? "más" : campos));
+                return;
+            }
+
+            long nit = leerNit(0);
+            if (nit <= 0) {
+                rechazar(linea, "NIT no válido: " + campo(0));
+                return;
+            }
+            boolean mayorista;
+            if (igualSinMayusculas(2, MAYORISTA)) {
+                mayorista = true;
+            } else if (igualSinMayusculas(2, MINORISTA)) {
+                mayorista = false;
+            } else {
+                rechazar(linea, "Tipo de cliente desconocido: " + campo(2));
+                return;
+            }
+            BigDecimal monto = leerMonto(3);
+            if (monto == null) {
+                rechazar(linea, "Monto no válido: " + campo(3));
+                return;
+            }
+            if (monto.signum() <= 0) {
+                rechazar(linea, "El monto debe ser mayor que cero: " + campo(3));
+                return;
+            }
+
+            // El NIT se guarda tal como se validó, sin espacios ni comillas
+            String identificacion = campo(0);
+            Cliente cliente = mayorista
+                    ? new ClienteMayorista(identificacion, campo(1), monto, campo(4), campo(5))
+                    : new ClienteMinorista(identificacion, campo(1), monto, campo(4), campo(5));
+            parte.agregar(cliente);
+        }
+
+        /**
+         * Separa la línea en campos y copia sus bytes a "texto". Un campo entre comillas puede
+         * contener comas; "" dentro de él es una comilla. Una comilla que no va seguida de coma
+         * ni de fin de línea se toma como parte del texto.
+         */
+        private void separarCampos(int desde, int hasta) {
+            if (texto.length < hasta - desde) {
+                texto = new byte[Math.max(hasta - desde, texto.length * 2)];
+            }
+            campos = 0;
+            int escrito = 0;
+            int i = desde;
+            while (true) {
+                if (campos == inicioCampo.length) {
+                    campos++; // Demasiadas columnas; no hace falta seguir
+                    return;
+                }
+                inicioCampo[campos] = escrito;
+                if (i < hasta && datos[i] == '"') {
+                    i++;
+                    while (i < hasta) {
+                        byte b = datos[i];
+                        if (b == '"') {
+                            if (i + 1 < hasta && datos[i + 1] == '"') {
+                                texto[escrito++] = '"';
+                                i += 2;
+                                continue;
+                            }
+                            if (i + 1 == hasta || datos[i + 1] == ',') {
+                                i++;
+                                break;
+                            }
+                        }
+                        texto[escrito++] = b;
+                        i++;
+                    }
+                } else {
+                    while (i < hasta && datos[i] != ',') {
+                        texto[escrito++] = datos[i++];
+                    }
+                }
+                finCampo[campos++] = escrito;
+                if (i >= hasta) {
+                    return;
+                }
+                i++; // Salta la coma
+            }
+        }
+
+        private String campo(int c) {
+            return new String(texto, inicioCampo[c], finCampo[c] - inicioCampo[c], StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Lee el NIT con las mismas reglas que se aplican por consola: solo dígitos,
+         * máximo 12, mayor que cero.
+         * @return NIT, o -1 si no es válido
+         */
+        private long leerNit(int c) {
+            return ValidadorNit.parsear(texto, inicioCampo[c], finCampo[c]);
+        }
+
+        /**
+         * Lee el monto y lo redondea a 2 decimales con HALF_UP, como al ingresarlo por consola.
+         * Los montos comunes (hasta 2 decimales) se leen directamente en centavos.
+         * @return Monto, o null si no es un número válido o está fuera de rango
+         */
+        private BigDecimal leerMonto(int c) {
+            int i = inicioCampo[c];
+            int fin = finCampo[c];
+            boolean negativo = i < fin && texto[i] == '-';
+            if (negativo) {
+                i++;
+            }
+            long centavos = 0;
+            int digitos = 0;
+            int decimales = -1;
+            for (; i < fin; i++) {
+                byte b = texto[i];
+                if (b == '.' && decimales < 0) {
+                    decimales = 0;
+                } else if (b >= '0' && b <= '9' && digitos < 16 && decimales < 2) {
+                    centavos = centavos * 10 + (b - '0');
+                    digitos++;
+                    if (decimales >= 0) {
+                        decimales++;
+                    }
+                } else {
+                    return leerMontoExacto(c);
+                }
+            }
+            if (digitos == 0) {
+                return null;
+            }
+            for (int d = Math.max(decimales, 0); d < 2; d++) {
+                centavos *= 10;
+            }
+            return Dinero.deCentavos(negativo ? -centavos : centavos);
+        }
+
+        /**
+         * Lectura general de montos (más decimales, exponentes, números muy grandes).
+         * Un monto desmedido ("1e99999999") se rechaza antes de redondearlo: redondearlo tomaría
+         * minutos y detendría toda la importación.
+         */
+        private BigDecimal leerMontoExacto(int c) {
+            try {
+                return Dinero.redondearExterno(new BigDecimal(campo(c).trim()));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        private boolean igualSinMayusculas(int c, byte[] esperado) {
+            int inicio = inicioCampo[c];
+            if (finCampo[c] - inicio != esperado.length) {
+                return false;
+            }
+            for (int i = 0; i < esperado.length; i++) {
+                if ((texto[inicio + i] | 0x20) != esperado[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private boolean empiezaCon(int desde, int hasta, byte[] prefijo) {
+            if (hasta - desde < prefijo.length) {
+                return false;
+            }
+            for (int i = 0; i < prefijo.length; i++) {
+                if (datos[desde + i] != prefijo[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void rechazar(int linea, String motivo) {
+            parte.rechazados++;
+            if (parte.rechazos.size() < MAX_RECHAZOS_DETALLADOS) {
+                parte.rechazos.add(new Rechazo(linea, motivo));
+            }
+        }
+    }
+
+    /**
+     * Clientes válidos y rechazos de una parte del archivo.
+     * Los números de línea de los rechazos son relativos al inicio de la parte (desde 1).
+     */
+    private static final class Parte {
+        Cliente[] clientes = new Cliente[1024];
+        int cantidad;
+        int lineas;
+        int rechazados;
+        final List<Rechazo> rechazos = new ArrayList<>();
+
+        void agregar(Cliente cliente) {
+            if (cantidad == clientes.length) {
+                clientes = Arrays.copyOf(clientes, cantidad * 2);
+            }
+            clientes[cantidad++] = cliente;
+        }
+    }
+
+    // ============ RESULTADOS ============ //
+
+    /**
+     * Fila del archivo que no se pudo importar.
+     */
+    public static final class Rechazo {
+        private final int linea;
+        private final String motivo;
+
+        Rechazo(int linea, String motivo) {
+            this.linea = linea;
+            this.motivo = motivo;
+        }
+
+        /** @return número de línea en el archivo (la primera es 1). */
+        public int getLinea() { return linea; }
+
+        public String getMotivo() { return motivo; }
+
+        @Override
+        public String toString() {
+            return "Línea " + linea + ": " + motivo;
+        }
+    }
+
+    /**
+     * Resumen de una importación.
+     */
+    public static final class Resultado {
+        private final int importados;
+        private final int rechazados;
+        private final List<Rechazo> rechazos;
+        private final long nanosegundos;
+
+        Resultado(int importados, int rechazados, List<Rechazo> rechazos, long nanosegundos) {
+            this.importados = importados;
+            this.rechazados = rechazados;
+            this.rechazos = Collections.unmodifiableList(rechazos);
+            this.nanosegundos = nanosegundos;
+        }
+
+        /** @return filas cargadas en el servicio de clientes. */
+        public int getImportados() { return importados; }
+
+        /** @return total de filas rechazadas. */
+        public int getRechazados() { return rechazados; }
+
+        /** @return detalle de las primeras filas rechazadas (hasta MAX_RECHAZOS_DETALLADOS). */
+        public List<Rechazo> getRechazos() { return rechazos; }
+
+        public long getNanosegundos() { return nanosegundos; }
+
+        @Override
+        public String toString() {
+            return String.format("%d clientes importados, %d filas rechazadas, en %.1f ms",
+                    importados, rechazados, nanosegundos / 1_000_000.0);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importación de Arrays para inicializar y limpiar los arreglos del índice
+import java.util.Arrays;
+
+/**
+ * Índice hash de direccionamiento abierto que asocia un NIT (long) con una posición (int).
+ *
+ * A diferencia de un HashMap&lt;String, Cliente&gt;, no crea objetos por entrada: las claves y los
+ * valores viven en dos arreglos primitivos paralelos. Así se evita el boxing, el cálculo del
+ * hash de un String y la creación de nodos en cada búsqueda o inserción.
+ *
+ * Usa sondeo lineal y borrado por desplazamiento hacia atrás (sin lápidas), por lo que las
+ * búsquedas no se degradan después de muchas eliminaciones.
+ * La clave 0 se reserva para marcar casillas vacías; los NIT válidos siempre son mayores que cero.
+ */
+public class IndiceNit {
+
+    /** Valor devuelto por {@link #obtener(long)} cuando la clave no existe */
+    public static final int NO_ENCONTRADO = -1;
+
+    // Marca de casilla vacía en el arreglo de claves
+    private static final long VACIO = 0L;
+
+    // Factor de carga máximo antes de duplicar la capacidad
+    private static final float FACTOR_CARGA = 0.6f;
+
+    /** Claves (NIT) de cada casilla; VACIO si la casilla está libre */
+    private long[] claves;
+
+    /** Valores (posición del cliente) de cada casilla */
+    private int[] valores;
+
+    /** Capacidad - 1; la capacidad siempre es potencia de dos */
+    private int mascara;
+
+    /** Número de entradas ocupadas */
+    private int tamano;
+
+    /** Número de entradas a partir del cual se redimensiona */
+    private int umbral;
+
+    /**
+     * Crea un índice vacío con capacidad inicial por defecto.
+     */
+    public IndiceNit() {
+        this(16);
+    }
+
+    /**
+     * Crea un índice con capacidad suficiente para el número de entradas esperado.
+     * @param capacidadEsperada Número de NIT que se espera guardar sin redimensionar
+     */
+    public IndiceNit(int capacidadEsperada) {
+        int capacidad = Integer.highestOneBit(Math.max(4, (int) (capacidadEsperada / FACTOR_CARGA)) - 1) << 1;
+        asignarArreglos(capacidad);
+    }
+
+    /**
+     * Obtiene la posición asociada a un NIT.
+     * @param nit NIT a buscar (mayor que cero)
+     * @return Posición guardada o {@link #NO_ENCONTRADO}
+     */
+    public int obtener(long nit) {
+        // Copias locales de un mismo arreglo: si otro hilo redimensiona mientras se lee (lectura
+        // optimista de ClienteService), el sondeo sigue siendo finito y el resultado se descarta.
+        long[] claves = this.claves;
+        int[] valores = this.valores;
+        int mascara = claves.length - 1;
+        int i = indiceInicial(nit, mascara);
+        while (true) {
+            long clave = claves[i];
+            if (clave == nit) {
+                return valores[i];
+            }
+            if (clave == VACIO) {
+                return NO_ENCONTRADO;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Asocia un NIT con una posición, reemplazando la anterior si ya existía.
+     * @param nit NIT (mayor que cero)
+     * @param posicion Posición del cliente
+     * @return Posición anterior o {@link #NO_ENCONTRADO} si el NIT era nuevo
+     */
+    public int guardar(long nit, int posicion) {
+        if (nit <= 0) {
+            throw new IllegalArgumentException("El NIT debe ser mayor que cero: " + nit);
+        }
+        int i = indiceInicial(nit);
+        while (true) {
+            long clave = claves[i];
+            if (clave == nit) {
+                int anterior = valores[i];
+                valores[i] = posicion;
+                return anterior;
+            }
+            if (clave == VACIO) {
+                claves[i] = nit;
+                valores[i] = posicion;
+                if (++tamano > umbral) {
+                    redimensionar();
+                }
+                return NO_ENCONTRADO;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Elimina un NIT del índice.
+     * @param nit NIT a eliminar
+     * @return Posición que tenía asociada o {@link #NO_ENCONTRADO} si no existía
+     */
+    public int eliminar(long nit) {
+        int i = indiceInicial(nit);
+        while (true) {
+            long clave = claves[i];
+            if (clave == VACIO) {
+                return NO_ENCONTRADO;
+            }
+            if (clave == nit) {
+                int anterior = valores[i];
+                desplazarHaciaAtras(i);
+                tamano--;
+                return anterior;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * @return Número de NIT guardados en el índice
+     */
+    public int tamano() {
+        return tamano;
+    }
+
+    /**
+     * Elimina todas las entradas conservando la capacidad actual.
+     */
+    public void limpiar() {
+        Arrays.fill(claves, VACIO);
+        tamano = 0;
+    }
+
+    /**
+     * Tras borrar la casilla "hueco", mueve hacia atrás las entradas siguientes de la misma
+     * cadena de sondeo para que ninguna búsqueda se corte antes de tiempo.
+     */
+    private void desplazarHaciaAtras(int hueco) {
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            long clave = claves[i];
+            if (clave == VACIO) {
+                break;
+            }
+            int ideal = indiceInicial(clave);
+            // La entrada puede ocupar el hueco si su posición ideal no está entre el hueco y ella
+            if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+                claves[hueco] = clave;
+                valores[hueco] = valores[i];
+                hueco = i;
+            }
+        }
+        claves[hueco] = VACIO;
+    }
+
+    private void redimensionar() {
+        long[] clavesViejas = claves;
+        int[] valoresViejos = valores;
+        asignarArreglos(clavesViejas.length << 1);
+        for (int j = 0; j < clavesViejas.length; j++) {
+            long clave = clavesViejas[j];
+            if (clave != VACIO) {
+                int i = indiceInicial(clave);
+                while (claves[i] != VACIO) {
+                    i = (i + 1) & mascara;
+                }
+                claves[i] = clave;
+                valores[i] = valoresViejos[j];
+            }
+        }
+    }
+
+    private void asignarArreglos(int capacidad) {
+        claves = new long[capacidad];
+        valores = new int[capacidad];
+        mascara = capacidad - 1;
+        umbral = (int) (capacidad * FACTOR_CARGA);
+    }
+
+    /**
+     * Mezcla los bits del NIT (los NIT consecutivos caerían en casillas consecutivas)
+     * y lo reduce a una casilla de la tabla.
+     */
+    private int indiceInicial(long nit) {
+        return indiceInicial(nit, mascara);
+    }
+
+    private static int indiceInicial(long nit, int mascara) {
+        long h = nit * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+}
@@ -0,0 +1,190 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para validar números y devolver los campos leídos
+import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Lectura y escritura mínima de JSON para el servidor HTTP, sin librerías externas.
+ *
+ * Solo se necesitan objetos planos (los datos de un cliente), así que la lectura acepta un objeto
+ * cuyos valores son textos, números, true, false o null; los objetos o arreglos anidados se
+ * rechazan. La escritura se hace directamente sobre un StringBuilder.
+ */
+final class Json {
+
+    private Json() {
+    }
+
+    /**
+     * Agrega un texto entre comillas, escapando los caracteres que JSON exige.
+     * @param destino Donde se escribe
+     * @param texto Texto a escribir (null se escribe como null)
+     * @return El mismo destino
+     */
+    static StringBuilder anexarTexto(StringBuilder destino, String texto) {
+        if (texto == null) {
+            return destino.append("null");
+        }
+        destino.append('"');
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            switch (c) {
+                case '"' -> destino.append("\\\"");
+                case '\\' -> destino.append("\\\\");
+                case '\n' -> destino.append("\\n");
+                case '\r' -> destino.append("\\r");
+                case '\t' -> destino.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        destino.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        destino.append(c);
+                    }
+                }
+            }
+        }
+        return destino.append('"');
+    }
+
+    /**
+     * Lee un objeto JSON plano.
+     * @param texto Documento JSON
+     * @return Campos en el orden del documento; los números se devuelven como texto y null como null
+     * @throws IllegalArgumentException Si el documento no es un objeto plano válido
+     */
+    static Map<String, String> leerObjeto(CharSequence texto) {
+        Lector lector = new Lector(texto);
+        Map<String, String> campos = new LinkedHashMap<>();
+        lector.esperar('{');
+        if (!lector.consumirSi('}')) {
+            do {
+                String clave = lector.leerTexto();
+                lector.esperar(':');
+                campos.put(clave, lector.leerValor());
+            } while (lector.consumirSi(','));
+            lector.esperar('}');
+        }
+        lector.saltarEspacios();
+        if (lector.posicion < texto.length()) {
+            throw lector.error("contenido después del objeto");
+        }
+        return campos;
+    }
+
+    /**
+     * Recorre el documento carácter por carácter.
+     */
+    private static final class Lector {
+        private final CharSequence texto;
+        private int posicion;
+
+        Lector(CharSequence texto) {
+            this.texto = texto;
+        }
+
+        void saltarEspacios() {
+            while (posicion < texto.length() && Character.isWhitespace(texto.charAt(posicion))) {
+                posicion++;
+            }
+        }
+
+        boolean consumirSi(char esperado) {
+            saltarEspacios();
+            if (posicion < texto.length() && texto.charAt(posicion) == esperado) {
+                posicion++;
+                return true;
+            }
+            return false;
+        }
+
+        void esperar(char esperado) {
+            if (!consumirSi(esperado)) {
+                throw error("se esperaba '" + esperado + "'");
+            }
+        }
+
+        String leerValor() {
+            saltarEspacios();
+            if (posicion >= texto.length()) {
+                throw error("falta un valor");
+            }
+            char c = texto.charAt(posicion);
+            if (c == '"') {
+                return leerTexto();
+            }
+            if (c == '{' || c == '[') {
+                throw error("no se admiten objetos ni arreglos anidados");
+            }
+            int inicio = posicion;
+            while (posicion < texto.length() && "-+.eE0123456789truefalsn".indexOf(texto.charAt(posicion)) >= 0) {
+                posicion++;
+            }
+            String literal = texto.subSequence(inicio, posicion).toString();
+            if (literal.equals("null")) {
+                return null;
+            }
+            if (literal.equals("true") || literal.equals("false") || esNumero(literal)) {
+                return literal;
+            }
+            throw error("valor no válido");
+        }
+
+        String leerTexto() {
+            esperar('"');
+            StringBuilder resultado = new StringBuilder();
+            while (true) {
+                if (posicion >= texto.length()) {
+                    throw error("texto sin cerrar");
+                }
+                char c = texto.charAt(posicion++);
+                if (c == '"') {
+                    return resultado.toString();
+                }
+                if (c != '\\') {
+                    resultado.append(c);
+                    continue;
+                }
+                if (posicion >= texto.length()) {
+                    throw error("texto sin cerrar");
+                }
+                char escape = texto.charAt(posicion++);
+                switch (escape) {
+                    case '"', '\\', '/' -> resultado.append(escape);
+                    case 'b' -> resultado.append('\b');
+                    case 'f' -> resultado.append('\f');
+                    case 'n' -> resultado.append('\n');
+                    case 'r' -> resultado.append('\r');
+                    case 't' -> resultado.append('\t');
+                    case 'u' -> {
+                        if (posicion + 4 > texto.length()) {
+                            throw error("escape \\u incompleto");
+                        }
+                        try {
+                            resultado.append((char) Integer.parseInt(texto.subSequence(posicion, posicion + 4).toString(), 16));
+                        } catch (NumberFormatException e) {
+                            throw error("escape \\u no válido");
+                        }
+                        posicion += 4;
+                    }
+                    default -> throw error("escape no válido \\" + escape);
+                }
+            }
+        }
+
+        private static boolean esNumero(String literal) {
+            try {
+                new BigDecimal(literal);
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+
+        IllegalArgumentException error(String motivo) {
+            return new IllegalArgumentException("JSON no válido en la posición " + posicion + ": " + motivo);
+        }
+    }
+}
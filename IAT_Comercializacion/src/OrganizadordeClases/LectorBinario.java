@@ -0,0 +1,129 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para leer bytes de un archivo por bloques
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Lector de datos binarios (enteros, long y textos UTF-8) sobre un bloque de memoria reutilizable.
+ *
+ * Es el equivalente de DataInputStream usado por el almacén de clientes, pero sin sincronización
+ * ni una llamada virtual por byte: lee el archivo en bloques grandes y decodifica directamente
+ * del arreglo, lo que hace mucho más rápida la recuperación de millones de clientes.
+ * También puede leer de un arreglo de bytes ya cargado (por ejemplo, una entrada del registro).
+ */
+class LectorBinario {
+
+    private static final int TAMANO_BLOQUE = 1 << 20;
+
+    /** Canal de origen; null si se lee de un arreglo fijo */
+    private final ReadableByteChannel canal;
+
+    /** Bloque actual: los bytes válidos están entre "posicion" y el límite */
+    private ByteBuffer bloque;
+
+    /**
+     * Crea un lector que va cargando el canal por bloques.
+     * @param canal Canal a leer desde su posición actual
+     */
+    LectorBinario(ReadableByteChannel canal) {
+        this.canal = canal;
+        this.bloque = ByteBuffer.allocate(TAMANO_BLOQUE);
+        this.bloque.flip();
+    }
+
+    /**
+     * Crea un lector sobre los primeros "longitud" bytes de un arreglo.
+     * @param datos Arreglo con los datos
+     * @param longitud Número de bytes válidos
+     */
+    LectorBinario(byte[] datos, int longitud) {
+        this.canal = null;
+        this.bloque = ByteBuffer.wrap(datos, 0, longitud);
+    }
+
+    byte leerByte() throws IOException {
+        asegurar(1);
+        return bloque.get();
+    }
+
+    boolean leerBoolean() throws IOException {
+        return leerByte() != 0;
+    }
+
+    int leerInt() throws IOException {
+        asegurar(4);
+        return bloque.getInt();
+    }
+
+    long leerLong() throws IOException {
+        asegurar(8);
+        return bloque.getLong();
+    }
+
+    /**
+     * Copia exactamente "longitud" bytes en el arreglo destino.
+     */
+    void leerBytes(byte[] destino, int desde, int longitud) throws IOException {
+        while (longitud > 0) {
+            if (!bloque.hasRemaining()) {
+                asegurar(1);
+            }
+            int n = Math.min(longitud, bloque.remaining());
+            bloque.get(destino, desde, n);
+            desde += n;
+            longitud -= n;
+        }
+    }
+
+    /**
+     * Lee un texto guardado como longitud (int) seguida de sus bytes en UTF-8.
+     * Una longitud de -1 representa un texto null.
+     */
+    String leerTexto() throws IOException {
+        int longitud = leerInt();
+        if (longitud < 0) {
+            if (longitud == -1) {
+                return null;
+            }
+            throw new IOException("Longitud de texto no válida: " + longitud);
+        }
+        asegurar(longitud);
+        String texto = new String(bloque.array(), bloque.arrayOffset() + bloque.position(),
+                longitud, StandardCharsets.UTF_8);
+        bloque.position(bloque.position() + longitud);
+        return texto;
+    }
+
+    /**
+     * Garantiza que haya al menos "n" bytes disponibles en el bloque, leyendo más del canal
+     * (y ampliando el bloque) si hace falta.
+     * @throws EOFException si el origen se termina antes
+     */
+    private void asegurar(int n) throws IOException {
+        if (bloque.remaining() >= n) {
+            return;
+        }
+        if (canal == null) {
+            throw new EOFException();
+        }
+        if (n > bloque.capacity()) {
+            ByteBuffer mayor = ByteBuffer.allocate(Math.max(n, bloque.capacity() * 2));
+            mayor.put(bloque);
+            bloque = mayor;
+        } else {
+            bloque.compact();
+        }
+        while (bloque.position() < n) {
+            if (canal.read(bloque) < 0) {
+                bloque.flip();
+                throw new EOFException();
+            }
+        }
+        bloque.flip();
+    }
+}
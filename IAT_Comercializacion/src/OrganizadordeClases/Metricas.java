@@ -0,0 +1,321 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para el volcado periódico a archivo
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+// Importaciones de JMX para ver las métricas con JConsole o VisualVM
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+// Importaciones de colecciones y concurrencia
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas de latencia de las operaciones de la aplicación (CRUD, facturación y reportes).
+ *
+ * Cada operación tiene un contador de llamadas y de errores (LongAdder, sin bloqueos) y un
+ * {@link HistogramaLatencia} con los percentiles. Las métricas se pueden consultar de tres formas:
+ * - JMX: cada operación se registra como MXBean "IAT.Comercializacion:type=Operacion,name=..."
+ *   (visible en JConsole o VisualVM)
+ * - Texto en formato Prometheus con {@link #textoPrometheus()}
+ * - Un archivo .prom que se reescribe cada cierto tiempo ({@link #iniciarVolcado(Path, int)}),
+ *   para el recolector de archivos de texto de node_exporter o para revisarlo a mano
+ *
+ * Uso en el código medido:
+ * <pre>
+ * long inicio = OPERACION.iniciar();
+ * try { ... } finally { OPERACION.terminar(inicio); }
+ * </pre>
+ * Las operaciones muy rápidas (búsquedas de decenas de nanosegundos) se crean con muestreo: se
+ * cuentan todas las llamadas pero solo se toma el tiempo de una de cada N, así medir no cuesta más
+ * que la operación. Las métricas se pueden apagar con -Diat.metricas=false o {@link #activar(boolean)}.
+ */
+public final class Metricas {
+
+    // Dominio de los MXBean de esta aplicación
+    private static final String DOMINIO_JMX = "IAT.Comercializacion";
+
+    // Operaciones registradas, ordenadas por nombre para que el volcado sea estable
+    private static final Map<String, Operacion> OPERACIONES = new ConcurrentSkipListMap<>();
+
+    private static volatile boolean activas = !"false".equals(System.getProperty("iat.metricas"));
+
+    // Hilo del volcado periódico (null si no está activo)
+    private static ScheduledExecutorService volcado;
+    private static Path archivoVolcado;
+
+    private Metricas() {
+    }
+
+    /**
+     * Obtiene (o crea) la operación con ese nombre, midiendo todas las llamadas.
+     * @param nombre Nombre en minúsculas con guiones bajos, por ejemplo "cliente_buscar"
+     * @return Operación donde registrar las mediciones
+     */
+    public static Operacion operacion(String nombre) {
+        return operacion(nombre, 1);
+    }
+
+    /**
+     * Obtiene (o crea) la operación con ese nombre, midiendo una de cada {@code muestreo} llamadas.
+     * @param nombre Nombre en minúsculas con guiones bajos
+     * @param muestreo 1 para medir todas; N para medir una de cada N (se cuentan todas)
+     * @return Operación donde registrar las mediciones
+     */
+    public static Operacion operacion(String nombre, int muestreo) {
+        return OPERACIONES.computeIfAbsent(nombre, clave -> {
+            Operacion operacion = new Operacion(clave, Math.max(1, muestreo));
+            registrarJmx(operacion);
+            return operacion;
+        });
+    }
+
+    /**
+     * Enciende o apaga la medición de todas las operaciones (los valores ya medidos se conservan).
+     * @param valor true para medir
+     */
+    public static void activar(boolean valor) {
+        activas = valor;
+    }
+
+    /**
+     * @return true si se están tomando mediciones
+     */
+    public static boolean estanActivas() {
+        return activas;
+    }
+
+    /**
+     * Escribe todas las operaciones en el formato de texto de Prometheus (tipo summary, en segundos).
+     * @return Texto listo para servir o guardar
+     */
+    public static String textoPrometheus() {
+        StringBuilder texto = new StringBuilder(4096);
+        texto.append("# HELP iat_operacion_segundos Latencia de las operaciones de comercialización\n")
+                .append("# TYPE iat_operacion_segundos summary\n");
+        for (Operacion operacion : OPERACIONES.values()) {
+            HistogramaLatencia histograma = operacion.histograma;
+            for (double cuantil : new double[]{0.5, 0.9, 0.99}) {
+                texto.append("iat_operacion_segundos{operacion=\"").append(operacion.nombre)
+                        .append("\",quantile=\"").append(cuantil).append("\"} ")
+                        .append(segundos(histograma.percentilNanos(cuantil * 100))).append('\n');
+            }
+            // Con muestreo, la suma se estima con el promedio de las llamadas medidas
+            long solicitudes = operacion.solicitudes.sum();
+            double sumaNanos = operacion.muestreo == 1
+                    ? histograma.getSumaNanos() : histograma.getPromedioNanos() * solicitudes;
+            texto.append("iat_operacion_segundos_sum{operacion=\"").append(operacion.nombre).append("\"} ")
+                    .append(segundos(sumaNanos)).append('\n');
+            texto.append("iat_operacion_segundos_count{operacion=\"").append(operacion.nombre).append("\"} ")
+                    .append(solicitudes).append('\n');
+        }
+        texto.append("# HELP iat_operacion_errores_total Llamadas que terminaron con error\n")
+                .append("# TYPE iat_operacion_errores_total counter\n");
+        for (Operacion operacion : OPERACIONES.values()) {
+            texto.append("iat_operacion_errores_total{operacion=\"").append(operacion.nombre).append("\"} ")
+                    .append(operacion.errores.sum()).append('\n');
+        }
+        return texto.toString();
+    }
+
+    /**
+     * Reescribe el archivo indicado con {@link #textoPrometheus()} cada cierto tiempo. El archivo
+     * se escribe aparte y luego se reemplaza, así quien lo lee nunca ve uno a medias.
+     * @param archivo Archivo de destino (por ejemplo Datos/metricas.prom)
+     * @param segundos Intervalo entre volcados
+     */
+    public static synchronized void iniciarVolcado(Path archivo, int segundos) {
+        detenerVolcado();
+        archivoVolcado = archivo;
+        volcado = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "volcado-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        volcado.scheduleWithFixedDelay(() -> volcar(archivo), segundos, segundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Detiene el volcado periódico y escribe un último volcado con los valores finales.
+     */
+    public static synchronized void detenerVolcado() {
+        if (volcado == null) {
+            return;
+        }
+        volcado.shutdown();
+        try {
+            volcado.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        volcado = null;
+        volcar(archivoVolcado);
+    }
+
+    private static void volcar(Path archivo) {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                writer.write(textoPrometheus());
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Las métricas no deben interrumpir la aplicación; se intenta de nuevo en el próximo volcado
+            System.err.println("No se pudieron guardar las métricas: " + e.getMessage());
+        }
+    }
+
+    private static void registrarJmx(Operacion operacion) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(operacion,
+                    new ObjectName(DOMINIO_JMX + ":type=Operacion,name=" + operacion.nombre));
+        } catch (JMException e) {
+            // Sin JMX las métricas siguen disponibles por texto
+            System.err.println("No se pudo publicar la métrica " + operacion.nombre + " por JMX: " + e.getMessage());
+        }
+    }
+
+    private static String segundos(double nanos) {
+        return String.format(Locale.US, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * Vista JMX de una operación. Los tiempos están en milisegundos.
+     */
+    public interface OperacionMXBean {
+        long getSolicitudes();
+
+        long getErrores();
+
+        double getPromedioMs();
+
+        double getP50Ms();
+
+        double getP90Ms();
+
+        double getP99Ms();
+
+        double getMaximoMs();
+
+        /** Borra las mediciones acumuladas */
+        void reiniciar();
+    }
+
+    /**
+     * Una operación medida: llamadas, errores y latencias.
+     */
+    public static final class Operacion implements OperacionMXBean {
+        private final String nombre;
+        private final int muestreo;
+        private final LongAdder solicitudes = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final HistogramaLatencia histograma = new HistogramaLatencia();
+
+        private Operacion(String nombre, int muestreo) {
+            this.nombre = nombre;
+            this.muestreo = muestreo;
+        }
+
+        /**
+         * Marca el inicio de una llamada.
+         * @return Valor para pasar a {@link #terminar(long)}; 0 si esta llamada no se mide
+         */
+        public long iniciar() {
+            if (!activas) {
+                return 0;
+            }
+            solicitudes.increment();
+            if (muestreo > 1 && ThreadLocalRandom.current().nextInt(muestreo) != 0) {
+                return 0;
+            }
+            return System.nanoTime();
+        }
+
+        /**
+         * Registra la duración de una llamada iniciada con {@link #iniciar()}.
+         * @param inicio Valor devuelto por iniciar()
+         */
+        public void terminar(long inicio) {
+            if (inicio != 0) {
+                histograma.registrar(System.nanoTime() - inicio);
+            }
+        }
+
+        /**
+         * Cuenta una llamada que terminó con error (además de registrar su duración con terminar).
+         */
+        public void error() {
+            if (activas) {
+                errores.increment();
+            }
+        }
+
+        /**
+         * @return Histograma con las latencias medidas
+         */
+        public HistogramaLatencia getHistograma() {
+            return histograma;
+        }
+
+        @Override
+        public long getSolicitudes() {
+            return solicitudes.sum();
+        }
+
+        @Override
+        public long getErrores() {
+            return errores.sum();
+        }
+
+        @Override
+        public double getPromedioMs() {
+            return histograma.getPromedioNanos() / 1e6;
+        }
+
+        @Override
+        public double getP50Ms() {
+            return histograma.percentilNanos(50) / 1e6;
+        }
+
+        @Override
+        public double getP90Ms() {
+            return histograma.percentilNanos(90) / 1e6;
+        }
+
+        @Override
+        public double getP99Ms() {
+            return histograma.percentilNanos(99) / 1e6;
+        }
+
+        @Override
+        public double getMaximoMs() {
+            return histograma.getMaximoNanos() / 1e6;
+        }
+
+        @Override
+        public void reiniciar() {
+            solicitudes.reset();
+            errores.reset();
+            histograma.reiniciar();
+        }
+
+        @Override
+        public String toString() {
+            return nombre + " solicitudes=" + solicitudes.sum() + " errores=" + errores.sum() + " " + histograma;
+        }
+    }
+}
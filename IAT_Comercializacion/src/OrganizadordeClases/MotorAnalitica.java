@@ -0,0 +1,478 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importación de BigDecimal para los totales que no caben en centavos
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+// Importaciones de colecciones y del recorrido en paralelo
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Motor de análisis de los clientes: totales, promedios y percentiles del monto de compra por
+ * tipo de cliente, totales de IVA y descuentos, y los clientes con mayor monto de compra.
+ *
+ * Todo se calcula en un solo recorrido en paralelo: el {@link Spliterator} de los clientes se
+ * divide con trySplit en partes que se procesan en un pool fork-join. Cada parte acumula sus
+ * propios contadores (sin bloqueos ni variables compartidas) y al final los resultados parciales
+ * se suman de dos en dos. Sirve para cualquier almacén: ClienteService divide su instantánea
+ * en mitades exactas y {@link ClienteServiceFueraDeHeap} entrega lotes de su recorrido.
+ *
+ * Los montos se suman en centavos (ver {@link Dinero}) y pasan a BigDecimal solo si no caben.
+ * El IVA y los descuentos se calculan con las mismas reglas que la factura de cada cliente.
+ * Los percentiles salen de un histograma log-lineal como el de {@link HistogramaLatencia}:
+ * son aproximados por exceso, con un error menor al 3,2%, y no obligan a ordenar los montos.
+ *
+ * Uso:
+ * <pre>
+ * MotorAnalitica.Resultado resultado = MotorAnalitica.analizar(clienteService, 10);
+ * ReporteService.generarReporteAnaliticaTexto(resultado, "analisis");
+ * </pre>
+ */
+public final class MotorAnalitica {
+
+    // Número de clientes por debajo del cual una parte ya no se divide
+    private static final int CLIENTES_POR_TAREA = 16_384;
+
+    // Duración de cada análisis completo (ver Metricas)
+    private static final Metricas.Operacion METRICA_ANALIZAR = Metricas.operacion("analitica_clientes");
+
+    private MotorAnalitica() {
+    }
+
+    /**
+     * Analiza todos los clientes del servicio con las reglas de precio vigentes.
+     * @param servicio Servicio de clientes (en el heap o fuera de él)
+     * @param cantidadTop Número de clientes con mayor monto de compra a incluir
+     * @return Resultado del análisis
+     */
+    public static Resultado analizar(ClienteService servicio, int cantidadTop) {
+        return analizar(servicio.streamClientes().spliterator(), ReglasPrecio.vigentes(), cantidadTop,
+                ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Analiza los clientes de un Spliterator en un solo recorrido en paralelo.
+     * @param clientes Clientes a analizar; se consume por completo
+     * @param reglas Reglas de IVA y descuentos
+     * @param cantidadTop Número de clientes con mayor monto de compra a incluir
+     * @param pool Pool fork-join donde se procesan las partes
+     * @return Resultado del análisis
+     */
+    public static Resultado analizar(Spliterator<Cliente> clientes, ReglasPrecio reglas, int cantidadTop,
+                                     ForkJoinPool pool) {
+        if (cantidadTop < 0) {
+            throw new IllegalArgumentException("La cantidad de clientes del top no puede ser negativa: " + cantidadTop);
+        }
+        long inicio = METRICA_ANALIZAR.iniciar();
+        long inicioNanos = System.nanoTime();
+        try {
+            FacturaService facturas = new FacturaService(reglas);
+            Acumulador total = pool.invoke(new Tarea(clientes, facturas, cantidadTop, true));
+            return total.resultado((System.nanoTime() - inicioNanos) / 1_000_000);
+        } catch (RuntimeException e) {
+            METRICA_ANALIZAR.error();
+            throw e;
+        } finally {
+            METRICA_ANALIZAR.terminar(inicio);
+        }
+    }
+
+    // ============ RESULTADOS ============ //
+
+    /**
+     * Resultado de un análisis. Los clientes del top son los mismos objetos que entregó el almacén.
+     */
+    public static final class Resultado {
+        private final List<EstadisticasTipo> porTipo;
+        private final EstadisticasTipo todos;
+        private final List<Cliente> top;
+        private final long milisegundos;
+
+        private Resultado(List<EstadisticasTipo> porTipo, EstadisticasTipo todos, List<Cliente> top,
+                          long milisegundos) {
+            this.porTipo = porTipo;
+            this.todos = todos;
+            this.top = top;
+            this.milisegundos = milisegundos;
+        }
+
+        /** @return Estadísticas de cada tipo de cliente, ordenadas por nombre del tipo */
+        public List<EstadisticasTipo> getPorTipo() { return porTipo; }
+
+        /** @return Estadísticas de todos los clientes juntos (tipo "Todos") */
+        public EstadisticasTipo getTodos() { return todos; }
+
+        /** @return Clientes con mayor monto de compra, de mayor a menor */
+        public List<Cliente> getTop() { return top; }
+
+        /** @return Duración del análisis en milisegundos */
+        public long getMilisegundos() { return milisegundos; }
+    }
+
+    /**
+     * Estadísticas del monto de compra y de las facturas de un tipo de cliente.
+     * Los clientes sin monto de compra se cuentan pero no entran en montos, percentiles ni facturas.
+     */
+    public static final class EstadisticasTipo {
+        private final String tipo;
+        private final long clientes;
+        private final long clientesConMonto;
+        private final BigDecimal montoTotal;
+        private final BigDecimal minimo;
+        private final BigDecimal maximo;
+        private final BigDecimal p50;
+        private final BigDecimal p90;
+        private final BigDecimal p99;
+        private final BigDecimal ivaTotal;
+        private final BigDecimal descuentoTotal;
+        private final BigDecimal totalPagar;
+
+        private EstadisticasTipo(String tipo, AcumuladorTipo acumulador) {
+            acumulador.cerrarExtremos();
+            this.tipo = tipo;
+            this.clientes = acumulador.clientes;
+            this.clientesConMonto = acumulador.histograma.total;
+            this.montoTotal = acumulador.montos.valor();
+            this.minimo = acumulador.minimo;
+            this.maximo = acumulador.maximo;
+            this.p50 = acumulador.histograma.percentil(50, acumulador.minimo, acumulador.maximo);
+            this.p90 = acumulador.histograma.percentil(90, acumulador.minimo, acumulador.maximo);
+            this.p99 = acumulador.histograma.percentil(99, acumulador.minimo, acumulador.maximo);
+            this.ivaTotal = acumulador.iva.valor();
+            this.descuentoTotal = acumulador.descuentos.valor();
+            this.totalPagar = acumulador.totales.valor();
+        }
+
+        public String getTipo() { return tipo; }
+
+        public long getClientes() { return clientes; }
+
+        public BigDecimal getMontoTotal() { return montoTotal; }
+
+        /** @return Promedio del monto de compra, con 2 decimales (0 si no hay montos) */
+        public BigDecimal getPromedio() {
+            return clientesConMonto == 0 ? BigDecimal.ZERO.setScale(2)
+                    : montoTotal.divide(BigDecimal.valueOf(clientesConMonto), 2, RoundingMode.HALF_UP);
+        }
+
+        /** @return Menor monto de compra, o null si no hay montos */
+        public BigDecimal getMinimo() { return minimo; }
+
+        /** @return Mayor monto de compra, o null si no hay montos */
+        public BigDecimal getMaximo() { return maximo; }
+
+        /** @return Mediana aproximada del monto de compra, o null si no hay montos */
+        public BigDecimal getP50() { return p50; }
+
+        /** @return Percentil 90 aproximado del monto de compra, o null si no hay montos */
+        public BigDecimal getP90() { return p90; }
+
+        /** @return Percentil 99 aproximado del monto de compra, o null si no hay montos */
+        public BigDecimal getP99() { return p99; }
+
+        public BigDecimal getIvaTotal() { return ivaTotal; }
+
+        public BigDecimal getDescuentoTotal() { return descuentoTotal; }
+
+        public BigDecimal getTotalPagar() { return totalPagar; }
+    }
+
+    // ============ RECORRIDO EN PARALELO ============ //
+
+    /**
+     * Tarea fork-join sobre una parte del Spliterator. Mientras la parte sea grande la divide,
+     * deja la mitad separada a otro hilo y sigue con el resto; al final suma los resultados.
+     *
+     * Un Spliterator de tamaño desconocido (como el de un iterador) se parte en lotes de tamaño
+     * creciente, pero cada lote sigue diciendo que es enorme en estimateSize(); si se dividieran
+     * también, terminarían en tareas de un cliente. Por eso solo se siguen dividiendo las partes
+     * que vienen de un Spliterator con tamaño conocido (SIZED).
+     */
+    private static final class Tarea extends RecursiveTask<Acumulador> {
+        private static final long serialVersionUID = 1L;
+
+        // La tarea nunca se serializa; solo vive dentro del pool
+        private final transient Spliterator<Cliente> clientes;
+        private final transient FacturaService facturas;
+        private final int cantidadTop;
+        private final boolean divisible;
+
+        Tarea(Spliterator<Cliente> clientes, FacturaService facturas, int cantidadTop, boolean divisible) {
+            this.clientes = clientes;
+            this.facturas = facturas;
+            this.cantidadTop = cantidadTop;
+            this.divisible = divisible;
+        }
+
+        @Override
+        protected Acumulador compute() {
+            List<Tarea> separadas = new ArrayList<>();
+            Spliterator<Cliente> parte;
+            // Con tamaño desconocido (estimateSize = Long.MAX_VALUE) trySplit entrega lotes hasta agotarlo
+            boolean partesDivisibles = clientes.hasCharacteristics(Spliterator.SIZED);
+            while (divisible && clientes.estimateSize() > CLIENTES_POR_TAREA && (parte = clientes.trySplit()) != null) {
+                Tarea tarea = new Tarea(parte, facturas, cantidadTop, partesDivisibles);
+                tarea.fork();
+                separadas.add(tarea);
+            }
+            Acumulador acumulador = new Acumulador(facturas, cantidadTop);
+            clientes.forEachRemaining(acumulador::agregar);
+            for (Tarea tarea : separadas) {
+                acumulador.sumar(tarea.join());
+            }
+            return acumulador;
+        }
+    }
+
+    /**
+     * Contadores de una parte de los clientes. Solo lo usa un hilo hasta que se suma a otro.
+     */
+    private static final class Acumulador {
+        private final FacturaService facturas;
+        private final int cantidadTop;
+        // Por tipo de cliente; casi siempre hay dos tipos, así que un TreeMap basta y deja el orden listo
+        private final Map<String, AcumuladorTipo> porTipo = new TreeMap<>();
+        // Montón con el menor monto arriba: el primero que sale cuando llega uno mayor
+        private final PriorityQueue<Cliente> top;
+
+        // Último tipo consultado, para no buscar en el mapa en cada cliente
+        private String ultimoTipo;
+        private AcumuladorTipo ultimoAcumulador;
+
+        Acumulador(FacturaService facturas, int cantidadTop) {
+            this.facturas = facturas;
+            this.cantidadTop = cantidadTop;
+            this.top = new PriorityQueue<>(Math.max(1, cantidadTop + 1), POR_MONTO);
+        }
+
+        void agregar(Cliente cliente) {
+            String tipo = cliente.getTipoCliente();
+            if (!tipo.equals(ultimoTipo)) {
+                ultimoTipo = tipo;
+                ultimoAcumulador = porTipo.computeIfAbsent(tipo, clave -> new AcumuladorTipo());
+            }
+            ultimoAcumulador.agregar(cliente, facturas);
+            if (cliente.getMontoCompra() != null) {
+                agregarAlTop(cliente);
+            }
+        }
+
+        private void agregarAlTop(Cliente cliente) {
+            if (top.size() < cantidadTop) {
+                top.add(cliente);
+            } else if (cantidadTop > 0 && POR_MONTO.compare(cliente, top.peek()) > 0) {
+                top.poll();
+                top.add(cliente);
+            }
+        }
+
+        void sumar(Acumulador otro) {
+            otro.porTipo.forEach((tipo, acumulador) ->
+                    porTipo.computeIfAbsent(tipo, clave -> new AcumuladorTipo()).sumar(acumulador));
+            for (Cliente cliente : otro.top) {
+                agregarAlTop(cliente);
+            }
+        }
+
+        Resultado resultado(long milisegundos) {
+            List<EstadisticasTipo> estadisticas = new ArrayList<>(porTipo.size());
+            AcumuladorTipo todos = new AcumuladorTipo();
+            porTipo.forEach((tipo, acumulador) -> {
+                estadisticas.add(new EstadisticasTipo(tipo, acumulador));
+                todos.sumar(acumulador);
+            });
+            List<Cliente> mayores = new ArrayList<>(top);
+            mayores.sort(POR_MONTO.reversed());
+            return new Resultado(Collections.unmodifiableList(estadisticas), new EstadisticasTipo("Todos", todos),
+                    Collections.unmodifiableList(mayores), milisegundos);
+        }
+    }
+
+    /**
+     * Orden por monto de compra (en centavos cuando se puede, sin crear objetos). Los empates se
+     * desempatan por identificación para que el top no dependa de cómo se dividió el recorrido.
+     */
+    private static final Comparator<Cliente> POR_MONTO = (a, b) -> {
+        long centavosA = a.getMontoCentavos();
+        long centavosB = b.getMontoCentavos();
+        int orden = centavosA != Dinero.FUERA_DE_RANGO && centavosB != Dinero.FUERA_DE_RANGO
+                ? Long.compare(centavosA, centavosB)
+                : a.getMontoCompra().compareTo(b.getMontoCompra());
+        return orden != 0 ? orden : b.getIdentificacion().compareTo(a.getIdentificacion());
+    };
+
+    /**
+     * Contadores de un tipo de cliente.
+     */
+    private static final class AcumuladorTipo {
+        long clientes;
+        final Suma montos = new Suma();
+        final Suma iva = new Suma();
+        final Suma descuentos = new Suma();
+        final Suma totales = new Suma();
+        final HistogramaMontos histograma = new HistogramaMontos();
+        BigDecimal minimo;
+        BigDecimal maximo;
+
+        // Mínimo y máximo en centavos de los montos que caben; se pasan a BigDecimal al final
+        private long minimoCentavos = Long.MAX_VALUE;
+        private long maximoCentavos = Long.MIN_VALUE;
+
+        void agregar(Cliente cliente, FacturaService facturas) {
+            clientes++;
+            BigDecimal monto = cliente.getMontoCompra();
+            if (monto == null) {
+                return;
+            }
+            long centavos = cliente.getMontoCentavos();
+            if (centavos != Dinero.FUERA_DE_RANGO) {
+                montos.sumar(centavos);
+                histograma.registrar(centavos);
+                if (centavos < minimoCentavos) {
+                    minimoCentavos = centavos;
+                }
+                if (centavos > maximoCentavos) {
+                    maximoCentavos = centavos;
+                }
+            } else {
+                montos.sumar(monto);
+                histograma.registrar(aCentavosAproximados(monto));
+                actualizarExtremos(monto);
+            }
+
+            Factura factura = facturas.calcular(cliente);
+            if (factura.enCentavos()) {
+                iva.sumar(factura.getValorIvaCentavos());
+                descuentos.sumar(factura.getDescuentoCentavos());
+                totales.sumar(factura.getTotalPagarCentavos());
+            } else {
+                iva.sumar(factura.getValorIva());
+                descuentos.sumar(factura.getDescuento());
+                totales.sumar(factura.getTotalPagar());
+            }
+        }
+
+        void sumar(AcumuladorTipo otro) {
+            clientes += otro.clientes;
+            montos.sumar(otro.montos);
+            iva.sumar(otro.iva);
+            descuentos.sumar(otro.descuentos);
+            totales.sumar(otro.totales);
+            histograma.sumar(otro.histograma);
+            otro.cerrarExtremos();
+            if (otro.minimo != null) {
+                actualizarExtremos(otro.minimo);
+                actualizarExtremos(otro.maximo);
+            }
+        }
+
+        /**
+         * Pasa el mínimo y el máximo en centavos a los extremos en BigDecimal.
+         */
+        private void cerrarExtremos() {
+            if (minimoCentavos != Long.MAX_VALUE) {
+                actualizarExtremos(Dinero.deCentavos(minimoCentavos));
+                actualizarExtremos(Dinero.deCentavos(maximoCentavos));
+                minimoCentavos = Long.MAX_VALUE;
+                maximoCentavos = Long.MIN_VALUE;
+            }
+        }
+
+        private void actualizarExtremos(BigDecimal monto) {
+            if (minimo == null || monto.compareTo(minimo) < 0) {
+                minimo = monto;
+            }
+            if (maximo == null || monto.compareTo(maximo) > 0) {
+                maximo = monto;
+            }
+        }
+
+        private static long aCentavosAproximados(BigDecimal monto) {
+            BigDecimal centavos = monto.movePointRight(2);
+            return centavos.compareTo(BigDecimal.valueOf(Long.MAX_VALUE)) >= 0 ? Long.MAX_VALUE : centavos.longValue();
+        }
+    }
+
+    /**
+     * Suma de dinero en centavos que pasa a BigDecimal la parte que ya no cabe en un long.
+     */
+    private static final class Suma {
+        private long centavos;
+        private BigDecimal exacto = BigDecimal.ZERO;
+
+        void sumar(long valor) {
+            long resultado = centavos + valor;
+            // Desbordamiento: ambos sumandos tienen el mismo signo y el resultado otro
+            if (((centavos ^ resultado) & (valor ^ resultado)) < 0) {
+                exacto = exacto.add(Dinero.deCentavos(centavos));
+                resultado = valor;
+            }
+            centavos = resultado;
+        }
+
+        void sumar(BigDecimal valor) {
+            exacto = exacto.add(valor);
+        }
+
+        void sumar(Suma otra) {
+            sumar(otra.centavos);
+            exacto = exacto.add(otra.exacto);
+        }
+
+        BigDecimal valor() {
+            BigDecimal total = exacto.add(Dinero.deCentavos(centavos));
+            return total.scale() < 2 ? total.setScale(2) : total;
+        }
+    }
+
+    /**
+     * Histograma de montos en centavos, sin sincronizar (cada parte tiene el suyo). Usa las mismas
+     * cubetas log-lineales de {@link HistogramaLatencia}.
+     */
+    private static final class HistogramaMontos {
+        private final long[] conteos = new long[HistogramaLatencia.CUBETAS];
+        long total;
+
+        void registrar(long centavos) {
+            conteos[HistogramaLatencia.cubeta(Math.max(0, centavos))]++;
+            total++;
+        }
+
+        void sumar(HistogramaMontos otro) {
+            for (int i = 0; i < conteos.length; i++) {
+                conteos[i] += otro.conteos[i];
+            }
+            total += otro.total;
+        }
+
+        /**
+         * Límite superior de la cubeta del percentil, acotado por el mínimo y el máximo reales.
+         * @return Monto del percentil, o null si no hay montos
+         */
+        BigDecimal percentil(double percentil, BigDecimal minimo, BigDecimal maximo) {
+            if (total == 0) {
+                return null;
+            }
+            long objetivo = Math.max(1, (long) Math.ceil(total * percentil / 100.0));
+            long acumulado = 0;
+            for (int i = 0; i < conteos.length; i++) {
+                acumulado += conteos[i];
+                if (acumulado >= objetivo) {
+                    BigDecimal valor = Dinero.deCentavos(HistogramaLatencia.limiteSuperior(i));
+                    return valor.compareTo(maximo) > 0 ? maximo : valor.compareTo(minimo) < 0 ? minimo : valor;
+                }
+            }
+            return maximo;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para borrar archivos incompletos
+import java.io.File;
+
+// Importaciones de colecciones
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+// Importaciones de concurrencia
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Genera los reportes de clientes en segundo plano para que el usuario pueda seguir usando el menú.
+ *
+ * Cada reporte es un trabajo con un número propio. Los trabajos esperan en una cola de tamaño
+ * limitado y los atienden pocos hilos, así varios reportes grandes no compiten por el disco ni
+ * llenan la memoria. Los clientes se toman al programar el trabajo (una instantánea de
+ * ClienteService), de modo que el reporte refleja los datos de ese momento aunque se sigan
+ * agregando o cambiando clientes mientras se escribe.
+ *
+ * Se puede consultar el avance de cada trabajo y cancelarlo; si se cancela a medias, el archivo
+ * incompleto se borra.
+ */
+public class PlanificadorReportes {
+
+    // Número de clientes a partir del cual el reporte CSV se genera en paralelo
+    private static final int UMBRAL_CSV_PARALELO = 100_000;
+
+    /** Formatos de reporte disponibles */
+    public enum Formato { TEXTO, CSV }
+
+    /** Estados por los que pasa un trabajo */
+    public enum Estado { EN_COLA, EN_CURSO, TERMINADO, FALLIDO, CANCELADO }
+
+    // Hilos que escriben los reportes, con una cola de trabajos limitada
+    private final ThreadPoolExecutor hilos;
+
+    // Trabajos por número, en orden de creación
+    private final Map<Integer, Trabajo> trabajos = new ConcurrentSkipListMap<>();
+    private final AtomicInteger siguienteId = new AtomicInteger(1);
+
+    /**
+     * @param hilosTrabajo Reportes que se escriben a la vez
+     * @param capacidadCola Trabajos que pueden esperar en cola; al superarla se rechazan nuevos
+     */
+    public PlanificadorReportes(int hilosTrabajo, int capacidadCola) {
+        AtomicInteger numeroHilo = new AtomicInteger();
+        this.hilos = new ThreadPoolExecutor(hilosTrabajo, hilosTrabajo, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), tarea -> {
+                    Thread hilo = new Thread(tarea, "reportes-" + numeroHilo.incrementAndGet());
+                    // No impide que el programa termine si no se llamó a cerrar()
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    /**
+     * Programa un reporte de los clientes indicados.
+     * @param formato Texto o CSV
+     * @param clientes Clientes a incluir; debe ser una instantánea que no cambie
+     *                 (por ejemplo, {@link ClienteService#instantaneaClientes()})
+     * @param nombreArchivo Nombre del archivo sin extensión (se crea en la carpeta de reportes)
+     * @return Trabajo creado, para consultar su avance o cancelarlo
+     * @throws IllegalStateException Si la cola de trabajos está llena
+     */
+    public Trabajo programar(Formato formato, List<Cliente> clientes, String nombreArchivo) {
+        String extension = formato == Formato.CSV ? ".csv" : ".txt";
+        Trabajo trabajo = new Trabajo(siguienteId.getAndIncrement(), formato, nombreArchivo + extension, clientes.size());
+        trabajos.put(trabajo.id, trabajo);
+        try {
+            trabajo.futuro = hilos.submit(() -> ejecutar(trabajo, clientes, nombreArchivo));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.id);
+            throw new IllegalStateException("Hay demasiados reportes en cola; intente más tarde");
+        }
+        return trabajo;
+    }
+
+    /**
+     * Escribe el reporte en el hilo de trabajo y deja el estado final.
+     */
+    private void ejecutar(Trabajo trabajo, List<Cliente> clientes, String nombreArchivo) {
+        if (trabajo.cancelado) {
+            trabajo.estado = Estado.CANCELADO;
+            return;
+        }
+        trabajo.estado = Estado.EN_CURSO;
+        // La lista cuenta cada cliente que se lee y corta el recorrido si el trabajo se cancela
+        List<Cliente> conAvance = new ListaConAvance(clientes, trabajo);
+        try {
+            boolean correcto;
+            if (trabajo.formato == Formato.TEXTO) {
+                correcto = ReporteService.generarReporteTexto(conAvance, nombreArchivo);
+            } else if (clientes.size() >= UMBRAL_CSV_PARALELO) {
+                correcto = ReporteService.generarReporteCSVParalelo(conAvance, nombreArchivo);
+            } else {
+                correcto = ReporteService.generarReporteCSV(conAvance, nombreArchivo);
+            }
+            trabajo.estado = correcto ? Estado.TERMINADO : Estado.FALLIDO;
+        } catch (CancellationException e) {
+            new File(ReporteService.CARPETA_REPORTES, trabajo.archivo).delete();
+            trabajo.estado = Estado.CANCELADO;
+        } catch (RuntimeException e) {
+            System.err.println("Error al generar el reporte #" + trabajo.id + ": " + e);
+            trabajo.estado = Estado.FALLIDO;
+        }
+    }
+
+    /**
+     * Cancela un trabajo. Si está en cola no llega a empezar; si está en curso se detiene en el
+     * siguiente cliente y se borra el archivo incompleto.
+     * @param id Número del trabajo
+     * @return true si el trabajo existía y aún no había terminado
+     */
+    public boolean cancelar(int id) {
+        Trabajo trabajo = trabajos.get(id);
+        if (trabajo == null || trabajo.estaTerminado()) {
+            return false;
+        }
+        trabajo.cancelado = true;
+        // Solo se quita de la cola si no ha empezado; uno en curso se detiene al leer el siguiente cliente
+        if (trabajo.estado == Estado.EN_COLA && trabajo.futuro != null && trabajo.futuro.cancel(false)) {
+            // Se quitó de la cola antes de empezar
+            trabajo.estado = Estado.CANCELADO;
+            hilos.remove((Runnable) trabajo.futuro);
+        }
+        return true;
+    }
+
+    /**
+     * @param id Número del trabajo
+     * @return Trabajo o null si no existe
+     */
+    public Trabajo buscar(int id) {
+        return trabajos.get(id);
+    }
+
+    /**
+     * @return Todos los trabajos de la sesión en orden de creación
+     */
+    public List<Trabajo> listarTrabajos() {
+        return new ArrayList<>(trabajos.values());
+    }
+
+    /**
+     * No acepta más trabajos y espera a que terminen los programados.
+     * @param segundosEspera Tiempo máximo de espera
+     * @return true si todos terminaron a tiempo
+     */
+    public boolean cerrar(int segundosEspera) {
+        hilos.shutdown();
+        try {
+            return hilos.awaitTermination(segundosEspera, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Un reporte programado: su archivo, su estado y cuántos clientes lleva escritos.
+     */
+    public static final class Trabajo {
+        private final int id;
+        private final Formato formato;
+        private final String archivo;
+        private final int total;
+
+        // Clientes leídos hasta ahora (en el CSV paralelo los leen varios hilos a la vez)
+        private final LongAdder procesados = new LongAdder();
+
+        private volatile Estado estado = Estado.EN_COLA;
+        private volatile boolean cancelado;
+        private volatile Future<?> futuro;
+
+        Trabajo(int id, Formato formato, String archivo, int total) {
+            this.id = id;
+            this.formato = formato;
+            this.archivo = archivo;
+            this.total = total;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public Formato getFormato() {
+            return formato;
+        }
+
+        /**
+         * @return Nombre del archivo dentro de la carpeta de reportes
+         */
+        public String getArchivo() {
+            return archivo;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        /**
+         * @return Porcentaje de clientes escritos (100 al terminar, aunque no haya clientes)
+         */
+        public int getPorcentaje() {
+            if (estado == Estado.TERMINADO) {
+                return 100;
+            }
+            return total == 0 ? 0 : (int) Math.min(99, procesados.sum() * 100 / total);
+        }
+
+        public boolean estaTerminado() {
+            Estado actual = estado;
+            return actual == Estado.TERMINADO || actual == Estado.FALLIDO || actual == Estado.CANCELADO;
+        }
+
+        @Override
+        public String toString() {
+            return "#" + id + " " + formato + " " + archivo + " - " + estado
+                    + " (" + getPorcentaje() + "% de " + total + " clientes)";
+        }
+    }
+
+    /**
+     * Vista de la instantánea que registra el avance del trabajo en cada lectura y la corta si el
+     * trabajo se canceló. Acceso por posición, así sirve también para el CSV paralelo.
+     */
+    private static final class ListaConAvance extends AbstractList<Cliente> implements RandomAccess {
+        private final List<Cliente> clientes;
+        private final Trabajo trabajo;
+
+        ListaConAvance(List<Cliente> clientes, Trabajo trabajo) {
+            this.clientes = clientes;
+            this.trabajo = trabajo;
+        }
+
+        @Override
+        public Cliente get(int indice) {
+            if (trabajo.cancelado) {
+                throw new CancellationException("Reporte cancelado");
+            }
+            trabajo.procesados.increment();
+            return clientes.get(indice);
+        }
+
+        @Override
+        public int size() {
+            return clientes.size();
+        }
+    }
+}
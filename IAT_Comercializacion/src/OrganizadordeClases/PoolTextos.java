@@ -0,0 +1,145 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para codificar los textos y crecer los arreglos
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Pool de textos sin repetidos, guardados uno tras otro en un solo arreglo de bytes (UTF-8).
+ *
+ * Cada texto distinto se guarda una vez y se identifica con un número (int). Así, miles de
+ * clientes con la misma ciudad o el mismo teléfono comparten los bytes, y no hay un objeto String
+ * (con su cabecera y su arreglo) por cada texto: solo 4 bytes de posición más los caracteres.
+ * Los textos se buscan con una tabla hash de direccionamiento abierto que compara los bytes.
+ *
+ * El pool solo crece; para soltar los textos que ya nadie usa se construye uno nuevo con los
+ * vigentes (ver {@link TablaClientesColumnar#compactarTextos()}). No es seguro entre hilos: quien
+ * lo usa debe sincronizar el acceso.
+ */
+final class PoolTextos {
+
+    /** Identificador que representa un texto null */
+    static final int NULO = -1;
+
+    // Factor de carga máximo de la tabla hash antes de duplicarla
+    private static final float FACTOR_CARGA = 0.6f;
+
+    // Bytes de todos los textos, uno tras otro
+    private byte[] datos;
+    private int bytesUsados;
+
+    // Texto i ocupa datos[inicios[i]] .. datos[inicios[i + 1]]; inicios[cantidad] = bytesUsados
+    private int[] inicios;
+    private int cantidad;
+
+    // Tabla hash: identificador + 1 de cada casilla (0 = vacía)
+    private int[] tabla;
+
+    PoolTextos(int textosEsperados) {
+        int capacidad = Math.max(16, textosEsperados);
+        // Se empieza con poco y se duplica: con muchos textos repetidos casi nunca hace falta más
+        datos = new byte[capacidad * 4];
+        inicios = new int[capacidad + 1];
+        tabla = new int[Integer.highestOneBit((int) Math.min(1 << 30, (long) (capacidad / FACTOR_CARGA))) << 1];
+    }
+
+    /**
+     * Agrega un texto (o encuentra el igual que ya estaba).
+     * @param texto Texto a guardar; null se representa con {@link #NULO}
+     * @return Identificador del texto
+     */
+    int agregar(String texto) {
+        if (texto == null) {
+            return NULO;
+        }
+        byte[] bytes = texto.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes, 0, bytes.length);
+        int mascara = tabla.length - 1;
+        int casilla = hash & mascara;
+        while (tabla[casilla] != 0) {
+            int id = tabla[casilla] - 1;
+            if (Arrays.equals(datos, inicios[id], inicios[id + 1], bytes, 0, bytes.length)) {
+                return id;
+            }
+            casilla = (casilla + 1) & mascara;
+        }
+
+        // Texto nuevo: se copia al final de los datos
+        if (bytesUsados + bytes.length > datos.length) {
+            datos = Arrays.copyOf(datos, Math.max(datos.length << 1, bytesUsados + bytes.length));
+        }
+        if (cantidad + 1 == inicios.length) {
+            inicios = Arrays.copyOf(inicios, inicios.length << 1);
+        }
+        System.arraycopy(bytes, 0, datos, bytesUsados, bytes.length);
+        int id = cantidad++;
+        inicios[id] = bytesUsados;
+        bytesUsados += bytes.length;
+        inicios[cantidad] = bytesUsados;
+        tabla[casilla] = id + 1;
+        if (cantidad > tabla.length * FACTOR_CARGA) {
+            redimensionarTabla();
+        }
+        return id;
+    }
+
+    /**
+     * @param id Identificador devuelto por {@link #agregar(String)}
+     * @return Texto guardado (un String nuevo en cada llamada), o null si id es {@link #NULO}
+     */
+    String texto(int id) {
+        if (id == NULO) {
+            return null;
+        }
+        int inicio = inicios[id];
+        return new String(datos, inicio, inicios[id + 1] - inicio, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return Número de textos distintos guardados
+     */
+    int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return Memoria aproximada que ocupan los arreglos del pool, en bytes
+     */
+    long bytesReservados() {
+        return (long) datos.length + 4L * inicios.length + 4L * tabla.length;
+    }
+
+    /**
+     * Ajusta los arreglos de bytes y posiciones a lo que ocupan, soltando el espacio que quedó
+     * libre al duplicarlos. Conviene llamarlo tras una carga grande.
+     */
+    void recortar() {
+        datos = Arrays.copyOf(datos, bytesUsados);
+        inicios = Arrays.copyOf(inicios, cantidad + 1);
+    }
+
+    private void redimensionarTabla() {
+        int[] nueva = new int[tabla.length << 1];
+        int mascara = nueva.length - 1;
+        for (int id = 0; id < cantidad; id++) {
+            int casilla = hash(datos, inicios[id], inicios[id + 1]) & mascara;
+            while (nueva[casilla] != 0) {
+                casilla = (casilla + 1) & mascara;
+            }
+            nueva[casilla] = id + 1;
+        }
+        tabla = nueva;
+    }
+
+    /**
+     * Hash de un rango de bytes, mezclado para repartir bien los textos parecidos.
+     */
+    private static int hash(byte[] bytes, int desde, int hasta) {
+        int h = 1;
+        for (int i = desde; i < hasta; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,133 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones de archivos
+import java.io.File;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Importaciones de utilidades
+import java.util.Comparator;
+import java.util.function.UnaryOperator;
+import java.util.stream.Stream;
+
+/**
+ * Prueba de {@link ClienteService#actualizarCliente(String, Cliente)} cuando los nuevos datos
+ * traen la identificación de otro cliente, en el servicio en memoria, en el persistente y en
+ * {@link ClienteServiceFueraDeHeap}.
+ *
+ * Comprueba que:
+ * - la actualización lanza IllegalArgumentException y el cliente guardado no cambia
+ * - en el servicio persistente el cambio rechazado tampoco queda en el registro al reabrir
+ * - con la misma identificación la actualización sí se guarda
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java --enable-preview OrganizadordeClases.PruebaActualizarCliente
+ * </pre>
+ * Termina con código 1 si alguna comprobación falla.
+ */
+public final class PruebaActualizarCliente {
+
+    private static final String NIT = "900123456";
+    private static final String OTRO_NIT = "900123457";
+
+    private int fallas;
+
+    private PruebaActualizarCliente() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        PruebaActualizarCliente prueba = new PruebaActualizarCliente();
+        prueba.probar("ClienteService", new ClienteService());
+        ClienteServiceFueraDeHeap fueraDeHeap = new ClienteServiceFueraDeHeap();
+        try {
+            prueba.probar("ClienteServiceFueraDeHeap", fueraDeHeap);
+        } finally {
+            fueraDeHeap.cerrar();
+        }
+        prueba.probarPersistente();
+
+        System.out.println(prueba.fallas == 0 ? "✔ Actualizaciones con otra identificación rechazadas" : prueba.fallas + " fallas");
+        if (prueba.fallas > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void probar(String nombre, ClienteService servicio) {
+        servicio.agregarCliente(cliente(NIT, "Original"));
+
+        comprobar(rechaza(servicio, NIT, cliente(OTRO_NIT, "Otro")),
+                nombre + ": aceptó datos con otra identificación");
+        comprobar(servicio.buscarPorId(NIT).getNombre().equals("Original"),
+                nombre + ": el cliente cambió aunque se rechazó la actualización");
+        comprobar(servicio.buscarPorId(OTRO_NIT) == null,
+                nombre + ": apareció un cliente con la otra identificación");
+
+        comprobar(rechaza(servicio, NIT, anterior -> cliente(OTRO_NIT, "Otro")),
+                nombre + ": el cambio con función aceptó otra identificación");
+
+        comprobar(servicio.actualizarCliente(NIT, cliente(NIT, "Nuevo")),
+                nombre + ": no aceptó la actualización con la misma identificación");
+        comprobar(servicio.buscarPorId(NIT).getNombre().equals("Nuevo"),
+                nombre + ": no se guardaron los nuevos datos");
+        comprobar(!servicio.actualizarCliente(OTRO_NIT, cliente(OTRO_NIT, "Otro")),
+                nombre + ": actualizó un cliente que no existe");
+    }
+
+    /**
+     * El rechazo debe ocurrir antes de escribir en el registro de cambios.
+     */
+    private void probarPersistente() throws IOException {
+        Path carpeta = Files.createTempDirectory("prueba-actualizar");
+        try {
+            ClienteService servicio = new ClienteService(carpeta);
+            servicio.agregarCliente(cliente(NIT, "Original"));
+            comprobar(rechaza(servicio, NIT, cliente(OTRO_NIT, "Otro")),
+                    "persistente: aceptó datos con otra identificación");
+            servicio.cerrar();
+
+            ClienteService reabierto = new ClienteService(carpeta);
+            Cliente recuperado = reabierto.buscarPorId(NIT);
+            comprobar(recuperado != null && recuperado.getNombre().equals("Original")
+                            && reabierto.buscarPorId(OTRO_NIT) == null && reabierto.contarClientes() == 1,
+                    "persistente: al reabrir se recuperó el cambio rechazado");
+            reabierto.cerrar();
+        } finally {
+            try (Stream<Path> archivos = Files.walk(carpeta)) {
+                archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private static boolean rechaza(ClienteService servicio, String id, Cliente nuevosDatos) {
+        try {
+            servicio.actualizarCliente(id, nuevosDatos);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static boolean rechaza(ClienteService servicio, String id, UnaryOperator<Cliente> cambio) {
+        try {
+            servicio.actualizarCliente(id, cambio);
+            return false;
+        } catch (IllegalArgumentException e) {
+            return true;
+        }
+    }
+
+    private static Cliente cliente(String id, String nombre) {
+        return new ClienteMinorista(id, nombre, new BigDecimal("1000.00"), "", "");
+    }
+
+    private void comprobar(boolean condicion, String detalle) {
+        if (!condicion) {
+            fallas++;
+            System.out.println("✘ " + detalle);
+        }
+    }
+}
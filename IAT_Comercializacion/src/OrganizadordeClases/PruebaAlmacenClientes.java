@@ -0,0 +1,204 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones de archivos
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// Importaciones de utilidades
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Prueba del orden de escritura en disco de {@link AlmacenClientes} al compactar.
+ *
+ * Comprueba que:
+ * - cuando se sincroniza la carpeta después de renombrar la instantánea nueva, el registro todavía
+ *   conserva sus entradas: solo se reinicia después de que el renombrado llegó al disco
+ * - si esa sincronización falla, el registro no se reinicia, el almacén rechaza las escrituras
+ *   siguientes y al volver a abrirlo se recuperan todos los clientes confirmados
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java OrganizadordeClases.PruebaAlmacenClientes
+ * </pre>
+ * Trabaja en una carpeta temporal y termina con código 1 si alguna comprobación falla.
+ */
+public final class PruebaAlmacenClientes {
+
+    private static final String ARCHIVO_INSTANTANEA = "clientes.snap";
+    private static final String ARCHIVO_REGISTRO = "clientes.wal";
+    private static final int CLIENTES = 3;
+
+    private int fallas;
+
+    private PruebaAlmacenClientes() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        PruebaAlmacenClientes prueba = new PruebaAlmacenClientes();
+        Path carpeta = Files.createTempDirectory("prueba-almacen");
+        try {
+            prueba.probarOrden(carpeta.resolve("orden"));
+            prueba.probarFallo(carpeta.resolve("fallo"));
+        } finally {
+            try (Stream<Path> archivos = Files.walk(carpeta)) {
+                archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+
+        System.out.println(prueba.fallas == 0 ? "✔ Orden de escritura correcto" : prueba.fallas + " fallas");
+        if (prueba.fallas > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Anota, en cada sincronización de la carpeta, la generación de la instantánea y del registro.
+     */
+    private void probarOrden(Path carpeta) throws IOException {
+        List<String> estados = new ArrayList<>();
+        AlmacenClientes almacen = new AlmacenClientes(carpeta) {
+            @Override
+            void sincronizarDirectorio() throws IOException {
+                estados.add(estado(carpeta));
+                super.sincronizarDirectorio();
+            }
+        };
+        almacen.recuperar(new Receptor());
+        registrarClientes(almacen);
+        long registroAntes = Files.size(carpeta.resolve(ARCHIVO_REGISTRO));
+        estados.clear();
+        compactar(almacen);
+        almacen.cerrar();
+
+        // Primera sincronización: instantánea nueva ya renombrada, registro anterior intacto
+        String esperado = "instantánea 1, registro 0 de " + registroAntes + " bytes";
+        comprobar(!estados.isEmpty() && estados.get(0).equals(esperado),
+                "al sincronizar la carpeta tras renombrar se esperaba \"" + esperado + "\" y se vio " + estados);
+        comprobar(estado(carpeta).equals("instantánea 1, registro 1 de 16 bytes"),
+                "después de compactar el registro debía quedar reiniciado: " + estado(carpeta));
+    }
+
+    /**
+     * La sincronización de la carpeta falla justo después de renombrar la instantánea.
+     */
+    private void probarFallo(Path carpeta) throws IOException {
+        boolean[] fallar = {false};
+        AlmacenClientes almacen = new AlmacenClientes(carpeta) {
+            @Override
+            void sincronizarDirectorio() throws IOException {
+                if (fallar[0]) {
+                    throw new IOException("fallo simulado al sincronizar la carpeta");
+                }
+                super.sincronizarDirectorio();
+            }
+        };
+        almacen.recuperar(new Receptor());
+        registrarClientes(almacen);
+        long registroAntes = Files.size(carpeta.resolve(ARCHIVO_REGISTRO));
+
+        fallar[0] = true;
+        boolean compacto = true;
+        try {
+            compactar(almacen);
+        } catch (IOException e) {
+            compacto = false;
+        }
+        comprobar(!compacto, "compactar debía fallar si no se puede sincronizar la carpeta");
+        comprobar(Files.size(carpeta.resolve(ARCHIVO_REGISTRO)) == registroAntes,
+                "el registro se reinició sin sincronizar la carpeta");
+
+        boolean rechazada = false;
+        try {
+            almacen.registrarAlta(900_000_099L, cliente(900_000_099L));
+        } catch (IOException e) {
+            rechazada = true;
+        }
+        comprobar(rechazada, "después del fallo el almacén debía rechazar las escrituras");
+        almacen.cerrar();
+
+        AlmacenClientes reabierto = new AlmacenClientes(carpeta);
+        Receptor receptor = new Receptor();
+        reabierto.recuperar(receptor);
+        reabierto.cerrar();
+        comprobar(receptor.clientes.size() == CLIENTES,
+                "al reabrir se esperaban " + CLIENTES + " clientes y se recuperaron " + receptor.clientes.size());
+    }
+
+    private static void registrarClientes(AlmacenClientes almacen) throws IOException {
+        for (int i = 0; i < CLIENTES; i++) {
+            almacen.registrarAlta(900_000_000L + i, cliente(900_000_000L + i));
+        }
+        almacen.sincronizar();
+    }
+
+    private static void compactar(AlmacenClientes almacen) throws IOException {
+        long[] nits = new long[CLIENTES];
+        Cliente[] clientes = new Cliente[CLIENTES];
+        for (int i = 0; i < CLIENTES; i++) {
+            nits[i] = 900_000_000L + i;
+            clientes[i] = cliente(nits[i]);
+        }
+        almacen.compactar(nits, clientes, CLIENTES);
+    }
+
+    private static Cliente cliente(long nit) {
+        return new ClienteMinorista(String.valueOf(nit), "Cliente " + nit, new BigDecimal("1000.00"), "", "");
+    }
+
+    /**
+     * @return Generación de la instantánea y del registro, y tamaño del registro
+     */
+    private static String estado(Path carpeta) throws IOException {
+        Path registro = carpeta.resolve(ARCHIVO_REGISTRO);
+        return "instantánea " + generacion(carpeta.resolve(ARCHIVO_INSTANTANEA))
+                + ", registro " + generacion(registro)
+                + " de " + (Files.exists(registro) ? Files.size(registro) : 0) + " bytes";
+    }
+
+    /**
+     * Lee la generación de la cabecera (mágico, versión, generación); -1 si el archivo no existe.
+     */
+    private static long generacion(Path archivo) throws IOException {
+        if (!Files.exists(archivo) || Files.size(archivo) < 16) {
+            return -1;
+        }
+        try (RandomAccessFile entrada = new RandomAccessFile(archivo.toFile(), "r")) {
+            entrada.seek(8);
+            return entrada.readLong();
+        }
+    }
+
+    private void comprobar(boolean condicion, String detalle) {
+        if (!condicion) {
+            fallas++;
+            System.out.println("✘ " + detalle);
+        }
+    }
+
+    /**
+     * Guarda los clientes recuperados por NIT.
+     */
+    private static final class Receptor implements AlmacenClientes.Receptor {
+        final Map<Long, Cliente> clientes = new HashMap<>();
+
+        @Override
+        public void guardar(long nit, Cliente cliente) {
+            clientes.put(nit, cliente);
+        }
+
+        @Override
+        public void eliminar(long nit) {
+            clientes.remove(nit);
+        }
+    }
+}
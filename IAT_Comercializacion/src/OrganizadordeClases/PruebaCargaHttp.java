@@ -0,0 +1,215 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones del cliente HTTP del JDK
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+// Importaciones de concurrencia
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Prueba de carga local de la API HTTP ({@link ServidorHttp}).
+ *
+ * Simula muchas terminales a la vez, cada una en un hilo virtual que envía solicitudes sin pausa:
+ * 70% consultas de cliente, 20% facturas y 10% actualizaciones de monto. Mide la latencia de
+ * cada tipo de solicitud desde el lado del cliente y muestra el rendimiento y los percentiles.
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java OrganizadordeClases.PruebaCargaHttp [--url http://127.0.0.1:8080] [--terminales 64]
+ *                                          [--segundos 10] [--clientes 10000]
+ * </pre>
+ * Sin --url se inicia un servidor propio en memoria, en un puerto libre, y al final se muestran
+ * también las latencias medidas por el servidor. Con --url se prueba un servidor ya iniciado
+ * (por ejemplo con "Main --servidor"); los clientes de prueba se crean con POST si no existen.
+ */
+public final class PruebaCargaHttp {
+
+    // NIT del primer cliente de prueba; los demás son consecutivos
+    private static final long PRIMER_NIT = 900_000_000L;
+
+    // Segundos de calentamiento que no se cuentan en los resultados
+    private static final int SEGUNDOS_CALENTAMIENTO = 2;
+
+    private PruebaCargaHttp() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int terminales = 64;
+        int segundos = 10;
+        int clientes = 10_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--url" -> url = args[i + 1];
+                case "--terminales" -> terminales = Integer.parseInt(args[i + 1]);
+                case "--segundos" -> segundos = Integer.parseInt(args[i + 1]);
+                case "--clientes" -> clientes = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        ServidorHttp servidorPropio = null;
+        if (url == null) {
+            servidorPropio = new ServidorHttp(new ClienteService(), new FacturaService());
+            servidorPropio.iniciar(0);
+            url = "http://127.0.0.1:" + servidorPropio.getPuerto();
+        }
+
+        try (ExecutorService hilos = Executors.newVirtualThreadPerTaskExecutor()) {
+            HttpClient http = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .executor(hilos)
+                    .build();
+
+            System.out.println("Servidor: " + url);
+            System.out.println("Creando " + clientes + " clientes de prueba...");
+            crearClientes(http, hilos, url, clientes, terminales);
+
+            System.out.printf("Calentando %d s...%n", SEGUNDOS_CALENTAMIENTO);
+            ejecutar(http, hilos, url, clientes, terminales, SEGUNDOS_CALENTAMIENTO);
+
+            System.out.printf("Midiendo con %d terminales durante %d s...%n", terminales, segundos);
+            Resultado resultado = ejecutar(http, hilos, url, clientes, terminales, segundos);
+            resultado.imprimir(segundos);
+        }
+
+        if (servidorPropio != null) {
+            System.out.println("\nLatencias medidas en el servidor:");
+            for (Map.Entry<String, HistogramaLatencia> ruta : new TreeMap<>(servidorPropio.getLatencias()).entrySet()) {
+                System.out.printf("  %-22s %s%n", ruta.getKey(), ruta.getValue());
+            }
+            servidorPropio.detener(1);
+        }
+    }
+
+    /**
+     * Crea los clientes de prueba repartidos entre las terminales (409 si ya existen no es un error).
+     */
+    private static void crearClientes(HttpClient http, ExecutorService hilos, String url,
+                                      int clientes, int terminales) throws Exception {
+        AtomicLong fallidos = new AtomicLong();
+        List<java.util.concurrent.Future<?>> tareas = new ArrayList<>();
+        for (int t = 0; t < terminales; t++) {
+            int terminal = t;
+            tareas.add(hilos.submit(() -> {
+                for (int i = terminal; i < clientes; i += terminales) {
+                    long nit = PRIMER_NIT + i;
+                    String cuerpo = String.format(Locale.US,
+                            "{\"identificacion\":\"%d\",\"nombre\":\"Cliente prueba %d\",\"tipo\":\"%s\","
+                                    + "\"montoCompra\":%d.50,\"direccion\":\"Calle %d\",\"telefono\":\"300%07d\"}",
+                            nit, i, i % 3 == 0 ? "Mayorista" : "Minorista", 1000 + i, i, i);
+                    int estado = enviar(http, HttpRequest.newBuilder(URI.create(url + "/clientes"))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(cuerpo)).build());
+                    if (estado != 201 && estado != 409) {
+                        fallidos.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (java.util.concurrent.Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        if (fallidos.get() > 0) {
+            System.out.println("⚠ No se pudieron crear " + fallidos.get() + " clientes");
+        }
+    }
+
+    /**
+     * Envía solicitudes desde todas las terminales durante el tiempo indicado.
+     */
+    private static Resultado ejecutar(HttpClient http, ExecutorService hilos, String url, int clientes,
+                                      int terminales, int segundos) throws Exception {
+        Resultado resultado = new Resultado();
+        long fin = System.nanoTime() + segundos * 1_000_000_000L;
+        List<java.util.concurrent.Future<?>> tareas = new ArrayList<>();
+        for (int t = 0; t < terminales; t++) {
+            tareas.add(hilos.submit(() -> {
+                ThreadLocalRandom azar = ThreadLocalRandom.current();
+                while (System.nanoTime() < fin) {
+                    long nit = PRIMER_NIT + azar.nextInt(clientes);
+                    int operacion = azar.nextInt(10);
+                    HttpRequest solicitud;
+                    HistogramaLatencia histograma;
+                    if (operacion < 7) {
+                        solicitud = HttpRequest.newBuilder(URI.create(url + "/clientes/" + nit)).GET().build();
+                        histograma = resultado.consultas;
+                    } else if (operacion < 9) {
+                        solicitud = HttpRequest.newBuilder(URI.create(url + "/facturas/" + nit)).GET().build();
+                        histograma = resultado.facturas;
+                    } else {
+                        String cuerpo = "{\"montoCompra\":" + azar.nextInt(1, 10_000_000) + ".25}";
+                        solicitud = HttpRequest.newBuilder(URI.create(url + "/clientes/" + nit))
+                                .header("Content-Type", "application/json")
+                                .PUT(HttpRequest.BodyPublishers.ofString(cuerpo)).build();
+                        histograma = resultado.actualizaciones;
+                    }
+                    long inicio = System.nanoTime();
+                    int estado = enviar(http, solicitud);
+                    histograma.registrar(System.nanoTime() - inicio);
+                    if (estado != 200) {
+                        resultado.errores.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (java.util.concurrent.Future<?> tarea : tareas) {
+            tarea.get();
+        }
+        return resultado;
+    }
+
+    /**
+     * @return Código HTTP de la respuesta, o -1 si la conexión falló
+     */
+    private static int enviar(HttpClient http, HttpRequest solicitud) {
+        try {
+            return http.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+        } catch (IOException e) {
+            return -1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    /**
+     * Latencias por tipo de solicitud y errores de una ejecución.
+     */
+    private static final class Resultado {
+        final HistogramaLatencia consultas = new HistogramaLatencia();
+        final HistogramaLatencia facturas = new HistogramaLatencia();
+        final HistogramaLatencia actualizaciones = new HistogramaLatencia();
+        final AtomicLong errores = new AtomicLong();
+
+        void imprimir(int segundos) {
+            HistogramaLatencia total = new HistogramaLatencia();
+            total.sumar(consultas);
+            total.sumar(facturas);
+            total.sumar(actualizaciones);
+            System.out.printf(Locale.US, "%nSolicitudes: %d (%.0f por segundo), errores: %d%n",
+                    total.getTotal(), total.getTotal() / (double) segundos, errores.get());
+            System.out.println("  GET /clientes/{id}  " + consultas);
+            System.out.println("  GET /facturas/{id}  " + facturas);
+            System.out.println("  PUT /clientes/{id}  " + actualizaciones);
+            System.out.println("  Todas               " + total);
+        }
+    }
+}
@@ -0,0 +1,400 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para los montos de prueba
+import java.math.BigDecimal;
+
+// Importaciones de utilidades y concurrencia
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Prueba de esfuerzo de las lecturas concurrentes de {@link ClienteService}.
+ *
+ * Varios escritores agregan (de uno en uno y por lotes), actualizan y eliminan clientes mientras
+ * varios lectores los buscan con la lectura optimista (buscarPorNit y buscarPorId) y recorren
+ * instantáneas (instantaneaClientes, streamClientes e iterarClientes). Cada escritor es dueño de
+ * un rango de NIT y lleva la versión de cada uno; la versión va en el nombre, el monto y el tipo
+ * del cliente, así que un lector puede comprobar que:
+ * - un cliente encontrado nunca está a medias: NIT, nombre, monto y tipo son de la misma versión
+ * - la versión encontrada está entre la última confirmada antes de buscar y la última iniciada
+ *   después; si no había ningún cambio en curso, un cliente vivo siempre se encuentra
+ * - una instantánea no repite clientes y cumple lo mismo para cada uno de ellos
+ * - ninguna consulta lanza excepciones
+ *
+ * El servicio se crea de nuevo en cada ronda, así los arreglos y el índice de NIT crecen varias
+ * veces mientras se leen: es cuando una lectura optimista puede salirse de un arreglo
+ * (ArrayIndexOutOfBoundsException desde IndiceNit.obtener o al leer el registro) y debe repetirse
+ * con bloqueo. Las eliminaciones y altas repetidas también provocan la compactación de posiciones.
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java OrganizadordeClases.PruebaConcurrenciaClientes [--escritores 4] [--lectores 4]
+ *                                                     [--segundos 10] [--clientes 20000]
+ * </pre>
+ * Muestra las primeras violaciones que encuentre y termina con código 1 si hay alguna.
+ */
+public final class PruebaConcurrenciaClientes {
+
+    // NIT del primer cliente de prueba; los demás son consecutivos
+    private static final long PRIMER_NIT = 900_000_000L;
+
+    // Duración de cada ronda; al empezar la siguiente el servicio vuelve a estar vacío
+    private static final long MILISEGUNDOS_POR_RONDA = 250;
+
+    // Uno de cada tantos pasos de un lector recorre una instantánea completa en vez de buscar
+    private static final int BUSQUEDAS_POR_INSTANTANEA = 512;
+
+    // Violaciones que se muestran antes de dejar solo de contarlas
+    private static final int VIOLACIONES_MOSTRADAS = 10;
+
+    private final int escritores;
+    private final int clientes;
+    private final int clientesPorEscritor;
+
+    // Ronda en curso; los lectores la leen en cada paso
+    private volatile Ronda ronda;
+    private volatile boolean terminar;
+
+    private final AtomicLong busquedas = new AtomicLong();
+    private final AtomicLong instantaneas = new AtomicLong();
+    private final AtomicLong escrituras = new AtomicLong();
+    private final AtomicLong violaciones = new AtomicLong();
+
+    /**
+     * Servicio de una ronda y el estado de cada NIT según sus escritores.
+     * El estado es versión * 2 + 1 si el cliente quedó vivo, o versión * 2 si quedó eliminado.
+     */
+    private static final class Ronda {
+        final ClienteService servicio = new ClienteService();
+        // Último cambio que un escritor empezó (antes de llamar al servicio) y último que terminó
+        final AtomicLongArray iniciado;
+        final AtomicLongArray confirmado;
+
+        Ronda(int clientes) {
+            iniciado = new AtomicLongArray(clientes);
+            confirmado = new AtomicLongArray(clientes);
+        }
+    }
+
+    private PruebaConcurrenciaClientes(int escritores, int clientes) {
+        this.escritores = escritores;
+        this.clientesPorEscritor = Math.max(1, clientes / escritores);
+        this.clientes = clientesPorEscritor * escritores;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int escritores = 4;
+        int lectores = 4;
+        int segundos = 10;
+        int clientes = 20_000;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--escritores" -> escritores = Integer.parseInt(args[i + 1]);
+                case "--lectores" -> lectores = Integer.parseInt(args[i + 1]);
+                case "--segundos" -> segundos = Integer.parseInt(args[i + 1]);
+                case "--clientes" -> clientes = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        PruebaConcurrenciaClientes prueba = new PruebaConcurrenciaClientes(escritores, clientes);
+        System.out.printf(Locale.US, "%d escritores, %d lectores, %d clientes, %d s (%d núcleos)%n",
+                escritores, lectores, prueba.clientes, segundos, Runtime.getRuntime().availableProcessors());
+        int rondas = prueba.ejecutar(lectores, segundos * 1000L);
+
+        System.out.printf(Locale.US, "%d rondas: %d búsquedas, %d instantáneas, %d escrituras, %d violaciones%n",
+                rondas, prueba.busquedas.get(), prueba.instantaneas.get(), prueba.escrituras.get(),
+                prueba.violaciones.get());
+        if (prueba.violaciones.get() > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Ejecuta rondas hasta cumplir la duración. Los lectores siguen de una ronda a la siguiente;
+     * los escritores se crean en cada una y al final de ella se comprueba el estado completo.
+     * @return Número de rondas ejecutadas
+     */
+    private int ejecutar(int lectores, long milisegundos) throws InterruptedException {
+        ronda = new Ronda(clientes);
+        List<Thread> hilosLectores = new ArrayList<>();
+        for (int i = 0; i < lectores; i++) {
+            long semilla = 1_000 + i;
+            hilosLectores.add(Thread.ofPlatform().name("lector-" + i).start(() -> leer(semilla)));
+        }
+
+        long fin = System.currentTimeMillis() + milisegundos;
+        int rondas = 0;
+        while (System.currentTimeMillis() < fin) {
+            Ronda actual = rondas == 0 ? ronda : new Ronda(clientes);
+            ronda = actual;
+            long finRonda = Math.min(fin, System.currentTimeMillis() + MILISEGUNDOS_POR_RONDA);
+            List<Thread> hilosEscritores = new ArrayList<>();
+            for (int w = 0; w < escritores; w++) {
+                int escritor = w;
+                long semilla = (long) rondas * escritores + w;
+                hilosEscritores.add(Thread.ofPlatform().name("escritor-" + w)
+                        .start(() -> escribir(actual, escritor, semilla, finRonda)));
+            }
+            for (Thread hilo : hilosEscritores) {
+                hilo.join();
+            }
+            comprobarRondaTerminada(actual);
+            rondas++;
+        }
+
+        terminar = true;
+        for (Thread hilo : hilosLectores) {
+            hilo.join();
+        }
+        return rondas;
+    }
+
+    /**
+     * Cambios al azar sobre el rango de NIT del escritor hasta que termine la ronda.
+     */
+    private void escribir(Ronda ronda, int escritor, long semilla, long finRonda) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        int primero = escritor * clientesPorEscritor;
+        int[] versiones = new int[clientesPorEscritor];
+        boolean[] vivos = new boolean[clientesPorEscritor];
+        ClienteService servicio = ronda.servicio;
+        long pasos = 0;
+
+        try {
+            while ((++pasos & 63) != 0 || System.currentTimeMillis() < finRonda) {
+                int local = azar.nextInt(clientesPorEscritor);
+                int indice = primero + local;
+                String id = String.valueOf(PRIMER_NIT + indice);
+
+                if (!vivos[local]) {
+                    // Alta: a veces un lote con los siguientes NIT eliminados del rango
+                    int cantidad = 1;
+                    int maximo = azar.nextInt(4) == 0 ? azar.nextInt(2, 65) : 1;
+                    while (cantidad < maximo && local + cantidad < clientesPorEscritor && !vivos[local + cantidad]) {
+                        cantidad++;
+                    }
+                    List<Cliente> lote = new ArrayList<>(cantidad);
+                    for (int k = local; k < local + cantidad; k++) {
+                        versiones[k]++;
+                        vivos[k] = true;
+                        ronda.iniciado.set(primero + k, estado(versiones[k], true));
+                        lote.add(crearCliente(PRIMER_NIT + primero + k, versiones[k]));
+                    }
+                    if (cantidad > 1) {
+                        servicio.agregarClientes(lote);
+                    } else if (azar.nextBoolean()) {
+                        servicio.agregarCliente(lote.get(0));
+                    } else if (!servicio.agregarClienteNuevo(lote.get(0))) {
+                        violacion("agregarClienteNuevo rechazó el NIT eliminado " + id);
+                    }
+                    for (int k = local; k < local + cantidad; k++) {
+                        ronda.confirmado.set(primero + k, estado(versiones[k], true));
+                    }
+                    escrituras.addAndGet(cantidad);
+                    continue;
+                }
+
+                versiones[local]++;
+                int version = versiones[local];
+                boolean eliminar = azar.nextInt(10) < 3;
+                vivos[local] = !eliminar;
+                ronda.iniciado.set(indice, estado(version, !eliminar));
+                boolean hecho;
+                if (eliminar) {
+                    hecho = servicio.eliminarCliente(id);
+                } else if (azar.nextBoolean()) {
+                    hecho = servicio.actualizarCliente(id, crearCliente(PRIMER_NIT + indice, version));
+                } else {
+                    hecho = servicio.actualizarCliente(id, anterior -> crearCliente(PRIMER_NIT + indice, version)) != null;
+                }
+                if (!hecho) {
+                    violacion((eliminar ? "eliminarCliente" : "actualizarCliente") + " no encontró el NIT vivo " + id);
+                }
+                ronda.confirmado.set(indice, estado(version, !eliminar));
+                escrituras.incrementAndGet();
+            }
+        } catch (RuntimeException e) {
+            violacion("excepción en " + Thread.currentThread().getName() + ": " + e);
+        }
+    }
+
+    /**
+     * Búsquedas al azar y, de vez en cuando, una instantánea completa, hasta que termine la prueba.
+     */
+    private void leer(long semilla) {
+        SplittableRandom azar = new SplittableRandom(semilla);
+        long pasos = 0;
+        while (!terminar) {
+            Ronda actual = ronda;
+            try {
+                if (++pasos % BUSQUEDAS_POR_INSTANTANEA == 0) {
+                    comprobarInstantanea(actual, (int) (pasos / BUSQUEDAS_POR_INSTANTANEA % 3), false);
+                    instantaneas.incrementAndGet();
+                } else {
+                    comprobarBusqueda(actual, azar.nextInt(clientes), azar.nextBoolean());
+                    busquedas.incrementAndGet();
+                }
+            } catch (RuntimeException e) {
+                violacion("excepción en " + Thread.currentThread().getName() + ": " + e);
+            }
+        }
+    }
+
+    /**
+     * Busca un NIT y comprueba el resultado contra el estado antes y después de buscar.
+     */
+    private void comprobarBusqueda(Ronda ronda, int indice, boolean porNit) {
+        long nit = PRIMER_NIT + indice;
+        long antes = ronda.confirmado.get(indice);
+        Cliente cliente = porNit
+                ? ronda.servicio.buscarPorNit(nit)
+                : ronda.servicio.buscarPorId(String.valueOf(nit));
+        long despues = ronda.iniciado.get(indice);
+
+        if (cliente == null) {
+            if (antes == despues && (antes & 1) == 1) {
+                violacion("NIT " + nit + " vivo en la versión " + (antes >> 1) + " no se encontró");
+            }
+            return;
+        }
+        comprobarVersion(cliente, nit, antes, despues);
+    }
+
+    /**
+     * Recorre una instantánea y comprueba que cada cliente sea consistente, que ninguno se repita
+     * y, si la ronda ya terminó, que estén exactamente los clientes vivos.
+     * @param forma 0 para instantaneaClientes, 1 para streamClientes y 2 para iterarClientes
+     */
+    private void comprobarInstantanea(Ronda ronda, int forma, boolean completa) {
+        long[] antes = copiar(ronda.confirmado);
+        List<Cliente> lista = switch (forma) {
+            case 0 -> ronda.servicio.instantaneaClientes();
+            case 1 -> ronda.servicio.streamClientes().toList();
+            default -> {
+                List<Cliente> copia = new ArrayList<>();
+                for (Iterator<Cliente> it = ronda.servicio.iterarClientes(); it.hasNext(); ) {
+                    copia.add(it.next());
+                }
+                yield copia;
+            }
+        };
+        long[] despues = copiar(ronda.iniciado);
+
+        BitSet vistos = new BitSet(clientes);
+        for (Cliente cliente : lista) {
+            long nit = ValidadorNit.parsearClave(cliente.getIdentificacion());
+            int indice = (int) (nit - PRIMER_NIT);
+            if (nit <= 0 || indice < 0 || indice >= clientes) {
+                violacion("instantánea con un NIT desconocido: " + cliente.getIdentificacion());
+                continue;
+            }
+            if (vistos.get(indice)) {
+                violacion("instantánea con el NIT " + nit + " repetido");
+            }
+            vistos.set(indice);
+            comprobarVersion(cliente, nit, antes[indice], despues[indice]);
+        }
+        for (int i = 0; i < clientes; i++) {
+            if (antes[i] == despues[i] && (antes[i] & 1) == 1 && !vistos.get(i)) {
+                violacion("instantánea sin el NIT " + (PRIMER_NIT + i) + " vivo en la versión " + (antes[i] >> 1));
+            }
+        }
+        if (completa && ronda.servicio.contarClientes() != lista.size()) {
+            violacion("contarClientes dio " + ronda.servicio.contarClientes() + " con "
+                    + lista.size() + " clientes vivos");
+        }
+    }
+
+    /**
+     * Sin escritores ya no hay cambios en curso: todas las formas de recorrer y buscar deben
+     * coincidir exactamente con el estado final.
+     */
+    private void comprobarRondaTerminada(Ronda ronda) {
+        for (int forma = 0; forma < 3; forma++) {
+            comprobarInstantanea(ronda, forma, true);
+        }
+        for (int i = 0; i < clientes; i++) {
+            comprobarBusqueda(ronda, i, true);
+        }
+    }
+
+    /**
+     * Comprueba que el cliente sea de una sola versión y que esa versión sea posible
+     * entre el estado confirmado antes de leer y el iniciado después.
+     */
+    private void comprobarVersion(Cliente cliente, long nit, long antes, long despues) {
+        int version = versionDe(cliente, nit);
+        if (version < 0) {
+            violacion("cliente a medias para el NIT " + nit + ": " + cliente.getIdentificacion() + ", "
+                    + cliente.getNombre() + ", " + cliente.getMontoCompra() + ", " + cliente.getTipoCliente());
+        } else if (version < (antes >> 1) || version > (despues >> 1)) {
+            violacion("NIT " + nit + " en la versión " + version + ", se esperaba entre "
+                    + (antes >> 1) + " y " + (despues >> 1));
+        }
+    }
+
+    /**
+     * Cliente de prueba: nombre, monto y tipo dependen del NIT y la versión.
+     */
+    private static Cliente crearCliente(long nit, int version) {
+        String nombre = "C" + nit + "-v" + version;
+        BigDecimal monto = montoDe(nit, version);
+        return version % 2 == 0
+                ? new ClienteMayorista(String.valueOf(nit), nombre, monto, "", "")
+                : new ClienteMinorista(String.valueOf(nit), nombre, monto, "", "");
+    }
+
+    private static BigDecimal montoDe(long nit, int version) {
+        return BigDecimal.valueOf(nit % 1_000_000 * 1_000 + version, 2);
+    }
+
+    /**
+     * @return Versión del cliente, o -1 si sus campos no corresponden todos al NIT y a una misma versión
+     */
+    private static int versionDe(Cliente cliente, long nit) {
+        String prefijo = "C" + nit + "-v";
+        String nombre = cliente.getNombre();
+        if (!String.valueOf(nit).equals(cliente.getIdentificacion()) || nombre == null || !nombre.startsWith(prefijo)) {
+            return -1;
+        }
+        int version;
+        try {
+            version = Integer.parseInt(nombre.substring(prefijo.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+        BigDecimal monto = montoDe(nit, version);
+        boolean mayorista = cliente instanceof ClienteMayorista;
+        if (!monto.equals(cliente.getMontoCompra()) || cliente.getMontoCentavos() != Dinero.aCentavos(monto)
+                || mayorista != (version % 2 == 0)) {
+            return -1;
+        }
+        return version;
+    }
+
+    private static long estado(int version, boolean vivo) {
+        return ((long) version << 1) | (vivo ? 1 : 0);
+    }
+
+    private static long[] copiar(AtomicLongArray arreglo) {
+        long[] copia = new long[arreglo.length()];
+        for (int i = 0; i < copia.length; i++) {
+            copia[i] = arreglo.get(i);
+        }
+        return copia;
+    }
+
+    private void violacion(String detalle) {
+        if (violaciones.incrementAndGet() <= VIOLACIONES_MOSTRADAS) {
+            System.out.println("✘ " + detalle);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para los montos de referencia
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+
+// Importaciones de utilidades
+import java.util.Locale;
+import java.util.Random;
+import java.util.SplittableRandom;
+
+/**
+ * Prueba de propiedades del cálculo en centavos ({@link Dinero} y FacturaService).
+ *
+ * Genera montos al azar y comprueba que el camino rápido en centavos da exactamente lo mismo
+ * que el cálculo original con BigDecimal (monto × 0,19 y subtotal × 15% o 5%, cada uno con
+ * setScale(2, HALF_UP)), incluida la escala del resultado:
+ * - escalas de -1 a 4 (las de más de 2 decimales van por BigDecimal)
+ * - montos negativos y cero
+ * - montos más grandes que un long en centavos, y justo en el borde de 18 dígitos
+ * - tasas en puntos básicos al azar, para las reglas de precio configurables
+ * - sumas y restas que se desbordan deben dar FUERA_DE_RANGO
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java OrganizadordeClases.PruebaEquivalenciaDinero [--casos 1000000] [--semilla 42]
+ * </pre>
+ * Muestra las primeras diferencias que encuentre y termina con código 1 si hay alguna.
+ */
+public final class PruebaEquivalenciaDinero {
+
+    // Reglas fijas de la versión con BigDecimal
+    private static final BigDecimal IVA = new BigDecimal("0.19");
+    private static final BigDecimal DESCUENTO_MAYORISTA = new BigDecimal("0.15");
+    private static final BigDecimal DESCUENTO_MINORISTA = new BigDecimal("0.05");
+
+    // Diferencias que se muestran antes de dejar solo de contarlas
+    private static final int DIFERENCIAS_MOSTRADAS = 10;
+
+    private long diferencias;
+
+    private PruebaEquivalenciaDinero() {
+    }
+
+    public static void main(String[] args) {
+        int casos = 1_000_000;
+        long semilla = 42;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--casos" -> casos = Integer.parseInt(args[i + 1]);
+                case "--semilla" -> semilla = Long.parseLong(args[i + 1]);
+                default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        PruebaEquivalenciaDinero prueba = new PruebaEquivalenciaDinero();
+        SplittableRandom azar = new SplittableRandom(semilla);
+        // Reglas fijas: la prueba no depende del archivo de reglas de la carpeta de datos
+        FacturaService facturas = new FacturaService(ReglasPrecio.predeterminadas());
+        for (int i = 0; i < casos; i++) {
+            BigDecimal monto = montoAlAzar(azar);
+            prueba.compararFactura(facturas, monto, i % 2 == 0);
+            prueba.compararTasa(monto, azar.nextInt(-10_000, 10_001));
+            prueba.compararSumaYResta(azar);
+        }
+
+        System.out.printf(Locale.US, "%d casos (semilla %d): %d diferencias%n", casos, semilla, prueba.diferencias);
+        if (prueba.diferencias > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Factura completa de un cliente frente al cálculo original con BigDecimal.
+     */
+    private void compararFactura(FacturaService facturas, BigDecimal monto, boolean mayorista) {
+        Cliente cliente = mayorista
+                ? new ClienteMayorista("900000001", "Prueba", monto, "", "")
+                : new ClienteMinorista("900000001", "Prueba", monto, "", "");
+        Factura factura = facturas.calcularFactura(cliente);
+        BigDecimal[] esperada = facturaConBigDecimal(monto, mayorista);
+
+        // equals (y no compareTo) para que también cuente la escala: 1.50 no es igual a 1.5
+        comprobar(esperada[0], factura.getValorIva(), "IVA", monto);
+        comprobar(esperada[1], factura.getSubtotalConIva(), "subtotal", monto);
+        comprobar(esperada[2], factura.getDescuento(), "descuento", monto);
+        comprobar(esperada[3], factura.getTotalPagar(), "total", monto);
+    }
+
+    /**
+     * Factura calculada como antes de los centavos, solo con BigDecimal. BancoRendimiento la
+     * usa también para comparar los tiempos de ambos cálculos.
+     * @return IVA, subtotal con IVA, descuento y total a pagar, en ese orden
+     */
+    static BigDecimal[] facturaConBigDecimal(BigDecimal monto, boolean mayorista) {
+        BigDecimal iva = monto.multiply(IVA).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal subtotal = monto.add(iva);
+        BigDecimal descuento = subtotal.multiply(mayorista ? DESCUENTO_MAYORISTA : DESCUENTO_MINORISTA)
+                .setScale(2, RoundingMode.HALF_UP);
+        return new BigDecimal[]{iva, subtotal, descuento, subtotal.subtract(descuento)};
+    }
+
+    /**
+     * Dinero.aplicarTasa en centavos y con BigDecimal frente a multiply + setScale.
+     */
+    private void compararTasa(BigDecimal monto, int puntosBasicos) {
+        BigDecimal esperado = monto.multiply(BigDecimal.valueOf(puntosBasicos, 4)).setScale(2, RoundingMode.HALF_UP);
+        comprobar(esperado, Dinero.aplicarTasa(monto, puntosBasicos), "tasa " + puntosBasicos, monto);
+
+        long centavos = Dinero.aCentavos(monto);
+        if (centavos == Dinero.FUERA_DE_RANGO) {
+            // Solo puede quedar fuera si tiene más de 2 decimales o no cabe en 18 dígitos
+            if (monto.scale() >= 0 && monto.scale() <= 2 && monto.precision() + 2 - monto.scale() <= 18) {
+                diferencia("aCentavos dio FUERA_DE_RANGO", monto);
+            }
+            return;
+        }
+        comprobar(monto.setScale(2), Dinero.deCentavos(centavos), "ida y vuelta en centavos", monto);
+        long resultado = Dinero.aplicarTasa(centavos, puntosBasicos);
+        if (resultado != Dinero.FUERA_DE_RANGO) {
+            comprobar(esperado, Dinero.deCentavos(resultado), "tasa en centavos " + puntosBasicos, monto);
+        }
+    }
+
+    /**
+     * Sumas y restas en centavos: exactas o FUERA_DE_RANGO, nunca un valor desbordado.
+     */
+    private void compararSumaYResta(SplittableRandom azar) {
+        long a = azar.nextBoolean() ? azar.nextLong() : azar.nextLong(-1_000_000_000L, 1_000_000_000L);
+        long b = azar.nextBoolean() ? azar.nextLong() : azar.nextLong(-1_000_000_000L, 1_000_000_000L);
+        if (a == Dinero.FUERA_DE_RANGO || b == Dinero.FUERA_DE_RANGO) {
+            return;
+        }
+        BigInteger suma = BigInteger.valueOf(a).add(BigInteger.valueOf(b));
+        BigInteger resta = BigInteger.valueOf(a).subtract(BigInteger.valueOf(b));
+        comprobarExacto(suma, Dinero.sumar(a, b), "suma", a, b);
+        comprobarExacto(resta, Dinero.restar(a, b), "resta", a, b);
+    }
+
+    private void comprobarExacto(BigInteger esperado, long obtenido, String operacion, long a, long b) {
+        boolean cabe = esperado.bitLength() < 64 && esperado.longValue() != Dinero.FUERA_DE_RANGO;
+        if (cabe ? obtenido != esperado.longValue() : obtenido != Dinero.FUERA_DE_RANGO) {
+            diferencia(operacion + " de " + a + " y " + b + ": se esperaba "
+                    + (cabe ? esperado : "FUERA_DE_RANGO") + " y se obtuvo " + obtenido, null);
+        }
+    }
+
+    private void comprobar(BigDecimal esperado, BigDecimal obtenido, String campo, BigDecimal monto) {
+        if (!esperado.equals(obtenido)) {
+            diferencia(campo + ": se esperaba " + esperado.toPlainString() + " y se obtuvo "
+                    + (obtenido == null ? "null" : obtenido.toPlainString()), monto);
+        }
+    }
+
+    private void diferencia(String detalle, BigDecimal monto) {
+        if (++diferencias <= DIFERENCIAS_MOSTRADAS) {
+            System.out.println("✘ " + detalle + (monto == null ? "" : " (monto " + monto.toPlainString()
+                    + ", escala " + monto.scale() + ")"));
+        }
+    }
+
+    /**
+     * Monto al azar: la mayoría de tamaño normal, algunos cerca del borde de 18 dígitos y
+     * algunos más grandes que un long, con escala de -1 a 4 y a veces negativo o cero.
+     */
+    private static BigDecimal montoAlAzar(SplittableRandom azar) {
+        int escala = azar.nextInt(-1, 5);
+        BigInteger sinEscala = switch (azar.nextInt(10)) {
+            case 0 -> BigInteger.ZERO;
+            case 1 -> new BigInteger(azar.nextInt(64, 90), new Random(azar.nextLong()));
+            case 2 -> BigInteger.TEN.pow(18 - Math.max(0, 2 - escala)).subtract(BigInteger.valueOf(azar.nextInt(3)));
+            case 3 -> BigInteger.valueOf(azar.nextLong(Long.MAX_VALUE));
+            default -> BigInteger.valueOf(azar.nextLong(100_000_000_000L));
+        };
+        if (azar.nextInt(5) == 0) {
+            sinEscala = sinEscala.negate();
+        }
+        return new BigDecimal(sinEscala, escala);
+    }
+}
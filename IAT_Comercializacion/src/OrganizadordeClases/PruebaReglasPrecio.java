@@ -0,0 +1,171 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones de archivos y salida
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+// Importaciones de utilidades
+import java.util.Comparator;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Stream;
+
+/**
+ * Prueba de la tasa de IVA en las facturas y de la recarga de {@link ReglasPrecio}.
+ *
+ * Comprueba que:
+ * - la factura guarda la tasa de IVA con la que se calculó, y la consola y el texto la muestran
+ *   (también con decimales, como 19.05%)
+ * - una factura ya calculada conserva su tasa aunque las reglas se recarguen después
+ * - la recarga en segundo plano se cuenta en la métrica "reglas_precio_recargar", un archivo con
+ *   errores queda en getErrorRecarga() y ninguna de las dos escribe en la consola
+ *
+ * Uso (desde la carpeta de clases compiladas):
+ * <pre>
+ * java OrganizadordeClases.PruebaReglasPrecio
+ * </pre>
+ * Espera unos segundos a la revisión periódica del archivo y termina con código 1 si alguna
+ * comprobación falla.
+ */
+public final class PruebaReglasPrecio {
+
+    // Tiempo máximo de espera a la revisión periódica (se revisa cada 2 segundos)
+    private static final long MILISEGUNDOS_ESPERA = 15_000;
+
+    // Las fallas se escriben aquí aunque System.out esté capturado
+    private final PrintStream salida = System.out;
+
+    private int fallas;
+
+    private PruebaReglasPrecio() {
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        PruebaReglasPrecio prueba = new PruebaReglasPrecio();
+        prueba.probarPorcentajes();
+        Path carpeta = Files.createTempDirectory("prueba-reglas");
+        try {
+            prueba.probarRecarga(carpeta.resolve("reglas_precio.properties"));
+        } finally {
+            try (Stream<Path> archivos = Files.walk(carpeta)) {
+                archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+
+        System.out.println(prueba.fallas == 0 ? "✔ Tasa de IVA y recarga de reglas correctas" : prueba.fallas + " fallas");
+        if (prueba.fallas > 0) {
+            System.exit(1);
+        }
+    }
+
+    private void probarPorcentajes() {
+        int[] puntos = {1900, 1950, 1905, 5, 0, 10000};
+        String[] esperados = {"19", "19.5", "19.05", "0.05", "0", "100"};
+        for (int i = 0; i < puntos.length; i++) {
+            Factura factura = new Factura("900123456", "Prueba", "Minorista", BigDecimal.ONE,
+                    puntos[i], BigDecimal.ZERO, BigDecimal.ONE, BigDecimal.ZERO, BigDecimal.ONE);
+            comprobar(factura.getPorcentajeIva().equals(esperados[i]), puntos[i] + " puntos básicos se mostraron como "
+                    + factura.getPorcentajeIva() + "% en lugar de " + esperados[i] + "%");
+        }
+    }
+
+    private void probarRecarga(Path archivo) throws IOException, InterruptedException {
+        Files.writeString(archivo, "iva=19.05\n");
+        ReglasPrecio reglas = ReglasPrecio.desdeArchivo(archivo);
+        Metricas.Operacion recargas = Metricas.operacion("reglas_precio_recargar");
+        PrintStream salidaOriginal = System.out;
+        PrintStream errorOriginal = System.err;
+        ByteArrayOutputStream consola = new ByteArrayOutputStream();
+        try {
+            FacturaService servicio = new FacturaService(reglas);
+            Cliente cliente = new ClienteMinorista("900123456", "Prueba", new BigDecimal("1000.00"), "", "");
+            Factura anterior = servicio.calcularFactura(cliente);
+            comprobar(anterior.getIvaPuntosBasicos() == 1905,
+                    "la factura guardó " + anterior.getIvaPuntosBasicos() + " puntos básicos en lugar de 1905");
+            comprobarEtiquetas(anterior, "19.05");
+
+            // Desde aquí, nada del hilo de recarga debe llegar a la consola
+            PrintStream capturada = new PrintStream(consola, true, StandardCharsets.UTF_8);
+            System.setOut(capturada);
+            System.setErr(capturada);
+
+            long solicitudes = recargas.getSolicitudes();
+            escribir(archivo, "iva=16\n", 5);
+            comprobar(esperar(() -> reglas.tabla().getIvaPuntosBasicos() == 1600),
+                    "no se recargaron las reglas con IVA 16%");
+            comprobar(recargas.getSolicitudes() == solicitudes + 1,
+                    "la recarga no se contó en la métrica reglas_precio_recargar");
+            comprobar(reglas.getErrorRecarga() == null, "una recarga correcta dejó un error: " + reglas.getErrorRecarga());
+            comprobar(anterior.getIvaPuntosBasicos() == 1905, "la factura anterior cambió de tasa al recargar");
+            comprobarEtiquetas(servicio.calcularFactura(cliente), "16");
+
+            long errores = recargas.getErrores();
+            escribir(archivo, "iva=diecinueve\n", 10);
+            comprobar(esperar(() -> recargas.getErrores() == errores + 1),
+                    "la recarga de un archivo con errores no se contó como error");
+            comprobar(reglas.getErrorRecarga() != null, "el error de la recarga no quedó en getErrorRecarga()");
+            comprobar(reglas.tabla().getIvaPuntosBasicos() == 1600,
+                    "un archivo con errores cambió las reglas vigentes");
+        } finally {
+            System.setOut(salidaOriginal);
+            System.setErr(errorOriginal);
+            reglas.cerrar();
+        }
+        String escrito = consola.toString(StandardCharsets.UTF_8);
+        comprobar(escrito.isEmpty(), "la recarga escribió en la consola: " + escrito.strip());
+    }
+
+    /**
+     * La consola y el texto deben mostrar "IVA (porcentaje%)".
+     */
+    private void comprobarEtiquetas(Factura factura, String porcentaje) throws IOException {
+        String etiqueta = "IVA (" + porcentaje + "%): ";
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        RenderizadorFacturaConsola consola = new RenderizadorFacturaConsola(new PrintStream(bytes, true, StandardCharsets.UTF_8));
+        consola.renderizar(factura);
+        consola.terminar();
+        comprobar(bytes.toString(StandardCharsets.UTF_8).contains(etiqueta), "la consola no mostró \"" + etiqueta + "\"");
+
+        StringWriter texto = new StringWriter();
+        RenderizadorFacturaTexto renderizadorTexto = new RenderizadorFacturaTexto(texto);
+        renderizadorTexto.renderizar(factura);
+        renderizadorTexto.terminar();
+        comprobar(texto.toString().contains(etiqueta), "el texto no mostró \"" + etiqueta + "\"");
+    }
+
+    /**
+     * Escribe el archivo con una fecha de modificación posterior, para que la revisión lo note
+     * aunque el sistema de archivos guarde las fechas en segundos.
+     */
+    private static void escribir(Path archivo, String contenido, int segundosDespues) throws IOException {
+        FileTime antes = Files.getLastModifiedTime(archivo);
+        Files.writeString(archivo, contenido);
+        Files.setLastModifiedTime(archivo, FileTime.fromMillis(antes.toMillis() + segundosDespues * 1000L));
+    }
+
+    private static boolean esperar(BooleanSupplier condicion) throws InterruptedException {
+        long limite = System.currentTimeMillis() + MILISEGUNDOS_ESPERA;
+        while (!condicion.getAsBoolean()) {
+            if (System.currentTimeMillis() > limite) {
+                return false;
+            }
+            Thread.sleep(100);
+        }
+        return true;
+    }
+
+    private void comprobar(boolean condicion, String detalle) {
+        if (!condicion) {
+            fallas++;
+            salida.println("✘ " + detalle);
+        }
+    }
+}
@@ -0,0 +1,266 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para leer el archivo de reglas y vigilar sus cambios
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Properties;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Motor de reglas de precio: IVA y descuentos por tipo de cliente y tramo de compras.
+ *
+ * Las reglas se leen de un archivo de propiedades y se compilan en una {@link TablaPrecios}.
+ * La facturación solo lee la tabla vigente (una lectura volatile por factura). Si el archivo
+ * cambia, un hilo en segundo plano lo vuelve a compilar y reemplaza la tabla sin detener
+ * la facturación; si el archivo nuevo tiene errores se conservan las reglas anteriores.
+ *
+ * Formato del archivo (porcentajes con hasta 2 decimales, montos con hasta 2 decimales):
+ * <pre>
+ * iva=19
+ * # Tramos "montoDesde:porcentaje" separados por comas, según el monto histórico de compras
+ * descuento.mayorista=0:15
+ * descuento.minorista=0:5, 5000000:7.5
+ * </pre>
+ * Un tipo que no aparece en el archivo conserva su descuento predeterminado (15% / 5%).
+ *
+ * La revisión en segundo plano no escribe en la consola (interrumpiría el menú): cada recarga
+ * se cuenta en la métrica "reglas_precio_recargar" y el último error queda en {@link #getErrorRecarga()}.
+ */
+public final class ReglasPrecio {
+
+    // Cada cuánto se revisa si el archivo de reglas cambió
+    private static final int SEGUNDOS_REVISION = 2;
+
+    // Recargas hechas por la revisión periódica, con las fallidas como errores
+    private static final Metricas.Operacion METRICA_RECARGAR = Metricas.operacion("reglas_precio_recargar");
+
+    // Reglas fijas predeterminadas, compartidas
+    private static final ReglasPrecio PREDETERMINADAS = new ReglasPrecio(null, TablaPrecios.predeterminada());
+
+    // Reglas que usan los clientes y FacturaService cuando no se indica otras
+    private static volatile ReglasPrecio vigentes = PREDETERMINADAS;
+
+    /** Archivo de reglas; null si son las reglas fijas */
+    private final Path archivo;
+
+    /** Tabla compilada vigente; se reemplaza completa al recargar */
+    private volatile TablaPrecios tabla;
+
+    /** Fecha de modificación del archivo con la que se compiló la tabla (null si no existía) */
+    private FileTime ultimaModificacion;
+
+    /** Hilo que vigila el archivo; null si son las reglas fijas */
+    private ScheduledExecutorService vigilante;
+
+    /** Error de la última recarga del archivo; null si se cargó bien */
+    private volatile Exception errorRecarga;
+
+    private ReglasPrecio(Path archivo, TablaPrecios tabla) {
+        this.archivo = archivo;
+        this.tabla = tabla;
+    }
+
+    /**
+     * @return Reglas fijas de siempre: IVA 19%, mayoristas 15%, minoristas 5%
+     */
+    public static ReglasPrecio predeterminadas() {
+        return PREDETERMINADAS;
+    }
+
+    /**
+     * @return Reglas que usan los clientes y FacturaService por defecto
+     */
+    public static ReglasPrecio vigentes() {
+        return vigentes;
+    }
+
+    /**
+     * Cambia las reglas que se usan por defecto en toda la aplicación.
+     * @param reglas Reglas nuevas
+     */
+    public static void usar(ReglasPrecio reglas) {
+        vigentes = reglas;
+    }
+
+    /**
+     * Carga las reglas de un archivo y las vuelve a cargar cada vez que el archivo cambia.
+     * Si el archivo no existe, no se puede leer o tiene errores, se usan las reglas
+     * predeterminadas hasta que se cree o se corrija: el archivo se sigue vigilando igual.
+     * @param archivo Archivo de propiedades con las reglas
+     * @return Reglas cargadas
+     */
+    public static ReglasPrecio desdeArchivo(Path archivo) {
+        ReglasPrecio reglas = new ReglasPrecio(archivo, TablaPrecios.predeterminada());
+        try {
+            reglas.recargar();
+        } catch (IOException | RuntimeException e) {
+            // No se reintenta hasta que el archivo cambie, como en la revisión periódica
+            reglas.recordarModificacionConError();
+            reglas.errorRecarga = e;
+            System.err.println("⚠ Error en las reglas de precio: " + e.getMessage()
+                    + ". Se usarán las reglas predeterminadas hasta que se corrija el archivo.");
+        }
+        reglas.vigilante = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "recarga-reglas-precio");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        reglas.vigilante.scheduleWithFixedDelay(reglas::recargarSiCambio,
+                SEGUNDOS_REVISION, SEGUNDOS_REVISION, TimeUnit.SECONDS);
+        return reglas;
+    }
+
+    /**
+     * @return Tabla de precios vigente (no cambia aunque se recarguen las reglas después)
+     */
+    public TablaPrecios tabla() {
+        return tabla;
+    }
+
+    /**
+     * @return Error de la última carga del archivo de reglas (se siguen usando las reglas
+     *         anteriores), o null si se cargó bien
+     */
+    public Exception getErrorRecarga() {
+        return errorRecarga;
+    }
+
+    /**
+     * Vuelve a leer el archivo de reglas, si lo hay, y reemplaza la tabla vigente.
+     * @throws IOException Si el archivo no se puede leer o tiene errores (la tabla no cambia)
+     */
+    public synchronized void recargar() throws IOException {
+        if (archivo == null) {
+            return;
+        }
+        if (!Files.exists(archivo)) {
+            ultimaModificacion = null;
+            return;
+        }
+        FileTime modificacion = Files.getLastModifiedTime(archivo);
+        Properties propiedades = new Properties();
+        try (Reader lector = Files.newBufferedReader(archivo, StandardCharsets.UTF_8)) {
+            propiedades.load(lector);
+        }
+        tabla = compilar(propiedades);
+        ultimaModificacion = modificacion;
+    }
+
+    /**
+     * Detiene la revisión del archivo de reglas.
+     */
+    public void cerrar() {
+        if (vigilante != null) {
+            vigilante.shutdownNow();
+        }
+    }
+
+    /**
+     * Tarea periódica: recarga las reglas si la fecha de modificación del archivo cambió.
+     */
+    private synchronized void recargarSiCambio() {
+        long inicio = 0;
+        try {
+            FileTime modificacion = Files.exists(archivo) ? Files.getLastModifiedTime(archivo) : null;
+            if (modificacion == null || modificacion.equals(ultimaModificacion)) {
+                return;
+            }
+            inicio = METRICA_RECARGAR.iniciar();
+            recargar();
+            errorRecarga = null;
+        } catch (IOException | RuntimeException e) {
+            // Se conservan las reglas anteriores y no se vuelve a intentar hasta el próximo cambio
+            recordarModificacionConError();
+            errorRecarga = e;
+            METRICA_RECARGAR.error();
+        } finally {
+            METRICA_RECARGAR.terminar(inicio);
+        }
+    }
+
+    /**
+     * Guarda la fecha del archivo que falló, para no volver a leerlo hasta que cambie.
+     */
+    private synchronized void recordarModificacionConError() {
+        try {
+            ultimaModificacion = Files.getLastModifiedTime(archivo);
+        } catch (IOException ignorada) {
+            ultimaModificacion = null;
+        }
+    }
+
+    // ============ COMPILACIÓN ============ //
+
+    /**
+     * Convierte las propiedades del archivo en una tabla de precios.
+     */
+    static TablaPrecios compilar(Properties propiedades) throws IOException {
+        TablaPrecios base = TablaPrecios.predeterminada();
+        int iva = base.getIvaPuntosBasicos();
+        String textoIva = propiedades.getProperty("iva");
+        if (textoIva != null) {
+            iva = aPuntosBasicos(textoIva, "iva");
+        }
+
+        int tipos = TablaPrecios.NOMBRES_TIPO.length;
+        long[][] desde = new long[tipos][];
+        int[][] tasas = new int[tipos][];
+        for (int tipo = 0; tipo < tipos; tipo++) {
+            String clave = "descuento." + TablaPrecios.NOMBRES_TIPO[tipo];
+            String texto = propiedades.getProperty(clave);
+            if (texto == null) {
+                desde[tipo] = new long[]{0};
+                tasas[tipo] = new int[]{base.tasaDescuento(tipo, 0L)};
+                continue;
+            }
+            String[] tramos = texto.split(",");
+            desde[tipo] = new long[tramos.length];
+            tasas[tipo] = new int[tramos.length];
+            for (int i = 0; i < tramos.length; i++) {
+                String[] partes = tramos[i].trim().split(":");
+                if (partes.length != 2) {
+                    throw new IOException(clave + ": el tramo \"" + tramos[i].trim()
+                            + "\" debe tener la forma montoDesde:porcentaje");
+                }
+                desde[tipo][i] = aCentavos(partes[0], clave);
+                tasas[tipo][i] = aPuntosBasicos(partes[1], clave);
+                if (i > 0 && desde[tipo][i] <= desde[tipo][i - 1]) {
+                    throw new IOException(clave + ": los tramos deben estar en orden ascendente de monto");
+                }
+            }
+        }
+        return new TablaPrecios(iva, desde, tasas);
+    }
+
+    private static long aCentavos(String texto, String clave) throws IOException {
+        try {
+            long centavos = Dinero.aCentavos(new BigDecimal(texto.trim()));
+            if (centavos == Dinero.FUERA_DE_RANGO) {
+                throw new IOException(clave + ": monto no válido \"" + texto.trim() + "\"");
+            }
+            return centavos;
+        } catch (NumberFormatException e) {
+            throw new IOException(clave + ": monto no válido \"" + texto.trim() + "\"");
+        }
+    }
+
+    private static int aPuntosBasicos(String texto, String clave) throws IOException {
+        try {
+            BigDecimal porcentaje = new BigDecimal(texto.trim());
+            if (porcentaje.signum() < 0 || porcentaje.compareTo(BigDecimal.valueOf(100)) > 0) {
+                throw new IOException(clave + ": el porcentaje debe estar entre 0 y 100");
+            }
+            return porcentaje.movePointRight(2).intValueExact();
+        } catch (NumberFormatException | ArithmeticException e) {
+            throw new IOException(clave + ": porcentaje no válido \"" + texto.trim() + "\"");
+        }
+    }
+}
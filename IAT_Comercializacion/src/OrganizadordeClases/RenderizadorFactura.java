@@ -0,0 +1,36 @@
+// Declaración del paquete al que pertenece la interfaz
+package OrganizadordeClases;
+
+// Importación de la excepción de entrada/salida
+import java.io.IOException;
+
+/**
+ * Forma de presentar o guardar las facturas calculadas por {@link FacturaService#calcularFactura}.
+ *
+ * El cálculo no hace ningún formato; cada renderizador decide cómo mostrar la factura
+ * (consola, texto, CSV o binario) y a dónde enviarla. Un renderizador se usa desde un solo hilo.
+ */
+public interface RenderizadorFactura {
+
+    /**
+     * Se llama una vez antes de la primera factura (por ejemplo, para escribir una cabecera).
+     * @throws IOException si falla la escritura
+     */
+    default void iniciar() throws IOException {
+    }
+
+    /**
+     * Presenta o guarda una factura.
+     * @param factura factura a renderizar
+     * @throws IOException si falla la escritura
+     */
+    void renderizar(Factura factura) throws IOException;
+
+    /**
+     * Se llama una vez después de la última factura para vaciar lo pendiente.
+     * No cierra el destino: quien lo abrió se encarga de cerrarlo.
+     * @throws IOException si falla la escritura
+     */
+    default void terminar() throws IOException {
+    }
+}
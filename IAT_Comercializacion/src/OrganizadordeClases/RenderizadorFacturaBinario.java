@@ -0,0 +1,65 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para escribir datos binarios
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Escribe las facturas en formato binario, sin convertir ningún valor a texto.
+ *
+ * Estructura: int mágico "IATF" | int versión, y luego una factura tras otra hasta el final:
+ *   texto identificación | texto nombre | texto tipo de cliente |
+ *   monto compra | IVA | subtotal con IVA | descuento | total a pagar
+ * Textos y montos usan la misma codificación que el almacén de clientes ({@link AlmacenClientes}).
+ */
+public class RenderizadorFacturaBinario implements RenderizadorFactura {
+
+    /** Número mágico al inicio del archivo ("IATF") */
+    public static final int MAGICO = 0x49415446;
+
+    /** Versión actual del formato */
+    public static final int VERSION = 1;
+
+    private final DataOutputStream out;
+
+    /**
+     * @param destino flujo donde se escriben las facturas (no se cierra)
+     */
+    public RenderizadorFacturaBinario(OutputStream destino) {
+        this.out = new DataOutputStream(new BufferedOutputStream(destino, 64 * 1024));
+    }
+
+    @Override
+    public void iniciar() throws IOException {
+        out.writeInt(MAGICO);
+        out.writeInt(VERSION);
+    }
+
+    @Override
+    public void renderizar(Factura f) throws IOException {
+        AlmacenClientes.escribirTexto(out, f.getIdentificacion());
+        AlmacenClientes.escribirTexto(out, f.getNombre());
+        AlmacenClientes.escribirTexto(out, f.getTipoCliente());
+        AlmacenClientes.escribirMonto(out, f.getMontoCompra());
+        if (f.enCentavos()) {
+            // Mismos bytes que escribirMonto con un BigDecimal de escala 2, sin crearlo
+            AlmacenClientes.escribirCentavos(out, f.getValorIvaCentavos());
+            AlmacenClientes.escribirCentavos(out, f.getSubtotalConIvaCentavos());
+            AlmacenClientes.escribirCentavos(out, f.getDescuentoCentavos());
+            AlmacenClientes.escribirCentavos(out, f.getTotalPagarCentavos());
+        } else {
+            AlmacenClientes.escribirMonto(out, f.getValorIva());
+            AlmacenClientes.escribirMonto(out, f.getSubtotalConIva());
+            AlmacenClientes.escribirMonto(out, f.getDescuento());
+            AlmacenClientes.escribirMonto(out, f.getTotalPagar());
+        }
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        out.flush();
+    }
+}
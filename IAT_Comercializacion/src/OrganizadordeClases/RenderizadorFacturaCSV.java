@@ -0,0 +1,58 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para escribir texto
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escribe las facturas como filas CSV, con una cabecera al inicio.
+ * Los textos van entre comillas y los valores sin formato, como en el reporte CSV de clientes.
+ */
+public class RenderizadorFacturaCSV implements RenderizadorFactura {
+
+    /** Cabecera del archivo de facturas */
+    static final String CABECERA_CSV =
+            "Identificacion,Nombre,TipoCliente,MontoCompra,IVA,SubtotalConIva,Descuento,TotalPagar\n";
+
+    private final Writer destino;
+
+    /** Texto reutilizable donde se arma cada fila */
+    private final StringBuilder fila = new StringBuilder(160);
+
+    /**
+     * @param destino Writer donde se escriben las filas (conviene que tenga buffer)
+     */
+    public RenderizadorFacturaCSV(Writer destino) {
+        this.destino = destino;
+    }
+
+    @Override
+    public void iniciar() throws IOException {
+        destino.write(CABECERA_CSV);
+    }
+
+    @Override
+    public void renderizar(Factura f) throws IOException {
+        fila.setLength(0);
+        fila.append('"').append(f.getIdentificacion())
+                .append("\",\"").append(f.getNombre())
+                .append("\",\"").append(f.getTipoCliente())
+                .append("\",").append(f.getMontoCompra().toPlainString())
+                .append(',');
+        f.anexarValorIva(fila);
+        fila.append(',');
+        f.anexarSubtotalConIva(fila);
+        fila.append(',');
+        f.anexarDescuento(fila);
+        fila.append(',');
+        f.anexarTotalPagar(fila);
+        fila.append('\n');
+        destino.append(fila);
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        destino.flush();
+    }
+}
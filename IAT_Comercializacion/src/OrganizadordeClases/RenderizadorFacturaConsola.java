@@ -0,0 +1,45 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para escribir en consola con formato de moneda
+import java.io.PrintStream;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Muestra la factura en consola, con los valores formateados como moneda.
+ * Es la presentación que usa {@link FacturaService#generarFactura}.
+ */
+public class RenderizadorFacturaConsola implements RenderizadorFactura {
+
+    /** Destino de la factura (normalmente System.out) */
+    private final PrintStream salida;
+
+    /** Formato de moneda; NumberFormat no es seguro entre hilos, por eso cada renderizador tiene el suyo */
+    private final NumberFormat formatoMoneda = NumberFormat.getCurrencyInstance(Locale.US);
+
+    /**
+     * @param salida flujo donde se imprime la factura
+     */
+    public RenderizadorFacturaConsola(PrintStream salida) {
+        this.salida = salida;
+    }
+
+    @Override
+    public void renderizar(Factura factura) {
+        salida.println("\n--- FACTURA ---");
+        salida.println("Cliente: " + factura.getNombre());
+        salida.println("Identificación: " + factura.getIdentificacion());
+        salida.println("Monto compra: " + formatoMoneda.format(factura.getMontoCompra()));
+        salida.println("IVA (" + factura.getPorcentajeIva() + "%): " + formatoMoneda.format(factura.getValorIva()));
+        salida.println("Subtotal con IVA: " + formatoMoneda.format(factura.getSubtotalConIva()));
+        salida.println("Descuento (" + factura.getTipoCliente() + "): " + formatoMoneda.format(factura.getDescuento()));
+        salida.println("Total a pagar: " + formatoMoneda.format(factura.getTotalPagar()));
+        salida.println("-----------------\n");
+    }
+
+    @Override
+    public void terminar() {
+        salida.flush();
+    }
+}
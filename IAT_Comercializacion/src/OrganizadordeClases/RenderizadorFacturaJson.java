@@ -0,0 +1,67 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para escribir texto
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escribe las facturas como objetos JSON, con los valores como números sin formato.
+ * Si se usa en un lote (iniciar/terminar), las facturas quedan dentro de un arreglo;
+ * una factura sola se escribe como un objeto.
+ */
+public class RenderizadorFacturaJson implements RenderizadorFactura {
+
+    private final Writer destino;
+
+    /** Texto reutilizable donde se arma cada objeto */
+    private final StringBuilder objeto = new StringBuilder(256);
+
+    /** true si ya se escribió una factura dentro del arreglo (para poner la coma) */
+    private boolean hayAnterior;
+
+    /**
+     * @param destino Writer donde se escriben las facturas (conviene que tenga buffer)
+     */
+    public RenderizadorFacturaJson(Writer destino) {
+        this.destino = destino;
+    }
+
+    @Override
+    public void iniciar() throws IOException {
+        destino.write('[');
+        hayAnterior = false;
+    }
+
+    @Override
+    public void renderizar(Factura f) throws IOException {
+        objeto.setLength(0);
+        if (hayAnterior) {
+            objeto.append(",\n");
+        }
+        objeto.append("{\"identificacion\":");
+        Json.anexarTexto(objeto, f.getIdentificacion());
+        objeto.append(",\"nombre\":");
+        Json.anexarTexto(objeto, f.getNombre());
+        objeto.append(",\"tipoCliente\":");
+        Json.anexarTexto(objeto, f.getTipoCliente());
+        objeto.append(",\"montoCompra\":").append(f.getMontoCompra().toPlainString())
+                .append(",\"iva\":");
+        f.anexarValorIva(objeto);
+        objeto.append(",\"subtotalConIva\":");
+        f.anexarSubtotalConIva(objeto);
+        objeto.append(",\"descuento\":");
+        f.anexarDescuento(objeto);
+        objeto.append(",\"totalPagar\":");
+        f.anexarTotalPagar(objeto);
+        objeto.append('}');
+        destino.append(objeto);
+        hayAnterior = true;
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        destino.write("]\n");
+        destino.flush();
+    }
+}
@@ -0,0 +1,51 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importaciones para escribir texto
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Escribe cada factura como una ficha de texto, igual que la de consola pero con los valores
+ * sin formato de moneda (sin NumberFormat), para archivos grandes.
+ */
+public class RenderizadorFacturaTexto implements RenderizadorFactura {
+
+    private final Writer destino;
+
+    /** Texto reutilizable: cada ficha se arma aquí y se escribe de una vez */
+    private final StringBuilder ficha = new StringBuilder(256);
+
+    /**
+     * @param destino Writer donde se escriben las fichas (conviene que tenga buffer)
+     */
+    public RenderizadorFacturaTexto(Writer destino) {
+        this.destino = destino;
+    }
+
+    @Override
+    public void renderizar(Factura f) throws IOException {
+        ficha.setLength(0);
+        ficha.append("--- FACTURA ---\n")
+                .append("Cliente: ").append(f.getNombre()).append('\n')
+                .append("Identificación: ").append(f.getIdentificacion()).append('\n')
+                .append("Monto compra: ").append(f.getMontoCompra().toPlainString()).append('\n')
+                .append("IVA (");
+        f.anexarPorcentajeIva(ficha);
+        ficha.append("%): ");
+        f.anexarValorIva(ficha);
+        ficha.append("\nSubtotal con IVA: ");
+        f.anexarSubtotalConIva(ficha);
+        ficha.append("\nDescuento (").append(f.getTipoCliente()).append("): ");
+        f.anexarDescuento(ficha);
+        ficha.append("\nTotal a pagar: ");
+        f.anexarTotalPagar(ficha);
+        ficha.append("\n-----------------\n");
+        destino.append(ficha);
+    }
+
+    @Override
+    public void terminar() throws IOException {
+        destino.flush();
+    }
+}
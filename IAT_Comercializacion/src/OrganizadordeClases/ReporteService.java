@@ -13,17 +13,67 @@ import java.io.FileWriter;
 import java.io.IOException;
 // Importa la clase IOException, que representa excepciones relacionadas con operaciones de entrada/salida.
 
+import java.io.Writer;
+// Importa la clase abstracta Writer, destino de los bloques de texto del reporte.
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+// Importa las clases de NIO para escribir bloques de bytes en posiciones exactas del archivo.
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+// Importa el pool fork-join para codificar partes del reporte en paralelo.
+
+import java.util.Iterator;
+// Importa la interfaz Iterator para recorrer los clientes sin tenerlos todos en una lista.
+
 import java.util.List;
 // Importa la interfaz List para manejar colecciones ordenadas de objetos.
 
+import java.util.stream.Stream;
+// Importa la interfaz Stream para aceptar clientes producidos de forma perezosa.
+
 /**
  * Clase ReporteService que contiene métodos para generar reportes de clientes en formato texto y CSV,
  * guardándolos en una carpeta específica.
+ *
+ * Los reportes se escriben en streaming: cada cliente se agrega a un StringBuilder reutilizable
+ * que se vuelca al archivo por bloques, así la memoria usada no depende del número de clientes.
+ * Además de listas, se aceptan Iterator y Stream para no tener que construir la lista completa.
  */
 public class ReporteService {
 
     // Define una constante estática y final para el nombre de la carpeta donde se guardarán los reportes.
-    private static final String CARPETA_REPORTES = "Reportes";
+    // Es visible en el paquete para que el planificador pueda borrar un reporte cancelado a medias.
+    static final String CARPETA_REPORTES = "Reportes";
+
+    // Tamaño del buffer del archivo de salida (1 MB), para escribir en pocas llamadas al sistema.
+    private static final int TAMANO_BUFFER_SALIDA = 1 << 20;
+
+    // Tamaño a partir del cual el bloque de texto acumulado se vuelca al archivo.
+    private static final int TAMANO_BLOQUE = 64 * 1024;
+
+    // Número de filas que codifica cada tarea del CSV paralelo.
+    private static final int FILAS_POR_TAREA = 16_384;
+
+    // Número de tareas por hilo que se codifican antes de escribirlas; limita la memoria usada.
+    private static final int TAREAS_POR_HILO_EN_OLEADA = 4;
+
+    // Cabecera del archivo CSV con los nombres de las columnas.
+    static final String CABECERA_CSV = "Identificacion,Nombre,TipoCliente,MontoCompra,Direccion,Telefono\n";
+
+    // Métricas de duración y errores de cada tipo de reporte (ver Metricas).
+    private static final Metricas.Operacion METRICA_TEXTO = Metricas.operacion("reporte_txt");
+    private static final Metricas.Operacion METRICA_CSV = Metricas.operacion("reporte_csv");
+    private static final Metricas.Operacion METRICA_CSV_PARALELO = Metricas.operacion("reporte_csv_paralelo");
+    private static final Metricas.Operacion METRICA_ANALITICA = Metricas.operacion("reporte_analitica");
+
+    // Cabecera del CSV del análisis: una fila por tipo de cliente y una fila "Todos".
+    static final String CABECERA_ANALITICA_CSV =
+            "TipoCliente,Clientes,MontoTotal,Promedio,Minimo,Maximo,P50,P90,P99,IVA,Descuentos,TotalPagar\n";
 
     /**
      * Método privado y estático que crea la carpeta "Reportes" si no existe.
@@ -54,48 +104,71 @@ public class ReporteService {
      * @return true si el reporte se generó correctamente, false en caso de error.
      */
     public static boolean generarReporteTexto(List<Cliente> clientes, String nombreArchivo) {
+        // Recorre la lista con un iterador; no se copia.
+        return generarReporteTexto(clientes.iterator(), nombreArchivo);
+    }
+
+    /**
+     * Genera un reporte de texto (.txt) a partir de un Stream de clientes, consumiéndolo una sola vez.
+     *
+     * @param clientes clientes a incluir en el reporte, en el orden en que se producen.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteTexto(Stream<Cliente> clientes, String nombreArchivo) {
+        return generarReporteTexto(clientes.iterator(), nombreArchivo);
+    }
+
+    /**
+     * Genera un reporte de texto (.txt) recorriendo los clientes uno a uno.
+     *
+     * @param clientes iterador sobre los clientes a incluir en el reporte.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteTexto(Iterator<Cliente> clientes, String nombreArchivo) {
+        long inicio = METRICA_TEXTO.iniciar();
+        EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+        evento.begin();
+        long registros = 0;
+        boolean correcto = false;
+
+        // Construye la ruta completa del archivo dentro de la carpeta "Reportes",
+        // usando File.separator para compatibilidad multiplataforma.
+        String rutaArchivo = CARPETA_REPORTES + File.separator + nombreArchivo + ".txt";
         try {
             // Llama al método que asegura que la carpeta "Reportes" exista.
             crearCarpetaReportesSiNoExiste();
 
-            // Construye la ruta completa del archivo dentro de la carpeta "Reportes",
-            // usando File.separator para compatibilidad multiplataforma.
-            String rutaArchivo = CARPETA_REPORTES + File.separator + nombreArchivo + ".txt";
-
-            // Usa try-with-resources para abrir un BufferedWriter que escribirá en el archivo.
+            // Usa try-with-resources para abrir el archivo con un buffer grande.
             // Esto garantiza que el recurso se cierre automáticamente al finalizar.
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(rutaArchivo))) {
-                // Escribe el título del reporte seguido de un salto de línea.
-                writer.write("Reporte de Clientes\n");
-                // Escribe una línea separadora y dos saltos de línea para formato.
-                writer.write("===================\n\n");
-
-                // Itera sobre cada cliente en la lista.
-                for (Cliente c : clientes) {
-                    // Escribe la identificación del cliente seguida de un salto de línea.
-                    writer.write("ID: " + c.getIdentificacion() + "\n");
-                    // Escribe el nombre del cliente.
-                    writer.write("Nombre: " + c.getNombre() + "\n");
-                    // Escribe el tipo de cliente.
-                    writer.write("Tipo Cliente: " + c.getTipoCliente() + "\n");
-                    // Escribe el monto de compra del cliente.
-                    writer.write("Monto Compra: " + c.getMontoCompra() + "\n");
-                    // Escribe la dirección del cliente.
-                    writer.write("Dirección: " + c.getDireccion() + "\n");
-                    // Escribe el teléfono del cliente.
-                    writer.write("Teléfono: " + c.getTelefono() + "\n");
-                    // Escribe una línea separadora para distinguir cada cliente.
-                    writer.write("-----------------------------\n");
+            try (Writer writer = new BufferedWriter(new FileWriter(rutaArchivo), TAMANO_BUFFER_SALIDA)) {
+                EscritorPorBloques bloque = new EscritorPorBloques(writer);
+
+                // Escribe el título del reporte y una línea separadora.
+                bloque.texto().append("Reporte de Clientes\n").append("===================\n\n");
+
+                // Agrega cada cliente al bloque y lo vuelca al archivo cuando está lleno.
+                while (clientes.hasNext()) {
+                    anexarClienteTexto(bloque.texto(), clientes.next());
+                    registros++;
+                    bloque.vaciarSiEstaLleno();
                 }
+                bloque.vaciar();
             }
             // Si todo salió bien, retorna true indicando éxito.
+            correcto = true;
             return true;
 
         } catch (IOException e) {
             // En caso de error de entrada/salida, imprime el mensaje de error en la consola de error.
+            METRICA_TEXTO.error();
             System.err.println("Error al generar reporte de texto: " + e.getMessage());
             // Retorna false indicando que hubo un error.
             return false;
+        } finally {
+            METRICA_TEXTO.terminar(inicio);
+            registrarEvento(evento, "TXT", rutaArchivo, registros, correcto);
         }
     }
 
@@ -107,42 +180,390 @@ public class ReporteService {
      * @return true si el reporte se generó correctamente, false en caso de error.
      */
     public static boolean generarReporteCSV(List<Cliente> clientes, String nombreArchivo) {
+        // Recorre la lista con un iterador; no se copia.
+        return generarReporteCSV(clientes.iterator(), nombreArchivo);
+    }
+
+    /**
+     * Genera un reporte CSV (.csv) a partir de un Stream de clientes, consumiéndolo una sola vez.
+     *
+     * @param clientes clientes a incluir en el reporte, en el orden en que se producen.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteCSV(Stream<Cliente> clientes, String nombreArchivo) {
+        return generarReporteCSV(clientes.iterator(), nombreArchivo);
+    }
+
+    /**
+     * Genera un reporte CSV (.csv) recorriendo los clientes uno a uno.
+     *
+     * @param clientes iterador sobre los clientes a incluir en el reporte.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteCSV(Iterator<Cliente> clientes, String nombreArchivo) {
+        long inicio = METRICA_CSV.iniciar();
+        EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+        evento.begin();
+        long registros = 0;
+        boolean correcto = false;
+
+        // Construye la ruta completa del archivo CSV dentro de la carpeta "Reportes".
+        String rutaArchivo = CARPETA_REPORTES + File.separator + nombreArchivo + ".csv";
         try {
             // Asegura que la carpeta "Reportes" exista antes de crear el archivo.
             crearCarpetaReportesSiNoExiste();
 
-            // Construye la ruta completa del archivo CSV dentro de la carpeta "Reportes".
-            String rutaArchivo = CARPETA_REPORTES + File.separator + nombreArchivo + ".csv";
+            // Abre el archivo CSV con un buffer grande usando try-with-resources.
+            try (Writer writer = new BufferedWriter(new FileWriter(rutaArchivo), TAMANO_BUFFER_SALIDA)) {
+                EscritorPorBloques bloque = new EscritorPorBloques(writer);
 
-            // Abre el BufferedWriter para escribir en el archivo CSV con try-with-resources.
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(rutaArchivo))) {
                 // Escribe la cabecera del archivo CSV con los nombres de las columnas separados por comas.
-                writer.write("Identificacion,Nombre,TipoCliente,MontoCompra,Direccion,Telefono\n");
-
-                // Itera sobre cada cliente en la lista.
-                for (Cliente c : clientes) {
-                    // Formatea una línea CSV con los datos del cliente.
-                    // Los campos de texto se colocan entre comillas para evitar problemas con comas internas.
-                    String linea = String.format("\"%s\",\"%s\",\"%s\",%s,\"%s\",\"%s\"\n",
-                            c.getIdentificacion(),
-                            c.getNombre(),
-                            c.getTipoCliente(),
-                            c.getMontoCompra().toString(),
-                            c.getDireccion(),
-                            c.getTelefono());
-
-                    // Escribe la línea formateada en el archivo CSV.
-                    writer.write(linea);
+                bloque.texto().append(CABECERA_CSV);
+
+                // Agrega cada fila al bloque, sin String.format, y lo vuelca cuando está lleno.
+                while (clientes.hasNext()) {
+                    anexarFilaCSV(bloque.texto(), clientes.next());
+                    registros++;
+                    bloque.vaciarSiEstaLleno();
                 }
+                bloque.vaciar();
             }
             // Retorna true si el archivo se generó correctamente.
+            correcto = true;
             return true;
 
         } catch (IOException e) {
             // En caso de error, imprime el mensaje en la consola de error.
+            METRICA_CSV.error();
             System.err.println("Error al generar reporte CSV: " + e.getMessage());
             // Retorna false indicando fallo.
             return false;
+        } finally {
+            METRICA_CSV.terminar(inicio);
+            registrarEvento(evento, "CSV", rutaArchivo, registros, correcto);
+        }
+    }
+
+    /**
+     * Genera el reporte CSV (.csv) usando todos los núcleos del pool común fork-join.
+     *
+     * @param clientes lista de clientes a incluir (se accede por posición, conviene un ArrayList).
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteCSVParalelo(List<Cliente> clientes, String nombreArchivo) {
+        return generarReporteCSVParalelo(clientes, nombreArchivo, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Genera el reporte CSV (.csv) dividiendo los clientes en rangos que se codifican en paralelo.
+     * Cada rango se convierte en su propio arreglo de bytes; luego los arreglos se escriben en orden
+     * en su posición exacta del archivo, de modo que el resultado es idéntico byte a byte al de
+     * {@link #generarReporteCSV(List, String)}. Se trabaja por oleadas para no tener todo el
+     * archivo en memoria a la vez.
+     *
+     * @param clientes lista de clientes a incluir (se accede por posición, conviene un ArrayList).
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @param pool pool fork-join donde se codifican los rangos.
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteCSVParalelo(List<Cliente> clientes, String nombreArchivo, ForkJoinPool pool) {
+        long inicio = METRICA_CSV_PARALELO.iniciar();
+        EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+        evento.begin();
+        boolean correcto = false;
+        String rutaArchivo = CARPETA_REPORTES + File.separator + nombreArchivo + ".csv";
+        try {
+            // Asegura que la carpeta "Reportes" exista antes de crear el archivo.
+            crearCarpetaReportesSiNoExiste();
+
+            // Misma codificación que usa FileWriter, para que los bytes coincidan con el reporte secuencial.
+            Charset codificacion = Charset.defaultCharset();
+            int totalTareas = (clientes.size() + FILAS_POR_TAREA - 1) / FILAS_POR_TAREA;
+            int tareasPorOleada = Math.max(1, pool.getParallelism() * TAREAS_POR_HILO_EN_OLEADA);
+
+            try (FileChannel canal = FileChannel.open(Paths.get(rutaArchivo), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long posicion = escribirEn(canal, CABECERA_CSV.getBytes(codificacion), 0);
+
+                for (int primera = 0; primera < totalTareas; primera += tareasPorOleada) {
+                    // 1. Codificar en paralelo los rangos de esta oleada, cada uno en su arreglo.
+                    byte[][] partes = new byte[Math.min(tareasPorOleada, totalTareas - primera)][];
+                    pool.invoke(new CodificarRangoCSV(clientes, codificacion, partes, primera, 0, partes.length));
+
+                    // 2. Escribir los arreglos en orden, cada uno en su posición del archivo.
+                    for (byte[] parte : partes) {
+                        posicion = escribirEn(canal, parte, posicion);
+                    }
+                }
+                // Descarta restos si el archivo existía y era más largo.
+                canal.truncate(posicion);
+            }
+            correcto = true;
+            return true;
+
+        } catch (IOException e) {
+            // En caso de error, imprime el mensaje en la consola de error.
+            METRICA_CSV_PARALELO.error();
+            System.err.println("Error al generar reporte CSV: " + e.getMessage());
+            return false;
+        } finally {
+            METRICA_CSV_PARALELO.terminar(inicio);
+            registrarEvento(evento, "CSV paralelo", rutaArchivo, correcto ? clientes.size() : 0, correcto);
+        }
+    }
+
+    /**
+     * Genera el reporte de texto (.txt) de un análisis de {@link MotorAnalitica}: estadísticas por
+     * tipo de cliente, totales de facturación y los clientes con mayor monto de compra.
+     *
+     * @param resultado resultado del análisis.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteAnaliticaTexto(MotorAnalitica.Resultado resultado, String nombreArchivo) {
+        return generarReporteAnalitica(resultado, nombreArchivo, false);
+    }
+
+    /**
+     * Genera el reporte CSV (.csv) de un análisis de {@link MotorAnalitica}: una fila por tipo de
+     * cliente y una última fila "Todos" (sin el listado de clientes del top).
+     *
+     * @param resultado resultado del análisis.
+     * @param nombreArchivo nombre base del archivo (sin extensión).
+     * @return true si el reporte se generó correctamente, false en caso de error.
+     */
+    public static boolean generarReporteAnaliticaCSV(MotorAnalitica.Resultado resultado, String nombreArchivo) {
+        return generarReporteAnalitica(resultado, nombreArchivo, true);
+    }
+
+    private static boolean generarReporteAnalitica(MotorAnalitica.Resultado resultado, String nombreArchivo,
+                                                   boolean csv) {
+        long inicio = METRICA_ANALITICA.iniciar();
+        EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+        evento.begin();
+        boolean correcto = false;
+
+        String rutaArchivo = CARPETA_REPORTES + File.separator + nombreArchivo + (csv ? ".csv" : ".txt");
+        try {
+            crearCarpetaReportesSiNoExiste();
+
+            // El análisis ocupa pocas líneas: se arma completo y se escribe de una vez.
+            StringBuilder texto = new StringBuilder(4096);
+            if (csv) {
+                texto.append(CABECERA_ANALITICA_CSV);
+                for (MotorAnalitica.EstadisticasTipo tipo : resultado.getPorTipo()) {
+                    anexarFilaAnaliticaCSV(texto, tipo);
+                }
+                anexarFilaAnaliticaCSV(texto, resultado.getTodos());
+            } else {
+                anexarAnaliticaTexto(texto, resultado);
+            }
+            try (Writer writer = new BufferedWriter(new FileWriter(rutaArchivo))) {
+                writer.append(texto);
+            }
+            correcto = true;
+            return true;
+
+        } catch (IOException e) {
+            METRICA_ANALITICA.error();
+            System.err.println("Error al generar reporte de análisis: " + e.getMessage());
+            return false;
+        } finally {
+            METRICA_ANALITICA.terminar(inicio);
+            registrarEvento(evento, csv ? "Análisis CSV" : "Análisis TXT", rutaArchivo,
+                    resultado.getTodos().getClientes(), correcto);
+        }
+    }
+
+    /**
+     * Agrega al texto el análisis completo tal como aparece en el reporte .txt.
+     */
+    private static void anexarAnaliticaTexto(StringBuilder destino, MotorAnalitica.Resultado resultado) {
+        destino.append("Análisis de Clientes\n").append("====================\n\n");
+        for (MotorAnalitica.EstadisticasTipo tipo : resultado.getPorTipo()) {
+            anexarEstadisticasTexto(destino, tipo);
+        }
+        anexarEstadisticasTexto(destino, resultado.getTodos());
+
+        destino.append("Clientes con mayor monto de compra\n");
+        int puesto = 1;
+        for (Cliente c : resultado.getTop()) {
+            destino.append(puesto++).append(". ").append(c.getIdentificacion())
+                    .append(" - ").append(c.getNombre())
+                    .append(" (").append(c.getTipoCliente()).append("): ")
+                    .append(c.getMontoCompra()).append('\n');
+        }
+        destino.append("\nAnálisis calculado en ").append(resultado.getMilisegundos()).append(" ms\n");
+    }
+
+    private static void anexarEstadisticasTexto(StringBuilder destino, MotorAnalitica.EstadisticasTipo tipo) {
+        destino.append("Tipo Cliente: ").append(tipo.getTipo()).append('\n')
+                .append("Clientes: ").append(tipo.getClientes()).append('\n')
+                .append("Monto Total: ").append(tipo.getMontoTotal()).append('\n')
+                .append("Promedio: ").append(tipo.getPromedio()).append('\n')
+                .append("Mínimo / Máximo: ").append(tipo.getMinimo()).append(" / ").append(tipo.getMaximo()).append('\n')
+                .append("Percentiles 50 / 90 / 99 (aprox.): ").append(tipo.getP50()).append(" / ")
+                .append(tipo.getP90()).append(" / ").append(tipo.getP99()).append('\n')
+                .append("IVA: ").append(tipo.getIvaTotal()).append('\n')
+                .append("Descuentos: ").append(tipo.getDescuentoTotal()).append('\n')
+                .append("Total a Pagar: ").append(tipo.getTotalPagar()).append('\n')
+                .append("-----------------------------\n");
+    }
+
+    private static void anexarFilaAnaliticaCSV(StringBuilder destino, MotorAnalitica.EstadisticasTipo tipo) {
+        destino.append('"').append(tipo.getTipo()).append("\",")
+                .append(tipo.getClientes()).append(',')
+                .append(tipo.getMontoTotal()).append(',')
+                .append(tipo.getPromedio()).append(',')
+                .append(tipo.getMinimo()).append(',')
+                .append(tipo.getMaximo()).append(',')
+                .append(tipo.getP50()).append(',')
+                .append(tipo.getP90()).append(',')
+                .append(tipo.getP99()).append(',')
+                .append(tipo.getIvaTotal()).append(',')
+                .append(tipo.getDescuentoTotal()).append(',')
+                .append(tipo.getTotalPagar()).append('\n');
+    }
+
+    /**
+     * Completa y guarda el evento de JFR de un reporte, si hay una grabación que lo pide.
+     * Los bytes se toman del tamaño final del archivo.
+     */
+    private static void registrarEvento(EventosJfr.EventoReporte evento, String formato, String rutaArchivo,
+                                        long registros, boolean correcto) {
+        if (EventosJfr.debeRegistrar(evento)) {
+            evento.formato = formato;
+            evento.archivo = rutaArchivo;
+            evento.registros = registros;
+            evento.bytes = correcto ? new File(rutaArchivo).length() : 0;
+            evento.correcto = correcto;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Escribe todos los bytes del arreglo a partir de la posición indicada.
+     * @return posición siguiente al último byte escrito
+     */
+    private static long escribirEn(FileChannel canal, byte[] datos, long posicion) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(datos);
+        while (buffer.hasRemaining()) {
+            posicion += canal.write(buffer, posicion);
+        }
+        return posicion;
+    }
+
+    /**
+     * Tarea fork-join que codifica un grupo de rangos de filas del CSV. Se divide en dos mitades
+     * hasta quedar con un solo rango, que se codifica en su propio arreglo de bytes.
+     */
+    private static final class CodificarRangoCSV extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        // La tarea nunca se serializa; solo vive dentro del pool
+        private final transient List<Cliente> clientes;
+        private final transient Charset codificacion;
+        private final byte[][] partes;
+        private final int primeraTarea;
+        private final int desde;
+        private final int hasta;
+
+        CodificarRangoCSV(List<Cliente> clientes, Charset codificacion, byte[][] partes,
+                          int primeraTarea, int desde, int hasta) {
+            this.clientes = clientes;
+            this.codificacion = codificacion;
+            this.partes = partes;
+            this.primeraTarea = primeraTarea;
+            this.desde = desde;
+            this.hasta = hasta;
+        }
+
+        @Override
+        protected void compute() {
+            if (hasta - desde > 1) {
+                int medio = (desde + hasta) >>> 1;
+                invokeAll(new CodificarRangoCSV(clientes, codificacion, partes, primeraTarea, desde, medio),
+                        new CodificarRangoCSV(clientes, codificacion, partes, primeraTarea, medio, hasta));
+                return;
+            }
+            int primeraFila = (primeraTarea + desde) * FILAS_POR_TAREA;
+            int ultimaFila = Math.min(primeraFila + FILAS_POR_TAREA, clientes.size());
+            StringBuilder texto = new StringBuilder((ultimaFila - primeraFila) * 96);
+            for (int i = primeraFila; i < ultimaFila; i++) {
+                anexarFilaCSV(texto, clientes.get(i));
+            }
+            partes[desde] = texto.toString().getBytes(codificacion);
+        }
+    }
+
+    /**
+     * Agrega al bloque la ficha de un cliente tal como aparece en el reporte de texto.
+     *
+     * @param destino bloque de texto donde se agrega la ficha.
+     * @param c cliente a escribir.
+     */
+    static void anexarClienteTexto(StringBuilder destino, Cliente c) {
+        destino.append("ID: ").append(c.getIdentificacion()).append('\n')
+                .append("Nombre: ").append(c.getNombre()).append('\n')
+                .append("Tipo Cliente: ").append(c.getTipoCliente()).append('\n')
+                .append("Monto Compra: ").append(c.getMontoCompra()).append('\n')
+                .append("Dirección: ").append(c.getDireccion()).append('\n')
+                .append("Teléfono: ").append(c.getTelefono()).append('\n')
+                // Línea separadora para distinguir cada cliente.
+                .append("-----------------------------\n");
+    }
+
+    /**
+     * Agrega al bloque una fila CSV con los datos del cliente.
+     * Los campos de texto se colocan entre comillas para evitar problemas con comas internas.
+     *
+     * @param destino bloque de texto donde se agrega la fila.
+     * @param c cliente a escribir.
+     */
+    static void anexarFilaCSV(StringBuilder destino, Cliente c) {
+        destino.append('"').append(c.getIdentificacion())
+                .append("\",\"").append(c.getNombre())
+                .append("\",\"").append(c.getTipoCliente())
+                .append("\",").append(c.getMontoCompra())
+                .append(",\"").append(c.getDireccion())
+                .append("\",\"").append(c.getTelefono())
+                .append("\"\n");
+    }
+
+    /**
+     * Acumula texto en un StringBuilder reutilizable y lo vuelca al Writer por bloques,
+     * copiándolo a un arreglo de caracteres también reutilizable (sin crear un String por bloque).
+     */
+    private static final class EscritorPorBloques {
+        private final Writer destino;
+        private final StringBuilder texto = new StringBuilder(TAMANO_BLOQUE + 1024);
+        private char[] caracteres = new char[TAMANO_BLOQUE + 1024];
+
+        EscritorPorBloques(Writer destino) {
+            this.destino = destino;
+        }
+
+        StringBuilder texto() {
+            return texto;
+        }
+
+        void vaciarSiEstaLleno() throws IOException {
+            if (texto.length() >= TAMANO_BLOQUE) {
+                vaciar();
+            }
+        }
+
+        void vaciar() throws IOException {
+            int longitud = texto.length();
+            if (caracteres.length < longitud) {
+                caracteres = new char[longitud];
+            }
+            texto.getChars(0, longitud, caracteres, 0);
+            destino.write(caracteres, 0, longitud);
+            texto.setLength(0);
         }
     }
 }
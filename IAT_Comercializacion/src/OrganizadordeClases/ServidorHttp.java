@@ -0,0 +1,524 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Servidor HTTP incluido en el JDK
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+// Importaciones de entrada/salida y red
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+
+// Importaciones de colecciones y concurrencia
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * API HTTP/JSON para que las terminales de venta usen el CRUD de clientes y la facturación.
+ *
+ * Usa el servidor HTTP del JDK (com.sun.net.httpserver) y atiende cada solicitud en su propio
+ * hilo virtual, así una solicitud que espera el disco no ocupa un hilo del sistema operativo.
+ * ClienteService y FacturaService ya son seguros para varios hilos, así que el servidor no
+ * agrega bloqueos propios.
+ *
+ * Rutas:
+ * <pre>
+ * GET    /clientes              Lista de clientes (filtros opcionales ?tipo=Mayorista y ?nombre=prefijo)
+ * POST   /clientes              Crea un cliente (409 si el NIT ya existe)
+ * GET    /clientes/{id}         Un cliente
+ * PUT    /clientes/{id}         Cambia los campos enviados; los demás se conservan
+ * DELETE /clientes/{id}         Elimina un cliente
+ * GET    /facturas              Factura de todos los clientes (arreglo JSON enviado a medida que se calcula)
+ * GET    /facturas/{id}         Factura de un cliente
+ * GET    /metricas              Latencia de cada ruta: solicitudes, promedio, p50, p90, p99 y máximo
+ *                               (?formato=prometheus: todas las operaciones de {@link Metricas} en texto)
+ * </pre>
+ * Un cliente en JSON:
+ * {"identificacion":"900123456","nombre":"...","tipo":"Mayorista","montoCompra":1500.75,"direccion":"...","telefono":"..."}
+ * Los errores responden {"error":"motivo"} con el código HTTP correspondiente.
+ */
+public class ServidorHttp {
+
+    /** Puerto que se usa si no se indica otro */
+    public static final int PUERTO_PREDETERMINADO = 8080;
+
+    // Tamaño máximo del cuerpo de una solicitud: un cliente ocupa unos cientos de bytes
+    private static final int MAX_CUERPO = 64 * 1024;
+
+    private static final String TIPO_JSON = "application/json; charset=utf-8";
+
+    private final ClienteService clienteService;
+    private final FacturaService facturaService;
+    private final FacturacionLote facturacionLote;
+
+    // Latencias por ruta ("GET /clientes/{id}"), medidas desde que llega la solicitud hasta que se responde
+    private final ConcurrentHashMap<String, HistogramaLatencia> latencias = new ConcurrentHashMap<>();
+
+    private HttpServer servidor;
+    private ExecutorService hilos;
+
+    /**
+     * @param clienteService Servicio de clientes que atiende el CRUD
+     * @param facturaService Servicio que calcula las facturas
+     */
+    public ServidorHttp(ClienteService clienteService, FacturaService facturaService) {
+        this.clienteService = clienteService;
+        this.facturaService = facturaService;
+        this.facturacionLote = new FacturacionLote(facturaService);
+    }
+
+    /**
+     * Inicia el servidor solo para este equipo (127.0.0.1).
+     * @param puerto Puerto; 0 para usar cualquiera libre (ver {@link #getPuerto()})
+     * @throws IOException Si el puerto no está disponible
+     */
+    public void iniciar(int puerto) throws IOException {
+        iniciar(new InetSocketAddress(InetAddress.getLoopbackAddress(), puerto));
+    }
+
+    /**
+     * Inicia el servidor en una dirección concreta (por ejemplo, la de la red de las terminales).
+     * @param direccion Dirección y puerto donde escuchar
+     * @throws IOException Si la dirección no está disponible
+     */
+    public synchronized void iniciar(InetSocketAddress direccion) throws IOException {
+        if (servidor != null) {
+            throw new IllegalStateException("El servidor ya está iniciado");
+        }
+        // El servidor del JDK escribe encabezados y cuerpo por separado; con el algoritmo de Nagle
+        // activo cada respuesta espera el ACK retrasado del cliente (unos 40 ms). La propiedad se
+        // lee una sola vez, al crear el primer servidor, y se respeta si ya viene configurada.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+        servidor = HttpServer.create(direccion, 0);
+        hilos = Executors.newVirtualThreadPerTaskExecutor();
+        servidor.setExecutor(hilos);
+        servidor.createContext("/clientes", medir(this::atenderClientes));
+        servidor.createContext("/facturas", medir(this::atenderFacturas));
+        servidor.createContext("/metricas", medir(this::atenderMetricas));
+        servidor.start();
+    }
+
+    /**
+     * Deja de aceptar solicitudes y espera a que terminen las que están en curso.
+     * @param segundosEspera Tiempo máximo de espera
+     */
+    public synchronized void detener(int segundosEspera) {
+        if (servidor == null) {
+            return;
+        }
+        servidor.stop(segundosEspera);
+        hilos.shutdown();
+        try {
+            hilos.awaitTermination(segundosEspera, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        servidor = null;
+    }
+
+    /**
+     * @return Puerto en el que escucha el servidor
+     */
+    public synchronized int getPuerto() {
+        if (servidor == null) {
+            throw new IllegalStateException("El servidor no está iniciado");
+        }
+        return servidor.getAddress().getPort();
+    }
+
+    /**
+     * @return Latencias medidas por ruta (se siguen actualizando mientras el servidor atiende)
+     */
+    public Map<String, HistogramaLatencia> getLatencias() {
+        return Collections.unmodifiableMap(latencias);
+    }
+
+    // ============ CLIENTES ============ //
+
+    private void atenderClientes(HttpExchange intercambio) throws IOException {
+        String id = subruta(intercambio);
+        switch (intercambio.getRequestMethod()) {
+            case "GET" -> {
+                if (id == null) {
+                    listarClientes(intercambio);
+                } else {
+                    responder(intercambio, 200, anexarCliente(new StringBuilder(256), buscar(id)));
+                }
+            }
+            case "POST" -> {
+                if (id != null) {
+                    throw new ErrorHttp(405, "Use POST /clientes para crear un cliente");
+                }
+                Map<String, String> campos = leerCuerpo(intercambio);
+                Cliente cliente = construirCliente(campos, nitValido(campos.get("identificacion")), null);
+                if (!clienteService.agregarClienteNuevo(cliente)) {
+                    throw new ErrorHttp(409, "Ya existe un cliente con el NIT " + cliente.getIdentificacion());
+                }
+                intercambio.getResponseHeaders().set("Location", "/clientes/" + cliente.getIdentificacion());
+                responder(intercambio, 201, anexarCliente(new StringBuilder(256), cliente));
+            }
+            case "PUT" -> {
+                String nit = nitValido(requerirId(id));
+                Map<String, String> campos = leerCuerpo(intercambio);
+                Cliente actualizado = clienteService.actualizarCliente(nit, actual -> construirCliente(campos, nit, actual));
+                if (actualizado == null) {
+                    throw new ErrorHttp(404, "No existe un cliente con el NIT " + nit);
+                }
+                responder(intercambio, 200, anexarCliente(new StringBuilder(256), actualizado));
+            }
+            case "DELETE" -> {
+                String nit = nitValido(requerirId(id));
+                if (!clienteService.eliminarCliente(nit)) {
+                    throw new ErrorHttp(404, "No existe un cliente con el NIT " + nit);
+                }
+                intercambio.sendResponseHeaders(204, -1);
+            }
+            default -> throw new ErrorHttp(405, "Método no permitido");
+        }
+    }
+
+    /**
+     * Envía la lista a medida que se recorre, sin armar toda la respuesta en memoria.
+     */
+    private void listarClientes(HttpExchange intercambio) throws IOException {
+        Map<String, String> parametros = parametros(intercambio);
+        String tipo = parametros.get("tipo");
+        String nombre = parametros.get("nombre");
+        Iterator<Cliente> clientes;
+        if (nombre != null) {
+            List<Cliente> encontrados = clienteService.buscarPorPrefijoNombre(nombre);
+            if (tipo != null) {
+                encontrados.removeIf(c -> !c.getTipoCliente().equalsIgnoreCase(tipo));
+            }
+            clientes = encontrados.iterator();
+        } else if (tipo != null) {
+            clientes = clienteService.buscarPorTipo(normalizarTipo(tipo)).iterator();
+        } else {
+            clientes = clienteService.iterarClientes();
+        }
+
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        intercambio.sendResponseHeaders(200, 0);
+        try (Writer salida = new BufferedWriter(
+                new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024)) {
+            StringBuilder objeto = new StringBuilder(256);
+            salida.write('[');
+            boolean primero = true;
+            while (clientes.hasNext()) {
+                objeto.setLength(0);
+                if (!primero) {
+                    objeto.append(",\n");
+                }
+                anexarCliente(objeto, clientes.next());
+                salida.append(objeto);
+                primero = false;
+            }
+            salida.write("]\n");
+        }
+    }
+
+    private Cliente buscar(String id) {
+        String nit = nitValido(id);
+        Cliente cliente = clienteService.buscarPorId(nit);
+        if (cliente == null) {
+            throw new ErrorHttp(404, "No existe un cliente con el NIT " + nit);
+        }
+        return cliente;
+    }
+
+    /**
+     * Arma un cliente con los campos recibidos. Al actualizar, los campos que no se envían
+     * conservan el valor actual; al crear, el nombre y el monto son obligatorios.
+     */
+    private static Cliente construirCliente(Map<String, String> campos, String nit, Cliente actual) {
+        String nombre = campos.getOrDefault("nombre", actual == null ? null : actual.getNombre());
+        if (nombre == null) {
+            throw new ErrorHttp(400, "Falta el campo nombre");
+        }
+
+        BigDecimal monto;
+        String textoMonto = campos.get("montoCompra");
+        if (textoMonto == null) {
+            if (actual == null) {
+                throw new ErrorHttp(400, "Falta el campo montoCompra");
+            }
+            monto = actual.getMontoCompra();
+        } else {
+            try {
+                // Igual que en la consola: se redondea a 2 decimales y debe ser mayor que cero
+                monto = Dinero.redondearExterno(new BigDecimal(textoMonto));
+            } catch (NumberFormatException e) {
+                throw new ErrorHttp(400, "montoCompra no es un número válido");
+            }
+            if (monto == null) {
+                throw new ErrorHttp(400, "montoCompra está fuera del rango permitido");
+            }
+            if (monto.signum() <= 0) {
+                throw new ErrorHttp(400, "El monto debe ser mayor que cero");
+            }
+        }
+
+        String direccion = campos.getOrDefault("direccion", actual == null ? "" : actual.getDireccion());
+        String telefono = campos.getOrDefault("telefono", actual == null ? "" : actual.getTelefono());
+        String tipo = campos.containsKey("tipo") ? normalizarTipo(campos.get("tipo"))
+                : actual != null ? actual.getTipoCliente() : "Minorista";
+
+        return tipo.equals("Mayorista")
+                ? new ClienteMayorista(nit, nombre, monto, direccion, telefono)
+                : new ClienteMinorista(nit, nombre, monto, direccion, telefono);
+    }
+
+    private static String normalizarTipo(String tipo) {
+        if ("mayorista".equalsIgnoreCase(tipo)) {
+            return "Mayorista";
+        }
+        if ("minorista".equalsIgnoreCase(tipo)) {
+            return "Minorista";
+        }
+        throw new ErrorHttp(400, "El tipo debe ser Mayorista o Minorista");
+    }
+
+    /**
+     * Valida el NIT con las mismas reglas que la consola y lo devuelve sin dígito de verificación.
+     */
+    private static String nitValido(String texto) {
+        if (texto == null) {
+            throw new ErrorHttp(400, "Falta el campo identificacion");
+        }
+        String error = ValidadorNit.error(texto);
+        if (error != null) {
+            throw new ErrorHttp(400, error);
+        }
+        int guion = texto.indexOf('-');
+        return guion >= 0 ? texto.substring(0, guion) : texto;
+    }
+
+    private static StringBuilder anexarCliente(StringBuilder destino, Cliente c) {
+        destino.append("{\"identificacion\":");
+        Json.anexarTexto(destino, c.getIdentificacion());
+        destino.append(",\"nombre\":");
+        Json.anexarTexto(destino, c.getNombre());
+        destino.append(",\"tipo\":");
+        Json.anexarTexto(destino, c.getTipoCliente());
+        destino.append(",\"montoCompra\":").append(c.getMontoCompra().toPlainString())
+                .append(",\"direccion\":");
+        Json.anexarTexto(destino, c.getDireccion());
+        destino.append(",\"telefono\":");
+        Json.anexarTexto(destino, c.getTelefono());
+        return destino.append('}');
+    }
+
+    // ============ FACTURAS ============ //
+
+    private void atenderFacturas(HttpExchange intercambio) throws IOException {
+        if (!intercambio.getRequestMethod().equals("GET")) {
+            throw new ErrorHttp(405, "Método no permitido");
+        }
+        String id = subruta(intercambio);
+        if (id != null) {
+            StringWriter texto = new StringWriter(256);
+            facturaService.generarFactura(buscar(id), new RenderizadorFacturaJson(texto));
+            responder(intercambio, 200, texto.getBuffer());
+            return;
+        }
+
+        // Todas las facturas: se calculan en paralelo y se envían a medida que quedan listas
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        intercambio.sendResponseHeaders(200, 0);
+        try (Writer salida = new BufferedWriter(
+                new OutputStreamWriter(intercambio.getResponseBody(), StandardCharsets.UTF_8), 64 * 1024)) {
+            facturacionLote.facturar(clienteService.iterarClientes(), new RenderizadorFacturaJson(salida));
+        }
+    }
+
+    // ============ MÉTRICAS ============ //
+
+    private void atenderMetricas(HttpExchange intercambio) throws IOException {
+        if (!intercambio.getRequestMethod().equals("GET")) {
+            throw new ErrorHttp(405, "Método no permitido");
+        }
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        if ("formato=prometheus".equals(consulta)) {
+            byte[] bytes = Metricas.textoPrometheus().getBytes(StandardCharsets.UTF_8);
+            intercambio.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            intercambio.sendResponseHeaders(200, bytes.length);
+            try (OutputStream salida = intercambio.getResponseBody()) {
+                salida.write(bytes);
+            }
+            return;
+        }
+        StringBuilder json = new StringBuilder(512).append('{');
+        boolean primero = true;
+        for (Map.Entry<String, HistogramaLatencia> ruta : new TreeMap<>(latencias).entrySet()) {
+            HistogramaLatencia h = ruta.getValue();
+            if (!primero) {
+                json.append(',');
+            }
+            Json.anexarTexto(json, ruta.getKey());
+            json.append(String.format(Locale.US,
+                    ":{\"solicitudes\":%d,\"promedioMs\":%.3f,\"p50Ms\":%.3f,\"p90Ms\":%.3f,\"p99Ms\":%.3f,\"maxMs\":%.3f}",
+                    h.getTotal(), h.getPromedioNanos() / 1e6, h.percentilNanos(50) / 1e6,
+                    h.percentilNanos(90) / 1e6, h.percentilNanos(99) / 1e6, h.getMaximoNanos() / 1e6));
+            primero = false;
+        }
+        responder(intercambio, 200, json.append("}\n"));
+    }
+
+    // ============ INFRAESTRUCTURA ============ //
+
+    /**
+     * Atiende una ruta, convierte los errores en respuestas JSON y mide la latencia.
+     */
+    private HttpHandler medir(Manejador manejador) {
+        return intercambio -> {
+            long inicio = System.nanoTime();
+            try {
+                manejador.atender(intercambio);
+            } catch (ErrorHttp e) {
+                responderError(intercambio, e.estado, e.getMessage());
+            } catch (IllegalArgumentException e) {
+                responderError(intercambio, 400, e.getMessage());
+            } catch (UncheckedIOException e) {
+                responderError(intercambio, 500, "No se pudieron guardar los datos: " + e.getMessage());
+            } catch (IOException e) {
+                // El cliente cerró la conexión; no hay a quién responder
+            } catch (RuntimeException e) {
+                responderError(intercambio, 500, "Error interno: " + e);
+            } finally {
+                intercambio.close();
+                latencias.computeIfAbsent(nombreRuta(intercambio), r -> new HistogramaLatencia())
+                        .registrar(System.nanoTime() - inicio);
+            }
+        };
+    }
+
+    /**
+     * Nombre con el que se agrupan las latencias: método y ruta con {id} en lugar del NIT.
+     */
+    private static String nombreRuta(HttpExchange intercambio) {
+        String metodo = intercambio.getRequestMethod();
+        if (!metodo.equals("GET") && !metodo.equals("POST") && !metodo.equals("PUT") && !metodo.equals("DELETE")) {
+            metodo = "OTRO";
+        }
+        String contexto = intercambio.getHttpContext().getPath();
+        String ruta = intercambio.getRequestURI().getPath();
+        return metodo + " " + contexto + (ruta.length() > contexto.length() + 1 ? "/{id}" : "");
+    }
+
+    /**
+     * @return Lo que sigue a la ruta base ("/clientes/123" da "123"), o null si no hay nada
+     */
+    private static String subruta(HttpExchange intercambio) {
+        String ruta = intercambio.getRequestURI().getPath();
+        String contexto = intercambio.getHttpContext().getPath();
+        if (ruta.length() > contexto.length() && ruta.charAt(contexto.length()) != '/') {
+            // El servidor asocia rutas por prefijo: "/clientesX" también llega aquí
+            throw new ErrorHttp(404, "Ruta no encontrada: " + ruta);
+        }
+        if (ruta.length() <= contexto.length() + 1) {
+            return null;
+        }
+        String resto = ruta.substring(contexto.length() + 1);
+        if (resto.indexOf('/') >= 0) {
+            throw new ErrorHttp(404, "Ruta no encontrada: " + ruta);
+        }
+        return resto;
+    }
+
+    private static String requerirId(String id) {
+        if (id == null) {
+            throw new ErrorHttp(405, "Indique el NIT en la ruta: /clientes/{id}");
+        }
+        return id;
+    }
+
+    private static Map<String, String> parametros(HttpExchange intercambio) {
+        String consulta = intercambio.getRequestURI().getRawQuery();
+        Map<String, String> parametros = new HashMap<>();
+        if (consulta == null || consulta.isEmpty()) {
+            return parametros;
+        }
+        for (String par : consulta.split("&")) {
+            int igual = par.indexOf('=');
+            String clave = igual < 0 ? par : par.substring(0, igual);
+            String valor = igual < 0 ? "" : par.substring(igual + 1);
+            parametros.put(URLDecoder.decode(clave, StandardCharsets.UTF_8), URLDecoder.decode(valor, StandardCharsets.UTF_8));
+        }
+        return parametros;
+    }
+
+    private static Map<String, String> leerCuerpo(HttpExchange intercambio) throws IOException {
+        byte[] cuerpo;
+        try (InputStream entrada = intercambio.getRequestBody()) {
+            cuerpo = entrada.readNBytes(MAX_CUERPO + 1);
+        }
+        if (cuerpo.length > MAX_CUERPO) {
+            throw new ErrorHttp(413, "El cuerpo supera los " + MAX_CUERPO + " bytes");
+        }
+        return Json.leerObjeto(new String(cuerpo, StandardCharsets.UTF_8));
+    }
+
+    private static void responder(HttpExchange intercambio, int estado, CharSequence json) throws IOException {
+        byte[] bytes = json.toString().getBytes(StandardCharsets.UTF_8);
+        intercambio.getResponseHeaders().set("Content-Type", TIPO_JSON);
+        intercambio.sendResponseHeaders(estado, bytes.length);
+        try (OutputStream salida = intercambio.getResponseBody()) {
+            salida.write(bytes);
+        }
+    }
+
+    private static void responderError(HttpExchange intercambio, int estado, String mensaje) {
+        StringBuilder json = new StringBuilder(128).append("{\"error\":");
+        Json.anexarTexto(json, mensaje).append("}\n");
+        try {
+            responder(intercambio, estado, json);
+        } catch (IOException e) {
+            // La respuesta ya había empezado o el cliente se desconectó
+        }
+    }
+
+    /**
+     * Código de una ruta; puede lanzar ErrorHttp para responder un error.
+     */
+    @FunctionalInterface
+    private interface Manejador {
+        void atender(HttpExchange intercambio) throws IOException;
+    }
+
+    /**
+     * Error que se responde al cliente con un código HTTP y un mensaje.
+     */
+    private static final class ErrorHttp extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int estado;
+
+        ErrorHttp(int estado, String mensaje) {
+            super(mensaje);
+            this.estado = estado;
+        }
+    }
+}
@@ -0,0 +1,470 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importación de BigDecimal para reconstruir los montos de compra
+import java.math.BigDecimal;
+
+// Importaciones de colecciones y concurrencia
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Tabla de clientes en memoria organizada por columnas, pensada para millones de clientes.
+ *
+ * Un objeto Cliente ocupa unos 300 bytes: su cabecera, cinco referencias, un BigDecimal y cuatro
+ * Strings con sus propios arreglos. Esta tabla guarda cada dato en un arreglo primitivo (una
+ * columna) y cada cliente es una fila:
+ * - NIT como long y monto de compra en centavos como long (ver {@link Dinero})
+ * - tipo de cliente y escala del monto empacados en un byte
+ * - nombre, dirección y teléfono como números de un {@link PoolTextos}, donde cada texto
+ *   distinto se guarda una sola vez en UTF-8
+ * Así un cliente ocupa alrededor de 40 bytes más los caracteres de los textos que no se repiten,
+ * unas 3 a 5 veces menos memoria que la lista de objetos.
+ *
+ * Los clientes se consultan con {@link #buscarPorId(String)}, {@link #obtener(int)} o recorriendo
+ * la tabla: en cada consulta se arma un ClienteMinorista o ClienteMayorista con los datos de la
+ * fila. Ese objeto es una copia de corta vida (el recolector lo libera casi sin costo); cambiarlo
+ * no cambia la tabla, para eso se vuelve a guardar con {@link #guardar(Cliente)}. Los recorridos
+ * que solo necesitan números (por ejemplo, sumar montos) pueden leer las columnas directamente
+ * sin crear ningún objeto.
+ *
+ * Al eliminar un cliente, el último ocupa su fila, así que el orden de las filas no es el de
+ * inserción. Es segura entre hilos: las escrituras se excluyen entre sí y las lecturas pueden ir
+ * en paralelo.
+ */
+public class TablaClientesColumnar implements Iterable<Cliente> {
+
+    // Bit del byte de tipo que marca un cliente mayorista
+    private static final byte BIT_MAYORISTA = 1;
+
+    // Bits 1 y 2 del byte de tipo: número de decimales con que se registró el monto (0, 1 o 2)
+    private static final int DESPLAZAMIENTO_ESCALA = 1;
+
+    // Divisores para pasar de centavos a la escala original del monto
+    private static final long[] DIVISOR_ESCALA = {100, 10, 1};
+
+    // Factor de carga máximo del índice por NIT antes de duplicarlo
+    private static final float FACTOR_CARGA = 0.7f;
+
+    // Columnas; la fila i de cada arreglo corresponde al mismo cliente
+    private long[] nits;
+    private long[] centavos;
+    private byte[] tipos;
+    private int[] nombres;
+    private int[] direcciones;
+    private int[] telefonos;
+    private int filas;
+
+    // Índice NIT -> fila: cada casilla guarda fila + 1 (0 = vacía). A diferencia de IndiceNit no
+    // repite el NIT (se compara con la columna nits), así ocupa 4 bytes por casilla en lugar de 12.
+    private int[] casillas;
+
+    private PoolTextos textos;
+
+    // Casos poco comunes que no caben en las columnas, por NIT: montos con más de 2 decimales o
+    // demasiado grandes, e identificaciones que no se escriben igual que su NIT (ceros a la izquierda)
+    private final Map<Long, BigDecimal> montosEspeciales = new HashMap<>();
+    private final Map<Long, String> identificacionesEspeciales = new HashMap<>();
+
+    private final StampedLock candado = new StampedLock();
+
+    /**
+     * Crea una tabla vacía.
+     */
+    public TablaClientesColumnar() {
+        this(16);
+    }
+
+    /**
+     * Crea una tabla con espacio para el número de clientes esperado sin redimensionar.
+     * @param capacidadEsperada Número de clientes que se espera guardar
+     */
+    public TablaClientesColumnar(int capacidadEsperada) {
+        int capacidad = Math.max(16, capacidadEsperada);
+        nits = new long[capacidad];
+        centavos = new long[capacidad];
+        tipos = new byte[capacidad];
+        nombres = new int[capacidad];
+        direcciones = new int[capacidad];
+        telefonos = new int[capacidad];
+        casillas = new int[capacidadIndice(capacidad)];
+        // Nombres casi únicos; direcciones y teléfonos se repiten bastante
+        textos = new PoolTextos(capacidad);
+    }
+
+    /**
+     * Crea una tabla con todos los clientes indicados (por ejemplo, los de
+     * {@link ClienteService#instantaneaClientes()}).
+     * @param clientes Clientes a copiar
+     * @return Tabla nueva con los clientes
+     */
+    public static TablaClientesColumnar de(Collection<? extends Cliente> clientes) {
+        TablaClientesColumnar tabla = new TablaClientesColumnar(clientes.size());
+        for (Cliente cliente : clientes) {
+            tabla.guardar(cliente);
+        }
+        tabla.textos.recortar();
+        return tabla;
+    }
+
+    // ============ ESCRITURA ============ //
+
+    /**
+     * Agrega un cliente, o reemplaza los datos del que tenga el mismo NIT.
+     * @param cliente Cliente minorista o mayorista
+     * @throws IllegalArgumentException si la identificación no es un NIT o el tipo de cliente no se
+     *         puede guardar en columnas
+     */
+    public void guardar(Cliente cliente) {
+        long nit = ClienteService.nitComoLong(cliente.getIdentificacion());
+        if (nit <= 0) {
+            throw new IllegalArgumentException("Identificación no válida como NIT: " + cliente.getIdentificacion());
+        }
+        if (!(cliente instanceof ClienteMinorista) && !(cliente instanceof ClienteMayorista)) {
+            throw new IllegalArgumentException("La tabla por columnas solo guarda clientes minoristas y mayoristas: "
+                    + cliente.getClass().getSimpleName());
+        }
+
+        long sello = candado.writeLock();
+        try {
+            int fila = buscarFila(nit);
+            if (fila < 0) {
+                if (filas == nits.length) {
+                    crecer();
+                }
+                fila = filas++;
+                nits[fila] = nit;
+                indexar(fila);
+            }
+            nombres[fila] = textos.agregar(cliente.getNombre());
+            direcciones[fila] = textos.agregar(cliente.getDireccion());
+            telefonos[fila] = textos.agregar(cliente.getTelefono());
+
+            byte tipo = cliente instanceof ClienteMayorista ? BIT_MAYORISTA : 0;
+            long monto = cliente.getMontoCentavos();
+            if (monto == Dinero.FUERA_DE_RANGO) {
+                montosEspeciales.put(nit, cliente.getMontoCompra());
+                monto = 0;
+            } else {
+                montosEspeciales.remove(nit);
+                tipo |= (byte) (cliente.getMontoCompra().scale() << DESPLAZAMIENTO_ESCALA);
+            }
+            centavos[fila] = monto;
+            tipos[fila] = tipo;
+
+            if (Long.toString(nit).equals(cliente.getIdentificacion())) {
+                identificacionesEspeciales.remove(nit);
+            } else {
+                identificacionesEspeciales.put(nit, cliente.getIdentificacion());
+            }
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Elimina un cliente. La última fila pasa a ocupar su lugar.
+     * @param id Identificación del cliente
+     * @return true si el cliente existía
+     */
+    public boolean eliminar(String id) {
+        long nit = ClienteService.nitComoLong(id);
+        if (nit <= 0) {
+            return false;
+        }
+        long sello = candado.writeLock();
+        try {
+            int fila = desindexar(nit);
+            if (fila < 0) {
+                return false;
+            }
+            int ultima = --filas;
+            if (fila != ultima) {
+                desindexar(nits[ultima]);
+                nits[fila] = nits[ultima];
+                centavos[fila] = centavos[ultima];
+                tipos[fila] = tipos[ultima];
+                nombres[fila] = nombres[ultima];
+                direcciones[fila] = direcciones[ultima];
+                telefonos[fila] = telefonos[ultima];
+                indexar(fila);
+            }
+            montosEspeciales.remove(nit);
+            identificacionesEspeciales.remove(nit);
+            return true;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    /**
+     * Reconstruye el pool de textos solo con los que usan los clientes actuales. Conviene llamarlo
+     * después de muchas eliminaciones o cambios de nombre, dirección o teléfono.
+     */
+    public void compactarTextos() {
+        long sello = candado.writeLock();
+        try {
+            PoolTextos nuevo = new PoolTextos(Math.max(16, textos.cantidad()));
+            for (int i = 0; i < filas; i++) {
+                nombres[i] = nuevo.agregar(textos.texto(nombres[i]));
+                direcciones[i] = nuevo.agregar(textos.texto(direcciones[i]));
+                telefonos[i] = nuevo.agregar(textos.texto(telefonos[i]));
+            }
+            nuevo.recortar();
+            textos = nuevo;
+        } finally {
+            candado.unlockWrite(sello);
+        }
+    }
+
+    // ============ CONSULTAS ============ //
+
+    /**
+     * Busca un cliente por su identificación.
+     * @param id Identificación del cliente
+     * @return Cliente armado con los datos de su fila, o null si no existe
+     */
+    public Cliente buscarPorId(String id) {
+        long nit = ClienteService.nitComoLong(id);
+        if (nit <= 0) {
+            return null;
+        }
+        long sello = candado.readLock();
+        try {
+            int fila = buscarFila(nit);
+            return fila < 0 ? null : armar(fila);
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * @param fila Fila entre 0 y {@link #tamano()} - 1
+     * @return Cliente armado con los datos de la fila
+     */
+    public Cliente obtener(int fila) {
+        long sello = candado.readLock();
+        try {
+            if (fila < 0 || fila >= filas) {
+                throw new IndexOutOfBoundsException("Fila " + fila + " de " + filas);
+            }
+            return armar(fila);
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * @return Número de clientes guardados
+     */
+    public int tamano() {
+        long sello = candado.readLock();
+        try {
+            return filas;
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Suma el monto de compra de todos los clientes recorriendo solo la columna de montos.
+     * @return Total exacto; los montos que no caben en centavos se suman aparte con BigDecimal
+     */
+    public BigDecimal totalMontoCompra() {
+        long sello = candado.readLock();
+        try {
+            long total = 0;
+            BigDecimal desbordado = BigDecimal.ZERO;
+            for (int i = 0; i < filas; i++) {
+                long suma = Dinero.sumar(total, centavos[i]);
+                if (suma == Dinero.FUERA_DE_RANGO) {
+                    desbordado = desbordado.add(Dinero.deCentavos(total));
+                    total = centavos[i];
+                } else {
+                    total = suma;
+                }
+            }
+            for (BigDecimal especial : montosEspeciales.values()) {
+                desbordado = desbordado.add(especial);
+            }
+            return desbordado.add(Dinero.deCentavos(total));
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Memoria aproximada que ocupan las columnas, el índice y el pool de textos (sin contar los
+     * casos especiales, que son pocos).
+     * @return Bytes reservados
+     */
+    public long bytesReservados() {
+        long sello = candado.readLock();
+        try {
+            long porFila = 8 + 8 + 1 + 4 + 4 + 4;
+            return porFila * nits.length + 4L * casillas.length + textos.bytesReservados();
+        } finally {
+            candado.unlockRead(sello);
+        }
+    }
+
+    /**
+     * Recorre los clientes en el orden de sus filas. El recorrido no falla si la tabla cambia
+     * mientras tanto, pero puede saltar o repetir un cliente que se movió por una eliminación.
+     * @return Iterador que arma un Cliente por fila
+     */
+    @Override
+    public Iterator<Cliente> iterator() {
+        return new Iterator<>() {
+            private int siguiente;
+
+            @Override
+            public boolean hasNext() {
+                return siguiente < tamano();
+            }
+
+            @Override
+            public Cliente next() {
+                long sello = candado.readLock();
+                try {
+                    if (siguiente >= filas) {
+                        throw new NoSuchElementException();
+                    }
+                    return armar(siguiente++);
+                } finally {
+                    candado.unlockRead(sello);
+                }
+            }
+        };
+    }
+
+    // ============ FILAS ============ //
+
+    /**
+     * Arma el Cliente de una fila. Se llama con el candado tomado.
+     */
+    private Cliente armar(int fila) {
+        long nit = nits[fila];
+        byte tipo = tipos[fila];
+        String identificacion = identificacionesEspeciales.isEmpty() ? null : identificacionesEspeciales.get(nit);
+        if (identificacion == null) {
+            identificacion = Long.toString(nit);
+        }
+        BigDecimal monto = montosEspeciales.isEmpty() ? null : montosEspeciales.get(nit);
+        if (monto == null) {
+            int escala = (tipo >> DESPLAZAMIENTO_ESCALA) & 3;
+            monto = BigDecimal.valueOf(centavos[fila] / DIVISOR_ESCALA[escala], escala);
+        }
+        String nombre = textos.texto(nombres[fila]);
+        String direccion = textos.texto(direcciones[fila]);
+        String telefono = textos.texto(telefonos[fila]);
+        return (tipo & BIT_MAYORISTA) != 0
+                ? new ClienteMayorista(identificacion, nombre, monto, direccion, telefono)
+                : new ClienteMinorista(identificacion, nombre, monto, direccion, telefono);
+    }
+
+    // ============ ÍNDICE POR NIT ============ //
+
+    /**
+     * @return Fila del NIT, o -1 si no está
+     */
+    private int buscarFila(long nit) {
+        int mascara = casillas.length - 1;
+        int i = casillaInicial(nit, mascara);
+        while (true) {
+            int valor = casillas[i];
+            if (valor == 0) {
+                return -1;
+            }
+            if (nits[valor - 1] == nit) {
+                return valor - 1;
+            }
+            i = (i + 1) & mascara;
+        }
+    }
+
+    /**
+     * Agrega al índice la fila, cuyo NIT ya está en la columna nits.
+     */
+    private void indexar(int fila) {
+        if (filas > casillas.length * FACTOR_CARGA) {
+            reconstruirIndice(casillas.length << 1);
+            return;
+        }
+        int mascara = casillas.length - 1;
+        int i = casillaInicial(nits[fila], mascara);
+        while (casillas[i] != 0) {
+            i = (i + 1) & mascara;
+        }
+        casillas[i] = fila + 1;
+    }
+
+    /**
+     * Quita un NIT del índice moviendo hacia atrás las casillas siguientes de su cadena de sondeo
+     * (como IndiceNit, sin lápidas).
+     * @return Fila que tenía, o -1 si no estaba
+     */
+    private int desindexar(long nit) {
+        int mascara = casillas.length - 1;
+        int hueco = casillaInicial(nit, mascara);
+        while (casillas[hueco] == 0 || nits[casillas[hueco] - 1] != nit) {
+            if (casillas[hueco] == 0) {
+                return -1;
+            }
+            hueco = (hueco + 1) & mascara;
+        }
+        int fila = casillas[hueco] - 1;
+        int i = hueco;
+        while (true) {
+            i = (i + 1) & mascara;
+            int valor = casillas[i];
+            if (valor == 0) {
+                break;
+            }
+            int ideal = casillaInicial(nits[valor - 1], mascara);
+            // La entrada puede ocupar el hueco si su posición ideal no está entre el hueco y ella
+            if (((i - ideal) & mascara) >= ((i - hueco) & mascara)) {
+                casillas[hueco] = valor;
+                hueco = i;
+            }
+        }
+        casillas[hueco] = 0;
+        return fila;
+    }
+
+    private void reconstruirIndice(int capacidad) {
+        casillas = new int[capacidad];
+        int mascara = capacidad - 1;
+        for (int fila = 0; fila < filas; fila++) {
+            int i = casillaInicial(nits[fila], mascara);
+            while (casillas[i] != 0) {
+                i = (i + 1) & mascara;
+            }
+            casillas[i] = fila + 1;
+        }
+    }
+
+    private static int capacidadIndice(int filasEsperadas) {
+        return Integer.highestOneBit((int) Math.min(1 << 30, (long) (filasEsperadas / FACTOR_CARGA))) << 1;
+    }
+
+    private static int casillaInicial(long nit, int mascara) {
+        long h = nit * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mascara;
+    }
+
+    private void crecer() {
+        int capacidad = nits.length << 1;
+        nits = Arrays.copyOf(nits, capacidad);
+        centavos = Arrays.copyOf(centavos, capacidad);
+        tipos = Arrays.copyOf(tipos, capacidad);
+        nombres = Arrays.copyOf(nombres, capacidad);
+        direcciones = Arrays.copyOf(direcciones, capacidad);
+        telefonos = Arrays.copyOf(telefonos, capacidad);
+    }
+}
@@ -0,0 +1,129 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+// Importación de BigDecimal para los montos que no caben en centavos
+import java.math.BigDecimal;
+
+/**
+ * Reglas de precio ya compiladas: el IVA y, por cada tipo de cliente, una tabla de tramos
+ * según el monto histórico de compras (montoCompra).
+ *
+ * Cada tabla son dos arreglos paralelos: el monto desde el que empieza cada tramo (en centavos,
+ * ascendente) y la tasa de descuento del tramo (en puntos básicos). Buscar la tasa de una factura
+ * es una búsqueda en un arreglo, sin interpretar reglas ni llamar a métodos sobrescritos.
+ * El primer tramo cubre también los montos menores que su inicio.
+ *
+ * Es inmutable: al recargar las reglas se crea una tabla nueva (ver {@link ReglasPrecio}).
+ */
+public final class TablaPrecios {
+
+    /** Código de tipo para ClienteMinorista */
+    public static final int TIPO_MINORISTA = 0;
+
+    /** Código de tipo para ClienteMayorista */
+    public static final int TIPO_MAYORISTA = 1;
+
+    /** Código para cualquier otra clase de cliente: su descuento lo calcula el propio cliente */
+    public static final int TIPO_OTRO = -1;
+
+    /** Nombres de los tipos tal como aparecen en el archivo de reglas, por código */
+    static final String[] NOMBRES_TIPO = {"minorista", "mayorista"};
+
+    private final int ivaPuntosBasicos;
+    private final long[][] desdeCentavos;
+    private final int[][] tasasPuntosBasicos;
+
+    /**
+     * @param ivaPuntosBasicos IVA en puntos básicos (1900 = 19%)
+     * @param desdeCentavos Por cada código de tipo, inicio de cada tramo en centavos (ascendente)
+     * @param tasasPuntosBasicos Por cada código de tipo, descuento de cada tramo en puntos básicos
+     */
+    TablaPrecios(int ivaPuntosBasicos, long[][] desdeCentavos, int[][] tasasPuntosBasicos) {
+        this.ivaPuntosBasicos = ivaPuntosBasicos;
+        this.desdeCentavos = desdeCentavos;
+        this.tasasPuntosBasicos = tasasPuntosBasicos;
+    }
+
+    /**
+     * Reglas de siempre: IVA 19%, mayoristas 15% y minoristas 5%, sin tramos.
+     */
+    static TablaPrecios predeterminada() {
+        return new TablaPrecios(1900,
+                new long[][]{{0}, {0}},
+                new int[][]{{500}, {1500}});
+    }
+
+    /**
+     * Obtiene el código de tipo de un cliente.
+     * @param cliente Cliente a clasificar
+     * @return TIPO_MINORISTA, TIPO_MAYORISTA o TIPO_OTRO
+     */
+    public static int tipoDe(Cliente cliente) {
+        if (cliente instanceof ClienteMayorista) {
+            return TIPO_MAYORISTA;
+        }
+        return cliente instanceof ClienteMinorista ? TIPO_MINORISTA : TIPO_OTRO;
+    }
+
+    /**
+     * @return IVA en puntos básicos (1900 = 19%)
+     */
+    public int getIvaPuntosBasicos() {
+        return ivaPuntosBasicos;
+    }
+
+    /**
+     * Busca la tasa de descuento del tramo al que pertenece un monto de compras.
+     * @param tipo Código de tipo de cliente (TIPO_MINORISTA o TIPO_MAYORISTA)
+     * @param montoCentavos Monto histórico de compras en centavos
+     * @return Descuento en puntos básicos
+     */
+    public int tasaDescuento(int tipo, long montoCentavos) {
+        long[] desde = desdeCentavos[tipo];
+        // Las tablas tienen pocos tramos: un recorrido lineal es más rápido que la búsqueda binaria
+        int i = desde.length - 1;
+        while (i > 0 && desde[i] > montoCentavos) {
+            i--;
+        }
+        return tasasPuntosBasicos[tipo][i];
+    }
+
+    /**
+     * Busca la tasa de descuento de un cliente según su tipo y su monto de compras.
+     * @param tipo Código de tipo del cliente (TIPO_MINORISTA o TIPO_MAYORISTA)
+     * @param cliente Cliente a facturar
+     * @return Descuento en puntos básicos
+     */
+    public int tasaDescuento(int tipo, Cliente cliente) {
+        long centavos = cliente.getMontoCentavos();
+        return centavos != Dinero.FUERA_DE_RANGO
+                ? tasaDescuento(tipo, centavos)
+                : tasaDescuento(tipo, cliente.getMontoCompra());
+    }
+
+    /**
+     * Busca la tasa de descuento para un monto que puede no caber en centavos.
+     * @param tipo Código de tipo de cliente (TIPO_MINORISTA o TIPO_MAYORISTA)
+     * @param montoCompra Monto histórico de compras
+     * @return Descuento en puntos básicos
+     */
+    public int tasaDescuento(int tipo, BigDecimal montoCompra) {
+        long centavos = Dinero.aCentavos(montoCompra);
+        if (centavos != Dinero.FUERA_DE_RANGO) {
+            return tasaDescuento(tipo, centavos);
+        }
+        long[] desde = desdeCentavos[tipo];
+        int i = desde.length - 1;
+        while (i > 0 && Dinero.deCentavos(desde[i]).compareTo(montoCompra) > 0) {
+            i--;
+        }
+        return tasasPuntosBasicos[tipo][i];
+    }
+
+    /**
+     * @return Número de tramos definidos para un tipo de cliente
+     */
+    public int cantidadTramos(int tipo) {
+        return desdeCentavos[tipo].length;
+    }
+}
@@ -0,0 +1,194 @@
+// Declaración del paquete al que pertenece la clase
+package OrganizadordeClases;
+
+/**
+ * Validación y conversión de NIT sin expresiones regulares y sin crear objetos.
+ *
+ * Aplica las mismas reglas que se piden al ingresar un cliente: solo dígitos, máximo 12,
+ * mayor que cero. Funciona sobre cualquier CharSequence (String, StringBuilder) o sobre un
+ * rango de bytes (por ejemplo, una línea de un archivo), para poder usarse en la consola,
+ * en importaciones y en cualquier otra entrada de datos.
+ *
+ * También calcula el dígito de verificación del NIT colombiano (DIAN, módulo 11), para
+ * aceptar NIT escritos como "900123456-8".
+ */
+public final class ValidadorNit {
+
+    /** Máximo de dígitos de un NIT */
+    public static final int MAX_DIGITOS = 12;
+
+    /** Valor devuelto cuando el texto no es un NIT válido */
+    public static final long NO_VALIDO = -1;
+
+    // Dígitos que caben siempre en un long sin desbordarse (claves internas de ClienteService)
+    static final int MAX_DIGITOS_CLAVE = 18;
+
+    // Pesos de la DIAN, aplicados desde el último dígito del NIT hacia la izquierda
+    private static final int[] PESOS = {3, 7, 13, 17, 19, 23, 29, 37, 41, 43, 47, 53, 59, 67, 71};
+
+    // Mayor NIT con un peso para cada dígito (15 dígitos)
+    private static final long MAX_NIT_CON_DIGITO = 999_999_999_999_999L;
+
+    private ValidadorNit() {
+    }
+
+    // ============ CONVERSIÓN ============ //
+
+    /**
+     * Convierte un texto en NIT.
+     * @param texto Texto a validar (sin espacios)
+     * @return NIT como long, o NO_VALIDO si no son solo dígitos, tiene más de 12 o es cero
+     */
+    public static long parsear(CharSequence texto) {
+        return texto == null ? NO_VALIDO : parsear(texto, 0, texto.length(), MAX_DIGITOS);
+    }
+
+    /**
+     * Convierte una parte de un texto en NIT.
+     * @param texto Texto que contiene el NIT
+     * @param desde Posición del primer carácter (incluida)
+     * @param hasta Posición final (excluida)
+     * @return NIT como long, o NO_VALIDO si no es válido
+     */
+    public static long parsear(CharSequence texto, int desde, int hasta) {
+        return parsear(texto, desde, hasta, MAX_DIGITOS);
+    }
+
+    /**
+     * Convierte un rango de bytes ASCII en NIT.
+     * @param bytes Arreglo que contiene el NIT
+     * @param desde Posición del primer byte (incluida)
+     * @param hasta Posición final (excluida)
+     * @return NIT como long, o NO_VALIDO si no es válido
+     */
+    public static long parsear(byte[] bytes, int desde, int hasta) {
+        int longitud = hasta - desde;
+        if (longitud <= 0 || longitud > MAX_DIGITOS) {
+            return NO_VALIDO;
+        }
+        long nit = 0;
+        for (int i = desde; i < hasta; i++) {
+            int digito = bytes[i] - '0';
+            if (digito < 0 || digito > 9) {
+                return NO_VALIDO;
+            }
+            nit = nit * 10 + digito;
+        }
+        return nit > 0 ? nit : NO_VALIDO;
+    }
+
+    /**
+     * Convierte una identificación en la clave numérica con la que ClienteService la indexa.
+     * Acepta hasta 18 dígitos, el máximo que cabe en un long.
+     */
+    static long parsearClave(CharSequence texto) {
+        return texto == null ? NO_VALIDO : parsear(texto, 0, texto.length(), MAX_DIGITOS_CLAVE);
+    }
+
+    private static long parsear(CharSequence texto, int desde, int hasta, int maxDigitos) {
+        int longitud = hasta - desde;
+        if (longitud <= 0 || longitud > maxDigitos) {
+            return NO_VALIDO;
+        }
+        long nit = 0;
+        for (int i = desde; i < hasta; i++) {
+            int digito = texto.charAt(i) - '0';
+            if (digito < 0 || digito > 9) {
+                return NO_VALIDO;
+            }
+            nit = nit * 10 + digito;
+        }
+        return nit > 0 ? nit : NO_VALIDO;
+    }
+
+    /**
+     * Indica por qué un texto no es un NIT válido, con los mismos mensajes que la consola.
+     * Acepta también un dígito de verificación después de un guion ("900123456-8").
+     * @param texto Texto a validar (sin espacios)
+     * @return null si es válido, o el motivo del rechazo
+     */
+    public static String error(CharSequence texto) {
+        if (texto.length() == 0) {
+            return "Solo se permiten caracteres numéricos (0-9)";
+        }
+        int guion = indiceGuion(texto);
+        int fin = guion >= 0 ? guion : texto.length();
+        for (int i = 0; i < texto.length(); i++) {
+            char c = texto.charAt(i);
+            if ((c < '0' || c > '9') && i != guion) {
+                return "Solo se permiten caracteres numéricos (0-9)";
+            }
+        }
+        if (fin == 0 || (guion >= 0 && guion != texto.length() - 2)) {
+            return "Formato no válido: use solo el número o número-dígito de verificación";
+        }
+        if (fin > MAX_DIGITOS) {
+            return "El NIT no puede exceder los " + MAX_DIGITOS + " dígitos";
+        }
+        long nit = parsear(texto, 0, fin);
+        if (nit == NO_VALIDO) {
+            return "El NIT debe ser mayor que cero";
+        }
+        if (guion >= 0) {
+            int esperado = digitoVerificacion(nit);
+            if (texto.charAt(guion + 1) - '0' != esperado) {
+                return "El dígito de verificación no corresponde (debería ser " + esperado + ")";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Obtiene el NIT de un texto ya validado con {@link #error}, sin el dígito de verificación.
+     * @param texto Texto válido ("900123456" o "900123456-8")
+     * @return NIT como long, o NO_VALIDO si el texto no es válido
+     */
+    public static long parsearConDigito(CharSequence texto) {
+        if (texto == null || error(texto) != null) {
+            return NO_VALIDO;
+        }
+        int guion = indiceGuion(texto);
+        return parsear(texto, 0, guion >= 0 ? guion : texto.length());
+    }
+
+    private static int indiceGuion(CharSequence texto) {
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) == '-') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ============ DÍGITO DE VERIFICACIÓN ============ //
+
+    /**
+     * Calcula el dígito de verificación de un NIT según el método de la DIAN: cada dígito,
+     * desde el último, se multiplica por su peso (3, 7, 13, 17, ...); si el residuo de la suma
+     * entre 11 es 0 o 1 ese es el dígito, si no, es 11 menos el residuo.
+     * @param nit NIT sin dígito de verificación (mayor que cero, máximo 15 dígitos)
+     * @return Dígito de verificación entre 0 y 9
+     */
+    public static int digitoVerificacion(long nit) {
+        if (nit <= 0 || nit > MAX_NIT_CON_DIGITO) {
+            throw new IllegalArgumentException("NIT fuera del rango del dígito de verificación: " + nit);
+        }
+        int suma = 0;
+        for (int i = 0; nit > 0; i++) {
+            suma += (int) (nit % 10) * PESOS[i];
+            nit /= 10;
+        }
+        int residuo = suma % 11;
+        return residuo > 1 ? 11 - residuo : residuo;
+    }
+
+    /**
+     * Verifica el dígito de verificación de un NIT.
+     * @param nit NIT sin dígito de verificación
+     * @param digito Dígito de verificación a comprobar
+     * @return true si el dígito corresponde al NIT
+     */
+    public static boolean verificar(long nit, int digito) {
+        return nit > 0 && nit <= MAX_NIT_CON_DIGITO && digitoVerificacion(nit) == digito;
+    }
+}
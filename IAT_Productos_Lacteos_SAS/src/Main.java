@@ -3,9 +3,9 @@
 
 import Organizador_de_Clases.*;
 import java.io.*;
-import java.text.SimpleDateFormat;
-import java.util.ArrayList;
-import java.util.Date;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
 //import java.util.InputMismatchException;
 import java.util.Scanner;
 
@@ -17,16 +17,27 @@ public class Main {
     // ================== CONSTANTES ==================
     private static final String ARCHIVO_DATOS = "productos.dat";
     private static final String CARPETA_REPORTES = "reportes";
+    // Métricas de latencia en formato Prometheus; se reescriben cada 15 segundos y al salir
+    private static final String ARCHIVO_METRICAS = "metricas.prom";
 
     // ================== VARIABLES GLOBALES ==================
-    private static ArrayList<ProductoLacteo> productos = new ArrayList<>();
-    private static int contadorId = 1;
+    private static ProductoRepository repositorio;
+    private static PlanificadorReportes planificador;
     private static Scanner scanner = new Scanner(System.in);
 
     /**
      * MÉTODO PRINCIPAL
+     * Sin argumentos muestra el menú. Con "--lote archivo" (o "--lote -" para la entrada
+     * estándar) ejecuta las operaciones del archivo sin preguntar nada; ver {@link ProcesadorLote}.
      */
     public static void main(String[] args) {
+        Metricas.iniciarVolcado(Paths.get(ARCHIVO_METRICAS), 15);
+        if (args.length > 0 && args[0].equals("--lote")) {
+            int codigo = ejecutarLote(args.length > 1 ? args[1] : "-");
+            Metricas.detenerVolcado();
+            System.exit(codigo);
+        }
+
         inicializarSistema();
 
         int opcion;
@@ -47,6 +58,8 @@ public class Main {
     private static void inicializarSistema() {
         crearCarpetaReportes();
         cargarDatos();
+        // Los reportes se escriben en segundo plano: uno a la vez y hasta 8 en espera
+        planificador = new PlanificadorReportes(repositorio, CARPETA_REPORTES, 1, 8);
         System.out.println("\n=== *** IAT PRODUCTOS LACTEOS  SAS*** ===");
         System.out.println("\n=== SISTEMA GESTION DE PRODUCCIÓN INICIADO ===");
     }
@@ -61,6 +74,61 @@ public class Main {
         }
     }
 
+    // ================== MODO POR LOTES ==================
+
+    /**
+     * Ejecuta un guion de operaciones sin menú y guarda todo al final
+     * @param origen Ruta del guion, o "-" para leerlo de la entrada estándar
+     * @return Código de salida: 0 si todas las líneas se aplicaron, 1 si alguna tuvo errores,
+     *         2 si no se pudo leer el guion o guardar los datos
+     */
+    private static int ejecutarLote(String origen) {
+        crearCarpetaReportes();
+        try {
+            repositorio = new ProductoRepository(ARCHIVO_DATOS);
+        } catch (IOException e) {
+            System.err.println("✖ Error al cargar datos: " + e.getMessage());
+            return 2;
+        }
+
+        ProcesadorLote.Resumen resumen;
+        try (Reader guion = origen.equals("-")
+                ? new InputStreamReader(System.in, StandardCharsets.UTF_8)
+                : new InputStreamReader(new FileInputStream(origen), StandardCharsets.UTF_8)) {
+            resumen = new ProcesadorLote(repositorio, CARPETA_REPORTES).ejecutar(guion);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("✖ Lote interrumpido: " + e.getMessage());
+            cerrarRepositorio();
+            return 2;
+        }
+        if (!cerrarRepositorio()) {
+            return 2;
+        }
+
+        System.out.println(resumen + ", productos: " + repositorio.cantidad());
+        for (File reporte : resumen.getReportes()) {
+            System.out.println("Reporte: " + reporte.getAbsolutePath());
+        }
+        for (String error : resumen.getErrores()) {
+            System.err.println("✖ " + error);
+        }
+        if (resumen.getTotalErrores() > resumen.getErrores().size()) {
+            System.err.println("... y " + (resumen.getTotalErrores() - resumen.getErrores().size()) + " errores más");
+        }
+        return resumen.getTotalErrores() == 0 ? 0 : 1;
+    }
+
+    private static boolean cerrarRepositorio() {
+        avisarErrorSegundoPlano();
+        try {
+            repositorio.cerrar();
+            return true;
+        } catch (IOException e) {
+            System.err.println("✖ Error al guardar datos: " + e.getMessage());
+            return false;
+        }
+    }
+
     // ================== MENÚ PRINCIPAL ==================
 
     private static void mostrarMenuPrincipal() {
@@ -96,8 +164,12 @@ public class Main {
         ProductoLacteo producto = seleccionarTipoProducto();
 
         if (producto != null) {
-            producto.setId(contadorId++);
-            productos.add(producto);
+            try {
+                repositorio.crear(producto);
+            } catch (IOException e) {
+                System.out.println("\n✖ Error al guardar el producto: " + e.getMessage());
+                return;
+            }
             System.out.println("\n✔ Producto creado con ID: " + producto.getId());
             mostrarResumenProducto(producto);
         }
@@ -107,6 +179,7 @@ public class Main {
      * Muestra lista completa de productos
      */
     private static void listarProductos() {
+        List<ProductoLacteo> productos = repositorio.listar();
         if (productos.isEmpty()) {
             System.out.println("\n No hay productos registrados.");
             return;
@@ -123,17 +196,18 @@ public class Main {
      * Actualiza un producto existente
      */
     private static void actualizarProducto() {
-        if (productos.isEmpty()) {
+        if (repositorio.cantidad() == 0) {
             System.out.println("\nNo hay productos para actualizar.");
             return;
         }
 
         listarProductos();
         System.out.print("\nIngrese el ID del producto a actualizar: ");
-        int id = obtenerEntero(1, contadorId-1);
+        int id = obtenerEntero(1, repositorio.ultimoId());
 
-        ProductoLacteo producto = buscarPorId(id);
-        if (producto == null) {
+        // Se guarda la versión leída para no pisar cambios de otra terminal mientras se edita
+        ProductoRepository.Registro registro = repositorio.buscarConVersion(id);
+        if (registro == null) {
             System.out.println("✖ No se encontró producto con el ID: " + id);
             return;
         }
@@ -141,9 +215,15 @@ public class Main {
         System.out.println("\nActualizando producto con el ID: " + id);
         ProductoLacteo actualizado = seleccionarTipoProducto();
         if (actualizado != null) {
-            actualizado.setId(id);
-            productos.set(productos.indexOf(producto), actualizado);
-            System.out.println("✔ Producto actualizado exitosamente...!!");
+            try {
+                if (repositorio.actualizar(id, actualizado, registro.getVersion())) {
+                    System.out.println("✔ Producto actualizado exitosamente...!!");
+                } else {
+                    System.out.println("✖ El producto fue modificado o eliminado desde otra terminal; vuelva a intentarlo.");
+                }
+            } catch (IOException e) {
+                System.out.println("✖ Error al guardar el producto: " + e.getMessage());
+            }
         }
     }
 
@@ -151,21 +231,23 @@ public class Main {
      * Elimina un producto de la lista
      */
     private static void eliminarProducto() {
-        if (productos.isEmpty()) {
+        if (repositorio.cantidad() == 0) {
             System.out.println("\nNo existen productos para eliminar.");
             return;
         }
 
         listarProductos();
         System.out.print("\nIngrese ID del producto a eliminar: ");
-        int id = obtenerEntero(1, contadorId-1);
+        int id = obtenerEntero(1, repositorio.ultimoId());
 
-        ProductoLacteo producto = buscarPorId(id);
-        if (producto != null) {
-            productos.remove(producto);
-            System.out.println("✔ Producto eliminado exitosamente...!!");
-        } else {
-            System.out.println("✖ No se encontró producto con el ID: " + id);
+        try {
+            if (repositorio.eliminar(id)) {
+                System.out.println("✔ Producto eliminado exitosamente...!!");
+            } else {
+                System.out.println("✖ No se encontró producto con el ID: " + id);
+            }
+        } catch (IOException e) {
+            System.out.println("✖ Error al eliminar el producto: " + e.getMessage());
         }
     }
 
@@ -178,91 +260,64 @@ public class Main {
         System.out.println("\n=== GESTION DE PRODUCCIÓN GENERAR REPORTES ===");
         System.out.println("1. Reporte en texto (.txt)");
         System.out.println("2. Reporte para Excel (.csv)");
-        System.out.println("3. Volver al menú principal");
-        System.out.print("Seleccione una opción (1-3): ");
+        System.out.println("3. Ver reportes en curso");
+        System.out.println("4. Cancelar un reporte");
+        System.out.println("5. Volver al menú principal");
+        System.out.print("Seleccione una opción (1-5): ");
 
-        int opcion = obtenerEntero(1, 3);
+        int opcion = obtenerEntero(1, 5);
         switch(opcion) {
-            case 1: generarReporteTexto(); break;
-            case 2: generarReporteCSV(); break;
-            case 3: return;
+            case 1: programarReporte(PlanificadorReportes.Formato.TEXTO); break;
+            case 2: programarReporte(PlanificadorReportes.Formato.CSV); break;
+            case 3: mostrarReportes(); break;
+            case 4: cancelarReporte(); break;
+            case 5: return;
         }
     }
 
     /**
-     * Genera reporte en formato de texto legible
+     * Programa un reporte en segundo plano y vuelve al menú sin esperar
      */
-    private static void generarReporteTexto() {
-        if (productos.isEmpty()) {
+    private static void programarReporte(PlanificadorReportes.Formato formato) {
+        if (repositorio.cantidad() == 0) {
             System.out.println("\nNo existen productos para generar reporte.");
             return;
         }
 
-        String fecha = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String nombreArchivo = CARPETA_REPORTES + "/Gestión de Producción Reporte_" + fecha + ".txt";
-
-        try (FileWriter writer = new FileWriter(nombreArchivo)) {
-            writer.write("=== GESTIÓN DE PRODUCCIÓN  REPORTE DE PRODUCTOS LÁCTEOS ===\n");
-            writer.write("Fecha generación: " + new Date() + "\n");
-            writer.write("Total productos: " + productos.size() + "\n\n");
-
-            for (ProductoLacteo p : productos) {
-                writer.write("ID: " + p.getId() + "\n");
-                writer.write("Tipo: " + p.getClass().getSimpleName() + "\n");
-                p.mostrarInfoEnArchivo(writer);
-                writer.write("----------------------------\n");
-            }
-
-            System.out.println("\n✔ Gestión de Producción Reporte generado: " + new File(nombreArchivo).getAbsolutePath());
-        } catch (IOException e) {
-            System.out.println("\n✖ Error al generar reporte: " + e.getMessage());
+        try {
+            PlanificadorReportes.Trabajo trabajo = planificador.programar(formato);
+            System.out.println("\n✔ Reporte #" + trabajo.getId() + " en preparación: " + trabajo.getArchivo().getAbsolutePath());
+            System.out.println("Puede seguir trabajando; consulte el avance en la opción 3 del menú de reportes.");
+        } catch (IllegalStateException e) {
+            System.out.println("\n✖ " + e.getMessage());
         }
     }
 
     /**
-     * Genera reporte en formato CSV para Excel
+     * Muestra el estado y avance de los reportes de esta sesión
      */
-    private static void generarReporteCSV() {
-        if (productos.isEmpty()) {
-            System.out.println("\nNo existen productos para generar reporte.");
+    private static void mostrarReportes() {
+        List<PlanificadorReportes.Trabajo> trabajos = planificador.listarTrabajos();
+        if (trabajos.isEmpty()) {
+            System.out.println("\nNo se han programado reportes.");
             return;
         }
+        System.out.println("\n--- REPORTES ---");
+        for (PlanificadorReportes.Trabajo trabajo : trabajos) {
+            System.out.println(trabajo);
+        }
+    }
 
-        String fecha = new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
-        String nombreArchivo = CARPETA_REPORTES + "/Reporte_" + fecha + ".csv";
-
-        try (FileWriter writer = new FileWriter(nombreArchivo)) {
-            // Encabezado CSV
-            writer.write("ID,Tipo,Nombre,Horas Fermentación,Sabores,Contiene Frutas,Lleva Azúcar\n");
-
-            for (ProductoLacteo p : productos) {
-                writer.write(p.getId() + ",");
-                writer.write(p.getClass().getSimpleName() + ",");
-                writer.write("\"" + p.getNombre() + "\",");
-
-                if (p instanceof Yogurt) {
-                    Yogurt y = (Yogurt) p;
-                    writer.write(y.getHorasFermentacion() + ",N/A,N/A,N/A");
-                }
-                else if (p instanceof Kumis) {
-                    Kumis k = (Kumis) p;
-                    writer.write(k.getHorasFermentacion() + ",N/A,N/A,N/A");
-                }
-                else if (p instanceof ProductoLacteoConSabor) {
-                    ProductoLacteoConSabor ps = (ProductoLacteoConSabor) p;
-                    writer.write(ps.getHorasFermentacion() + ",");
-                    writer.write("\"" + String.join(";", ps.getSabores()) + "\",");
-                    writer.write(ps.tieneFrutas() ? "Sí," : "No,");
-                    writer.write(ps.llevaAzucar() ? "Sí" : "No");
-                }
-
-                writer.write("\n");
-            }
-
-            System.out.println("\n✔ Gestión de Producción Reporte CSV generado: " + new File(nombreArchivo).getAbsolutePath());
-            System.out.println("Puede abrir este archivo con Excel");
-        } catch (IOException e) {
-            System.out.println("\n✖ Error al generar CSV: " + e.getMessage());
+    /**
+     * Cancela un reporte en cola o en curso
+     */
+    private static void cancelarReporte() {
+        System.out.print("\nIngrese el número del reporte a cancelar: ");
+        int id = obtenerEntero(1, Integer.MAX_VALUE);
+        if (planificador.cancelar(id)) {
+            System.out.println("✔ Reporte #" + id + " cancelado");
+        } else {
+            System.out.println("✖ No hay un reporte pendiente con el número: " + id);
         }
     }
 
@@ -278,18 +333,6 @@ public class Main {
         producto.envasar();
     }
 
-    /**
-     * Busca producto por ID
-     */
-    private static ProductoLacteo buscarPorId(int id) {
-        for (ProductoLacteo p : productos) {
-            if (p.getId() == id) {
-                return p;
-            }
-        }
-        return null;
-    }
-
     /**
      * Permite seleccionar el tipo de producto a crear
      */
@@ -359,35 +402,39 @@ public class Main {
 
     // ================== PERSISTENCIA DE DATOS ==================
 
-    @SuppressWarnings("unchecked")
     private static void cargarDatos() {
-        try (ObjectInputStream ois = new ObjectInputStream(new FileInputStream(ARCHIVO_DATOS))) {
-            productos = (ArrayList<ProductoLacteo>) ois.readObject();
-
-            // Encuentra el máximo ID para continuar la secuencia
-            for (ProductoLacteo p : productos) {
-                if (p.getId() >= contadorId) {
-                    contadorId = p.getId() + 1;
-                }
-            }
-
-            System.out.println("✔ Datos cargados (" + productos.size() + " productos)");
-        } catch (FileNotFoundException e) {
-            System.out.println("ℹ No se encontró archivo de datos previo. Se creará uno nuevo.");
-        } catch (IOException | ClassNotFoundException e) {
+        try {
+            repositorio = new ProductoRepository(ARCHIVO_DATOS);
+            System.out.println("✔ Datos cargados (" + repositorio.cantidad() + " productos)");
+        } catch (IOException e) {
             System.out.println("⚠ Error al cargar datos: " + e.getMessage());
+            System.exit(1);
         }
     }
 
     private static void guardarDatos() {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(ARCHIVO_DATOS))) {
-            oos.writeObject(productos);
-            System.out.println("✔ Datos guardados (" + productos.size() + " productos)");
+        // Cada operación ya quedó en el diario; solo falta forzar a disco lo pendiente
+        avisarErrorSegundoPlano();
+        try {
+            int cantidad = repositorio.cantidad();
+            repositorio.cerrar();
+            System.out.println("✔ Datos guardados (" + cantidad + " productos)");
         } catch (IOException e) {
             System.out.println("⚠ Error al guardar datos: " + e.getMessage());
         }
     }
 
+    /**
+     * MUESTRA EL ÚLTIMO ERROR DE LA SINCRONIZACIÓN O COMPACTACIÓN EN SEGUNDO PLANO
+     * Se muestra al cerrar y no cuando ocurre, para no interrumpir el menú.
+     */
+    private static void avisarErrorSegundoPlano() {
+        IOException error = repositorio.getErrorSegundoPlano();
+        if (error != null) {
+            System.out.println("⚠ Error en segundo plano del repositorio: " + error.getMessage());
+        }
+    }
+
     // ================== UTILIDADES ==================
 
     /**
@@ -411,7 +458,12 @@ public class Main {
      * Finaliza el programa adecuadamente
      */
     private static void finalizarPrograma() {
+        // Los reportes en curso se terminan antes de cerrar el repositorio
+        if (!planificador.cerrar(60)) {
+            System.out.println("⚠ Algunos reportes no terminaron a tiempo y pueden quedar incompletos.");
+        }
         guardarDatos();
+        Metricas.detenerVolcado();
         scanner.close();
         System.out.println("\n¡Gracias por usar el sistema de Gestion de Produccion *** IAT PRODUCTOS LACTEOS ***");
     }
@@ -0,0 +1,199 @@
+package Organizador_de_Clases;
+//Creamos el banco de pruebas que mide el rendimiento de guardar, cargar y reportar productos
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Stream;
+
+/**
+ * BANCO DE PRUEBAS DE RENDIMIENTO (SIN DEPENDENCIAS EXTERNAS)
+ *
+ * Mide, para cada cantidad de productos indicada:
+ * 1. Guardar: codificar todos los productos con {@link CodecProductos} (lo que hace la compactación)
+ * 2. Cargar: leer el archivo completo de vuelta a objetos
+ * 3. Abrir el repositorio: {@link ProductoRepository} sobre un archivo existente y listar todo
+ * 4. Reportes TXT y CSV con {@link ReporteProductos}
+ *
+ * Cada caso se calienta unas iteraciones para que el JIT compile el código y luego se mide;
+ * se muestra el tiempo por producto (media ± desviación estándar) y los productos por segundo.
+ * Los archivos se escriben en una carpeta temporal que se borra al terminar.
+ * La línea base con JMH a 1.000, 100.000 y 10.000.000 productos está en el módulo IAT_Rendimiento.
+ *
+ * USO (desde la carpeta de clases compiladas):
+ * <pre>
+ * java -Xmx8g Organizador_de_Clases.BancoRendimiento [--escalas 1000,100000,10000000]
+ *      [--iteraciones 5] [--calentamiento 3] [--caso texto]
+ * </pre>
+ */
+public final class BancoRendimiento {
+
+    // Acumula los resultados para que el JIT no elimine el trabajo medido
+    private static volatile long sumidero;
+
+    private final int iteraciones;
+    private final int calentamiento;
+    private final String filtro;
+    private final Path carpeta;
+
+    private BancoRendimiento(int iteraciones, int calentamiento, String filtro, Path carpeta) {
+        this.iteraciones = iteraciones;
+        this.calentamiento = calentamiento;
+        this.filtro = filtro;
+        this.carpeta = carpeta;
+    }
+
+    /**
+     * UN CASO DE PRUEBA: EJECUTA UNA ITERACIÓN Y DEVUELVE UN VALOR QUE DEPENDE DEL TRABAJO HECHO
+     */
+    private interface Caso {
+        long ejecutar() throws IOException;
+    }
+
+    public static void main(String[] args) throws IOException {
+        int[] escalas = {1_000, 100_000};
+        int iteraciones = 5;
+        int calentamiento = 3;
+        String filtro = "";
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--escalas":
+                    escalas = Arrays.stream(args[i + 1].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--iteraciones":
+                    iteraciones = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--calentamiento":
+                    calentamiento = Integer.parseInt(args[i + 1]);
+                    break;
+                case "--caso":
+                    filtro = args[i + 1];
+                    break;
+                default:
+                    throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+            }
+        }
+
+        System.out.printf("Java %s, %d núcleos, memoria máxima %d MB%n", System.getProperty("java.version"),
+                Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() >> 20);
+        System.out.printf("%-26s %12s %22s %16s%n", "Caso", "Productos", "ns/op (media ± desv)", "ops/s");
+
+        Path carpeta = Files.createTempDirectory("banco-productos");
+        try {
+            BancoRendimiento banco = new BancoRendimiento(iteraciones, calentamiento, filtro, carpeta);
+            for (int escala : escalas) {
+                banco.ejecutarEscala(escala);
+            }
+        } finally {
+            try (Stream<Path> archivos = Files.walk(carpeta)) {
+                archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+            }
+        }
+    }
+
+    private void ejecutarEscala(int escala) throws IOException {
+        List<ProductoLacteo> productos = crearProductos(escala);
+
+        // Guardar en memoria, para medir solo la codificación y no el disco
+        ByteArrayOutputStream codificados = new ByteArrayOutputStream(escala * 40);
+        medir("CodecProductos.escribir", escala, () -> {
+            codificados.reset();
+            CodecProductos.escribir(productos, codificados);
+            return codificados.size();
+        });
+
+        byte[] archivo = codificar(productos);
+        medir("CodecProductos.leer", escala,
+                () -> CodecProductos.leer(new ByteArrayInputStream(archivo)).size());
+
+        // Repositorio sobre un archivo base ya escrito (como después de una compactación)
+        Path archivoBase = carpeta.resolve("productos_" + escala + ".dat");
+        Files.write(archivoBase, archivo);
+        medir("ProductoRepository abrir", escala, () -> {
+            Files.deleteIfExists(Path.of(archivoBase + ".journal"));
+            ProductoRepository repositorio = new ProductoRepository(archivoBase.toString());
+            int cantidad = repositorio.cantidad();
+            repositorio.cerrar();
+            return cantidad;
+        });
+        medir("ProductoRepository listar", escala, () -> {
+            ProductoRepository repositorio = new ProductoRepository(archivoBase.toString());
+            int cantidad = repositorio.listar().size();
+            repositorio.cerrar();
+            return cantidad;
+        });
+
+        File reporteTexto = carpeta.resolve("reporte_" + escala + ".txt").toFile();
+        File reporteCSV = carpeta.resolve("reporte_" + escala + ".csv").toFile();
+        medir("ReporteProductos TXT", escala, () -> {
+            ReporteProductos.escribirTexto(productos, reporteTexto);
+            return reporteTexto.length();
+        });
+        medir("ReporteProductos CSV", escala, () -> {
+            ReporteProductos.escribirCSV(productos, reporteCSV);
+            return reporteCSV.length();
+        });
+    }
+
+    /**
+     * EJECUTA UN CASO CON CALENTAMIENTO Y MUESTRA EL TIEMPO POR PRODUCTO
+     */
+    private void medir(String nombre, int escala, Caso caso) throws IOException {
+        if (!nombre.contains(filtro)) {
+            return;
+        }
+        for (int i = 0; i < calentamiento; i++) {
+            sumidero += caso.ejecutar();
+        }
+        double[] nanosPorOperacion = new double[iteraciones];
+        for (int i = 0; i < iteraciones; i++) {
+            long inicio = System.nanoTime();
+            sumidero += caso.ejecutar();
+            nanosPorOperacion[i] = (double) (System.nanoTime() - inicio) / escala;
+        }
+        double media = Arrays.stream(nanosPorOperacion).average().orElse(0);
+        double varianza = Arrays.stream(nanosPorOperacion).map(v -> (v - media) * (v - media)).sum()
+                / Math.max(1, iteraciones - 1);
+        System.out.printf(Locale.US, "%-26s %12d %13.1f ± %6.1f %16.0f%n",
+                nombre, escala, media, Math.sqrt(varianza), 1e9 / media);
+    }
+
+    private static byte[] codificar(List<ProductoLacteo> productos) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        CodecProductos.escribir(productos, salida);
+        return salida.toByteArray();
+    }
+
+    /**
+     * CREA PRODUCTOS DE PRUEBA DE LOS TRES TIPOS, CON IDS CONSECUTIVOS (TAMBIÉN LOS USA IAT_Rendimiento)
+     */
+    static List<ProductoLacteo> crearProductos(int cantidad) {
+        String[][] sabores = {{"fresa"}, {"mora", "durazno"}, {"vainilla", "arequipe", "café"}};
+        List<ProductoLacteo> productos = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            ProductoLacteo producto;
+            switch (i % 3) {
+                case 0:
+                    producto = new Yogurt("Yogurt natural " + i, 4 + i % 8);
+                    break;
+                case 1:
+                    producto = new Kumis("Kumis tradicional " + i, 12 + i % 24);
+                    break;
+                default:
+                    producto = new ProductoLacteoConSabor("Yogurt de sabor " + i, 6, sabores[i % sabores.length],
+                            i % 2 == 0, i % 5 != 0);
+            }
+            producto.setId(i + 1);
+            productos.add(producto);
+        }
+        return productos;
+    }
+}
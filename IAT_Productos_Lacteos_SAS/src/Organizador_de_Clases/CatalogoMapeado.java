@@ -0,0 +1,169 @@
+package Organizador_de_Clases;
+//Creamos el catálogo de solo lectura que lee los productos directamente del archivo mapeado en memoria
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CATÁLOGO DE PRODUCTOS MAPEADO EN MEMORIA
+ *
+ * Abre el archivo de productos (versión 2 de {@link CodecProductos}) con FileChannel.map:
+ * 1. Al abrir solo se leen la cabecera y la tabla de sabores, sin importar cuántos productos haya
+ * 2. El índice (ID, posición) del final del archivo se consulta con búsqueda binaria directamente
+ *    sobre el mapa, sin copiarlo al heap
+ * 3. Un ProductoLacteo se construye solo cuando se pide su ID
+ *
+ * El sistema operativo carga las páginas del archivo a medida que se usan, así que el tiempo
+ * de arranque y la memoria no crecen con el tamaño del catálogo.
+ */
+public final class CatalogoMapeado {
+    private final MappedByteBuffer mapa;
+    private final String[] sabores;
+    private final int cantidad;
+    private final int posicionIndice;
+
+    private CatalogoMapeado(MappedByteBuffer mapa, String[] sabores, int cantidad, int posicionIndice) {
+        this.mapa = mapa;
+        this.sabores = sabores;
+        this.cantidad = cantidad;
+        this.posicionIndice = posicionIndice;
+    }
+
+    /**
+     * ABRE UN ARCHIVO DE PRODUCTOS CON ÍNDICE
+     * @param ruta Archivo de productos
+     * @return Catálogo listo para consultar, o null si el archivo es de un formato sin índice
+     *         (versión 1 o serialización de Java), que debe leerse completo con CodecProductos
+     * @throws IOException Si el archivo no se puede mapear o está dañado
+     */
+    public static CatalogoMapeado abrir(Path ruta) throws IOException {
+        MappedByteBuffer mapa;
+        try (FileChannel canal = FileChannel.open(ruta, StandardOpenOption.READ)) {
+            if (canal.size() < 20) {
+                return null;
+            }
+            if (canal.size() > Integer.MAX_VALUE) {
+                throw new IOException("El archivo de productos supera el tamaño máximo de 2 GB");
+            }
+            // El mapa sigue siendo válido después de cerrar el canal
+            mapa = canal.map(FileChannel.MapMode.READ_ONLY, 0, canal.size());
+        }
+
+        if (mapa.getInt(0) != CodecProductos.MAGICO || mapa.getInt(4) != CodecProductos.VERSION) {
+            return null;
+        }
+
+        DataInputStream in = new DataInputStream(new EntradaMapa(mapa, 8));
+        String[] sabores = CodecProductos.leerTablaSabores(in);
+        int cantidad = in.readInt();
+        long posicionIndice = mapa.getLong(mapa.capacity() - 8);
+        if (posicionIndice < 0 || posicionIndice + (long) cantidad * CodecProductos.TAMANO_ENTRADA_INDICE
+                != mapa.capacity() - 8) {
+            throw new IOException("El índice del archivo de productos está dañado");
+        }
+        return new CatalogoMapeado(mapa, sabores, cantidad, (int) posicionIndice);
+    }
+
+    /**
+     * @return Número de productos en el archivo
+     */
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * OBTIENE EL ID DEL PRODUCTO EN UNA POSICIÓN DEL ÍNDICE
+     * @param i Posición entre 0 y cantidad() - 1 (los IDs están en orden ascendente)
+     * @return ID del producto
+     */
+    public int idEn(int i) {
+        return mapa.getInt(posicionIndice + i * CodecProductos.TAMANO_ENTRADA_INDICE);
+    }
+
+    /**
+     * INDICA SI EL ARCHIVO CONTIENE UN PRODUCTO
+     * @param id ID a buscar
+     * @return true si el ID está en el índice
+     */
+    public boolean contiene(int id) {
+        return buscarEnIndice(id) >= 0;
+    }
+
+    /**
+     * CONSTRUYE EL PRODUCTO CON EL ID INDICADO
+     * @param id ID del producto
+     * @return Producto nuevo leído del archivo, o null si el ID no está
+     * @throws IOException Si el registro está dañado
+     */
+    public ProductoLacteo obtener(int id) throws IOException {
+        int i = buscarEnIndice(id);
+        return i < 0 ? null : obtenerEn(i);
+    }
+
+    /**
+     * CONSTRUYE EL PRODUCTO EN UNA POSICIÓN DEL ÍNDICE
+     * @param i Posición entre 0 y cantidad() - 1
+     * @return Producto nuevo leído del archivo
+     * @throws IOException Si el registro está dañado
+     */
+    public ProductoLacteo obtenerEn(int i) throws IOException {
+        long posicion = mapa.getLong(posicionIndice + i * CodecProductos.TAMANO_ENTRADA_INDICE + 4);
+        DataInputStream in = new DataInputStream(new EntradaMapa(mapa, (int) posicion));
+        return CodecProductos.leerProducto(in, sabores);
+    }
+
+    /**
+     * Búsqueda binaria sobre el índice mapeado.
+     * @return Posición en el índice, o un número negativo si el ID no está
+     */
+    private int buscarEnIndice(int id) {
+        int bajo = 0;
+        int alto = cantidad - 1;
+        while (bajo <= alto) {
+            int medio = (bajo + alto) >>> 1;
+            int idMedio = idEn(medio);
+            if (idMedio < id) {
+                bajo = medio + 1;
+            } else if (idMedio > id) {
+                alto = medio - 1;
+            } else {
+                return medio;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Flujo de lectura sobre una copia independiente del mapa, para poder leer registros
+     * desde varios hilos sin compartir la posición.
+     */
+    private static final class EntradaMapa extends InputStream {
+        private final ByteBuffer datos;
+
+        EntradaMapa(ByteBuffer mapa, int desde) {
+            this.datos = mapa.duplicate();
+            this.datos.position(desde);
+        }
+
+        @Override
+        public int read() {
+            return datos.hasRemaining() ? datos.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] destino, int desde, int longitud) {
+            if (!datos.hasRemaining()) {
+                return -1;
+            }
+            int n = Math.min(longitud, datos.remaining());
+            datos.get(destino, desde, n);
+            return n;
+        }
+    }
+}
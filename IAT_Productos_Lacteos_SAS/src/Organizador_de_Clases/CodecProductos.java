@@ -0,0 +1,277 @@
+package Organizador_de_Clases;
+//Creamos el codificador binario con el que se guardan y cargan los productos
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * FORMATO BINARIO COMPACTO PARA EL ARCHIVO DE PRODUCTOS
+ *
+ * Reemplaza la serialización de Java (ObjectOutputStream) por un formato propio:
+ * 1. No guarda descriptores de clase, solo los datos de cada producto
+ * 2. Lleva un número de versión, así los cambios en las clases no rompen archivos viejos
+ * 3. Cada registro empieza con una etiqueta de tipo (Yogurt, Kumis, Producto con sabor)
+ * 4. Los sabores se guardan una sola vez en una tabla y los productos los referencian por índice
+ * 5. Al final hay un índice de tamaño fijo (ID, posición), ordenado por ID, para leer un
+ *    producto sin recorrer el archivo (ver {@link CatalogoMapeado})
+ *
+ * Estructura del archivo (versión 2):
+ *   int mágico "IATP" | int versión | int cantidad de sabores | sabores (UTF)
+ *   int cantidad de productos | registros ordenados por ID
+ *   índice: por cada producto, int id | long posición del registro
+ *   long posición del índice (últimos 8 bytes del archivo)
+ * Registro: byte tipo | int id | UTF nombre | int horas de fermentación
+ *   y, solo para productos con sabor: byte banderas (frutas, azúcar) | int cantidad | índices de sabores
+ * La versión 1 es igual pero sin índice; se sigue pudiendo leer.
+ */
+public final class CodecProductos {
+    /** Número mágico al inicio del archivo ("IATP") */
+    public static final int MAGICO = 0x49415450;
+
+    /** Versión actual del formato */
+    public static final int VERSION = 2;
+
+    // Primera versión del formato, sin índice al final
+    private static final int VERSION_SIN_INDICE = 1;
+
+    // Tamaño de cada entrada del índice: int id + long posición
+    static final int TAMANO_ENTRADA_INDICE = 12;
+
+    // Primeros bytes de un archivo escrito con ObjectOutputStream (formato anterior)
+    private static final int MAGICO_SERIALIZACION_JAVA = 0xACED0005;
+
+    // Etiquetas de tipo de cada registro
+    static final byte TIPO_YOGURT = 1;
+    static final byte TIPO_KUMIS = 2;
+    static final byte TIPO_CON_SABOR = 3;
+
+    // Banderas de los productos con sabor
+    private static final int BANDERA_FRUTAS = 1;
+    private static final int BANDERA_AZUCAR = 2;
+
+    private static final int TAMANO_BUFFER = 64 * 1024;
+
+    private CodecProductos() {
+    }
+
+    // ============ ESCRITURA ============
+
+    /**
+     * ESCRIBE TODOS LOS PRODUCTOS EN EL FORMATO BINARIO
+     * Los registros se escriben ordenados por ID, seguidos del índice.
+     * @param lista Lista de productos a guardar
+     * @param salida Flujo de destino (no se cierra)
+     * @throws IOException Si ocurre un error al escribir
+     */
+    public static void escribir(List<? extends ProductoLacteo> lista, OutputStream salida) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(salida, TAMANO_BUFFER));
+
+        List<ProductoLacteo> productos = new ArrayList<>(lista);
+        productos.sort(Comparator.comparingInt(ProductoLacteo::getId));
+
+        // Tabla de sabores: cada sabor distinto se escribe una sola vez
+        Map<String, Integer> tablaSabores = new HashMap<>();
+        List<String> sabores = new ArrayList<>();
+        for (ProductoLacteo p : productos) {
+            if (p instanceof ProductoLacteoConSabor) {
+                for (String sabor : ((ProductoLacteoConSabor) p).getSabores()) {
+                    if (tablaSabores.putIfAbsent(sabor, sabores.size()) == null) {
+                        sabores.add(sabor);
+                    }
+                }
+            }
+        }
+
+        out.writeInt(MAGICO);
+        out.writeInt(VERSION);
+        out.writeInt(sabores.size());
+        for (String sabor : sabores) {
+            out.writeUTF(sabor);
+        }
+
+        out.writeInt(productos.size());
+        long[] posiciones = new long[productos.size()];
+        for (int i = 0; i < posiciones.length; i++) {
+            posiciones[i] = posicionActual(out);
+            escribirProducto(out, productos.get(i), tablaSabores);
+        }
+
+        long posicionIndice = posicionActual(out);
+        for (int i = 0; i < posiciones.length; i++) {
+            out.writeInt(productos.get(i).getId());
+            out.writeLong(posiciones[i]);
+        }
+        out.writeLong(posicionIndice);
+        out.flush();
+    }
+
+    /**
+     * DataOutputStream cuenta los bytes en un int; más allá de 2 GB el contador se desborda.
+     */
+    private static long posicionActual(DataOutputStream out) throws IOException {
+        int escritos = out.size();
+        if (escritos < 0 || escritos == Integer.MAX_VALUE) {
+            throw new IOException("El archivo de productos supera el tamaño máximo de 2 GB");
+        }
+        return escritos;
+    }
+
+    /**
+     * ESCRIBE UN SOLO PRODUCTO
+     * @param out Flujo de destino
+     * @param p Producto a escribir
+     * @param tablaSabores Índice de cada sabor en la tabla del archivo,
+     *                     o null para escribir los sabores como texto (registro independiente)
+     * @throws IOException Si ocurre un error al escribir
+     */
+    static void escribirProducto(DataOutputStream out, ProductoLacteo p, Map<String, Integer> tablaSabores)
+            throws IOException {
+        if (p instanceof Yogurt) {
+            out.writeByte(TIPO_YOGURT);
+            escribirBase(out, p, ((Yogurt) p).getHorasFermentacion());
+        } else if (p instanceof Kumis) {
+            out.writeByte(TIPO_KUMIS);
+            escribirBase(out, p, ((Kumis) p).getHorasFermentacion());
+        } else if (p instanceof ProductoLacteoConSabor) {
+            ProductoLacteoConSabor ps = (ProductoLacteoConSabor) p;
+            out.writeByte(TIPO_CON_SABOR);
+            escribirBase(out, p, ps.getHorasFermentacion());
+            int banderas = (ps.tieneFrutas() ? BANDERA_FRUTAS : 0) | (ps.llevaAzucar() ? BANDERA_AZUCAR : 0);
+            out.writeByte(banderas);
+            String[] sabores = ps.getSabores();
+            out.writeInt(sabores.length);
+            for (String sabor : sabores) {
+                if (tablaSabores == null) {
+                    out.writeUTF(sabor);
+                } else {
+                    out.writeInt(tablaSabores.get(sabor));
+                }
+            }
+        } else {
+            throw new IOException("Tipo de producto no soportado: " + p.getClass().getName());
+        }
+    }
+
+    private static void escribirBase(DataOutputStream out, ProductoLacteo p, int horasFermentacion)
+            throws IOException {
+        out.writeInt(p.getId());
+        out.writeUTF(p.getNombre());
+        out.writeInt(horasFermentacion);
+    }
+
+    // ============ LECTURA ============
+
+    /**
+     * LEE TODOS LOS PRODUCTOS
+     * Acepta el formato binario y, para migrar datos existentes, el formato anterior
+     * escrito con ObjectOutputStream.
+     * @param entrada Flujo de origen (no se cierra)
+     * @return Lista de productos leídos
+     * @throws IOException Si el archivo está dañado o tiene una versión desconocida
+     */
+    public static ArrayList<ProductoLacteo> leer(InputStream entrada) throws IOException {
+        BufferedInputStream buffer = new BufferedInputStream(entrada, TAMANO_BUFFER);
+        DataInputStream in = new DataInputStream(buffer);
+
+        buffer.mark(4);
+        int magico = in.readInt();
+        if (magico == MAGICO_SERIALIZACION_JAVA) {
+            buffer.reset();
+            return leerSerializacionJava(buffer);
+        }
+        if (magico != MAGICO) {
+            throw new IOException("El archivo de productos no tiene un formato reconocido");
+        }
+
+        int version = in.readInt();
+        if (version != VERSION && version != VERSION_SIN_INDICE) {
+            throw new IOException("Versión de archivo de productos no soportada: " + version);
+        }
+
+        String[] sabores = leerTablaSabores(in);
+
+        // El índice del final solo sirve para el acceso directo; aquí se leen todos los registros
+        int total = in.readInt();
+        ArrayList<ProductoLacteo> productos = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            productos.add(leerProducto(in, sabores));
+        }
+        return productos;
+    }
+
+    /**
+     * LEE LA TABLA DE SABORES DEL INICIO DEL ARCHIVO
+     * @param in Flujo posicionado justo después de la versión
+     * @return Sabores en el orden en que los referencian los registros
+     * @throws IOException Si faltan datos
+     */
+    static String[] leerTablaSabores(DataInputStream in) throws IOException {
+        String[] sabores = new String[in.readInt()];
+        for (int i = 0; i < sabores.length; i++) {
+            // intern() comparte la misma instancia entre archivos y cargas sucesivas
+            sabores[i] = in.readUTF().intern();
+        }
+        return sabores;
+    }
+
+    /**
+     * LEE UN SOLO PRODUCTO
+     * @param in Flujo de origen
+     * @param sabores Tabla de sabores del archivo, o null si los sabores vienen como texto
+     * @return Producto leído con su ID asignado
+     * @throws IOException Si la etiqueta de tipo es desconocida o faltan datos
+     */
+    static ProductoLacteo leerProducto(DataInputStream in, String[] sabores) throws IOException {
+        byte tipo = in.readByte();
+        int id = in.readInt();
+        String nombre = in.readUTF();
+        int horas = in.readInt();
+
+        ProductoLacteo producto;
+        switch (tipo) {
+            case TIPO_YOGURT:
+                producto = new Yogurt(nombre, horas);
+                break;
+            case TIPO_KUMIS:
+                producto = new Kumis(nombre, horas);
+                break;
+            case TIPO_CON_SABOR:
+                int banderas = in.readByte();
+                String[] saboresProducto = new String[in.readInt()];
+                for (int j = 0; j < saboresProducto.length; j++) {
+                    saboresProducto[j] = sabores == null ? in.readUTF().intern() : sabores[in.readInt()];
+                }
+                producto = new ProductoLacteoConSabor(nombre, horas, saboresProducto,
+                        (banderas & BANDERA_FRUTAS) != 0, (banderas & BANDERA_AZUCAR) != 0);
+                break;
+            default:
+                throw new IOException("Tipo de producto desconocido en el archivo: " + tipo);
+        }
+        producto.setId(id);
+        return producto;
+    }
+
+    /**
+     * Lee un archivo escrito con la versión anterior del programa (ObjectOutputStream).
+     * Solo se usa para migrar: al guardar, los datos se escriben en el formato binario.
+     */
+    @SuppressWarnings("unchecked")
+    private static ArrayList<ProductoLacteo> leerSerializacionJava(InputStream entrada) throws IOException {
+        try {
+            return (ArrayList<ProductoLacteo>) new ObjectInputStream(entrada).readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("No se pudo leer el archivo de productos anterior: " + e.getMessage(), e);
+        }
+    }
+}
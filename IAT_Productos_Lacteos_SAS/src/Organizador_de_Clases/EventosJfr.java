@@ -0,0 +1,143 @@
+package Organizador_de_Clases;
+//Creamos los eventos de Java Flight Recorder de las operaciones con productos
+
+import java.lang.management.ManagementFactory;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * EVENTOS DE JAVA FLIGHT RECORDER DE PRODUCCIÓN
+ *
+ * Permiten ver en una grabación de JFR qué operación del negocio coincide con un pico de
+ * asignaciones o una pausa del recolector:
+ * 1. {@link EventoProductos}: cargar, guardar, eliminar, compactar y cerrar el repositorio
+ * 2. {@link EventoReporte}: escritura de los reportes TXT y CSV
+ * Cada evento lleva su duración, el número de productos y los bytes escritos o leídos.
+ *
+ * ENCENDER Y APAGAR
+ * Los eventos solo cuestan algo cuando una grabación activa los incluye, por ejemplo:
+ * <pre>
+ * java -XX:StartFlightRecording=filename=produccion.jfr Main
+ * </pre>
+ * Además se apagan con -Diat.jfr=false, con {@link #activar(boolean)} o, sin reiniciar, con el
+ * atributo Activos de "IAT.Produccion:type=EventosJfr" en JConsole.
+ */
+public final class EventosJfr {
+
+    private static volatile boolean activos = !"false".equals(System.getProperty("iat.jfr"));
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new Control(),
+                    new ObjectName("IAT.Produccion:type=EventosJfr"));
+        } catch (JMException e) {
+            // Sin JMX los eventos se siguen controlando con activar()
+            System.out.println("⚠ No se pudo publicar el control de eventos JFR por JMX: " + e.getMessage());
+        }
+    }
+
+    private EventosJfr() {
+    }
+
+    /**
+     * ENCIENDE O APAGA EL ENVÍO DE LOS EVENTOS A JFR
+     * @param valor true para enviarlos
+     */
+    public static void activar(boolean valor) {
+        activos = valor;
+    }
+
+    /**
+     * @return true si los eventos se envían a JFR
+     */
+    public static boolean estanActivos() {
+        return activos;
+    }
+
+    /**
+     * INDICA SI HAY QUE COMPLETAR Y GUARDAR EL EVENTO
+     * @param evento Evento ya iniciado con begin()
+     * @return true si los eventos están activos y una grabación lo pide
+     */
+    public static boolean debeRegistrar(Event evento) {
+        return activos && evento.shouldCommit();
+    }
+
+    /**
+     * OPERACIÓN DEL REPOSITORIO DE PRODUCTOS (SIN PILA DE LLAMADAS, SON MUY FRECUENTES)
+     */
+    @Name("IAT.Produccion.Productos")
+    @Label("Operación de productos")
+    @Category({"IAT", "Producción"})
+    @Description("Carga, cambio o guardado de productos en ProductoRepository")
+    @StackTrace(false)
+    public static final class EventoProductos extends Event {
+        @Label("Operación")
+        public String operacion;
+
+        @Label("ID")
+        @Description("ID del producto; 0 en las operaciones sobre todo el repositorio")
+        public int id;
+
+        @Label("Productos")
+        public long registros;
+
+        @Label("Bytes")
+        @Description("Bytes escritos o leídos en los archivos de datos")
+        @DataAmount
+        public long bytes;
+    }
+
+    /**
+     * ESCRITURA DE UN REPORTE DE PRODUCTOS
+     */
+    @Name("IAT.Produccion.Reporte")
+    @Label("Reporte de productos")
+    @Category({"IAT", "Producción"})
+    @Description("Escritura de un reporte de productos en texto o CSV")
+    public static final class EventoReporte extends Event {
+        @Label("Formato")
+        public String formato;
+
+        @Label("Archivo")
+        public String archivo;
+
+        @Label("Productos")
+        public long registros;
+
+        @Label("Bytes")
+        @DataAmount
+        public long bytes;
+
+        @Label("Correcto")
+        public boolean correcto;
+    }
+
+    /**
+     * VISTA JMX PARA ENCENDER O APAGAR LOS EVENTOS SIN REINICIAR
+     */
+    public interface ControlMXBean {
+        boolean isActivos();
+
+        void setActivos(boolean valor);
+    }
+
+    private static final class Control implements ControlMXBean {
+        @Override
+        public boolean isActivos() {
+            return activos;
+        }
+
+        @Override
+        public void setActivos(boolean valor) {
+            activos = valor;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package Organizador_de_Clases;
+//Creamos el histograma que guarda las latencias de las operaciones sin usar bloqueos
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * HISTOGRAMA DE LATENCIAS SIN BLOQUEOS
+ *
+ * 1. Los valores (en nanosegundos) se agrupan en cubetas log-lineales: 32 por cada potencia de
+ *    dos, así cualquier percentil tiene un error menor al 3,2% en microsegundos o en segundos
+ * 2. Registrar es un incremento atómico en un arreglo fijo; no se guardan las muestras
+ * 3. El total y la suma usan LongAdder y el máximo solo se escribe cuando crece, para que varios
+ *    hilos puedan registrar a la vez sin competir por la misma variable
+ */
+public final class HistogramaLatencia {
+
+    // 2^5 = 32 cubetas por potencia de dos
+    private static final int BITS_MANTISA = 5;
+    private static final int SUBCUBETAS = 1 << BITS_MANTISA;
+
+    // Cubetas para cubrir cualquier long positivo
+    private static final int CUBETAS = (64 - BITS_MANTISA) * SUBCUBETAS;
+
+    private final AtomicLongArray conteos = new AtomicLongArray(CUBETAS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder suma = new LongAdder();
+    private final AtomicLong maximo = new AtomicLong();
+
+    /**
+     * REGISTRA UNA MEDICIÓN
+     * @param nanos Duración en nanosegundos (los negativos cuentan como 0)
+     */
+    public void registrar(long nanos) {
+        long valor = Math.max(0, nanos);
+        conteos.incrementAndGet(cubeta(valor));
+        total.increment();
+        suma.add(valor);
+        if (valor > maximo.get()) {
+            maximo.accumulateAndGet(valor, Math::max);
+        }
+    }
+
+    /**
+     * @return Número de mediciones registradas
+     */
+    public long getTotal() {
+        return total.sum();
+    }
+
+    /**
+     * @return Mayor medición registrada, en nanosegundos
+     */
+    public long getMaximoNanos() {
+        return maximo.get();
+    }
+
+    /**
+     * @return Suma de todas las mediciones, en nanosegundos
+     */
+    public long getSumaNanos() {
+        return suma.sum();
+    }
+
+    /**
+     * @return Promedio de las mediciones en nanosegundos (0 si no hay)
+     */
+    public double getPromedioNanos() {
+        long n = total.sum();
+        return n == 0 ? 0 : (double) suma.sum() / n;
+    }
+
+    /**
+     * CALCULA UN PERCENTIL
+     * Devuelve el límite superior de la cubeta donde cae, así nunca subestima la latencia.
+     * @param percentil Percentil entre 0 y 100 (por ejemplo 99 o 99.9)
+     * @return Latencia en nanosegundos (0 si no hay mediciones)
+     */
+    public long percentilNanos(double percentil) {
+        if (percentil < 0 || percentil > 100) {
+            throw new IllegalArgumentException("El percentil debe estar entre 0 y 100: " + percentil);
+        }
+        long n = total.sum();
+        if (n == 0) {
+            return 0;
+        }
+        long objetivo = Math.max(1, (long) Math.ceil(n * percentil / 100.0));
+        long acumulado = 0;
+        for (int i = 0; i < CUBETAS; i++) {
+            acumulado += conteos.get(i);
+            if (acumulado >= objetivo) {
+                return Math.min(limiteSuperior(i), maximo.get());
+            }
+        }
+        // Se registraron valores mientras se recorría: el máximo es una cota segura
+        return maximo.get();
+    }
+
+    /**
+     * BORRA TODAS LAS MEDICIONES
+     * No es atómico respecto a registros simultáneos.
+     */
+    public void reiniciar() {
+        for (int i = 0; i < CUBETAS; i++) {
+            conteos.set(i, 0);
+        }
+        total.reset();
+        suma.reset();
+        maximo.set(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.US, "n=%d p50=%.3fms p90=%.3fms p99=%.3fms max=%.3fms",
+                getTotal(), percentilNanos(50) / 1e6, percentilNanos(90) / 1e6,
+                percentilNanos(99) / 1e6, getMaximoNanos() / 1e6);
+    }
+
+    // Los valores menores que 32 tienen su propia cubeta; los demás se agrupan por su bit más
+    // alto (exponente) y los 5 bits siguientes (mantisa)
+    private static int cubeta(long valor) {
+        if (valor < SUBCUBETAS) {
+            return (int) valor;
+        }
+        int exponente = 63 - Long.numberOfLeadingZeros(valor);
+        int mantisa = (int) (valor >>> (exponente - BITS_MANTISA)) & (SUBCUBETAS - 1);
+        return (exponente - BITS_MANTISA + 1) * SUBCUBETAS + mantisa;
+    }
+
+    // Mayor valor que cae en una cubeta
+    private static long limiteSuperior(int cubeta) {
+        if (cubeta < SUBCUBETAS) {
+            return cubeta;
+        }
+        int exponente = cubeta / SUBCUBETAS + BITS_MANTISA - 1;
+        long mantisa = SUBCUBETAS + cubeta % SUBCUBETAS;
+        int desplazamiento = exponente - BITS_MANTISA;
+        long inicio = mantisa << desplazamiento;
+        return inicio + (1L << desplazamiento) - 1;
+    }
+}
@@ -0,0 +1,288 @@
+package Organizador_de_Clases;
+//Creamos el registro de métricas de latencia de las operaciones con productos
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * MÉTRICAS DE LATENCIA DE LAS OPERACIONES (REPOSITORIO Y REPORTES)
+ *
+ * Cada operación cuenta sus llamadas y errores con LongAdder y guarda sus latencias en un
+ * {@link HistogramaLatencia}, sin bloqueos. Se pueden consultar de tres formas:
+ * 1. JMX: cada operación es un MXBean "IAT.Produccion:type=Operacion,name=..." (JConsole, VisualVM)
+ * 2. Texto en formato Prometheus con {@link #textoPrometheus()}
+ * 3. Un archivo .prom que se reescribe cada cierto tiempo con {@link #iniciarVolcado(Path, int)}
+ *
+ * USO EN EL CÓDIGO MEDIDO:
+ * <pre>
+ * long inicio = OPERACION.iniciar();
+ * try { ... } finally { OPERACION.terminar(inicio); }
+ * </pre>
+ * Las mediciones se pueden apagar con -Diat.metricas=false o {@link #activar(boolean)}.
+ */
+public final class Metricas {
+
+    private static final String DOMINIO_JMX = "IAT.Produccion";
+
+    // Operaciones por nombre, ordenadas para que el volcado sea estable
+    private static final Map<String, Operacion> OPERACIONES = new ConcurrentSkipListMap<>();
+
+    private static volatile boolean activas = !"false".equals(System.getProperty("iat.metricas"));
+
+    // Hilo del volcado periódico (null si no está activo)
+    private static ScheduledExecutorService volcado;
+    private static Path archivoVolcado;
+
+    private Metricas() {
+    }
+
+    /**
+     * OBTIENE (O CREA) LA OPERACIÓN CON ESE NOMBRE
+     * @param nombre Nombre en minúsculas con guiones bajos, por ejemplo "producto_guardar"
+     * @return Operación donde registrar las mediciones
+     */
+    public static Operacion operacion(String nombre) {
+        return OPERACIONES.computeIfAbsent(nombre, clave -> {
+            Operacion operacion = new Operacion(clave);
+            registrarJmx(operacion);
+            return operacion;
+        });
+    }
+
+    /**
+     * ENCIENDE O APAGA LAS MEDICIONES (LOS VALORES YA MEDIDOS SE CONSERVAN)
+     * @param valor true para medir
+     */
+    public static void activar(boolean valor) {
+        activas = valor;
+    }
+
+    /**
+     * @return true si se están tomando mediciones
+     */
+    public static boolean estanActivas() {
+        return activas;
+    }
+
+    /**
+     * ESCRIBE TODAS LAS OPERACIONES EN FORMATO DE TEXTO DE PROMETHEUS (SUMMARY, EN SEGUNDOS)
+     * @return Texto listo para servir o guardar
+     */
+    public static String textoPrometheus() {
+        StringBuilder texto = new StringBuilder(2048);
+        texto.append("# HELP iat_operacion_segundos Latencia de las operaciones de producción\n")
+                .append("# TYPE iat_operacion_segundos summary\n");
+        for (Operacion operacion : OPERACIONES.values()) {
+            HistogramaLatencia histograma = operacion.histograma;
+            for (double cuantil : new double[]{0.5, 0.9, 0.99}) {
+                texto.append("iat_operacion_segundos{operacion=\"").append(operacion.nombre)
+                        .append("\",quantile=\"").append(cuantil).append("\"} ")
+                        .append(segundos(histograma.percentilNanos(cuantil * 100))).append('\n');
+            }
+            texto.append("iat_operacion_segundos_sum{operacion=\"").append(operacion.nombre).append("\"} ")
+                    .append(segundos(histograma.getSumaNanos())).append('\n');
+            texto.append("iat_operacion_segundos_count{operacion=\"").append(operacion.nombre).append("\"} ")
+                    .append(operacion.solicitudes.sum()).append('\n');
+        }
+        texto.append("# HELP iat_operacion_errores_total Llamadas que terminaron con error\n")
+                .append("# TYPE iat_operacion_errores_total counter\n");
+        for (Operacion operacion : OPERACIONES.values()) {
+            texto.append("iat_operacion_errores_total{operacion=\"").append(operacion.nombre).append("\"} ")
+                    .append(operacion.errores.sum()).append('\n');
+        }
+        return texto.toString();
+    }
+
+    /**
+     * REESCRIBE EL ARCHIVO CON {@link #textoPrometheus()} CADA CIERTO TIEMPO
+     * El archivo se escribe aparte y luego se reemplaza: quien lo lee nunca ve uno a medias.
+     * @param archivo Archivo de destino (por ejemplo metricas.prom)
+     * @param segundos Intervalo entre volcados
+     */
+    public static synchronized void iniciarVolcado(Path archivo, int segundos) {
+        detenerVolcado();
+        archivoVolcado = archivo;
+        volcado = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "volcado-metricas");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        volcado.scheduleWithFixedDelay(() -> volcar(archivo), segundos, segundos, TimeUnit.SECONDS);
+    }
+
+    /**
+     * DETIENE EL VOLCADO PERIÓDICO Y ESCRIBE UNO ÚLTIMO CON LOS VALORES FINALES
+     */
+    public static synchronized void detenerVolcado() {
+        if (volcado == null) {
+            return;
+        }
+        volcado.shutdown();
+        try {
+            volcado.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        volcado = null;
+        volcar(archivoVolcado);
+    }
+
+    private static void volcar(Path archivo) {
+        Path temporal = archivo.resolveSibling(archivo.getFileName() + ".tmp");
+        try {
+            try (Writer writer = Files.newBufferedWriter(temporal, StandardCharsets.UTF_8)) {
+                writer.write(textoPrometheus());
+            }
+            Files.move(temporal, archivo, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Las métricas no detienen el programa; se intenta de nuevo en el próximo volcado
+            System.out.println("⚠ No se pudieron guardar las métricas: " + e.getMessage());
+        }
+    }
+
+    private static void registrarJmx(Operacion operacion) {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(operacion,
+                    new ObjectName(DOMINIO_JMX + ":type=Operacion,name=" + operacion.nombre));
+        } catch (JMException e) {
+            // Sin JMX las métricas siguen disponibles en texto
+            System.out.println("⚠ No se pudo publicar la métrica " + operacion.nombre + " por JMX: " + e.getMessage());
+        }
+    }
+
+    private static String segundos(double nanos) {
+        return String.format(Locale.US, "%.9f", nanos / 1e9);
+    }
+
+    /**
+     * VISTA JMX DE UNA OPERACIÓN (TIEMPOS EN MILISEGUNDOS)
+     */
+    public interface OperacionMXBean {
+        long getSolicitudes();
+
+        long getErrores();
+
+        double getPromedioMs();
+
+        double getP50Ms();
+
+        double getP90Ms();
+
+        double getP99Ms();
+
+        double getMaximoMs();
+
+        /** Borra las mediciones acumuladas */
+        void reiniciar();
+    }
+
+    /**
+     * OPERACIÓN MEDIDA: LLAMADAS, ERRORES Y LATENCIAS
+     */
+    public static final class Operacion implements OperacionMXBean {
+        private final String nombre;
+        private final LongAdder solicitudes = new LongAdder();
+        private final LongAdder errores = new LongAdder();
+        private final HistogramaLatencia histograma = new HistogramaLatencia();
+
+        private Operacion(String nombre) {
+            this.nombre = nombre;
+        }
+
+        /**
+         * MARCA EL INICIO DE UNA LLAMADA
+         * @return Valor para pasar a {@link #terminar(long)}; 0 si las métricas están apagadas
+         */
+        public long iniciar() {
+            if (!activas) {
+                return 0;
+            }
+            solicitudes.increment();
+            return System.nanoTime();
+        }
+
+        /**
+         * REGISTRA LA DURACIÓN DE UNA LLAMADA INICIADA CON {@link #iniciar()}
+         * @param inicio Valor devuelto por iniciar()
+         */
+        public void terminar(long inicio) {
+            if (inicio != 0) {
+                histograma.registrar(System.nanoTime() - inicio);
+            }
+        }
+
+        /**
+         * CUENTA UNA LLAMADA QUE TERMINÓ CON ERROR (SU DURACIÓN SE REGISTRA CON terminar)
+         */
+        public void error() {
+            if (activas) {
+                errores.increment();
+            }
+        }
+
+        public HistogramaLatencia getHistograma() {
+            return histograma;
+        }
+
+        @Override
+        public long getSolicitudes() {
+            return solicitudes.sum();
+        }
+
+        @Override
+        public long getErrores() {
+            return errores.sum();
+        }
+
+        @Override
+        public double getPromedioMs() {
+            return histograma.getPromedioNanos() / 1e6;
+        }
+
+        @Override
+        public double getP50Ms() {
+            return histograma.percentilNanos(50) / 1e6;
+        }
+
+        @Override
+        public double getP90Ms() {
+            return histograma.percentilNanos(90) / 1e6;
+        }
+
+        @Override
+        public double getP99Ms() {
+            return histograma.percentilNanos(99) / 1e6;
+        }
+
+        @Override
+        public double getMaximoMs() {
+            return histograma.getMaximoNanos() / 1e6;
+        }
+
+        @Override
+        public void reiniciar() {
+            solicitudes.reset();
+            errores.reset();
+            histograma.reiniciar();
+        }
+
+        @Override
+        public String toString() {
+            return nombre + " solicitudes=" + solicitudes.sum() + " errores=" + errores.sum() + " " + histograma;
+        }
+    }
+}
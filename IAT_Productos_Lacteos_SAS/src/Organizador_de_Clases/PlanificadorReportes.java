@@ -0,0 +1,243 @@
+package Organizador_de_Clases;
+//Creamos el planificador que genera los reportes en segundo plano
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * PLANIFICADOR DE REPORTES EN SEGUNDO PLANO
+ *
+ * Permite seguir usando el menú mientras se escriben reportes grandes:
+ * 1. Cada reporte es un trabajo con un número; los trabajos esperan en una cola limitada y los
+ *    escriben pocos hilos, para no saturar el disco
+ * 2. Al empezar, el trabajo toma una instantánea del repositorio
+ *    ({@link ProductoRepository#instantanea()}): el reporte muestra los productos de ese momento
+ *    aunque se sigan creando o modificando mientras se escribe
+ * 3. Se puede consultar el avance (productos escritos) y cancelar un trabajo; si se cancela a
+ *    medias, el archivo incompleto se borra
+ */
+public class PlanificadorReportes {
+
+    /** FORMATOS DE REPORTE DISPONIBLES */
+    public enum Formato { TEXTO, CSV }
+
+    /** ESTADOS POR LOS QUE PASA UN TRABAJO */
+    public enum Estado { EN_COLA, EN_CURSO, TERMINADO, FALLIDO, CANCELADO }
+
+    private final ProductoRepository repositorio;
+    private final String carpetaReportes;
+    private final ThreadPoolExecutor hilos;
+
+    // Trabajos por número, en orden de creación
+    private final Map<Integer, Trabajo> trabajos = new ConcurrentSkipListMap<>();
+    private final AtomicInteger siguienteId = new AtomicInteger(1);
+
+    /**
+     * CREA EL PLANIFICADOR
+     * @param repositorio Repositorio del que se toman los productos
+     * @param carpetaReportes Carpeta donde se crean los reportes
+     * @param hilosTrabajo Reportes que se escriben a la vez
+     * @param capacidadCola Trabajos que pueden esperar; al superarla se rechazan nuevos
+     */
+    public PlanificadorReportes(ProductoRepository repositorio, String carpetaReportes,
+                                int hilosTrabajo, int capacidadCola) {
+        this.repositorio = repositorio;
+        this.carpetaReportes = carpetaReportes;
+        AtomicInteger numeroHilo = new AtomicInteger();
+        this.hilos = new ThreadPoolExecutor(hilosTrabajo, hilosTrabajo, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(capacidadCola), tarea -> {
+                    Thread hilo = new Thread(tarea, "reportes-productos-" + numeroHilo.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                });
+    }
+
+    /**
+     * PROGRAMA UN REPORTE Y VUELVE DE INMEDIATO
+     * @param formato Texto o CSV
+     * @return Trabajo creado, para consultar su avance o cancelarlo
+     * @throws IllegalStateException Si la cola de trabajos está llena
+     */
+    public Trabajo programar(Formato formato) {
+        File archivo = formato == Formato.CSV
+                ? ReporteProductos.archivoCSV(carpetaReportes)
+                : ReporteProductos.archivoTexto(carpetaReportes);
+        Trabajo trabajo = new Trabajo(siguienteId.getAndIncrement(), formato, archivo);
+        trabajos.put(trabajo.id, trabajo);
+        try {
+            trabajo.futuro = hilos.submit(() -> ejecutar(trabajo));
+        } catch (RejectedExecutionException e) {
+            trabajos.remove(trabajo.id);
+            throw new IllegalStateException("Hay demasiados reportes en cola; intente más tarde");
+        }
+        return trabajo;
+    }
+
+    private void ejecutar(Trabajo trabajo) {
+        if (trabajo.cancelado) {
+            trabajo.estado = Estado.CANCELADO;
+            return;
+        }
+        trabajo.estado = Estado.EN_CURSO;
+        try {
+            List<ProductoLacteo> productos = repositorio.instantanea();
+            trabajo.total = productos.size();
+            List<ProductoLacteo> conAvance = new ListaConAvance(productos, trabajo);
+            if (trabajo.formato == Formato.CSV) {
+                ReporteProductos.escribirCSV(conAvance, trabajo.archivo);
+            } else {
+                ReporteProductos.escribirTexto(conAvance, trabajo.archivo);
+            }
+            trabajo.estado = Estado.TERMINADO;
+        } catch (CancellationException e) {
+            trabajo.archivo.delete();
+            trabajo.estado = Estado.CANCELADO;
+        } catch (IOException | UncheckedIOException e) {
+            trabajo.error = e.getMessage();
+            trabajo.estado = Estado.FALLIDO;
+        }
+    }
+
+    /**
+     * CANCELA UN TRABAJO EN COLA O EN CURSO
+     * @param id Número del trabajo
+     * @return true si el trabajo existía y aún no había terminado
+     */
+    public boolean cancelar(int id) {
+        Trabajo trabajo = trabajos.get(id);
+        if (trabajo == null || trabajo.estaTerminado()) {
+            return false;
+        }
+        trabajo.cancelado = true;
+        // Uno que ya empezó se detiene al escribir el siguiente producto
+        if (trabajo.estado == Estado.EN_COLA && trabajo.futuro != null && trabajo.futuro.cancel(false)) {
+            trabajo.estado = Estado.CANCELADO;
+            hilos.remove((Runnable) trabajo.futuro);
+        }
+        return true;
+    }
+
+    /**
+     * @return Trabajos de la sesión en orden de creación
+     */
+    public List<Trabajo> listarTrabajos() {
+        return new ArrayList<>(trabajos.values());
+    }
+
+    /**
+     * NO ACEPTA MÁS TRABAJOS Y ESPERA A QUE TERMINEN LOS PROGRAMADOS
+     * @param segundosEspera Tiempo máximo de espera
+     * @return true si todos terminaron a tiempo
+     */
+    public boolean cerrar(int segundosEspera) {
+        hilos.shutdown();
+        try {
+            return hilos.awaitTermination(segundosEspera, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    // ============ TRABAJOS ============
+
+    /**
+     * REPORTE PROGRAMADO CON SU ESTADO Y AVANCE
+     */
+    public static final class Trabajo {
+        private final int id;
+        private final Formato formato;
+        private final File archivo;
+
+        // Lo escribe solo el hilo del trabajo; se leen desde el menú
+        private volatile int total;
+        private volatile int escritos;
+        private volatile Estado estado = Estado.EN_COLA;
+        private volatile String error;
+        private volatile boolean cancelado;
+        private volatile Future<?> futuro;
+
+        Trabajo(int id, Formato formato, File archivo) {
+            this.id = id;
+            this.formato = formato;
+            this.archivo = archivo;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        public File getArchivo() {
+            return archivo;
+        }
+
+        public Estado getEstado() {
+            return estado;
+        }
+
+        /**
+         * @return Porcentaje de productos escritos
+         */
+        public int getPorcentaje() {
+            if (estado == Estado.TERMINADO) {
+                return 100;
+            }
+            int totalActual = total;
+            return totalActual == 0 ? 0 : (int) Math.min(99, (long) escritos * 100 / totalActual);
+        }
+
+        public boolean estaTerminado() {
+            Estado actual = estado;
+            return actual == Estado.TERMINADO || actual == Estado.FALLIDO || actual == Estado.CANCELADO;
+        }
+
+        @Override
+        public String toString() {
+            String texto = "#" + id + " " + formato + " " + archivo.getName() + " - " + estado
+                    + " (" + getPorcentaje() + "%, " + escritos + " de " + total + " productos)";
+            return error == null ? texto : texto + ": " + error;
+        }
+    }
+
+    /**
+     * Vista de la instantánea que cuenta cada producto leído y corta el recorrido si el trabajo
+     * se canceló.
+     */
+    private static final class ListaConAvance extends AbstractList<ProductoLacteo> implements RandomAccess {
+        private final List<ProductoLacteo> productos;
+        private final Trabajo trabajo;
+
+        ListaConAvance(List<ProductoLacteo> productos, Trabajo trabajo) {
+            this.productos = productos;
+            this.trabajo = trabajo;
+        }
+
+        @Override
+        public ProductoLacteo get(int indice) {
+            if (trabajo.cancelado) {
+                throw new CancellationException("Reporte cancelado");
+            }
+            trabajo.escritos = indice + 1;
+            return productos.get(indice);
+        }
+
+        @Override
+        public int size() {
+            return productos.size();
+        }
+    }
+}
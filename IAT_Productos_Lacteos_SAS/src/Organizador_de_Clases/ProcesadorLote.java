@@ -0,0 +1,227 @@
+package Organizador_de_Clases;
+//Creamos la clase que ejecuta operaciones de productos leídas de un archivo, sin el menú
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * PROCESADOR DE OPERACIONES POR LOTES
+ *
+ * Ejecuta sobre el repositorio las operaciones de un guion, una por línea, sin preguntar nada
+ * ni mostrar cada producto. Está pensado para las cargas nocturnas de miles de productos.
+ *
+ * FORMATO DEL GUION (campos separados por punto y coma)
+ * <pre>
+ * crear;yogurt;Nombre;horas
+ * crear;kumis;Nombre;horas
+ * crear;consabor;Nombre;horas;sabor1,sabor2;frutas (s/n);azúcar (s/n)
+ * actualizar;ID;tipo;...                (mismos campos que crear)
+ * eliminar;ID
+ * reporte;txt                           (o reporte;csv)
+ * </pre>
+ * Las líneas vacías y las que empiezan con # se ignoran. Una línea con errores no detiene el
+ * lote: se anota con su número y se sigue con la siguiente.
+ *
+ * Todo el lote se guarda con una sola sincronización del diario al final
+ * ({@link ProductoRepository#iniciarLote()}).
+ */
+public class ProcesadorLote {
+    // Máximo de errores que se guardan con su detalle (los demás solo se cuentan)
+    private static final int MAX_ERRORES_DETALLADOS = 100;
+
+    // Mismo límite de horas de fermentación que el menú interactivo
+    private static final int MAX_HORAS = 72;
+
+    private final ProductoRepository repositorio;
+    private final String carpetaReportes;
+
+    /**
+     * @param repositorio Repositorio donde se aplican las operaciones
+     * @param carpetaReportes Carpeta donde se crean los reportes
+     */
+    public ProcesadorLote(ProductoRepository repositorio, String carpetaReportes) {
+        this.repositorio = repositorio;
+        this.carpetaReportes = carpetaReportes;
+    }
+
+    /**
+     * EJECUTA TODAS LAS OPERACIONES DEL GUION
+     * @param guion Origen de las líneas (archivo o entrada estándar)
+     * @return Resumen con lo realizado y los errores por línea
+     * @throws IOException Si no se puede leer el guion o guardar el diario
+     */
+    public Resumen ejecutar(Reader guion) throws IOException {
+        Resumen resumen = new Resumen();
+        BufferedReader lector = guion instanceof BufferedReader
+                ? (BufferedReader) guion : new BufferedReader(guion, 64 * 1024);
+
+        repositorio.iniciarLote();
+        try {
+            String linea;
+            int numero = 0;
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                linea = linea.trim();
+                if (linea.isEmpty() || linea.startsWith("#")) {
+                    continue;
+                }
+                try {
+                    ejecutarLinea(linea.split(";", -1), resumen);
+                } catch (IllegalArgumentException e) {
+                    resumen.anotarError(numero, e.getMessage());
+                }
+            }
+        } finally {
+            repositorio.terminarLote();
+        }
+        return resumen;
+    }
+
+    private void ejecutarLinea(String[] campos, Resumen resumen) throws IOException {
+        switch (campos[0].trim().toLowerCase(Locale.ROOT)) {
+            case "crear":
+                repositorio.crear(construirProducto(campos, 1));
+                resumen.creados++;
+                break;
+            case "actualizar": {
+                int id = leerEntero(campo(campos, 1, "ID"), "ID", 1, Integer.MAX_VALUE);
+                if (!repositorio.actualizar(id, construirProducto(campos, 2))) {
+                    throw new IllegalArgumentException("No existe el producto con ID " + id);
+                }
+                resumen.actualizados++;
+                break;
+            }
+            case "eliminar": {
+                int id = leerEntero(campo(campos, 1, "ID"), "ID", 1, Integer.MAX_VALUE);
+                if (!repositorio.eliminar(id)) {
+                    throw new IllegalArgumentException("No existe el producto con ID " + id);
+                }
+                resumen.eliminados++;
+                break;
+            }
+            case "reporte": {
+                String formato = campo(campos, 1, "formato").toLowerCase(Locale.ROOT);
+                File archivo;
+                if (formato.equals("txt")) {
+                    archivo = ReporteProductos.generarTexto(repositorio.listar(), carpetaReportes);
+                } else if (formato.equals("csv")) {
+                    archivo = ReporteProductos.generarCSV(repositorio.listar(), carpetaReportes);
+                } else {
+                    throw new IllegalArgumentException("Formato de reporte desconocido: " + formato + " (use txt o csv)");
+                }
+                resumen.reportes.add(archivo);
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Operación desconocida: " + campos[0]);
+        }
+    }
+
+    /**
+     * Construye el producto a partir de los campos que empiezan en la posición del tipo.
+     */
+    private static ProductoLacteo construirProducto(String[] campos, int inicio) {
+        String tipo = campo(campos, inicio, "tipo").toLowerCase(Locale.ROOT);
+        String nombre = campo(campos, inicio + 1, "nombre");
+        int horas = leerEntero(campo(campos, inicio + 2, "horas"), "Horas de fermentación", 0, MAX_HORAS);
+        switch (tipo) {
+            case "yogurt":
+                return new Yogurt(nombre, horas);
+            case "kumis":
+                return new Kumis(nombre, horas);
+            case "consabor": {
+                String[] sabores = campo(campos, inicio + 3, "sabores").split(",");
+                for (int i = 0; i < sabores.length; i++) {
+                    sabores[i] = sabores[i].trim();
+                }
+                boolean frutas = campo(campos, inicio + 4, "frutas").equalsIgnoreCase("s");
+                boolean azucar = campo(campos, inicio + 5, "azúcar").equalsIgnoreCase("s");
+                return new ProductoLacteoConSabor(nombre, horas, sabores, frutas, azucar);
+            }
+            default:
+                throw new IllegalArgumentException("Tipo de producto desconocido: " + tipo + " (use yogurt, kumis o consabor)");
+        }
+    }
+
+    private static String campo(String[] campos, int posicion, String nombre) {
+        if (posicion >= campos.length || campos[posicion].trim().isEmpty()) {
+            throw new IllegalArgumentException("Falta el campo " + nombre);
+        }
+        return campos[posicion].trim();
+    }
+
+    private static int leerEntero(String texto, String nombre, int min, int max) {
+        int valor;
+        try {
+            valor = Integer.parseInt(texto);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(nombre + " no es un número: " + texto);
+        }
+        if (valor < min || valor > max) {
+            throw new IllegalArgumentException(nombre + " debe estar entre " + min + " y " + max + ": " + valor);
+        }
+        return valor;
+    }
+
+    // ============ RESUMEN ============
+
+    /**
+     * RESULTADO DE UN LOTE
+     */
+    public static final class Resumen {
+        private int creados;
+        private int actualizados;
+        private int eliminados;
+        private int totalErrores;
+        private final List<File> reportes = new ArrayList<>();
+        private final List<String> errores = new ArrayList<>();
+
+        private void anotarError(int linea, String motivo) {
+            totalErrores++;
+            if (errores.size() < MAX_ERRORES_DETALLADOS) {
+                errores.add("Línea " + linea + ": " + motivo);
+            }
+        }
+
+        public int getCreados() {
+            return creados;
+        }
+
+        public int getActualizados() {
+            return actualizados;
+        }
+
+        public int getEliminados() {
+            return eliminados;
+        }
+
+        public int getTotalErrores() {
+            return totalErrores;
+        }
+
+        /**
+         * @return Reportes generados, en el orden del guion
+         */
+        public List<File> getReportes() {
+            return reportes;
+        }
+
+        /**
+         * @return Detalle de los primeros errores ("Línea N: motivo")
+         */
+        public List<String> getErrores() {
+            return errores;
+        }
+
+        @Override
+        public String toString() {
+            return "Creados: " + creados + ", actualizados: " + actualizados + ", eliminados: " + eliminados
+                    + ", reportes: " + reportes.size() + ", líneas con error: " + totalErrores;
+        }
+    }
+}
@@ -0,0 +1,1015 @@
+package Organizador_de_Clases;
+//Creamos el repositorio que guarda los productos en disco operación por operación
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * REPOSITORIO DE PRODUCTOS CON DIARIO (JOURNAL)
+ *
+ * En lugar de reescribir todos los productos al salir, cada operación (crear, actualizar,
+ * eliminar) agrega un solo registro al final del diario "productos.dat.journal":
+ * 1. Los registros se fuerzan a disco por lotes: al juntar varios pendientes o, como máximo,
+ *    unos milisegundos después de escribirlos
+ * 2. Un compactador en segundo plano vuelca el estado actual en un archivo base nuevo
+ *    (formato de {@link CodecProductos}) y deja en el diario solo lo escrito después
+ * 3. Al abrir, el archivo base se mapea en memoria ({@link CatalogoMapeado}) y se vuelven a
+ *    aplicar los registros del diario; los productos del archivo base se construyen solo
+ *    cuando se consultan
+ *
+ * GENERACIONES DEL ARCHIVO BASE
+ * Cada compactación escribe el archivo base con un número de generación nuevo
+ * ("productos.dat.1", "productos.dat.2", ...) en lugar de reemplazar el anterior: el archivo
+ * vigente está mapeado en memoria y en Windows no se puede reemplazar ni borrar mientras lo
+ * esté. Al abrir se usa la generación más alta y se borran las anteriores; "productos.dat" sin
+ * número es el archivo de versiones anteriores del programa. Un archivo base sin índice (formato
+ * antiguo) se lee completo una sola vez y se convierte al abrir, así los arranques siguientes ya
+ * lo mapean.
+ * Después de cada renombrado se sincroniza la carpeta, porque el nombre de un archivo vive en
+ * ella y no en el archivo: la base nueva llega al disco antes de acortar el diario, y el diario
+ * nuevo antes de recibir escrituras o de borrar la base anterior.
+ *
+ * Cada registro lleva su longitud y un CRC32C; un registro incompleto al final (por una caída)
+ * se descarta. Si una escritura falla a medias, el diario se recorta hasta el último registro
+ * completo, para que los siguientes no queden detrás de uno dañado; si no se puede recortar, el
+ * repositorio rechaza las escrituras siguientes. Los registros fijan el estado completo de un producto, así que aplicar de nuevo
+ * registros ya incluidos en el archivo base deja el mismo resultado.
+ *
+ * ACCESO CONCURRENTE
+ * Varios clientes de planta pueden usar el mismo repositorio:
+ * 1. Las lecturas (buscar, listar, cantidad) no toman ningún bloqueo: los cambios viven en un
+ *    ConcurrentHashMap (acceso O(1) por ID) y el archivo base mapeado nunca se modifica
+ * 2. Las escrituras se ejecutan de una en una porque todas agregan al mismo diario
+ * 3. Los IDs salen de una secuencia atómica
+ * 4. Cada producto tiene una versión que cambia con cada escritura; actualizar indicando la
+ *    versión leída solo tiene éxito si nadie lo modificó entretanto (actualización optimista)
+ *
+ * CARGAS MASIVAS
+ * Entre {@link #iniciarLote()} y {@link #terminarLote()} los registros se acumulan en memoria y
+ * se escriben en bloques grandes, sin sincronizar ni compactar hasta el final: el lote completo
+ * queda en disco con una sola sincronización. Si el programa se cae a mitad del lote, puede
+ * perderse la parte que aún no se había escrito.
+ */
+public class ProductoRepository {
+    // Registros pendientes a partir de los cuales se fuerza el diario a disco de inmediato
+    private static final int LOTE_SINCRONIZACION = 32;
+
+    // Intervalo máximo entre una escritura y su sincronización a disco
+    private static final long MILISEGUNDOS_SINCRONIZACION = 100;
+
+    // Registros en el diario a partir de los cuales el compactador reescribe el archivo base
+    private static final int REGISTROS_PARA_COMPACTAR = 1_000;
+
+    // Frecuencia con la que el compactador revisa el diario
+    private static final long SEGUNDOS_COMPACTACION = 5;
+
+    // Tamaño del bloque en que se escriben los registros durante un lote
+    private static final int TAMANO_BLOQUE_LOTE = 1 << 20;
+
+    private static final byte OP_GUARDAR = 1;
+    private static final byte OP_ELIMINAR = 2;
+
+    // Duración y errores de las operaciones del repositorio (ver Metricas)
+    private static final Metricas.Operacion METRICA_ABRIR = Metricas.operacion("productos_abrir");
+    private static final Metricas.Operacion METRICA_GUARDAR = Metricas.operacion("producto_guardar");
+    private static final Metricas.Operacion METRICA_ELIMINAR = Metricas.operacion("producto_eliminar");
+    private static final Metricas.Operacion METRICA_INSTANTANEA = Metricas.operacion("productos_instantanea");
+    private static final Metricas.Operacion METRICA_COMPACTAR = Metricas.operacion("productos_compactar");
+    private static final Metricas.Operacion METRICA_SINCRONIZAR = Metricas.operacion("productos_sincronizar");
+    private static final Metricas.Operacion METRICA_CERRAR = Metricas.operacion("productos_cerrar");
+
+    private final Path archivoBase;
+    private final Path archivoDiario;
+
+    // Generación del archivo base vigente (0 = archivoBase sin número o sin archivo base)
+    private long generacionBase;
+
+    // Archivo base vigente junto con la versión de sus productos; se reemplaza completo al compactar
+    private volatile Base base = new Base(null, 0);
+
+    // Productos ya construidos o modificados desde el archivo base, por ID.
+    // Un registro sin producto marca un ID del archivo base que fue eliminado.
+    private final ConcurrentHashMap<Integer, Registro> cambios = new ConcurrentHashMap<>();
+
+    private volatile int cantidad;
+    private final AtomicInteger contadorId = new AtomicInteger(1);
+
+    // Fuente de las versiones: cada escritura y cada archivo base nuevo toman el siguiente número
+    private final AtomicLong secuenciaVersion = new AtomicLong();
+
+    // Diario abierto al final y estado de sincronización
+    private FileChannel diario;
+    private int registrosEnDiario;
+    private int registrosPendientes;
+
+    // Error que dejó el diario inutilizable (un registro a medias que no se pudo recortar, o un
+    // diario nuevo cuyo nombre no se pudo sincronizar); null si el diario está bien
+    private IOException fallo;
+
+    // Último error de la sincronización o la compactación en segundo plano; null si no ha habido
+    private volatile IOException errorSegundoPlano;
+
+    private final ByteArrayOutputStream bufferRegistro = new ByteArrayOutputStream(256);
+    private final DataOutputStream salidaRegistro = new DataOutputStream(bufferRegistro);
+    private final CRC32C crc = new CRC32C();
+
+    // Registros del lote en curso que aún no se escriben en el diario; null fuera de un lote
+    private ByteBuffer bloqueLote;
+
+    private final ScheduledExecutorService segundoPlano;
+
+    /**
+     * ABRE EL REPOSITORIO Y RECUPERA LOS PRODUCTOS GUARDADOS
+     * @param rutaArchivoBase Ruta del archivo de productos (el diario se guarda a su lado)
+     * @throws IOException Si los datos existentes no se pueden leer
+     */
+    public ProductoRepository(String rutaArchivoBase) throws IOException {
+        this.archivoBase = Paths.get(rutaArchivoBase);
+        this.archivoDiario = Paths.get(rutaArchivoBase + ".journal");
+
+        long inicio = METRICA_ABRIR.iniciar();
+        EventosJfr.EventoProductos evento = new EventosJfr.EventoProductos();
+        evento.begin();
+        boolean formatoSinIndice;
+        try {
+            formatoSinIndice = cargarArchivoBase();
+            long posicionValida = reproducirDiario();
+            diario = FileChannel.open(archivoDiario, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            diario.truncate(posicionValida);
+            diario.position(posicionValida);
+            // Si el diario se acaba de crear, su nombre debe llegar al disco con los registros
+            sincronizarDirectorio();
+            Path baseVigente = rutaGeneracion(generacionBase);
+            long bytesBase = Files.exists(baseVigente) ? Files.size(baseVigente) : 0;
+            registrarEvento(evento, "cargar", 0, cantidad, bytesBase + posicionValida);
+        } catch (IOException e) {
+            METRICA_ABRIR.error();
+            throw e;
+        } finally {
+            METRICA_ABRIR.terminar(inicio);
+        }
+
+        if (formatoSinIndice) {
+            // Se escribe ya el archivo base con índice: así solo este arranque lee todo el archivo
+            compactarDesde(null, new TreeMap<>(cambios), diario.position());
+        }
+
+        segundoPlano = Executors.newSingleThreadScheduledExecutor(tarea -> {
+            Thread hilo = new Thread(tarea, "compactador-productos");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        segundoPlano.scheduleWithFixedDelay(this::sincronizarPendientes,
+                MILISEGUNDOS_SINCRONIZACION, MILISEGUNDOS_SINCRONIZACION, TimeUnit.MILLISECONDS);
+        segundoPlano.scheduleWithFixedDelay(this::compactarSiEsNecesario,
+                SEGUNDOS_COMPACTACION, SEGUNDOS_COMPACTACION, TimeUnit.SECONDS);
+    }
+
+    // ============ OPERACIONES CRUD ============
+
+    /**
+     * CREA UN PRODUCTO ASIGNÁNDOLE EL SIGUIENTE ID
+     * @param producto Producto nuevo (su ID se reemplaza)
+     * @throws IOException Si no se puede escribir el registro en el diario
+     */
+    public synchronized void crear(ProductoLacteo producto) throws IOException {
+        long inicio = METRICA_GUARDAR.iniciar();
+        EventosJfr.EventoProductos evento = new EventosJfr.EventoProductos();
+        evento.begin();
+        try {
+            producto.setId(contadorId.get());
+            int bytes = escribirRegistro(OP_GUARDAR, producto.getId(), producto);
+            aplicarGuardar(producto);
+            registrarEvento(evento, "crear", producto.getId(), 1, bytes);
+        } catch (IOException e) {
+            METRICA_GUARDAR.error();
+            throw e;
+        } finally {
+            METRICA_GUARDAR.terminar(inicio);
+        }
+    }
+
+    /**
+     * REEMPLAZA UN PRODUCTO EXISTENTE CONSERVANDO SU ID
+     * @param id ID del producto a reemplazar
+     * @param actualizado Nuevos datos del producto
+     * @return true si el producto existía
+     * @throws IOException Si no se puede escribir el registro en el diario
+     */
+    public synchronized boolean actualizar(int id, ProductoLacteo actualizado) throws IOException {
+        if (!existe(id)) {
+            return false;
+        }
+        guardarExistente(id, actualizado);
+        return true;
+    }
+
+    /**
+     * REEMPLAZA UN PRODUCTO SOLO SI NO CAMBIÓ DESDE QUE SE LEYÓ (ACTUALIZACIÓN OPTIMISTA)
+     * Pensado para clientes que muestran el producto, esperan a que el usuario lo edite y luego
+     * guardan: si otro cliente lo modificó o eliminó entretanto, no se pisa su cambio.
+     * @param id ID del producto a reemplazar
+     * @param actualizado Nuevos datos del producto
+     * @param versionLeida Versión obtenida con {@link #buscarConVersion(int)}
+     * @return true si se actualizó; false si el producto ya no existe o su versión cambió
+     * @throws IOException Si no se puede escribir el registro en el diario
+     */
+    public synchronized boolean actualizar(int id, ProductoLacteo actualizado, long versionLeida) throws IOException {
+        Registro actual = buscarRegistro(id);
+        if (actual == null || actual.version != versionLeida) {
+            return false;
+        }
+        guardarExistente(id, actualizado);
+        return true;
+    }
+
+    /**
+     * ELIMINA UN PRODUCTO
+     * @param id ID del producto a eliminar
+     * @return true si el producto existía
+     * @throws IOException Si no se puede escribir el registro en el diario
+     */
+    public synchronized boolean eliminar(int id) throws IOException {
+        if (!existe(id)) {
+            return false;
+        }
+        long inicio = METRICA_ELIMINAR.iniciar();
+        EventosJfr.EventoProductos evento = new EventosJfr.EventoProductos();
+        evento.begin();
+        try {
+            int bytes = escribirRegistro(OP_ELIMINAR, id, null);
+            aplicarEliminar(id);
+            registrarEvento(evento, "eliminar", id, 1, bytes);
+        } catch (IOException e) {
+            METRICA_ELIMINAR.error();
+            throw e;
+        } finally {
+            METRICA_ELIMINAR.terminar(inicio);
+        }
+        return true;
+    }
+
+    // Escribe y aplica el reemplazo de un producto que ya se comprobó que existe
+    private void guardarExistente(int id, ProductoLacteo actualizado) throws IOException {
+        long inicio = METRICA_GUARDAR.iniciar();
+        EventosJfr.EventoProductos evento = new EventosJfr.EventoProductos();
+        evento.begin();
+        try {
+            actualizado.setId(id);
+            int bytes = escribirRegistro(OP_GUARDAR, id, actualizado);
+            aplicarGuardar(actualizado);
+            registrarEvento(evento, "actualizar", id, 1, bytes);
+        } catch (IOException e) {
+            METRICA_GUARDAR.error();
+            throw e;
+        } finally {
+            METRICA_GUARDAR.terminar(inicio);
+        }
+    }
+
+    /**
+     * BUSCA UN PRODUCTO POR SU ID
+     * Si el producto solo está en el archivo base, se construye en este momento.
+     * No toma ningún bloqueo.
+     * @param id ID del producto
+     * @return Producto o null si no existe
+     */
+    public ProductoLacteo buscarPorId(int id) {
+        Registro registro = buscarRegistro(id);
+        return registro == null ? null : registro.producto;
+    }
+
+    /**
+     * BUSCA UN PRODUCTO JUNTO CON SU VERSIÓN ACTUAL
+     * @param id ID del producto
+     * @return Producto y versión, o null si no existe
+     */
+    public Registro buscarConVersion(int id) {
+        return buscarRegistro(id);
+    }
+
+    /**
+     * OBTIENE UNA COPIA DE LOS PRODUCTOS ORDENADOS POR ID
+     * No bloquea a los demás clientes; refleja cada producto tal como estaba al recorrerlo.
+     * @return Lista nueva con los productos
+     */
+    public List<ProductoLacteo> listar() {
+        // Primero los cambios y luego la base: al compactar se publica la base nueva antes de
+        // quitar los cambios que ya incluye, así ningún producto se pierde entre ambas lecturas
+        TreeMap<Integer, Registro> copiaCambios = new TreeMap<>(cambios);
+        return combinar(base.catalogo, copiaCambios);
+    }
+
+    /**
+     * OBTIENE LOS PRODUCTOS EXACTAMENTE COMO ESTÁN EN ESTE MOMENTO
+     * A diferencia de {@link #listar()}, detiene las escrituras mientras copia, así la lista no
+     * mezcla productos de antes y de después de una operación. Pensado para reportes.
+     * @return Lista nueva con los productos ordenados por ID
+     */
+    public synchronized List<ProductoLacteo> instantanea() {
+        long inicio = METRICA_INSTANTANEA.iniciar();
+        try {
+            return combinar(base.catalogo, new TreeMap<>(cambios));
+        } finally {
+            METRICA_INSTANTANEA.terminar(inicio);
+        }
+    }
+
+    /**
+     * @return Número de productos registrados
+     */
+    public int cantidad() {
+        return cantidad;
+    }
+
+    /**
+     * @return Mayor ID asignado hasta ahora (0 si no se ha creado ninguno)
+     */
+    public int ultimoId() {
+        return contadorId.get() - 1;
+    }
+
+    /**
+     * INICIA UNA CARGA MASIVA
+     * Las operaciones siguientes se aplican en memoria de inmediato (las lecturas las ven), pero
+     * sus registros se escriben por bloques y solo se sincronizan al llamar {@link #terminarLote()}.
+     */
+    public synchronized void iniciarLote() {
+        if (bloqueLote == null) {
+            bloqueLote = ByteBuffer.allocate(TAMANO_BLOQUE_LOTE);
+        }
+    }
+
+    /**
+     * TERMINA LA CARGA MASIVA Y GUARDA EL LOTE CON UNA SOLA SINCRONIZACIÓN
+     * @throws IOException Si no se puede escribir o sincronizar el diario
+     */
+    public synchronized void terminarLote() throws IOException {
+        if (bloqueLote == null) {
+            return;
+        }
+        vaciarBloqueLote();
+        bloqueLote = null;
+        diario.force(false);
+        registrosPendientes = 0;
+    }
+
+    /**
+     * FUERZA A DISCO LO PENDIENTE Y CIERRA EL REPOSITORIO
+     * No reescribe el archivo base: el diario ya contiene todos los cambios de la sesión.
+     * @throws IOException Si no se puede sincronizar o cerrar el diario
+     */
+    public void cerrar() throws IOException {
+        long inicio = METRICA_CERRAR.iniciar();
+        EventosJfr.EventoProductos evento = new EventosJfr.EventoProductos();
+        evento.begin();
+        segundoPlano.shutdown();
+        try {
+            segundoPlano.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            synchronized (this) {
+                long pendientes = bloqueLote == null ? 0 : bloqueLote.position();
+                vaciarBloqueLote();
+                bloqueLote = null;
+                diario.force(false);
+                diario.close();
+                registrarEvento(evento, "cerrar", 0, cantidad, pendientes);
+            }
+        } catch (IOException e) {
+            METRICA_CERRAR.error();
+            throw e;
+        } finally {
+            METRICA_CERRAR.terminar(inicio);
+        }
+    }
+
+    // ============ DIARIO ============
+
+    /**
+     * Agrega un registro al diario (o al bloque del lote en curso).
+     * @return Bytes que ocupa el registro en el diario
+     */
+    private int escribirRegistro(byte operacion, int id, ProductoLacteo producto) throws IOException {
+        bufferRegistro.reset();
+        salidaRegistro.writeByte(operacion);
+        salidaRegistro.writeInt(id);
+        if (producto != null) {
+            CodecProductos.escribirProducto(salidaRegistro, producto, null);
+        }
+        byte[] carga = bufferRegistro.toByteArray();
+        crc.reset();
+        crc.update(carga, 0, carga.length);
+
+        if (bloqueLote != null) {
+            // Durante un lote el registro se acumula; el bloque se escribe cuando se llena
+            if (bloqueLote.remaining() < 8 + carga.length) {
+                vaciarBloqueLote();
+            }
+            if (bloqueLote.remaining() >= 8 + carga.length) {
+                bloqueLote.putInt(carga.length).putInt((int) crc.getValue()).put(carga);
+                registrosEnDiario++;
+                return 8 + carga.length;
+            }
+        }
+
+        ByteBuffer registro = ByteBuffer.allocate(8 + carga.length);
+        registro.putInt(carga.length).putInt((int) crc.getValue()).put(carga).flip();
+        escribirEnDiario(registro);
+        registrosEnDiario++;
+        if (bloqueLote == null && ++registrosPendientes >= LOTE_SINCRONIZACION) {
+            diario.force(false);
+            registrosPendientes = 0;
+        }
+        return 8 + carga.length;
+    }
+
+    /**
+     * COMPLETA Y GUARDA EL EVENTO DE JFR DE UNA OPERACIÓN, SI UNA GRABACIÓN LO PIDE
+     */
+    private static void registrarEvento(EventosJfr.EventoProductos evento, String operacion, int id,
+                                        long registros, long bytes) {
+        if (EventosJfr.debeRegistrar(evento)) {
+            evento.operacion = operacion;
+            evento.id = id;
+            evento.registros = registros;
+            evento.bytes = bytes;
+            evento.commit();
+        }
+    }
+
+    /**
+     * Escribe en el diario los registros acumulados del lote en curso, sin sincronizar.
+     */
+    private void vaciarBloqueLote() throws IOException {
+        if (bloqueLote == null || bloqueLote.position() == 0) {
+            return;
+        }
+        bloqueLote.flip();
+        try {
+            escribirEnDiario(bloqueLote);
+        } catch (IOException e) {
+            // El bloque conserva sus registros y se vuelve a intentar en la próxima escritura
+            bloqueLote.position(bloqueLote.limit()).limit(bloqueLote.capacity());
+            throw e;
+        }
+        bloqueLote.clear();
+    }
+
+    /**
+     * Escribe los datos al final del diario. Si falla a medias, recorta lo escrito para que el
+     * diario termine en el último registro completo; si tampoco puede, marca el repositorio como
+     * fallido y rechaza las escrituras siguientes.
+     */
+    private void escribirEnDiario(ByteBuffer datos) throws IOException {
+        if (fallo != null) {
+            throw new IOException("El diario de productos quedó inutilizable por un error anterior", fallo);
+        }
+        long inicio = diario.position();
+        try {
+            while (datos.hasRemaining()) {
+                diario.write(datos);
+            }
+        } catch (IOException e) {
+            try {
+                diario.truncate(inicio);
+                diario.position(inicio);
+            } catch (IOException errorAlRecortar) {
+                e.addSuppressed(errorAlRecortar);
+                fallo = e;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Tarea periódica: fuerza a disco los registros escritos que aún no se han sincronizado.
+     */
+    private synchronized void sincronizarPendientes() {
+        if (registrosPendientes == 0) {
+            return;
+        }
+        long inicio = METRICA_SINCRONIZAR.iniciar();
+        try {
+            diario.force(false);
+            registrosPendientes = 0;
+        } catch (IOException e) {
+            // Los registros siguen pendientes y se vuelve a intentar en la próxima revisión
+            METRICA_SINCRONIZAR.error();
+            errorSegundoPlano = e;
+        } finally {
+            METRICA_SINCRONIZAR.terminar(inicio);
+        }
+    }
+
+    /**
+     * ÚLTIMO ERROR DE LAS TAREAS EN SEGUNDO PLANO
+     * La sincronización periódica y la compactación no escriben en la consola (interrumpirían el
+     * menú): sus errores quedan aquí y en las métricas "productos_sincronizar" y "productos_compactar".
+     * @return Último error de sincronización o compactación, o null si no ha habido ninguno
+     */
+    public IOException getErrorSegundoPlano() {
+        return errorSegundoPlano;
+    }
+
+    /**
+     * Carga el archivo base vigente: mapeado si tiene índice, o completo en memoria si no.
+     * @return true si el archivo era de un formato sin índice y se cargó completo
+     */
+    private boolean cargarArchivoBase() throws IOException {
+        generacionBase = buscarUltimaGeneracion();
+        Path baseVigente = rutaGeneracion(generacionBase);
+        if (!Files.exists(baseVigente)) {
+            // Primera ejecución: todavía no hay archivo base
+            return false;
+        }
+        CatalogoMapeado catalogo = CatalogoMapeado.abrir(baseVigente);
+        if (catalogo != null) {
+            base = new Base(catalogo, secuenciaVersion.incrementAndGet());
+            cantidad = catalogo.cantidad();
+            if (cantidad > 0) {
+                contadorId.set(catalogo.idEn(cantidad - 1) + 1);
+            }
+            return false;
+        }
+        // Formato anterior sin índice: se carga completo y el constructor lo convierte enseguida
+        try (InputStream in = Files.newInputStream(baseVigente)) {
+            for (ProductoLacteo p : CodecProductos.leer(in)) {
+                aplicarGuardar(p);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Aplica los registros del diario hasta el final o hasta el primero incompleto o dañado.
+     * @return Posición del final del último registro válido
+     */
+    private long reproducirDiario() throws IOException {
+        if (!Files.exists(archivoDiario)) {
+            return 0;
+        }
+        long posicion = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+                Files.newInputStream(archivoDiario), 64 * 1024))) {
+            while (true) {
+                byte[] carga;
+                try {
+                    int longitud = in.readInt();
+                    int crcEsperado = in.readInt();
+                    if (longitud <= 0 || longitud > (1 << 20)) {
+                        break;
+                    }
+                    carga = new byte[longitud];
+                    in.readFully(carga);
+                    crc.reset();
+                    crc.update(carga, 0, longitud);
+                    if ((int) crc.getValue() != crcEsperado) {
+                        break;
+                    }
+                } catch (EOFException e) {
+                    break;
+                }
+
+                DataInputStream registro = new DataInputStream(new ByteArrayInputStream(carga));
+                byte operacion = registro.readByte();
+                int id = registro.readInt();
+                if (operacion == OP_ELIMINAR) {
+                    aplicarEliminar(id);
+                } else {
+                    aplicarGuardar(CodecProductos.leerProducto(registro, null));
+                }
+                posicion += 8 + carga.length;
+                registrosEnDiario++;
+            }
+        }
+        return posicion;
+    }
+
+    /**
+     * Busca el registro vigente de un producto sin bloquear. Los productos del archivo base se
+     * construyen una vez y se guardan en los cambios con la versión de esa base.
+     */
+    private Registro buscarRegistro(int id) {
+        while (true) {
+            // Primero los cambios y luego la base, por el mismo motivo que en listar()
+            Registro registro = cambios.get(id);
+            if (registro != null) {
+                return registro.producto == null ? null : registro;
+            }
+            Base baseActual = base;
+            if (baseActual.catalogo == null) {
+                return null;
+            }
+            ProductoLacteo producto;
+            try {
+                producto = baseActual.catalogo.obtener(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException("No se pudo leer el producto " + id, e);
+            }
+            if (producto == null) {
+                return null;
+            }
+            Registro leido = new Registro(producto, baseActual.version);
+            registro = cambios.putIfAbsent(id, leido);
+            if (registro != null) {
+                // Otro hilo lo construyó o lo modificó primero
+                return registro.producto == null ? null : registro;
+            }
+            if (base == baseActual) {
+                return leido;
+            }
+            // Se compactó mientras se leía: el producto puede venir de la base anterior
+            cambios.remove(id, leido);
+        }
+    }
+
+    private boolean existe(int id) {
+        Registro registro = cambios.get(id);
+        if (registro != null) {
+            return registro.producto != null;
+        }
+        CatalogoMapeado catalogo = base.catalogo;
+        return catalogo != null && catalogo.contiene(id);
+    }
+
+    /**
+     * Aplica una escritura en memoria con una versión nueva. Lo llaman los métodos synchronized
+     * y la recuperación al abrir.
+     */
+    private void aplicarGuardar(ProductoLacteo producto) {
+        int id = producto.getId();
+        if (!existe(id)) {
+            cantidad++;
+        }
+        cambios.put(id, new Registro(producto, secuenciaVersion.incrementAndGet()));
+        contadorId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    private void aplicarEliminar(int id) {
+        if (!existe(id)) {
+            return;
+        }
+        cantidad--;
+        // Marca de eliminado, aunque el producto no esté en la base actual: una compactación en
+        // curso puede estar escribiéndolo en la base nueva. La marca se quita al compactar.
+        cambios.put(id, new Registro(null, secuenciaVersion.incrementAndGet()));
+    }
+
+    /**
+     * Une el archivo base con los cambios, en orden de ID. Los productos que solo están en el
+     * archivo base se construyen para la lista, pero no se guardan en memoria.
+     */
+    private static List<ProductoLacteo> combinar(CatalogoMapeado base, TreeMap<Integer, Registro> cambios) {
+        int total = (base == null ? 0 : base.cantidad()) + cambios.size();
+        List<ProductoLacteo> resultado = new ArrayList<>(total);
+        Iterator<Map.Entry<Integer, Registro>> pendientes = cambios.entrySet().iterator();
+        Map.Entry<Integer, Registro> siguiente = pendientes.hasNext() ? pendientes.next() : null;
+
+        int enBase = base == null ? 0 : base.cantidad();
+        try {
+            for (int i = 0; i < enBase; i++) {
+                int id = base.idEn(i);
+                while (siguiente != null && siguiente.getKey() < id) {
+                    agregarSiExiste(resultado, siguiente.getValue());
+                    siguiente = pendientes.hasNext() ? pendientes.next() : null;
+                }
+                if (siguiente != null && siguiente.getKey() == id) {
+                    agregarSiExiste(resultado, siguiente.getValue());
+                    siguiente = pendientes.hasNext() ? pendientes.next() : null;
+                } else {
+                    resultado.add(base.obtenerEn(i));
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer el archivo de productos", e);
+        }
+        while (siguiente != null) {
+            agregarSiExiste(resultado, siguiente.getValue());
+            siguiente = pendientes.hasNext() ? pendientes.next() : null;
+        }
+        return resultado;
+    }
+
+    private static void agregarSiExiste(List<ProductoLacteo> resultado, Registro registro) {
+        if (registro.producto != null) {
+            resultado.add(registro.producto);
+        }
+    }
+
+    // ============ GENERACIONES DEL ARCHIVO BASE ============
+
+    /**
+     * @return Ruta del archivo base de una generación (la 0 es el archivo sin número)
+     */
+    private Path rutaGeneracion(long generacion) {
+        return generacion == 0 ? archivoBase : archivoBase.resolveSibling(archivoBase.getFileName() + "." + generacion);
+    }
+
+    /**
+     * Busca la generación más alta del archivo base y borra las anteriores, que ya no se usan.
+     * Se llama al abrir, antes de mapear ningún archivo.
+     * @return Generación más alta encontrada, o 0 si no hay ninguna con número
+     */
+    private long buscarUltimaGeneracion() throws IOException {
+        Path carpeta = archivoBase.toAbsolutePath().getParent();
+        String prefijo = archivoBase.getFileName() + ".";
+        List<Long> generaciones = new ArrayList<>();
+        try (DirectoryStream<Path> archivos = Files.newDirectoryStream(carpeta, prefijo + "*")) {
+            for (Path archivo : archivos) {
+                String sufijo = archivo.getFileName().toString().substring(prefijo.length());
+                // Solo números: así no se confunden con el diario (".journal") ni los temporales (".tmp")
+                if (!sufijo.isEmpty() && sufijo.length() < 19 && sufijo.chars().allMatch(Character::isDigit)) {
+                    generaciones.add(Long.parseLong(sufijo));
+                }
+            }
+        }
+        long ultima = generaciones.stream().mapToLong(Long::longValue).max().orElse(0);
+        for (long generacion : generaciones) {
+            if (generacion < ultima) {
+                borrarSiSePuede(rutaGeneracion(generacion));
+            }
+        }
+        if (ultima > 0) {
+            borrarSiSePuede(archivoBase);
+        }
+        return ultima;
+    }
+
+    /**
+     * Borra un archivo base que ya no se usa. Si falla (en Windows, mientras siga mapeado) se
+     * deja: la próxima vez que se abra el repositorio se vuelve a intentar.
+     */
+    private static void borrarSiSePuede(Path archivo) {
+        try {
+            Files.deleteIfExists(archivo);
+        } catch (IOException e) {
+            // Se borrará al abrir de nuevo el repositorio
+        }
+    }
+
+    // ============ COMPACTACIÓN ============
+
+    /**
+     * Tarea periódica: si el diario tiene suficientes registros, vuelca el estado actual
+     * en el archivo base sin bloquear las operaciones mientras se escribe.
+     */
+    private void compactarSiEsNecesario() {
+        CatalogoMapeado baseActual;
+        TreeMap<Integer, Registro> copiaCambios;
+        long posicionCorte;
+        synchronized (this) {
+            // Durante un lote no se compacta: el diario se compacta en la revisión siguiente al lote.
+            // Tampoco con un registro a medias, que se copiaría al diario nuevo.
+            if (registrosEnDiario < REGISTROS_PARA_COMPACTAR || bloqueLote != null || fallo != null) {
+                return;
+            }
+            copiaCambios = new TreeMap<>(cambios);
+            baseActual = base.catalogo;
+            try {
+                posicionCorte = diario.position();
+            } catch (IOException e) {
+                return;
+            }
+        }
+
+        compactarDesde(baseActual, copiaCambios, posicionCorte);
+    }
+
+    /**
+     * Compacta con el estado tomado en el corte, registrando la métrica y el evento. Si falla,
+     * solo lo anota (ver {@link #getErrorSegundoPlano()}): el archivo base y el diario anteriores
+     * siguen en uso.
+     */
+    private void compactarDesde(CatalogoMapeado baseActual, TreeMap<Integer, Registro> copiaCambios,
+                                long posicionCorte) {
+        long inicio = METRICA_COMPACTAR.iniciar();
+        EventosJfr.EventoProductos evento = new EventosJfr.EventoProductos();
+        evento.begin();
+        try {
+            List<ProductoLacteo> copia = combinar(baseActual, copiaCambios);
+            long bytes = compactar(copia, copiaCambios, posicionCorte);
+            registrarEvento(evento, "compactar", 0, copia.size(), bytes);
+        } catch (IOException e) {
+            // El diario sigue completo; se intentará de nuevo en la próxima revisión
+            METRICA_COMPACTAR.error();
+            errorSegundoPlano = e;
+        } catch (UncheckedIOException e) {
+            METRICA_COMPACTAR.error();
+            errorSegundoPlano = e.getCause();
+        } finally {
+            METRICA_COMPACTAR.terminar(inicio);
+        }
+    }
+
+    /**
+     * Escribe la siguiente generación del archivo base y reescribe el diario a partir del corte.
+     * Si algo falla, el repositorio sigue usando el archivo base y el diario anteriores.
+     * @return Bytes escritos (archivo base nuevo más los registros copiados al diario nuevo)
+     */
+    private long compactar(List<ProductoLacteo> copia, Map<Integer, Registro> cambiosEnCorte,
+                           long posicionCorte) throws IOException {
+        // 1. Nuevo archivo base con el estado en el momento del corte
+        Path baseTemporal = Paths.get(archivoBase + ".tmp");
+        long bytesEscritos;
+        try (FileChannel canal = FileChannel.open(baseTemporal, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            OutputStream out = Channels.newOutputStream(canal);
+            CodecProductos.escribir(copia, out);
+            canal.force(true);
+            bytesEscritos = canal.size();
+        }
+
+        synchronized (this) {
+            // 2. Nuevo diario solo con los registros escritos después del corte. Queda abierto:
+            //    el diario actual no se cierra hasta tener listo el que lo reemplaza
+            Path diarioTemporal = Paths.get(archivoDiario + ".tmp");
+            long finalActual = diario.position();
+            Path baseAnterior = rutaGeneracion(generacionBase);
+            Path baseNueva = rutaGeneracion(generacionBase + 1);
+            FileChannel nuevo = null;
+            try {
+                nuevo = FileChannel.open(diarioTemporal, StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                try (FileChannel actual = FileChannel.open(archivoDiario, StandardOpenOption.READ)) {
+                    long copiados = 0;
+                    while (copiados < finalActual - posicionCorte) {
+                        copiados += actual.transferTo(posicionCorte + copiados, finalActual - posicionCorte - copiados, nuevo);
+                    }
+                    nuevo.force(true);
+                    bytesEscritos += copiados;
+                }
+
+                // 3. Primero el archivo base y luego el diario; si hay una caída entre ambos pasos,
+                //    el diario viejo se vuelve a aplicar sobre la base nueva con el mismo resultado.
+                //    La base nueva lleva otro nombre, así no se reemplaza el archivo mapeado.
+                Files.move(baseTemporal, baseNueva, StandardCopyOption.ATOMIC_MOVE);
+                // La base nueva debe estar en disco antes de que el diario acortado la necesite
+                sincronizarDirectorio();
+                reemplazarDiario(diarioTemporal, finalActual);
+            } catch (IOException | RuntimeException e) {
+                // El diario y el archivo base anteriores siguen completos y en uso
+                cerrarSinError(nuevo, e);
+                borrarSiSePuede(baseNueva);
+                borrarSiSePuede(baseTemporal);
+                borrarSiSePuede(diarioTemporal);
+                throw e;
+            }
+            FileChannel anterior = diario;
+            diario = nuevo;
+            diario.position(diario.size());
+            cerrarSinError(anterior, null);
+            registrosEnDiario = 0;
+            registrosPendientes = 0;
+
+            // 4. Se publica la base nueva con una versión nueva y luego se quitan los cambios que no
+            //    se tocaron después del corte (ya están en ella). Un cliente que leyó un producto antes
+            //    de compactar tendrá que volver a leerlo para actualizarlo de forma optimista.
+            generacionBase++;
+            base = new Base(CatalogoMapeado.abrir(baseNueva), secuenciaVersion.incrementAndGet());
+            for (Map.Entry<Integer, Registro> cambio : cambiosEnCorte.entrySet()) {
+                cambios.remove(cambio.getKey(), cambio.getValue());
+            }
+            // 5. El diario nuevo ya está en su lugar: su nombre debe llegar al disco antes de recibir
+            //    escrituras y antes de borrar la base anterior. Si no se puede, una caída podría dejar
+            //    el diario viejo y perder lo que se escriba en el nuevo, así que se rechazan las escrituras.
+            try {
+                sincronizarDirectorio();
+            } catch (IOException e) {
+                fallo = e;
+                throw e;
+            }
+            // En Windows el archivo anterior sigue mapeado hasta que se libera su mapa; si no se
+            // puede borrar ahora, se borra al abrir de nuevo el repositorio
+            borrarSiSePuede(baseAnterior);
+        }
+        return bytesEscritos;
+    }
+
+    /**
+     * Pone el diario nuevo en el lugar del actual. El actual se cierra solo mientras se mueve el
+     * archivo (en Windows no se puede reemplazar un archivo abierto) y, si el movimiento falla,
+     * se vuelve a abrir en la misma posición para que las escrituras sigan funcionando.
+     */
+    private void reemplazarDiario(Path diarioTemporal, long finalActual) throws IOException {
+        diario.close();
+        try {
+            Files.move(diarioTemporal, archivoDiario, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            try {
+                diario = FileChannel.open(archivoDiario, StandardOpenOption.WRITE);
+                diario.position(finalActual);
+            } catch (IOException errorAlReabrir) {
+                e.addSuppressed(errorAlReabrir);
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Fuerza a disco la carpeta del archivo base, para que los renombrados y archivos nuevos
+     * sobrevivan a una caída. Windows no permite abrir una carpeta como canal; ahí no hace nada.
+     */
+    private void sincronizarDirectorio() throws IOException {
+        FileChannel canal;
+        try {
+            canal = FileChannel.open(archivoBase.toAbsolutePath().getParent(), StandardOpenOption.READ);
+        } catch (IOException e) {
+            if (System.getProperty("os.name", "").startsWith("Windows")) {
+                return;
+            }
+            throw e;
+        }
+        try (canal) {
+            canal.force(true);
+        }
+    }
+
+    private static void cerrarSinError(FileChannel canal, Exception principal) {
+        if (canal == null) {
+            return;
+        }
+        try {
+            canal.close();
+        } catch (IOException e) {
+            if (principal != null) {
+                principal.addSuppressed(e);
+            }
+        }
+    }
+
+    // ============ REGISTROS ============
+
+    /**
+     * PRODUCTO JUNTO CON SU VERSIÓN
+     * Inmutable: cada escritura crea un registro nuevo con una versión mayor.
+     */
+    public static final class Registro {
+        private final ProductoLacteo producto;
+        private final long version;
+
+        Registro(ProductoLacteo producto, long version) {
+            this.producto = producto;
+            this.version = version;
+        }
+
+        /**
+         * @return Producto en el momento de leerlo
+         */
+        public ProductoLacteo getProducto() {
+            return producto;
+        }
+
+        /**
+         * @return Versión para usar en {@link ProductoRepository#actualizar(int, ProductoLacteo, long)}
+         */
+        public long getVersion() {
+            return version;
+        }
+    }
+
+    /**
+     * Archivo base mapeado y versión de los productos que se leen de él; se publican juntos.
+     */
+    private static final class Base {
+        // null si no hay archivo base o si es de un formato sin índice
+        final CatalogoMapeado catalogo;
+        final long version;
+
+        Base(CatalogoMapeado catalogo, long version) {
+            this.catalogo = catalogo;
+            this.version = version;
+        }
+    }
+}
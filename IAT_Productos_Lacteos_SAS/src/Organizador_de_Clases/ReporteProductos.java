@@ -0,0 +1,178 @@
+package Organizador_de_Clases;
+//Creamos la clase que escribe los reportes de productos en texto y CSV
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * REPORTES DE PRODUCTOS LÁCTEOS
+ *
+ * Genera los reportes en la carpeta indicada, con la fecha y hora en el nombre del archivo.
+ * No escribe nada en consola: quien lo llama (el menú o el modo por lotes) decide qué mostrar.
+ */
+public final class ReporteProductos {
+
+    // Duración y errores de cada tipo de reporte (ver Metricas)
+    private static final Metricas.Operacion METRICA_TEXTO = Metricas.operacion("reporte_txt");
+    private static final Metricas.Operacion METRICA_CSV = Metricas.operacion("reporte_csv");
+
+    private ReporteProductos() {
+    }
+
+    /**
+     * GENERA EL REPORTE EN FORMATO DE TEXTO LEGIBLE
+     * @param productos Productos a incluir
+     * @param carpeta Carpeta donde se crea el archivo
+     * @return Archivo generado
+     * @throws IOException Si ocurre un error al escribir
+     */
+    public static File generarTexto(List<ProductoLacteo> productos, String carpeta) throws IOException {
+        File archivo = archivoTexto(carpeta);
+        escribirTexto(productos, archivo);
+        return archivo;
+    }
+
+    /**
+     * GENERA EL REPORTE EN FORMATO CSV PARA EXCEL
+     * @param productos Productos a incluir
+     * @param carpeta Carpeta donde se crea el archivo
+     * @return Archivo generado
+     * @throws IOException Si ocurre un error al escribir
+     */
+    public static File generarCSV(List<ProductoLacteo> productos, String carpeta) throws IOException {
+        File archivo = archivoCSV(carpeta);
+        escribirCSV(productos, archivo);
+        return archivo;
+    }
+
+    /**
+     * @param carpeta Carpeta de reportes
+     * @return Archivo para un reporte de texto con la fecha y hora actuales en el nombre
+     */
+    public static File archivoTexto(String carpeta) {
+        return new File(carpeta, "Gestión de Producción Reporte_" + marcaFecha() + ".txt");
+    }
+
+    /**
+     * @param carpeta Carpeta de reportes
+     * @return Archivo para un reporte CSV con la fecha y hora actuales en el nombre
+     */
+    public static File archivoCSV(String carpeta) {
+        return new File(carpeta, "Reporte_" + marcaFecha() + ".csv");
+    }
+
+    /**
+     * ESCRIBE EL REPORTE DE TEXTO EN EL ARCHIVO INDICADO
+     * @param productos Productos a incluir
+     * @param archivo Archivo de destino (se reemplaza si existe)
+     * @throws IOException Si ocurre un error al escribir
+     */
+    public static void escribirTexto(List<ProductoLacteo> productos, File archivo) throws IOException {
+        long inicio = METRICA_TEXTO.iniciar();
+        EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+        evento.begin();
+        boolean correcto = false;
+        try {
+            escribirTextoEn(productos, archivo);
+            correcto = true;
+        } catch (IOException e) {
+            METRICA_TEXTO.error();
+            throw e;
+        } finally {
+            METRICA_TEXTO.terminar(inicio);
+            registrarEvento(evento, "TXT", archivo, productos.size(), correcto);
+        }
+    }
+
+    private static void escribirTextoEn(List<ProductoLacteo> productos, File archivo) throws IOException {
+        try (FileWriter writer = new FileWriter(archivo)) {
+            writer.write("=== GESTIÓN DE PRODUCCIÓN  REPORTE DE PRODUCTOS LÁCTEOS ===\n");
+            writer.write("Fecha generación: " + new Date() + "\n");
+            writer.write("Total productos: " + productos.size() + "\n\n");
+
+            for (ProductoLacteo p : productos) {
+                writer.write("ID: " + p.getId() + "\n");
+                writer.write("Tipo: " + p.getClass().getSimpleName() + "\n");
+                p.mostrarInfoEnArchivo(writer);
+                writer.write("----------------------------\n");
+            }
+        }
+    }
+
+    /**
+     * ESCRIBE EL REPORTE CSV EN EL ARCHIVO INDICADO
+     * @param productos Productos a incluir
+     * @param archivo Archivo de destino (se reemplaza si existe)
+     * @throws IOException Si ocurre un error al escribir
+     */
+    public static void escribirCSV(List<ProductoLacteo> productos, File archivo) throws IOException {
+        long inicio = METRICA_CSV.iniciar();
+        EventosJfr.EventoReporte evento = new EventosJfr.EventoReporte();
+        evento.begin();
+        boolean correcto = false;
+        try {
+            escribirCSVEn(productos, archivo);
+            correcto = true;
+        } catch (IOException e) {
+            METRICA_CSV.error();
+            throw e;
+        } finally {
+            METRICA_CSV.terminar(inicio);
+            registrarEvento(evento, "CSV", archivo, productos.size(), correcto);
+        }
+    }
+
+    private static void escribirCSVEn(List<ProductoLacteo> productos, File archivo) throws IOException {
+        try (FileWriter writer = new FileWriter(archivo)) {
+            // Encabezado CSV
+            writer.write("ID,Tipo,Nombre,Horas Fermentación,Sabores,Contiene Frutas,Lleva Azúcar\n");
+
+            for (ProductoLacteo p : productos) {
+                writer.write(p.getId() + ",");
+                writer.write(p.getClass().getSimpleName() + ",");
+                writer.write("\"" + p.getNombre() + "\",");
+
+                if (p instanceof Yogurt) {
+                    Yogurt y = (Yogurt) p;
+                    writer.write(y.getHorasFermentacion() + ",N/A,N/A,N/A");
+                }
+                else if (p instanceof Kumis) {
+                    Kumis k = (Kumis) p;
+                    writer.write(k.getHorasFermentacion() + ",N/A,N/A,N/A");
+                }
+                else if (p instanceof ProductoLacteoConSabor) {
+                    ProductoLacteoConSabor ps = (ProductoLacteoConSabor) p;
+                    writer.write(ps.getHorasFermentacion() + ",");
+                    writer.write("\"" + String.join(";", ps.getSabores()) + "\",");
+                    writer.write(ps.tieneFrutas() ? "Sí," : "No,");
+                    writer.write(ps.llevaAzucar() ? "Sí" : "No");
+                }
+
+                writer.write("\n");
+            }
+        }
+    }
+
+    /**
+     * COMPLETA Y GUARDA EL EVENTO DE JFR DEL REPORTE, SI UNA GRABACIÓN LO PIDE
+     */
+    private static void registrarEvento(EventosJfr.EventoReporte evento, String formato, File archivo,
+                                        int productos, boolean correcto) {
+        if (EventosJfr.debeRegistrar(evento)) {
+            evento.formato = formato;
+            evento.archivo = archivo.getPath();
+            evento.registros = correcto ? productos : 0;
+            evento.bytes = correcto ? archivo.length() : 0;
+            evento.correcto = correcto;
+            evento.commit();
+        }
+    }
+
+    private static String marcaFecha() {
+        return new SimpleDateFormat("yyyyMMdd_HHmmss").format(new Date());
+    }
+}
@@ -0,0 +1,156 @@
+package Organizador_de_Clases;
+//Creamos las pruebas de rendimiento con JMH de guardar, cargar y reportar productos
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * PRUEBAS DE RENDIMIENTO CON JMH DE LOS PRODUCTOS
+ *
+ * Mide lo mismo que {@link BancoRendimiento}, con sus mismos productos de prueba:
+ * 1. Guardar y cargar todos los productos con {@link CodecProductos}, en memoria, frente al formato
+ *    anterior (ObjectOutputStream / ObjectInputStream de la misma lista)
+ * 2. Abrir {@link ProductoRepository} sobre un archivo base ya escrito, y listar todo
+ * 3. Reportes TXT y CSV con {@link ReporteProductos}
+ *
+ * CADA OPERACIÓN RECORRE LA ESCALA COMPLETA: se mide en milisegundos. Los archivos se escriben
+ * en una carpeta temporal que se borra al terminar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RendimientoProductos {
+
+    @Param({"1000", "100000", "10000000"})
+    public int escala;
+
+    private List<ProductoLacteo> productos;
+    private byte[] archivo;
+    private byte[] archivoSerializado;
+    private ByteArrayOutputStream codificados;
+    private Path carpeta;
+    private Path archivoBase;
+    private File reporteTexto;
+    private File reporteCSV;
+
+    @Setup(Level.Trial)
+    public void preparar() throws IOException {
+        productos = BancoRendimiento.crearProductos(escala);
+        codificados = new ByteArrayOutputStream(escala * 40);
+        CodecProductos.escribir(productos, codificados);
+        archivo = codificados.toByteArray();
+        archivoSerializado = serializar();
+
+        carpeta = Files.createTempDirectory("jmh-productos");
+        archivoBase = carpeta.resolve("productos.dat");
+        Files.write(archivoBase, archivo);
+        // La primera apertura convierte el archivo al formato mapeado; se mide desde la segunda
+        new ProductoRepository(archivoBase.toString()).cerrar();
+
+        reporteTexto = carpeta.resolve("reporte.txt").toFile();
+        reporteCSV = carpeta.resolve("reporte.csv").toFile();
+    }
+
+    @TearDown(Level.Trial)
+    public void borrarCarpeta() throws IOException {
+        try (Stream<Path> archivos = Files.walk(carpeta)) {
+            archivos.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public int escribirCodec() throws IOException {
+        codificados.reset();
+        CodecProductos.escribir(productos, codificados);
+        return codificados.size();
+    }
+
+    @Benchmark
+    public List<ProductoLacteo> leerCodec() throws IOException {
+        return CodecProductos.leer(new ByteArrayInputStream(archivo));
+    }
+
+    @Benchmark
+    public int escribirSerializacionJava() throws IOException {
+        codificados.reset();
+        // Como lo guardaba la versión anterior: la lista completa con un solo writeObject
+        try (ObjectOutputStream salida = new ObjectOutputStream(codificados)) {
+            salida.writeObject(new ArrayList<>(productos));
+        }
+        return codificados.size();
+    }
+
+    @Benchmark
+    public Object leerSerializacionJava() throws IOException, ClassNotFoundException {
+        try (ObjectInputStream entrada = new ObjectInputStream(new ByteArrayInputStream(archivoSerializado))) {
+            return entrada.readObject();
+        }
+    }
+
+    @Benchmark
+    public int abrirRepositorio() throws IOException {
+        ProductoRepository repositorio = new ProductoRepository(archivoBase.toString());
+        int cantidad = repositorio.cantidad();
+        repositorio.cerrar();
+        return cantidad;
+    }
+
+    @Benchmark
+    public List<ProductoLacteo> listarRepositorio() throws IOException {
+        ProductoRepository repositorio = new ProductoRepository(archivoBase.toString());
+        List<ProductoLacteo> lista = repositorio.listar();
+        repositorio.cerrar();
+        return lista;
+    }
+
+    @Benchmark
+    public long reporteTexto() throws IOException {
+        ReporteProductos.escribirTexto(productos, reporteTexto);
+        return reporteTexto.length();
+    }
+
+    @Benchmark
+    public long reporteCSV() throws IOException {
+        ReporteProductos.escribirCSV(productos, reporteCSV);
+        return reporteCSV.length();
+    }
+
+    /**
+     * LA MISMA LISTA EN EL FORMATO ANTERIOR, PARA MEDIR SU LECTURA
+     */
+    private byte[] serializar() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(escala * 100);
+        try (ObjectOutputStream salida = new ObjectOutputStream(bytes)) {
+            salida.writeObject(new ArrayList<>(productos));
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+// Declaración del paquete al que pertenece la clase (el mismo de comercialización, para usar sus datos de prueba)
+package OrganizadordeClases;
+
+// Importaciones para los montos
+import java.math.BigDecimal;
+
+// Importaciones de utilidades
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Importaciones de JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pruebas de rendimiento con JMH de las operaciones por cliente de comercialización:
+ * búsqueda por NIT (en el heap y fuera de él, con un 10% de NIT inexistentes) y cálculo de
+ * la factura en centavos frente al cálculo anterior con BigDecimal.
+ *
+ * Usa los mismos clientes de prueba que {@link BancoRendimiento}. Cada escala se ejecuta en su
+ * propia JVM con 8 GB de heap, suficientes para los 10.000.000 de clientes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RendimientoClientes {
+
+    // NIT que se buscan, repetidos en ciclo para no medir la creación de textos
+    private static final int NIT_DISTINTOS = 1 << 16;
+
+    @Param({"1000", "100000", "10000000"})
+    public int escala;
+
+    private Cliente[] clientes;
+    private ClienteService servicio;
+    private ClienteServiceFueraDeHeap fueraDeHeap;
+    private FacturaService facturas;
+    private String[] nits;
+
+    // Siguiente NIT y siguiente cliente de cada prueba
+    private int siguienteNit;
+    private int siguienteCliente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        List<Cliente> lista = BancoRendimiento.crearClientes(escala);
+        clientes = lista.toArray(new Cliente[0]);
+        servicio = new ClienteService();
+        servicio.agregarClientes(lista);
+        fueraDeHeap = new ClienteServiceFueraDeHeap(escala);
+        fueraDeHeap.agregarClientes(lista);
+        facturas = new FacturaService(ReglasPrecio.predeterminadas());
+
+        // El 90% de los NIT existe y el 10% no
+        SplittableRandom azar = new SplittableRandom(42);
+        nits = new String[NIT_DISTINTOS];
+        for (int i = 0; i < nits.length; i++) {
+            long desplazamiento = azar.nextInt(10) == 0 ? escala + azar.nextInt(escala) : azar.nextInt(escala);
+            nits[i] = Long.toString(BancoRendimiento.PRIMER_NIT + desplazamiento);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        fueraDeHeap.cerrar();
+    }
+
+    @Benchmark
+    public Cliente buscarPorId() {
+        return servicio.buscarPorId(siguienteNit());
+    }
+
+    @Benchmark
+    public Cliente buscarPorIdFueraDeHeap() {
+        return fueraDeHeap.buscarPorId(siguienteNit());
+    }
+
+    @Benchmark
+    public Factura calcularFactura() {
+        return facturas.calcularFactura(siguienteCliente());
+    }
+
+    @Benchmark
+    public BigDecimal[] calcularFacturaConBigDecimal() {
+        Cliente cliente = siguienteCliente();
+        return PruebaEquivalenciaDinero.facturaConBigDecimal(cliente.getMontoCompra(), cliente instanceof ClienteMayorista);
+    }
+
+    private String siguienteNit() {
+        return nits[siguienteNit++ & (NIT_DISTINTOS - 1)];
+    }
+
+    private Cliente siguienteCliente() {
+        Cliente cliente = clientes[siguienteCliente];
+        siguienteCliente = siguienteCliente + 1 == clientes.length ? 0 : siguienteCliente + 1;
+        return cliente;
+    }
+}
@@ -0,0 +1,83 @@
+// Declaración del paquete al que pertenece la clase (el mismo de comercialización, para usar sus datos de prueba)
+package OrganizadordeClases;
+
+// Importaciones para borrar los reportes generados
+import java.io.File;
+
+// Importaciones de utilidades
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Importaciones de JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pruebas de rendimiento con JMH de las operaciones sobre todos los clientes: el análisis de
+ * {@link MotorAnalitica} y los reportes TXT, CSV y CSV paralelo de {@link ReporteService}.
+ *
+ * Cada operación recorre la escala completa, así que se mide en milisegundos por reporte.
+ * Los reportes se escriben en la carpeta de reportes con el prefijo "jmh_" y se borran al terminar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RendimientoReportes {
+
+    @Param({"1000", "100000", "10000000"})
+    public int escala;
+
+    private ClienteService servicio;
+    private List<Cliente> instantanea;
+    private String nombreTexto;
+    private String nombreCSV;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        servicio = new ClienteService();
+        servicio.agregarClientes(BancoRendimiento.crearClientes(escala));
+        instantanea = servicio.instantaneaClientes();
+        nombreTexto = "jmh_txt_" + escala;
+        nombreCSV = "jmh_csv_" + escala;
+    }
+
+    @TearDown(Level.Trial)
+    public void borrarReportes() {
+        new File(ReporteService.CARPETA_REPORTES, nombreTexto + ".txt").delete();
+        new File(ReporteService.CARPETA_REPORTES, nombreCSV + ".csv").delete();
+    }
+
+    @Benchmark
+    public MotorAnalitica.Resultado analizar() {
+        return MotorAnalitica.analizar(servicio, 10);
+    }
+
+    @Benchmark
+    public boolean reporteTexto() {
+        return ReporteService.generarReporteTexto(servicio.iterarClientes(), nombreTexto);
+    }
+
+    @Benchmark
+    public boolean reporteCSV() {
+        return ReporteService.generarReporteCSV(servicio.iterarClientes(), nombreCSV);
+    }
+
+    @Benchmark
+    public boolean reporteCSVParalelo() {
+        return ReporteService.generarReporteCSVParalelo(instantanea, nombreCSV);
+    }
+}
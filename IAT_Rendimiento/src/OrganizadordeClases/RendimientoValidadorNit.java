@@ -0,0 +1,116 @@
+// Declaración del paquete al que pertenece la clase (el mismo de comercialización, para usar sus datos de prueba)
+package OrganizadordeClases;
+
+// Importaciones de utilidades
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Importaciones de JMH
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pruebas de rendimiento con JMH de la validación de NIT: {@link ValidadorNit} frente a la
+ * validación anterior de la consola (matches("\\d+"), longitud y Long.parseLong).
+ *
+ * Ambas reciben la misma mezcla fija de textos, generada con una semilla:
+ * - 50% NIT válidos de 6 a 12 dígitos
+ * - 20% NIT con dígito de verificación correcto ("900123456-8")
+ * - 10% con dígito de verificación incorrecto
+ * - 10% con letras o espacios, 5% de más de 12 dígitos y 5% cero o vacíos
+ * La validación anterior no aceptaba el dígito de verificación; aquí se le agrega con otra
+ * expresión regular para que las dos den el mismo resultado, y al preparar se comprueba que así sea.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RendimientoValidadorNit {
+
+    // Textos distintos; se recorren en ciclo
+    private static final int TEXTOS = 1 << 10;
+
+    private String[] textos;
+    private int siguiente;
+
+    @Setup(Level.Trial)
+    public void preparar() {
+        SplittableRandom azar = new SplittableRandom(42);
+        textos = new String[TEXTOS];
+        for (int i = 0; i < TEXTOS; i++) {
+            long nit = azar.nextLong(100_000L, 1_000_000_000_000L);
+            int tipo = azar.nextInt(100);
+            if (tipo < 50) {
+                textos[i] = Long.toString(nit);
+            } else if (tipo < 70) {
+                textos[i] = nit + "-" + ValidadorNit.digitoVerificacion(nit);
+            } else if (tipo < 80) {
+                textos[i] = nit + "-" + (ValidadorNit.digitoVerificacion(nit) + 1) % 10;
+            } else if (tipo < 90) {
+                textos[i] = azar.nextBoolean() ? "90012A456" : nit + " ";
+            } else if (tipo < 95) {
+                textos[i] = "1" + azar.nextLong(100_000_000_000L, 1_000_000_000_000L);
+            } else {
+                textos[i] = azar.nextBoolean() ? "0" : "";
+            }
+        }
+        for (String texto : textos) {
+            if (ValidadorNit.parsearConDigito(texto) != validarConExpresionRegular(texto)) {
+                throw new IllegalStateException("Las dos validaciones no coinciden para \"" + texto + "\"");
+            }
+        }
+    }
+
+    @Benchmark
+    public long validadorNit() {
+        return ValidadorNit.parsearConDigito(siguienteTexto());
+    }
+
+    @Benchmark
+    public long expresionRegular() {
+        return validarConExpresionRegular(siguienteTexto());
+    }
+
+    private String siguienteTexto() {
+        return textos[siguiente++ & (TEXTOS - 1)];
+    }
+
+    /**
+     * Validación como la de la consola antes de ValidadorNit, más el dígito de verificación.
+     * @return NIT sin el dígito de verificación, o ValidadorNit.NO_VALIDO
+     */
+    private static long validarConExpresionRegular(String texto) {
+        String numero = texto;
+        int digito = -1;
+        if (texto.matches("\\d+-\\d")) {
+            String[] partes = texto.split("-");
+            numero = partes[0];
+            digito = Integer.parseInt(partes[1]);
+        } else if (!texto.matches("\\d+")) {
+            return ValidadorNit.NO_VALIDO;
+        }
+        if (numero.length() > ValidadorNit.MAX_DIGITOS) {
+            return ValidadorNit.NO_VALIDO;
+        }
+        try {
+            long nit = Long.parseLong(numero);
+            if (nit <= 0 || (digito >= 0 && ValidadorNit.digitoVerificacion(nit) != digito)) {
+                return ValidadorNit.NO_VALIDO;
+            }
+            return nit;
+        } catch (NumberFormatException e) {
+            return ValidadorNit.NO_VALIDO;
+        }
+    }
+}